@@ -37,6 +37,8 @@ public class RemoteProcessGroupStatus implements Cloneable {
     private Integer inactiveRemotePortCount;
 
     private long averageLineageDuration;
+    private Integer adaptiveBatchCount;
+    private Long achievedThroughput;
 
     public String getTargetUri() {
         return uri;
@@ -150,6 +152,30 @@ public class RemoteProcessGroupStatus implements Cloneable {
         this.averageLineageDuration = timeUnit.toMillis(duration);
     }
 
+    /**
+     * @return the number of FlowFiles per transaction that adaptive batching currently chooses, averaged over the Input
+     * Ports of the group that use it, or <code>null</code> if none of them use adaptive batching
+     */
+    public Integer getAdaptiveBatchCount() {
+        return adaptiveBatchCount;
+    }
+
+    public void setAdaptiveBatchCount(final Integer adaptiveBatchCount) {
+        this.adaptiveBatchCount = adaptiveBatchCount;
+    }
+
+    /**
+     * @return the number of bytes per second recently achieved by the Input Ports of the group that use adaptive
+     * batching, or <code>null</code> if none of them use adaptive batching
+     */
+    public Long getAchievedThroughput() {
+        return achievedThroughput;
+    }
+
+    public void setAchievedThroughput(final Long achievedThroughput) {
+        this.achievedThroughput = achievedThroughput;
+    }
+
     @Override
     public RemoteProcessGroupStatus clone() {
         final RemoteProcessGroupStatus clonedObj = new RemoteProcessGroupStatus();
@@ -166,6 +192,8 @@ public class RemoteProcessGroupStatus implements Cloneable {
         clonedObj.activeRemotePortCount = activeRemotePortCount;
         clonedObj.inactiveRemotePortCount = inactiveRemotePortCount;
         clonedObj.averageLineageDuration = averageLineageDuration;
+        clonedObj.adaptiveBatchCount = adaptiveBatchCount;
+        clonedObj.achievedThroughput = achievedThroughput;
         return clonedObj;
     }
 
@@ -196,6 +224,10 @@ public class RemoteProcessGroupStatus implements Cloneable {
         builder.append(activeRemotePortCount);
         builder.append(", inactiveRemotePortCount=");
         builder.append(inactiveRemotePortCount);
+        builder.append(", adaptiveBatchCount=");
+        builder.append(adaptiveBatchCount);
+        builder.append(", achievedThroughput=");
+        builder.append(achievedThroughput);
         builder.append("]");
         return builder.toString();
     }
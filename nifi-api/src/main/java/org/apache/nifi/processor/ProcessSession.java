@@ -31,6 +31,7 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.BufferLease;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -286,6 +287,10 @@ public interface ProcessSession {
      * Event, if the offset is 0 and the size is exactly equal to the size of
      * the example FlowFile).
      *
+     * The content is not copied: the new FlowFile refers to the same content
+     * as the parent, so splitting a FlowFile into many contiguous ranges
+     * with this method costs the same regardless of the size of the content.
+     *
      * @param parent to base the new flowfile attributes on
      * @param offset of the parent flowfile to base the child flowfile content on
      * @param size of the new flowfile from the offset
@@ -863,6 +868,34 @@ public interface ProcessSession {
      */
     void exportTo(FlowFile flowFile, OutputStream destination);
 
+    /**
+     * Leases a buffer of at least the given size for use while processing content. Implementations may
+     * hand out buffers from a pool that is shared across the framework, which avoids allocating a new
+     * array for each FlowFile. The returned lease should be closed, typically with a try-with-resources
+     * block, once the buffer is no longer needed, and the buffer must not be used after that.
+     *
+     * @param minimumSize the minimum number of bytes that the buffer must be able to hold
+     * @return a lease on a buffer whose length is at least <code>minimumSize</code>
+     * @throws IllegalArgumentException if <code>minimumSize</code> is negative
+     */
+    default BufferLease leaseBuffer(final int minimumSize) {
+        if (minimumSize < 0) {
+            throw new IllegalArgumentException("Buffer size cannot be negative");
+        }
+
+        final byte[] buffer = new byte[minimumSize];
+        return new BufferLease() {
+            @Override
+            public byte[] getBuffer() {
+                return buffer;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
     /**
      * Returns a ProvenanceReporter that is tied to this ProcessSession.
      *
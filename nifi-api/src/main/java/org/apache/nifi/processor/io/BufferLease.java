@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.Closeable;
+
+/**
+ * A byte array that has been leased from a {@link org.apache.nifi.processor.ProcessSession}. The buffer
+ * may be taken from a pool that is shared across the framework, so it must not be referenced once the
+ * lease has been closed, and its contents upon leasing are undefined.
+ */
+public interface BufferLease extends Closeable {
+
+    /**
+     * @return the leased buffer. Its length is at least the size that was requested but may be larger.
+     */
+    byte[] getBuffer();
+
+    /**
+     * Returns the buffer to the pool that it was leased from. Calling this method more than once has no effect.
+     */
+    @Override
+    void close();
+}
@@ -78,6 +78,7 @@ public abstract class NiFiProperties {
     public static final String SITE_TO_SITE_HTTP_ENABLED = "nifi.remote.input.http.enabled";
     public static final String SITE_TO_SITE_HTTP_TRANSACTION_TTL = "nifi.remote.input.http.transaction.ttl";
     public static final String REMOTE_CONTENTS_CACHE_EXPIRATION = "nifi.remote.contents.cache.expiration";
+    public static final String SITE_TO_SITE_ADAPTIVE_BATCHING_ENABLED = "nifi.remote.input.adaptive.batching.enabled";
     public static final String TEMPLATE_DIRECTORY = "nifi.templates.directory";
     public static final String ADMINISTRATIVE_YIELD_DURATION = "nifi.administrative.yield.duration";
     public static final String BORED_YIELD_DURATION = "nifi.bored.yield.duration";
@@ -95,6 +96,10 @@ public abstract class NiFiProperties {
     public static final String CONTENT_ARCHIVE_BACK_PRESSURE_PERCENTAGE = "nifi.content.repository.archive.backpressure.percentage";
     public static final String CONTENT_ARCHIVE_ENABLED = "nifi.content.repository.archive.enabled";
     public static final String CONTENT_ARCHIVE_CLEANUP_FREQUENCY = "nifi.content.repository.archive.cleanup.frequency";
+    public static final String CONTENT_REPOSITORY_DEDUPLICATION_ENABLED = "nifi.content.repository.deduplication.enabled";
+    public static final String CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES = "nifi.content.repository.deduplication.max.entries";
+    public static final String REPOSITORY_CONTENT_COLD_PREFIX = "nifi.content.repository.cold.directory.";
+    public static final String CONTENT_REPOSITORY_COLD_MIGRATION_AGE = "nifi.content.repository.cold.migration.age";
     public static final String CONTENT_VIEWER_URL = "nifi.content.viewer.url";
     public static final String CONTENT_REPOSITORY_ENCRYPTION_KEY = "nifi.content.repository.encryption.key";
     public static final String CONTENT_REPOSITORY_ENCRYPTION_KEY_ID = "nifi.content.repository.encryption.key.id";
@@ -282,6 +287,8 @@ public abstract class NiFiProperties {
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "2 min";
     public static final int DEFAULT_MAX_FLOWFILES_PER_CLAIM = 100;
     public static final String DEFAULT_MAX_APPENDABLE_CLAIM_SIZE = "1 MB";
+    public static final int DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES = 100_000;
+    public static final String DEFAULT_CONTENT_REPOSITORY_COLD_MIGRATION_AGE = "1 hour";
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
     public static final String DEFAULT_SWAP_STORAGE_LOCATION = "./flowfile_repository/swap";
     public static final String DEFAULT_SWAP_IN_PERIOD = "1 sec";
@@ -1179,6 +1186,27 @@ public abstract class NiFiProperties {
         return contentRepositoryPaths;
     }
 
+    /**
+     * Returns the paths of the cold tier of a tiered content repository. This
+     * method returns a mapping of cold directory name to path. It simply returns
+     * the values configured. No directories will be created as a result of this
+     * operation.
+     *
+     * @return cold tier paths, or an empty map if none are configured
+     * @throws InvalidPathException If any of the configured paths are invalid
+     */
+    public Map<String, Path> getContentRepositoryColdPaths() {
+        final Map<String, Path> coldPaths = new HashMap<>();
+
+        for (String propertyName : getPropertyKeys()) {
+            if (StringUtils.startsWith(propertyName, REPOSITORY_CONTENT_COLD_PREFIX)) {
+                final String key = StringUtils.substringAfter(propertyName, REPOSITORY_CONTENT_COLD_PREFIX);
+                coldPaths.put(key, Paths.get(getProperty(propertyName)));
+            }
+        }
+        return coldPaths;
+    }
+
     /**
      * Returns the provenance repository paths. This method returns a mapping of
      * file repository name to file repository paths. It simply returns the
@@ -17,12 +17,12 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.Objects;
 import java.util.stream.Stream;
 
 import org.apache.nifi.record.path.ArrayIndexFieldValue;
 import org.apache.nifi.record.path.FieldValue;
 import org.apache.nifi.record.path.RecordPathEvaluationContext;
-import org.apache.nifi.record.path.util.Filters;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
@@ -30,29 +30,56 @@ import org.apache.nifi.serialization.record.type.ArrayDataType;
 
 public class ArrayIndexPath extends RecordPathSegment {
     private final int index;
+    private final boolean singular;
 
     ArrayIndexPath(final int index, final RecordPathSegment parent, final boolean absolute) {
         super("[" + index + "]", parent, absolute);
         this.index = index;
+        this.singular = parent != null && parent.isSingular();
+    }
+
+    @Override
+    boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    FieldValue evaluateSingle(final RecordPathEvaluationContext context) {
+        final FieldValue parent = getParentPath().evaluateSingle(context);
+        return parent == null ? null : getElement(parent);
     }
 
     @Override
     public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
+        if (singular) {
+            return streamOf(evaluateSingle(context));
+        }
+
         final Stream<FieldValue> parentResult = getParentPath().evaluate(context);
 
         return parentResult
-            .filter(Filters.fieldTypeFilter(RecordFieldType.ARRAY))
-            .filter(fieldValue -> fieldValue.getValue() != null && ((Object[]) fieldValue.getValue()).length > getArrayIndex(((Object[]) fieldValue.getValue()).length))
-            .map(fieldValue -> {
-                final ArrayDataType arrayDataType = (ArrayDataType) fieldValue.getField().getDataType();
-                final DataType elementDataType = arrayDataType.getElementType();
-                final RecordField arrayField = new RecordField(fieldValue.getField().getFieldName(), elementDataType);
-                final Object[] values = (Object[]) fieldValue.getValue();
-                final int arrayIndex = getArrayIndex(values.length);
-                final RecordField elementField = new RecordField(arrayField.getFieldName(), elementDataType);
-                final FieldValue result = new ArrayIndexFieldValue(values[arrayIndex], elementField, fieldValue, arrayIndex);
-                return result;
-            });
+            .map(this::getElement)
+            .filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns the element at this path's index of the given array, or <code>null</code> if the given field is not an array or has no such element
+     */
+    private FieldValue getElement(final FieldValue fieldValue) {
+        if (fieldValue.getField().getDataType().getFieldType() != RecordFieldType.ARRAY) {
+            return null;
+        }
+
+        final Object[] values = (Object[]) fieldValue.getValue();
+        if (values == null || values.length <= getArrayIndex(values.length)) {
+            return null;
+        }
+
+        final ArrayDataType arrayDataType = (ArrayDataType) fieldValue.getField().getDataType();
+        final DataType elementDataType = arrayDataType.getElementType();
+        final int arrayIndex = getArrayIndex(values.length);
+        final RecordField elementField = new RecordField(fieldValue.getField().getFieldName(), elementDataType);
+        return new ArrayIndexFieldValue(values[arrayIndex], elementField, fieldValue, arrayIndex);
     }
 
     private int getArrayIndex(final int arrayLength) {
@@ -30,15 +30,18 @@ import org.apache.nifi.serialization.record.RecordFieldType;
 
 public class ChildFieldPath extends RecordPathSegment {
     private final String childName;
+    private final RecordField missingChildField;
+    private final boolean singular;
 
     ChildFieldPath(final String childName, final RecordPathSegment parent, final boolean absolute) {
         super("/" + childName, parent, absolute);
         this.childName = childName;
+        this.missingChildField = new RecordField(childName, RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
+        this.singular = parent != null && parent.isSingular();
     }
 
     private FieldValue missingChild(final FieldValue parent) {
-        final RecordField field = new RecordField(childName, RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
-        return new StandardFieldValue(null, field, parent);
+        return new StandardFieldValue(null, missingChildField, parent);
     }
 
     private FieldValue getChild(final FieldValue fieldValue) {
@@ -64,8 +67,23 @@ public class ChildFieldPath extends RecordPathSegment {
         return new StandardFieldValue(value, field.get(), fieldValue);
     }
 
+    @Override
+    boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    FieldValue evaluateSingle(final RecordPathEvaluationContext context) {
+        final FieldValue parent = getParentPath().evaluateSingle(context);
+        return parent == null ? null : getChild(parent);
+    }
+
     @Override
     public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
+        if (singular) {
+            return streamOf(evaluateSingle(context));
+        }
+
         return getParentPath().evaluate(context)
             // map to Optional<FieldValue> containing child element
             .map(fieldVal -> getChild(fieldVal));
@@ -24,8 +24,27 @@ import org.apache.nifi.record.path.RecordPathEvaluationContext;
 
 public class CurrentFieldPath extends RecordPathSegment {
 
+    private final boolean singular;
+
     public CurrentFieldPath(final RecordPathSegment parentPath, final boolean absolute) {
         super(parentPath == null ? "." : parentPath.getPath() + "/.", parentPath, absolute);
+        this.singular = parentPath == null || parentPath.isSingular();
+    }
+
+    @Override
+    boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    FieldValue evaluateSingle(final RecordPathEvaluationContext context) {
+        final FieldValue contextNode = context.getContextNode();
+        if (contextNode != null) {
+            return contextNode;
+        }
+
+        final RecordPathSegment parentPath = getParentPath();
+        return parentPath == null ? null : parentPath.evaluateSingle(context);
     }
 
     @Override
@@ -116,4 +116,29 @@ public abstract class RecordPathSegment implements RecordPath {
     }
 
     public abstract Stream<FieldValue> evaluate(RecordPathEvaluationContext context);
+
+    /**
+     * Indicates whether this path selects at most one field from the root or context node, such as <code>/a/b[0]/c</code>, so that it can be
+     * evaluated by {@link #evaluateSingle(RecordPathEvaluationContext)} instead of creating a Stream for every segment of the path. Paths that
+     * may select many fields, such as <code>/a/*</code>, or that filter the selected fields by a predicate are not singular.
+     *
+     * @return <code>true</code> if the path is singular, <code>false</code> otherwise
+     */
+    boolean isSingular() {
+        return false;
+    }
+
+    /**
+     * Evaluates a singular path, as indicated by {@link #isSingular()}, directly against the given context
+     *
+     * @param context the context to evaluate the path against
+     * @return the selected field, or <code>null</code> if the path does not select a field
+     */
+    FieldValue evaluateSingle(final RecordPathEvaluationContext context) {
+        throw new UnsupportedOperationException(getPath() + " is not a singular path");
+    }
+
+    static Stream<FieldValue> streamOf(final FieldValue fieldValue) {
+        return fieldValue == null ? Stream.empty() : Stream.of(fieldValue);
+    }
 }
@@ -24,18 +24,41 @@ import org.apache.nifi.record.path.RecordPathEvaluationContext;
 import org.apache.nifi.record.path.StandardFieldValue;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.RecordDataType;
 
 public class RootPath extends RecordPathSegment {
     private static final String PATH = "";
 
+    // The field for the schema of the most recently evaluated Record, as Records that are evaluated one after another usually share a schema
+    private volatile RecordField rootField;
+
     public RootPath() {
         super(PATH, null, true);
     }
 
     @Override
     public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
-        final RecordField field = new RecordField("root", RecordFieldType.RECORD.getRecordDataType(context.getRecord().getSchema()));
-        final FieldValue fieldValue = new StandardFieldValue(context.getRecord(), field, null);
-        return Stream.of(fieldValue);
+        return Stream.of(evaluateSingle(context));
+    }
+
+    @Override
+    boolean isSingular() {
+        return true;
+    }
+
+    @Override
+    FieldValue evaluateSingle(final RecordPathEvaluationContext context) {
+        return new StandardFieldValue(context.getRecord(), getRootField(context.getRecord().getSchema()), null);
+    }
+
+    private RecordField getRootField(final RecordSchema schema) {
+        RecordField field = rootField;
+        if (field == null || ((RecordDataType) field.getDataType()).getChildSchema() != schema) {
+            field = new RecordField("root", RecordFieldType.RECORD.getRecordDataType(schema));
+            rootField = field;
+        }
+
+        return field;
     }
 }
@@ -27,6 +27,7 @@ import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.type.ArrayDataType;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.nio.charset.IllegalCharsetNameException;
@@ -46,6 +47,7 @@ import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -1644,6 +1646,77 @@ public class TestRecordPath {
         assertEquals("MyStringfewfewfewfew", RecordPath.compile("padRight(/someString, 20, \"few\")").evaluate(record).getSelectedFields().findFirst().get().getValue());
     }
 
+    @Test
+    public void testSingularPaths() {
+        final Record record = createAccountsRecord();
+        final Record firstAccount = (Record) ((Object[]) record.getValue("accounts"))[0];
+
+        final FieldValue balance = RecordPath.compile("/accounts[0]/balance").evaluate(record).getSelectedFields().findFirst().get();
+        assertEquals(10_000.00D, balance.getValue());
+        assertEquals(firstAccount, balance.getParentRecord().get());
+
+        assertEquals(2, RecordPath.compile("/accounts[-1]/id").evaluate(record).getSelectedFields().findFirst().get().getValue());
+        assertFalse(RecordPath.compile("/accounts[2]/id").evaluate(record).getSelectedFields().findFirst().isPresent());
+        assertFalse(RecordPath.compile("/name[0]").evaluate(record).getSelectedFields().findFirst().isPresent());
+
+        final List<FieldValue> missing = RecordPath.compile("/mainAccount/missing/id").evaluate(record).getSelectedFields().collect(Collectors.toList());
+        assertEquals(1, missing.size());
+        assertNull(missing.get(0).getValue());
+
+        RecordPath.compile("/accounts[1]/balance").evaluate(record).getSelectedFields().forEach(field -> field.updateValue(1.5D));
+        assertEquals(1.5D, ((Record) ((Object[]) record.getValue("accounts"))[1]).getValue("balance"));
+
+        // A singular path that is evaluated relative to each element selected by another path
+        final List<Object> ids = RecordPath.compile("/accounts[*][./balance > 100]/id").evaluate(record).getSelectedFields()
+            .map(FieldValue::getValue)
+            .collect(Collectors.toList());
+        assertEquals(Arrays.asList(1), ids);
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing, to measure the number of evaluations per second of common RecordPaths")
+    public void testEvaluationThroughput() {
+        final Record record = createAccountsRecord();
+        final int iterations = 5_000_000;
+
+        for (final String path : new String[] {"/id", "/mainAccount/balance", "/accounts[0]/balance", "/accounts[*]/balance", "/accounts[*][./balance > 100]/id"}) {
+            final RecordPath recordPath = RecordPath.compile(path);
+
+            long count = 0;
+            for (int i = 0; i < iterations; i++) {
+                count += recordPath.evaluate(record).getSelectedFields().filter(fieldValue -> fieldValue.getValue() != null).count();
+            }
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                count += recordPath.evaluate(record).getSelectedFields().filter(fieldValue -> fieldValue.getValue() != null).count();
+            }
+            final long nanos = System.nanoTime() - start;
+
+            System.out.println(path + ": " + (long) (iterations * 1_000_000_000D / nanos) + " evaluations per second (" + count + " fields selected)");
+        }
+    }
+
+    private Record createAccountsRecord() {
+        final Map<String, Object> accountValues1 = new HashMap<>();
+        accountValues1.put("id", 1);
+        accountValues1.put("balance", 10_000.00D);
+        final Record accountRecord1 = new MapRecord(getAccountSchema(), accountValues1);
+
+        final Map<String, Object> accountValues2 = new HashMap<>();
+        accountValues2.put("id", 2);
+        accountValues2.put("balance", 48.02D);
+        final Record accountRecord2 = new MapRecord(getAccountSchema(), accountValues2);
+
+        final RecordSchema schema = new SimpleRecordSchema(getDefaultFields());
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 48);
+        values.put("name", "John Doe");
+        values.put("mainAccount", accountRecord1);
+        values.put("accounts", new Object[] {accountRecord1, accountRecord2});
+        return new MapRecord(schema, values);
+    }
+
     private List<RecordField> getDefaultFields() {
         final List<RecordField> fields = new ArrayList<>();
         fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
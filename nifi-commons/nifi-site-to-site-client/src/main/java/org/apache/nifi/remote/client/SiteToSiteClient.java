@@ -138,6 +138,19 @@ public interface SiteToSiteClient extends Closeable {
      */
     SiteToSiteClientConfig getConfig();
 
+    /**
+     * <p>
+     * Creates a {@link TransactionPipeline} that sends data through this client using up to
+     * {@link SiteToSiteClientConfig#getMaxTransactionsInFlight()} concurrent Transactions. The
+     * pipeline does not take ownership of the client; closing the pipeline does not close the client.
+     * </p>
+     *
+     * @return a new TransactionPipeline for this client
+     */
+    default TransactionPipeline createTransactionPipeline() {
+        return new TransactionPipeline(this, getConfig().getMaxTransactionsInFlight());
+    }
+
     /**
      * <p>
      * The Builder is the mechanism by which all configuration is passed to the
@@ -172,6 +185,7 @@ public interface SiteToSiteClient extends Closeable {
         private int batchCount;
         private long batchSize;
         private long batchNanos;
+        private int maxTransactionsInFlight = 1;
         private InetAddress localAddress;
         private SiteToSiteTransportProtocol transportProtocol = SiteToSiteTransportProtocol.RAW;
         private HttpProxy httpProxy;
@@ -204,6 +218,7 @@ public interface SiteToSiteClient extends Closeable {
             this.batchCount = config.getPreferredBatchCount();
             this.batchSize = config.getPreferredBatchSize();
             this.batchNanos = config.getPreferredBatchDuration(TimeUnit.NANOSECONDS);
+            this.maxTransactionsInFlight = config.getMaxTransactionsInFlight();
             this.localAddress = config.getLocalAddress();
             this.httpProxy = config.getHttpProxy();
 
@@ -614,6 +629,24 @@ public interface SiteToSiteClient extends Closeable {
             return this;
         }
 
+        /**
+         * Specifies the maximum number of Transactions that a {@link TransactionPipeline}
+         * created by the client may have in flight at once. Each in-flight Transaction uses its own
+         * connection, taken from the pool of connections that the client keeps to each peer, so
+         * a value greater than 1 allows the latency of confirming one Transaction to overlap with
+         * sending the data for the next. Defaults to 1.
+         *
+         * @param maxTransactionsInFlight the maximum number of concurrent Transactions
+         * @return the builder
+         */
+        public Builder maxTransactionsInFlight(final int maxTransactionsInFlight) {
+            if (maxTransactionsInFlight < 1) {
+                throw new IllegalArgumentException("Max Transactions In Flight must be at least 1");
+            }
+            this.maxTransactionsInFlight = maxTransactionsInFlight;
+            return this;
+        }
+
         /**
          * @return a {@link SiteToSiteClientConfig} for the configured values
          * but does not create a SiteToSiteClient
@@ -784,6 +817,7 @@ public interface SiteToSiteClient extends Closeable {
         private final int batchCount;
         private final long batchSize;
         private final long batchNanos;
+        private final int maxTransactionsInFlight;
         private final HttpProxy httpProxy;
         private final InetAddress localAddress;
 
@@ -809,6 +843,7 @@ public interface SiteToSiteClient extends Closeable {
             this.batchCount = 0;
             this.batchSize = 0;
             this.batchNanos = 0;
+            this.maxTransactionsInFlight = 1;
             this.transportProtocol = null;
             this.httpProxy = null;
             this.localAddress = null;
@@ -838,6 +873,7 @@ public interface SiteToSiteClient extends Closeable {
             this.batchCount = builder.batchCount;
             this.batchSize = builder.batchSize;
             this.batchNanos = builder.batchNanos;
+            this.maxTransactionsInFlight = builder.maxTransactionsInFlight;
             this.transportProtocol = builder.getTransportProtocol();
             this.httpProxy = builder.getHttpProxy();
             this.localAddress = builder.localAddress;
@@ -1033,5 +1069,10 @@ public interface SiteToSiteClient extends Closeable {
         public InetAddress getLocalAddress() {
             return localAddress;
         }
+
+        @Override
+        public int getMaxTransactionsInFlight() {
+            return maxTransactionsInFlight;
+        }
     }
 }
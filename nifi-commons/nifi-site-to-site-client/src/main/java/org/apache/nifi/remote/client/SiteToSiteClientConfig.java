@@ -173,6 +173,18 @@ public interface SiteToSiteClientConfig extends Serializable {
      */
     int getPreferredBatchCount();
 
+    /**
+     * Transactions that are submitted through a {@link TransactionPipeline} are run concurrently
+     * so that the round trip required to confirm and complete one Transaction overlaps with the
+     * transfer of data in the others.
+     *
+     * @return the maximum number of Transactions that a {@link TransactionPipeline} created for
+     * this configuration will have in flight at once
+     */
+    default int getMaxTransactionsInFlight() {
+        return 1;
+    }
+
     /**
      * When the contents of a remote NiFi instance are fetched, that information is cached
      * so that many calls that are made in a short period of time do not overwhelm the remote
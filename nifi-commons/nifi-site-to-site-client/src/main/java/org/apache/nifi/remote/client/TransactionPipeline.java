@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.client;
+
+import org.apache.nifi.remote.Transaction;
+import org.apache.nifi.remote.TransactionCompletion;
+import org.apache.nifi.remote.TransferDirection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Sends data to a remote NiFi instance using several concurrent Transactions. With a single
+ * Transaction, the client must wait for the remote instance to confirm and complete each batch before
+ * it can begin sending the next one, so the throughput of many small batches is bounded by the round-trip
+ * latency between the two instances. A TransactionPipeline instead runs up to a fixed number of Transactions
+ * at once, each over its own connection from the client's connection pool, so that the round trips overlap.
+ * </p>
+ *
+ * <p>
+ * Calls to {@link #send(TransactionWriter)} block while the maximum number of Transactions are already in
+ * flight, which provides back pressure to the caller. Transactions may complete in a different order than the
+ * one in which they were submitted.
+ * </p>
+ */
+public class TransactionPipeline implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPipeline.class);
+
+    private final Supplier<SiteToSiteClient> clientSupplier;
+    private final int maxTransactionsInFlight;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor executor;
+    private volatile boolean closed = false;
+
+    public TransactionPipeline(final SiteToSiteClient client, final int maxTransactionsInFlight) {
+        this(() -> client, maxTransactionsInFlight);
+    }
+
+    /**
+     * Creates a pipeline that obtains the client from the given supplier each time a Transaction is created. This allows
+     * the pipeline to be created up front, before the client is, and to outlive a client that is closed and re-created.
+     *
+     * @param clientSupplier supplies the client to create Transactions with
+     * @param maxTransactionsInFlight the maximum number of Transactions to run at once
+     */
+    public TransactionPipeline(final Supplier<SiteToSiteClient> clientSupplier, final int maxTransactionsInFlight) {
+        if (maxTransactionsInFlight < 1) {
+            throw new IllegalArgumentException("Max Transactions In Flight must be at least 1");
+        }
+
+        this.clientSupplier = clientSupplier;
+        this.maxTransactionsInFlight = maxTransactionsInFlight;
+        this.permits = new Semaphore(maxTransactionsInFlight);
+
+        final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        final ThreadFactory threadFactory = r -> {
+            final Thread thread = defaultFactory.newThread(r);
+            thread.setName("Site-to-Site Transaction Pipeline-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = new ThreadPoolExecutor(maxTransactionsInFlight, maxTransactionsInFlight, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates a new Transaction for sending data, passes it to the given writer and then confirms and completes
+     * it in the background. If the maximum number of Transactions are already in flight, this method blocks until
+     * one of them finishes.
+     *
+     * @param writer the writer that sends the data for the Transaction
+     * @return a future that is completed with the TransactionCompletion once the remote instance has acknowledged
+     * the Transaction, or completed exceptionally if the Transaction could not be created or failed
+     * @throws InterruptedException if interrupted while waiting for a Transaction to finish
+     */
+    public CompletableFuture<TransactionCompletion> send(final TransactionWriter writer) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Transaction Pipeline is closed");
+        }
+
+        permits.acquire();
+
+        final CompletableFuture<TransactionCompletion> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(transfer(writer));
+                } catch (final Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (final RejectedExecutionException ree) {
+            permits.release();
+            future.completeExceptionally(ree);
+        }
+
+        return future;
+    }
+
+    private TransactionCompletion transfer(final TransactionWriter writer) throws IOException {
+        final SiteToSiteClient client = clientSupplier.get();
+        if (client == null) {
+            throw new IOException("Unable to create Transaction because the Site-to-Site client is not available");
+        }
+
+        final Transaction transaction = client.createTransaction(TransferDirection.SEND);
+        if (transaction == null) {
+            throw new IOException("Unable to create Transaction because all destination nodes are penalized");
+        }
+
+        try {
+            writer.write(transaction);
+            transaction.confirm();
+            return transaction.complete();
+        } catch (final Throwable t) {
+            logger.debug("Failed to complete Transaction with {}", transaction.getCommunicant(), t);
+            transaction.error();
+            throw t;
+        }
+    }
+
+    /**
+     * @return the number of Transactions that are currently in flight
+     */
+    public int getTransactionsInFlight() {
+        return maxTransactionsInFlight - permits.availablePermits();
+    }
+
+    public int getMaxTransactionsInFlight() {
+        return maxTransactionsInFlight;
+    }
+
+    /**
+     * Waits for all Transactions that are in flight to finish, successfully or not.
+     *
+     * @param timeout the maximum amount of time to wait
+     * @param timeUnit the unit of the timeout
+     * @return <code>true</code> if all Transactions finished, <code>false</code> if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitCompletion(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        if (!permits.tryAcquire(maxTransactionsInFlight, timeout, timeUnit)) {
+            return false;
+        }
+
+        permits.release(maxTransactionsInFlight);
+        return true;
+    }
+
+    /**
+     * Stops accepting new Transactions. Transactions that are already in flight are allowed to finish.
+     * The underlying {@link SiteToSiteClient} is not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+    }
+
+    /**
+     * Sends the data for a single Transaction. Implementations must not confirm, complete, or cancel the
+     * Transaction; the pipeline does so once the writer returns.
+     */
+    public interface TransactionWriter {
+        void write(Transaction transaction) throws IOException;
+    }
+}
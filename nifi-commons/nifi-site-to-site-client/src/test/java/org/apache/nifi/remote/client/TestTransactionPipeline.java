@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.client;
+
+import org.apache.nifi.remote.Transaction;
+import org.apache.nifi.remote.TransactionCompletion;
+import org.apache.nifi.remote.TransferDirection;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestTransactionPipeline {
+
+    @Test(timeout = 10000)
+    public void testTransactionsOverlap() throws Exception {
+        final SiteToSiteClient client = mock(SiteToSiteClient.class);
+        final TransactionCompletion completion = mock(TransactionCompletion.class);
+        final Transaction transaction = mock(Transaction.class);
+        when(transaction.complete()).thenReturn(completion);
+        when(client.createTransaction(TransferDirection.SEND)).thenReturn(transaction);
+
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        final AtomicInteger maxConcurrent = new AtomicInteger(0);
+        final AtomicInteger concurrent = new AtomicInteger(0);
+
+        final List<CompletableFuture<TransactionCompletion>> futures = new ArrayList<>();
+        try (final TransactionPipeline pipeline = new TransactionPipeline(client, 3)) {
+            for (int i = 0; i < 3; i++) {
+                futures.add(pipeline.send(t -> {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    allStarted.countDown();
+                    try {
+                        // Every transaction must be in flight at the same time for the latch to be released.
+                        allStarted.await();
+                    } catch (final InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    concurrent.decrementAndGet();
+                }));
+            }
+
+            for (final CompletableFuture<TransactionCompletion> future : futures) {
+                assertSame(completion, future.get());
+            }
+            assertTrue(pipeline.awaitCompletion(1, TimeUnit.SECONDS));
+            assertEquals(0, pipeline.getTransactionsInFlight());
+        }
+
+        assertEquals(3, maxConcurrent.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testSendBlocksWhenPipelineIsFull() throws Exception {
+        final SiteToSiteClient client = mock(SiteToSiteClient.class);
+        final Transaction transaction = mock(Transaction.class);
+        when(client.createTransaction(TransferDirection.SEND)).thenReturn(transaction);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        try (final TransactionPipeline pipeline = new TransactionPipeline(client, 1)) {
+            pipeline.send(t -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new IOException(e);
+                }
+            });
+            assertEquals(1, pipeline.getTransactionsInFlight());
+
+            final Thread sender = new Thread(() -> {
+                try {
+                    pipeline.send(t -> { });
+                } catch (final InterruptedException ignored) {
+                }
+            });
+            sender.start();
+
+            Thread.sleep(100L);
+            assertTrue(sender.isAlive());
+
+            release.countDown();
+            sender.join();
+            assertTrue(pipeline.awaitCompletion(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedTransactionIsReported() throws Exception {
+        final SiteToSiteClient client = mock(SiteToSiteClient.class);
+        final Transaction transaction = mock(Transaction.class);
+        when(client.createTransaction(TransferDirection.SEND)).thenReturn(transaction);
+
+        try (final TransactionPipeline pipeline = new TransactionPipeline(client, 2)) {
+            final CompletableFuture<TransactionCompletion> future = pipeline.send(t -> {
+                throw new IOException("Intentional Unit Test Exception");
+            });
+
+            try {
+                future.get();
+                fail("Expected transaction to fail");
+            } catch (final ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof IOException);
+            }
+        }
+
+        verify(transaction).error();
+    }
+
+    @Test(timeout = 10000)
+    public void testPenalizedPeers() throws Exception {
+        final SiteToSiteClient client = mock(SiteToSiteClient.class);
+        when(client.createTransaction(TransferDirection.SEND)).thenReturn(null);
+
+        try (final TransactionPipeline pipeline = new TransactionPipeline(client, 2)) {
+            final CompletableFuture<TransactionCompletion> future = pipeline.send(t -> fail("Writer should not be called"));
+            try {
+                future.get();
+                fail("Expected transaction to fail");
+            } catch (final ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof IOException);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.util.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks on an ExecutorService and returns their results in the order in which the tasks were submitted.
+ *
+ * Tasks often use resources that are owned by the caller, such as a stream or a codec, which must not be released while a task is still
+ * running. Cancelling a Future does not help with that, because a task that has already started keeps running after it is cancelled, and
+ * waiting on a cancelled Future returns immediately. {@link #cancelAll()} therefore only cancels the tasks that have not started yet, and
+ * waits for the tasks that have, so that the resources can be released safely once it returns.
+ *
+ * This class is not thread-safe: tasks must be submitted, taken and cancelled by a single thread.
+ *
+ * @param <T> the type of the results of the tasks
+ */
+public class OrderedTaskQueue<T> {
+
+    private final ExecutorService executor;
+    private final Deque<PendingTask<T>> pendingTasks = new ArrayDeque<>();
+
+    public OrderedTaskQueue(final ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Submits the given task to the executor.
+     *
+     * @param task the task to run
+     */
+    public void submit(final Callable<T> task) {
+        final PendingTask<T> pendingTask = new PendingTask<>(task);
+        pendingTask.future = executor.submit(pendingTask);
+        pendingTasks.add(pendingTask);
+    }
+
+    /**
+     * @return the number of tasks whose results have not been taken
+     */
+    public int size() {
+        return pendingTasks.size();
+    }
+
+    public boolean isEmpty() {
+        return pendingTasks.isEmpty();
+    }
+
+    /**
+     * Waits for the task that was submitted first and whose result has not been taken yet, and returns its result.
+     *
+     * @return the result of the task
+     * @throws NoSuchElementException if there are no tasks whose results have not been taken
+     * @throws ExecutionException if the task failed
+     * @throws InterruptedException if interrupted while waiting for the task
+     */
+    public T take() throws ExecutionException, InterruptedException {
+        final PendingTask<T> pendingTask = pendingTasks.peek();
+        if (pendingTask == null) {
+            throw new NoSuchElementException("No tasks have been submitted");
+        }
+
+        try {
+            return pendingTask.future.get();
+        } finally {
+            // Only remove the task once it is done, so that cancelAll() still waits for it if the wait was interrupted
+            if (pendingTask.future.isDone()) {
+                pendingTasks.poll();
+            }
+        }
+    }
+
+    /**
+     * Cancels the tasks that have not started, and waits for the tasks that have started to finish. Their results are discarded. If the
+     * calling thread is interrupted, it still waits, and its interrupt status is restored before returning.
+     */
+    public void cancelAll() {
+        // Claim all tasks that have not started before waiting for any, so that none of them can start while waiting
+        final List<PendingTask<T>> startedTasks = new ArrayList<>();
+        PendingTask<T> pendingTask;
+        while ((pendingTask = pendingTasks.poll()) != null) {
+            if (pendingTask.claim()) {
+                // The task has not started, and now never will
+                pendingTask.future.cancel(false);
+            } else {
+                startedTasks.add(pendingTask);
+            }
+        }
+
+        boolean interrupted = false;
+        for (final PendingTask<T> startedTask : startedTasks) {
+            while (true) {
+                try {
+                    startedTask.future.get();
+                    break;
+                } catch (final ExecutionException | CancellationException e) {
+                    // The result is no longer needed
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class PendingTask<T> implements Callable<T> {
+        private final Callable<T> task;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile Future<T> future;
+
+        private PendingTask(final Callable<T> task) {
+            this.task = task;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!claim()) {
+                throw new CancellationException("Task was cancelled before it started");
+            }
+
+            return task.call();
+        }
+    }
+}
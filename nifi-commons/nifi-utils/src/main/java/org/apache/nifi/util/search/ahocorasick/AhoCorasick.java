@@ -28,6 +28,7 @@ import org.apache.nifi.util.search.SearchTerm;
 public class AhoCorasick<T> implements Search<T> {
 
     private Node root = null;
+    private final Node[] rootTransitions = new Node[256];
 
     /**
      * Constructs a new search object.
@@ -96,10 +97,18 @@ public class AhoCorasick<T> implements Search<T> {
                     } else {
                         next.setFailureNode(root);
                     }
+                    //failure nodes are closer to the root, so their output nodes have already been determined
+                    final Node nextFailure = next.getFailureNode();
+                    next.setOutputNode(nextFailure.hasMatch() ? nextFailure : nextFailure.getOutputNode());
                     queue.add(next);
                 }
             }
         }
+
+        for (int i = 0; i < 256; i++) {
+            final Node next = root.getNeighbor(i);
+            rootTransitions[i] = (next == null) ? root : next;
+        }
     }
 
     @Override
@@ -107,44 +116,55 @@ public class AhoCorasick<T> implements Search<T> {
         return search(stream, findAll, null);
     }
 
-    private SearchState search(final InputStream stream, final boolean findAll, final SearchState state) throws IOException {
-        if (root == null) {
-            throw new IllegalStateException();
-        }
-        final SearchState<T> currentState = (state == null) ? new SearchState(root) : state;
-        if (!findAll && currentState.foundMatch()) {
-            throw new IllegalStateException("A match has already been found yet we're being asked to keep searching");
+    /**
+     * Searches the given range of bytes for matches between the already specified dictionary and the bytes scanned.
+     *
+     * @param haystack the source data to scan for hits
+     * @param offset the index of the first byte to scan
+     * @param length the number of bytes to scan
+     * @param findAll if true will find all matches if false will find only the first match
+     * @return SearchState containing results Map might be empty which indicates no matches found but will not be null
+     * @throws IllegalStateException if the dictionary has not yet been initialized
+     */
+    public SearchState<T> search(final byte[] haystack, final int offset, final int length, final boolean findAll) {
+        return search(haystack, offset, length, findAll, null);
+    }
+
+    /**
+     * Continues a search with the given range of bytes, as if they immediately followed the data that has already been
+     * scanned using the given state. This allows data that is not available all at once to be searched in chunks.
+     *
+     * @param haystack the source data to scan for hits
+     * @param offset the index of the first byte to scan
+     * @param length the number of bytes to scan
+     * @param findAll if true will find all matches if false will find only the first match
+     * @param state the state returned by a previous search, or <code>null</code> to begin a new search
+     * @return SearchState containing results Map might be empty which indicates no matches found but will not be null
+     * @throws IllegalStateException if the dictionary has not yet been initialized
+     */
+    public SearchState<T> search(final byte[] haystack, final int offset, final int length, final boolean findAll, final SearchState<T> state) {
+        final SearchState<T> currentState = startSearch(findAll, state);
+        Node current = currentState.getCurrentNode();
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            currentState.incrementBytesRead(1L);
+            current = transition(current, haystack[i] & 0xff);
+            if (addResults(current, currentState) && !findAll) {
+                break;//give up as soon as we have at least one match
+            }
         }
+        currentState.setCurrentNode(current);
+        return currentState;
+    }
+
+    private SearchState search(final InputStream stream, final boolean findAll, final SearchState state) throws IOException {
+        final SearchState<T> currentState = startSearch(findAll, state);
         Node current = currentState.getCurrentNode();
         int currentChar;
         while ((currentChar = stream.read()) >= 0) {
             currentState.incrementBytesRead(1L);
-            Node next = current.getNeighbor(currentChar);
-            if (next == null) {
-                next = current.getFailureNode();
-                while ((next != null) && next.getNeighbor(currentChar) == null) {
-                    next = next.getFailureNode();
-                }
-                if (next != null) {
-                    next = next.getNeighbor(currentChar);
-                } else {
-                    next = root;
-                }
-            }
-            if (next == null) {
-                throw new IllegalStateException("tree out of sync");
-            }
-            //Accept condition
-            if (next.hasMatch()) {
-                currentState.addResult(next.getMatchingTerm());
-            }
-            for (Node failNode = next.getFailureNode(); failNode != null; failNode = failNode.getFailureNode()) {
-                if (failNode.hasMatch()) {
-                    currentState.addResult(failNode.getMatchingTerm());
-                }
-            }
-            current = next;
-            if (currentState.foundMatch() && !findAll) {
+            current = transition(current, currentChar);
+            if (addResults(current, currentState) && !findAll) {
                 break;//give up as soon as we have at least one match
             }
         }
@@ -152,4 +172,45 @@ public class AhoCorasick<T> implements Search<T> {
         return currentState;
     }
 
+    private SearchState<T> startSearch(final boolean findAll, final SearchState<T> state) {
+        if (root == null) {
+            throw new IllegalStateException();
+        }
+        final SearchState<T> currentState = (state == null) ? new SearchState(root) : state;
+        if (!findAll && currentState.foundMatch()) {
+            throw new IllegalStateException("A match has already been found yet we're being asked to keep searching");
+        }
+        return currentState;
+    }
+
+    private Node transition(final Node current, final int currentChar) {
+        if (current == root) {
+            return rootTransitions[currentChar];
+        }
+
+        Node next = current.getNeighbor(currentChar);
+        if (next == null) {
+            next = current.getFailureNode();
+            while ((next != root) && next.getNeighbor(currentChar) == null) {
+                next = next.getFailureNode();
+            }
+            next = (next == root) ? rootTransitions[currentChar] : next.getNeighbor(currentChar);
+        }
+        return next;
+    }
+
+    private boolean addResults(final Node node, final SearchState<T> state) {
+        //Accept condition
+        boolean matched = false;
+        if (node.hasMatch()) {
+            state.addResult(node.getMatchingTerm());
+            matched = true;
+        }
+        for (Node output = node.getOutputNode(); output != null; output = output.getOutputNode()) {
+            state.addResult(output.getMatchingTerm());
+            matched = true;
+        }
+        return matched;
+    }
+
 }
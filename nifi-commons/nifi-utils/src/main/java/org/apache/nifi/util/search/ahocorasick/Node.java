@@ -28,6 +28,7 @@ public class Node {
 
     private final Map<Integer, Node> neighborMap;
     private Node failureNode;
+    private Node outputNode;
     private SearchTerm<?> term;
 
     Node(final SearchTerm<?> term) {
@@ -48,6 +49,17 @@ public class Node {
         return failureNode;
     }
 
+    void setOutputNode(final Node output) {
+        outputNode = output;
+    }
+
+    /**
+     * @return the nearest node along the chain of failure nodes that has a matching term, or <code>null</code> if there is none
+     */
+    public Node getOutputNode() {
+        return outputNode;
+    }
+
     public boolean hasMatch() {
         return term != null;
     }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.util.concurrency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestOrderedTaskQueue {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void testResultsInSubmissionOrder() throws Exception {
+        final CountDownLatch firstMayFinish = new CountDownLatch(1);
+        final OrderedTaskQueue<Integer> queue = new OrderedTaskQueue<>(executor);
+
+        queue.submit(() -> {
+            firstMayFinish.await();
+            return 1;
+        });
+        queue.submit(() -> {
+            firstMayFinish.countDown();
+            return 2;
+        });
+
+        assertEquals(2, queue.size());
+        assertEquals(Integer.valueOf(1), queue.take());
+        assertEquals(Integer.valueOf(2), queue.take());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailure() throws Exception {
+        final OrderedTaskQueue<Integer> queue = new OrderedTaskQueue<>(executor);
+        queue.submit(() -> {
+            throw new IllegalStateException("Intentional failure");
+        });
+
+        try {
+            queue.take();
+            fail("Expected ExecutionException");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelAllWaitsForRunningTasks() throws Exception {
+        final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            final AtomicBoolean runningTaskFinished = new AtomicBoolean(false);
+            final AtomicInteger queuedTaskRuns = new AtomicInteger(0);
+            final OrderedTaskQueue<Integer> queue = new OrderedTaskQueue<>(singleThread);
+
+            queue.submit(() -> {
+                started.countDown();
+                Thread.sleep(200L);
+                runningTaskFinished.set(true);
+                return 1;
+            });
+            queue.submit(() -> queuedTaskRuns.incrementAndGet());
+
+            started.await();
+            queue.cancelAll();
+
+            // The task that had started must have finished, and the task that had not must never run
+            assertTrue(runningTaskFinished.get());
+            assertTrue(queue.isEmpty());
+
+            singleThread.shutdown();
+            assertTrue(singleThread.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(0, queuedTaskRuns.get());
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelAllWhenInterrupted() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean runningTaskFinished = new AtomicBoolean(false);
+        final OrderedTaskQueue<Integer> queue = new OrderedTaskQueue<>(executor);
+
+        queue.submit(() -> {
+            started.countDown();
+            Thread.sleep(200L);
+            runningTaskFinished.set(true);
+            return 1;
+        });
+
+        started.await();
+        Thread.currentThread().interrupt();
+        try {
+            queue.cancelAll();
+
+            assertTrue(runningTaskFinished.get());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
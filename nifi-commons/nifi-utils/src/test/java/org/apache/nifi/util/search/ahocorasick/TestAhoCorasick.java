@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.util.search.ahocorasick;
+
+import org.apache.nifi.util.search.SearchTerm;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestAhoCorasick {
+
+    @Test
+    public void testFindsOverlappingTerms() throws IOException {
+        final AhoCorasick<String> search = createSearch("he", "she", "his", "hers");
+        final byte[] text = "ushers".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(createSet("he", "she", "hers"), getTerms(search.search(new ByteArrayInputStream(text), true)));
+        assertEquals(createSet("he", "she", "hers"), getTerms(search.search(text, 0, text.length, true)));
+    }
+
+    @Test
+    public void testSearchInChunks() throws IOException {
+        final AhoCorasick<String> search = createSearch("abc", "bcd", "cdefg", "d");
+        final byte[] text = "xxabcdefgxx".getBytes(StandardCharsets.UTF_8);
+        final Set<String> expected = getTerms(search.search(new ByteArrayInputStream(text), true));
+        assertEquals(createSet("abc", "bcd", "cdefg", "d"), expected);
+
+        for (int chunkSize = 1; chunkSize <= text.length; chunkSize++) {
+            SearchState<String> state = null;
+            for (int offset = 0; offset < text.length; offset += chunkSize) {
+                state = search.search(text, offset, Math.min(chunkSize, text.length - offset), true, state);
+            }
+            assertEquals(expected, getTerms(state));
+        }
+    }
+
+    @Test
+    public void testStopsAtFirstMatch() {
+        final AhoCorasick<String> search = createSearch("bc", "xyz");
+        final byte[] text = "abcdefxyz".getBytes(StandardCharsets.UTF_8);
+
+        final SearchState<String> state = search.search(text, 0, text.length, false);
+        assertTrue(state.foundMatch());
+        assertEquals(createSet("bc"), getTerms(state));
+
+        final SearchState<String> noMatch = search.search(text, 3, 3, false);
+        assertFalse(noMatch.foundMatch());
+    }
+
+    private static AhoCorasick<String> createSearch(final String... terms) {
+        final Set<SearchTerm<String>> searchTerms = new HashSet<>();
+        for (final String term : terms) {
+            searchTerms.add(new SearchTerm<>(term.getBytes(StandardCharsets.UTF_8), false, term));
+        }
+
+        final AhoCorasick<String> search = new AhoCorasick<>();
+        search.initializeDictionary(searchTerms);
+        return search;
+    }
+
+    private static Set<String> getTerms(final SearchState<String> state) {
+        final Map<SearchTerm<String>, List<Long>> results = state.getResults();
+        return results.keySet().stream().map(SearchTerm::getReference).collect(Collectors.toSet());
+    }
+
+    private static Set<String> createSet(final String... values) {
+        final Set<String> set = new HashSet<>();
+        for (final String value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.nifi.controller.repository;
 
 import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ContentRegion;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 
@@ -304,4 +305,39 @@ public interface ContentRepository {
     default boolean isActiveResourceClaimsSupported() {
         return false;
     }
+
+    /**
+     * Returns the name of the {@link java.security.MessageDigest} algorithm that callers should use to compute the digests that are
+     * provided to {@link #findDuplicate(byte[], long)} and {@link #registerContent(ContentRegion, byte[])}. If the repository does not
+     * deduplicate content, returns <code>null</code>, in which case callers need not compute digests at all.
+     *
+     * @return the digest algorithm used for content deduplication, or <code>null</code> if content deduplication is not enabled
+     */
+    default String getDeduplicationDigestAlgorithm() {
+        return null;
+    }
+
+    /**
+     * Finds previously written content that has the given digest and length. If such content is still referenced by at least one
+     * FlowFile, the claimant count of the Content Claim holding it is incremented on behalf of the caller, and the caller may then
+     * reference that region instead of the content that it has just written.
+     *
+     * @param digest the digest of the content, computed using the algorithm returned by {@link #getDeduplicationDigestAlgorithm()}
+     * @param length the number of bytes of content
+     * @return the region holding identical content, or <code>null</code> if no such region is known
+     */
+    default ContentRegion findDuplicate(byte[] digest, long length) {
+        return null;
+    }
+
+    /**
+     * Records that the given region holds content with the given digest, so that content written subsequently with the same digest
+     * may reference this region instead. This should be called only once the content has been flushed to the repository and the
+     * FlowFile Repository has been updated to reference it.
+     *
+     * @param region the region holding the content
+     * @param digest the digest of the content, computed using the algorithm returned by {@link #getDeduplicationDigestAlgorithm()}
+     */
+    default void registerContent(ContentRegion region, byte[] digest) {
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.claim;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * A contiguous range of bytes within a {@link ContentClaim}. Because many FlowFiles may share a single
+ * ContentClaim, each at its own offset, a ContentRegion identifies exactly the bytes that make up the
+ * content of one FlowFile.
+ * </p>
+ *
+ * <p>
+ * Is immutable and thread safe
+ * </p>
+ */
+public final class ContentRegion {
+    private final ContentClaim claim;
+    private final long offset;
+    private final long length;
+
+    public ContentRegion(final ContentClaim claim, final long offset, final long length) {
+        this.claim = Objects.requireNonNull(claim);
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return the ContentClaim that holds the bytes of this region
+     */
+    public ContentClaim getClaim() {
+        return claim;
+    }
+
+    /**
+     * @return the offset into the ContentClaim at which this region begins
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of bytes in this region
+     */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(claim.getResourceClaim(), claim.getOffset(), offset, length);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ContentRegion)) {
+            return false;
+        }
+
+        final ContentRegion other = (ContentRegion) obj;
+        return offset == other.offset
+            && length == other.length
+            && claim.getOffset() == other.claim.getOffset()
+            && claim.getResourceClaim().equals(other.claim.getResourceClaim());
+    }
+
+    @Override
+    public String toString() {
+        return "ContentRegion[claim=" + claim + ", offset=" + offset + ", length=" + length + "]";
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.elasticsearch;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A reusable buffer that holds the body of a Bulk API request. Besides the newline-delimited JSON itself, the buffer keeps track
+ * of where each item (an action line and, except for deletes, its document line) begins and which record of the FlowFile the item
+ * was created from, so that the items that Elasticsearch rejects can be resubmitted without serializing their records again.
+ *
+ * A buffer is not thread-safe, but may be handed from one thread to another.
+ */
+class BulkRequestBuffer extends OutputStream {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int INITIAL_ITEM_CAPACITY = 256;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int count = 0;
+
+    private int[] itemOffsets = new int[INITIAL_ITEM_CAPACITY];
+    private int[] recordIndexes = new int[INITIAL_ITEM_CAPACITY];
+    private int itemCount = 0;
+
+    /**
+     * Marks the current position as the beginning of a new item
+     *
+     * @param recordIndex the index, within the FlowFile, of the record that the item is created from
+     */
+    void startItem(final int recordIndex) {
+        if (itemCount == itemOffsets.length) {
+            itemOffsets = Arrays.copyOf(itemOffsets, itemCount * 2);
+            recordIndexes = Arrays.copyOf(recordIndexes, itemCount * 2);
+        }
+
+        itemOffsets[itemCount] = count;
+        recordIndexes[itemCount] = recordIndex;
+        itemCount++;
+    }
+
+    /**
+     * Appends a copy of the given item of another buffer to this buffer, as a new item
+     *
+     * @param source the buffer to copy the item from
+     * @param item the index of the item within the source buffer
+     */
+    void copyItem(final BulkRequestBuffer source, final int item) {
+        startItem(source.recordIndexes[item]);
+
+        final int start = source.itemOffsets[item];
+        final int end = item + 1 < source.itemCount ? source.itemOffsets[item + 1] : source.count;
+        write(source.bytes, start, end - start);
+    }
+
+    int getItemCount() {
+        return itemCount;
+    }
+
+    int getRecordIndex(final int item) {
+        return recordIndexes[item];
+    }
+
+    int getCapacity() {
+        return bytes.length;
+    }
+
+    /**
+     * @return a request body that is backed by this buffer, so the buffer must not be reset or written to until the request has completed
+     */
+    RequestBody toRequestBody(final MediaType mediaType) {
+        return RequestBody.create(mediaType, bytes, 0, count);
+    }
+
+    void reset() {
+        count = 0;
+        itemCount = 0;
+    }
+
+    @Override
+    public void write(final int b) {
+        ensureCapacity(count + 1);
+        bytes[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, bytes, count, len);
+        count += len;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
@@ -19,11 +19,9 @@ package org.apache.nifi.processors.elasticsearch;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
-import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import org.apache.nifi.annotation.behavior.DynamicProperty;
@@ -34,6 +32,7 @@ import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.ValidationContext;
@@ -71,13 +70,11 @@ import org.apache.nifi.serialization.record.util.DataTypeUtils;
 import org.apache.nifi.util.StringUtils;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.URL;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -86,6 +83,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
@@ -94,7 +100,9 @@ import java.util.Set;
 @CapabilityDescription("Writes the records from a FlowFile into to Elasticsearch, using the specified parameters such as "
         + "the index to insert into and the type of the document, as well as the operation type (index, upsert, delete, etc.). Note: The Bulk API is used to "
         + "send the records. This means that the entire contents of the incoming flow file are read into memory, and each record is transformed into a JSON document "
-        + "which is added to a single HTTP request body. For very large flow files (files with a large number of records, e.g.), this could cause memory usage issues.")
+        + "which is added to a single HTTP request body. For very large flow files (files with a large number of records, e.g.), this could cause memory usage issues, "
+        + "unless the 'Records Per Bulk Request' property is set, in which case the records are sent in several requests, of which up to 'Max In-Flight Bulk Requests' "
+        + "may be sent concurrently.")
 @WritesAttributes({
         @WritesAttribute(attribute="record.count", description="The number of records in an outgoing FlowFile. This is only populated on the 'success' relationship."),
         @WritesAttribute(attribute="failure.count", description="The number of records found by Elasticsearch to have errors. This is only populated on the 'failure' relationship.")
@@ -239,12 +247,65 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
             .required(false)
             .build();
 
+    static final PropertyDescriptor RECORDS_PER_REQUEST = new PropertyDescriptor.Builder()
+            .name("put-es-record-records-per-request")
+            .displayName("Records Per Bulk Request")
+            .description("The maximum number of records to send to Elasticsearch in a single Bulk API request. If this is not set, all of the records in a FlowFile "
+                    + "are sent in a single request. Otherwise the records are sent in as many requests as necessary, and the FlowFile is only routed once all of "
+                    + "the requests have completed. Note that if one of those requests fails as a whole (for example, because of a connection error or an error "
+                    + "status code for the entire request), the entire FlowFile is routed to 'failure' or 'retry', including the records whose requests succeeded. "
+                    + "If the FlowFile is sent again, those records are indexed again, so records are delivered at least once: with the 'index' operation and an "
+                    + "Identifier Record Path they are overwritten, but without an identifier they are duplicated.")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .required(false)
+            .build();
+
+    /**
+     * The common Character Set property, retained so that existing flows remain valid, but not used by this processor
+     */
+    static final PropertyDescriptor CHARACTER_SET = new PropertyDescriptor.Builder()
+            .fromPropertyDescriptor(CHARSET)
+            .description("Deprecated and ignored by this processor. The records are decoded by the Record Reader, which has its own character set where applicable, "
+                    + "and Bulk API requests are always encoded as UTF-8, which is the only encoding that Elasticsearch accepts.")
+            .build();
+
+    static final PropertyDescriptor MAX_IN_FLIGHT_REQUESTS = new PropertyDescriptor.Builder()
+            .name("put-es-record-max-in-flight-requests")
+            .displayName("Max In-Flight Bulk Requests")
+            .description("The maximum number of Bulk API requests that each concurrent task may have outstanding at any one time. While requests are outstanding, "
+                    + "the task continues to convert records into the next request. This is only useful if 'Records Per Bulk Request' is set.")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .required(true)
+            .defaultValue("1")
+            .build();
+
+    static final PropertyDescriptor MAX_ITEM_RETRIES = new PropertyDescriptor.Builder()
+            .name("put-es-record-max-item-retries")
+            .displayName("Max Item Retries")
+            .description("The number of times to resubmit the records that Elasticsearch rejects with a status code of 429 (Too Many Requests) or 5xx, which usually "
+                    + "indicate that the cluster is temporarily overloaded. Only the rejected records are resubmitted, after an exponential back-off. Records that "
+                    + "are still rejected once all retries have been used, and records that are rejected for any other reason, are considered to have failed. "
+                    + "If the whole request is rejected with such a status code, it is resubmitted in the same way.")
+            .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+            .required(true)
+            .defaultValue("0")
+            .build();
+
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final int MAX_POOLED_BUFFER_CAPACITY = 16 * 1024 * 1024;
+    private static final long INITIAL_RETRY_BACKOFF_MILLIS = 100L;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000L;
+
     private static final Set<Relationship> relationships;
     private static final List<PropertyDescriptor> propertyDescriptors;
 
     private volatile RecordPathCache recordPathCache;
 
     private final JsonFactory factory = new JsonFactory();
+    private final BlockingQueue<BulkRequestBuffer> bufferPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+    private volatile ExecutorService bulkRequestExecutor;
+    private volatile int maxInFlightRequests;
 
     private volatile String nullSuppression;
     private volatile String dateFormat;
@@ -260,6 +321,7 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
         relationships = Collections.unmodifiableSet(_rels);
 
         final List<PropertyDescriptor> descriptors = new ArrayList<>(COMMON_PROPERTY_DESCRIPTORS);
+        descriptors.set(descriptors.indexOf(CHARSET), CHARACTER_SET);
         descriptors.add(RECORD_READER);
         descriptors.add(RECORD_WRITER);
         descriptors.add(LOG_ALL_ERRORS);
@@ -271,6 +333,9 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
         descriptors.add(DATE_FORMAT);
         descriptors.add(TIME_FORMAT);
         descriptors.add(TIMESTAMP_FORMAT);
+        descriptors.add(RECORDS_PER_REQUEST);
+        descriptors.add(MAX_IN_FLIGHT_REQUESTS);
+        descriptors.add(MAX_ITEM_RETRIES);
 
         propertyDescriptors = Collections.unmodifiableList(descriptors);
     }
@@ -331,6 +396,28 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
         }
 
         logAllErrors = context.getProperty(LOG_ALL_ERRORS).asBoolean();
+
+        maxInFlightRequests = context.getProperty(MAX_IN_FLIGHT_REQUESTS).asInteger();
+        if (maxInFlightRequests > 1) {
+            final String threadNamePrefix = getClass().getSimpleName() + " " + getIdentifier() + " Bulk Request-";
+            final AtomicInteger threadCount = new AtomicInteger(0);
+            bulkRequestExecutor = Executors.newFixedThreadPool(maxInFlightRequests * context.getMaxConcurrentTasks(), runnable -> {
+                final Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @OnStopped
+    public void shutdownExecutor() {
+        final ExecutorService executor = bulkRequestExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            bulkRequestExecutor = null;
+        }
+
+        bufferPool.clear();
     }
 
     @Override
@@ -404,13 +491,18 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
 
         final String id_path = context.getProperty(ID_RECORD_PATH).evaluateAttributeExpressions(flowFile).getValue();
         final RecordPath recordPath = StringUtils.isEmpty(id_path) ? null : recordPathCache.getCompiled(id_path);
-        final StringBuilder sb = new StringBuilder();
-        final Charset charset = Charset.forName(context.getProperty(CHARSET).evaluateAttributeExpressions(flowFile).getValue());
+
+        final int recordsPerRequest = context.getProperty(RECORDS_PER_REQUEST).isSet() ? context.getProperty(RECORDS_PER_REQUEST).asInteger() : Integer.MAX_VALUE;
+        final int maxItemRetries = context.getProperty(MAX_ITEM_RETRIES).asInteger();
+        final BulkRequestPipeline pipeline = new BulkRequestPipeline(okHttpClient, url, username, password, maxItemRetries, flowFile, bulkRequestExecutor);
 
         int recordCount = 0;
+        BulkRequestBuffer buffer = acquireBuffer();
         try (final InputStream in = session.read(flowFile);
              final RecordReader reader = readerFactory.createRecordReader(flowFile, in, getLogger())) {
 
+            JsonGenerator generator = createGenerator(buffer);
+
             Record record;
             while ((record = reader.nextRecord()) != null) {
 
@@ -431,108 +523,82 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
                     throw new IdentifierNotFoundException("Index operation {} requires a valid identifier value from a flow file attribute, transferring to failure.");
                 }
 
-                final StringBuilder json = new StringBuilder();
-
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                JsonGenerator generator = factory.createJsonGenerator(out);
-                writeRecord(record, record.getSchema(), generator);
+                // The generator must be flushed so that the buffer knows where the item begins
                 generator.flush();
-                generator.close();
-                json.append(out.toString(charset.name()));
-
-                buildBulkCommand(sb, index, docType, indexOp, id, json.toString());
+                buffer.startItem(recordCount);
+                writeBulkItem(generator, record, index, docType, indexOp, id);
                 recordCount++;
+
+                if (buffer.getItemCount() >= recordsPerRequest) {
+                    generator.close();
+                    pipeline.submit(buffer);
+
+                    buffer = acquireBuffer();
+                    generator = createGenerator(buffer);
+                }
             }
+
+            generator.close();
         } catch (IdentifierNotFoundException infe) {
+            releaseBuffer(buffer);
+            pipeline.awaitCompletion();
             logger.error(infe.getMessage(), new Object[]{flowFile});
             flowFile = session.penalize(flowFile);
             session.transfer(flowFile, REL_FAILURE);
             return;
 
         } catch (final IOException | SchemaNotFoundException | MalformedRecordException e) {
+            releaseBuffer(buffer);
+            pipeline.awaitCompletion();
             logger.error("Could not parse incoming data", e);
             flowFile = session.penalize(flowFile);
             session.transfer(flowFile, REL_FAILURE);
             return;
         }
 
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json"), sb.toString());
-        final Response getResponse;
-        try {
-            getResponse = sendRequestToElasticsearch(okHttpClient, url, username, password, "PUT", requestBody);
-        } catch (final Exception e) {
-            logger.error("Routing to {} due to exception: {}", new Object[]{REL_FAILURE.getName(), e}, e);
+        // A request is always sent for the last records, even if there are none, unless the records were all sent in earlier requests
+        if (buffer.getItemCount() > 0 || pipeline.getSubmittedRequests() == 0) {
+            pipeline.submit(buffer);
+        } else {
+            releaseBuffer(buffer);
+        }
+        pipeline.awaitCompletion();
+
+        if (pipeline.getRetriedItems() > 0) {
+            session.adjustCounter("Bulk Items Retried", pipeline.getRetriedItems(), false);
+        }
+
+        if (pipeline.requestException != null) {
+            logger.error("Routing to {} due to exception: {}", new Object[]{REL_FAILURE.getName(), pipeline.requestException}, pipeline.requestException);
             flowFile = session.penalize(flowFile);
             session.transfer(flowFile, REL_FAILURE);
             return;
-        }
-        final int statusCode = getResponse.code();
-
-        final Set<Integer> failures = new HashSet<>();
-
-        if (isSuccess(statusCode)) {
-            try (ResponseBody responseBody = getResponse.body()) {
-                final byte[] bodyBytes = responseBody.bytes();
-
-                JsonNode responseJson = parseJsonResponse(new ByteArrayInputStream(bodyBytes));
-                boolean errors = responseJson.get("errors").asBoolean(false);
-                // ES has no rollback, so if errors occur, log them and route the whole flow file to failure
-                if (errors) {
-                    ArrayNode itemNodeArray = (ArrayNode) responseJson.get("items");
-                    if(itemNodeArray != null) {
-                        if (itemNodeArray.size() > 0) {
-                            // All items are returned whether they succeeded or failed, so iterate through the item array
-                            // at the same time as the flow file list, moving each to success or failure accordingly,
-                            // but only keep the first error for logging
-                            String errorReason = null;
-                            for (int i = itemNodeArray.size() - 1; i >= 0; i--) {
-                                JsonNode itemNode = itemNodeArray.get(i);
-                                int status = itemNode.findPath("status").asInt();
-                                if (!isSuccess(status)) {
-                                    if (errorReason == null || logAllErrors) {
-                                        // Use "result" if it is present; this happens for status codes like 404 Not Found, which may not have an error/reason
-                                        String reason = itemNode.findPath("result").asText();
-                                        if (StringUtils.isEmpty(reason)) {
-                                            // If there was no result, we expect an error with a string description in the "reason" field
-                                            reason = itemNode.findPath("reason").asText();
-                                        }
-                                        errorReason = reason;
-
-                                        logger.error("Failed to process record {} in FlowFile {} due to {}, transferring to failure",
-                                                new Object[]{i, flowFile, errorReason});
-                                    }
-                                    failures.add(i);
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    // Everything succeeded, route FF and end
-                    flowFile = session.putAttribute(flowFile, "record.count", Integer.toString(recordCount));
-                    session.transfer(flowFile, REL_SUCCESS);
-                    session.getProvenanceReporter().send(flowFile, url.toString());
-                    return;
-                }
-
-            } catch (IOException ioe) {
-                // Something went wrong when parsing the response, log the error and route to failure
-                logger.error("Error parsing Bulk API response: {}", new Object[]{ioe.getMessage()}, ioe);
-                session.transfer(flowFile, REL_FAILURE);
-                context.yield();
-                return;
-            } finally {
-                getResponse.close();
-            }
-        } else if (statusCode / 100 == 5) {
+        } else if (pipeline.responseException != null) {
+            // Something went wrong when parsing the response, log the error and route to failure
+            logger.error("Error parsing Bulk API response: {}", new Object[]{pipeline.responseException.getMessage()}, pipeline.responseException);
+            session.transfer(flowFile, REL_FAILURE);
+            context.yield();
+            return;
+        } else if (pipeline.failedStatusCode != null) {
+            // 1xx, 3xx, 4xx, etc. -> NO RETRY
+            logger.warn("Elasticsearch returned code {} with message {}, transferring flow file to failure", new Object[]{pipeline.failedStatusCode, pipeline.failedStatusMessage});
+            session.transfer(flowFile, REL_FAILURE);
+            return;
+        } else if (pipeline.retryStatusCode != null) {
             // 5xx -> RETRY, but a server error might last a while, so yield
             logger.warn("Elasticsearch returned code {} with message {}, transferring flow file to retry. This is likely a server problem, yielding...",
-                    new Object[]{statusCode, getResponse.message()});
+                    new Object[]{pipeline.retryStatusCode, pipeline.retryStatusMessage});
             session.transfer(flowFile, REL_RETRY);
             context.yield();
             return;
-        } else {  // 1xx, 3xx, 4xx, etc. -> NO RETRY
-            logger.warn("Elasticsearch returned code {} with message {}, transferring flow file to failure", new Object[]{statusCode, getResponse.message()});
-            session.transfer(flowFile, REL_FAILURE);
+        }
+
+        final Set<Integer> failures = pipeline.failures;
+        if (failures.isEmpty()) {
+            // Everything succeeded, route FF and end
+            flowFile = session.putAttribute(flowFile, "record.count", Integer.toString(recordCount));
+            session.transfer(flowFile, REL_SUCCESS);
+            session.getProvenanceReporter().send(flowFile, url.toString());
             return;
         }
 
@@ -749,5 +815,292 @@ public class PutElasticsearchHttpRecord extends AbstractElasticsearchHttpProcess
         }
         generator.writeEndArray();
     }
-}
 
+    private BulkRequestBuffer acquireBuffer() {
+        final BulkRequestBuffer buffer = bufferPool.poll();
+        return buffer == null ? new BulkRequestBuffer() : buffer;
+    }
+
+    private void releaseBuffer(final BulkRequestBuffer buffer) {
+        // Do not hold on to the memory of an unusually large request
+        if (buffer.getCapacity() <= MAX_POOLED_BUFFER_CAPACITY) {
+            buffer.reset();
+            bufferPool.offer(buffer);
+        }
+    }
+
+    private JsonGenerator createGenerator(final BulkRequestBuffer buffer) throws IOException {
+        final JsonGenerator generator = factory.createGenerator(buffer);
+        // The lines of the request are separated explicitly, so no separator is needed between root-level values
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    /**
+     * Writes the action line and, unless the operation is a delete, the document line for the given record
+     */
+    private void writeBulkItem(final JsonGenerator generator, final Record record, final String index, final String docType, final String indexOp, final String id)
+            throws IOException {
+        final boolean isIndex = indexOp.equalsIgnoreCase("index");
+        final boolean isDelete = indexOp.equalsIgnoreCase("delete");
+
+        generator.writeStartObject();
+        generator.writeObjectFieldStart(isIndex ? "index" : (isDelete ? "delete" : "update"));
+        generator.writeStringField("_index", index);
+        generator.writeStringField("_type", docType);
+        if (!isIndex || !StringUtils.isEmpty(id)) {
+            generator.writeStringField("_id", id);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+
+        if (isIndex) {
+            writeRecord(record, record.getSchema(), generator);
+            generator.writeRaw('\n');
+        } else if (!isDelete) {
+            generator.writeStartObject();
+            generator.writeFieldName("doc");
+            writeRecord(record, record.getSchema(), generator);
+            generator.writeBooleanField("doc_as_upsert", indexOp.equalsIgnoreCase("upsert"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+
+    private static boolean isRetryable(final int statusCode) {
+        return statusCode == 429 || statusCode / 100 == 5;
+    }
+
+    /**
+     * Sends the Bulk API requests for the records of a single FlowFile, up to the configured number of them concurrently, and collects
+     * the outcome of all of them. Requests are sent on the calling thread if there is no executor.
+     */
+    private class BulkRequestPipeline {
+        private final OkHttpClient client;
+        private final URL url;
+        private final String username;
+        private final String password;
+        private final int maxItemRetries;
+        private final FlowFile flowFile;
+        private final ExecutorService executor;
+        private final Semaphore inFlightPermits;
+        private final List<Future<?>> futures = new ArrayList<>();
+        private final AtomicInteger retriedItems = new AtomicInteger(0);
+        private int submittedRequests = 0;
+
+        // The outcome of the requests, which is only read once all of the requests have completed
+        private final Set<Integer> failures = new HashSet<>();
+        private boolean itemErrorLogged = false;
+        private Throwable requestException;
+        private IOException responseException;
+        private Integer failedStatusCode;
+        private String failedStatusMessage;
+        private Integer retryStatusCode;
+        private String retryStatusMessage;
+
+        BulkRequestPipeline(final OkHttpClient client, final URL url, final String username, final String password, final int maxItemRetries, final FlowFile flowFile,
+                            final ExecutorService executor) {
+            this.client = client;
+            this.url = url;
+            this.username = username;
+            this.password = password;
+            this.maxItemRetries = maxItemRetries;
+            this.flowFile = flowFile;
+            this.executor = executor;
+            this.inFlightPermits = new Semaphore(maxInFlightRequests);
+        }
+
+        int getSubmittedRequests() {
+            return submittedRequests;
+        }
+
+        int getRetriedItems() {
+            return retriedItems.get();
+        }
+
+        /**
+         * Sends the given request, blocking if the maximum number of requests are already in flight. The pipeline takes ownership of the buffer.
+         */
+        void submit(final BulkRequestBuffer buffer) {
+            submittedRequests++;
+            if (executor == null) {
+                send(buffer);
+                return;
+            }
+
+            inFlightPermits.acquireUninterruptibly();
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        send(buffer);
+                    } finally {
+                        inFlightPermits.release();
+                    }
+                }));
+            } catch (final RejectedExecutionException e) {
+                inFlightPermits.release();
+                releaseBuffer(buffer);
+                recordRequestException(e);
+            }
+        }
+
+        /**
+         * Waits for all of the submitted requests to complete
+         */
+        void awaitCompletion() {
+            boolean interrupted = false;
+            for (final Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (final InterruptedException e) {
+                        interrupted = true;
+                    } catch (final ExecutionException e) {
+                        recordRequestException(e.getCause());
+                        break;
+                    }
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void send(final BulkRequestBuffer buffer) {
+            BulkRequestBuffer request = buffer;
+            try {
+                for (int attempt = 0; request != null; attempt++) {
+                    if (attempt > 0) {
+                        Thread.sleep(Math.min(MAX_RETRY_BACKOFF_MILLIS, INITIAL_RETRY_BACKOFF_MILLIS << Math.min(attempt - 1, 16)));
+                    }
+
+                    final BulkRequestBuffer nextRequest = execute(request, attempt < maxItemRetries);
+                    if (nextRequest != request) {
+                        releaseBuffer(request);
+                    }
+                    request = nextRequest;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recordRequestException(e);
+            } finally {
+                if (request != null) {
+                    releaseBuffer(request);
+                }
+            }
+        }
+
+        /**
+         * @return the request that should be sent next in order to retry the items that Elasticsearch rejected, which is the given request
+         * itself if all of it was rejected, or <code>null</code> if there is nothing to retry
+         */
+        private BulkRequestBuffer execute(final BulkRequestBuffer request, final boolean retriesRemaining) {
+            final Response getResponse;
+            try {
+                getResponse = sendRequestToElasticsearch(client, url, username, password, "PUT", request.toRequestBody(MediaType.parse("application/json")));
+            } catch (final Exception e) {
+                recordRequestException(e);
+                return null;
+            }
+
+            try {
+                final int statusCode = getResponse.code();
+                if (isSuccess(statusCode)) {
+                    try (final ResponseBody responseBody = getResponse.body()) {
+                        final byte[] bodyBytes = responseBody.bytes();
+                        final JsonNode responseJson = parseJsonResponse(new ByteArrayInputStream(bodyBytes));
+                        return processItems(request, responseJson, retriesRemaining);
+                    } catch (final IOException ioe) {
+                        recordResponseException(ioe);
+                        return null;
+                    }
+                } else if (retriesRemaining && isRetryable(statusCode)) {
+                    retriedItems.addAndGet(request.getItemCount());
+                    return request;
+                } else if (statusCode / 100 == 5) {
+                    recordStatus(statusCode, getResponse.message(), true);
+                    return null;
+                } else {
+                    recordStatus(statusCode, getResponse.message(), false);
+                    return null;
+                }
+            } finally {
+                getResponse.close();
+            }
+        }
+
+        private BulkRequestBuffer processItems(final BulkRequestBuffer request, final JsonNode responseJson, final boolean retriesRemaining) {
+            final boolean errors = responseJson.path("errors").asBoolean(false);
+            final JsonNode itemNodeArray = responseJson.get("items");
+            if (!errors || itemNodeArray == null) {
+                return null;
+            }
+
+            // All items are returned whether they succeeded or failed, in the order in which they were sent
+            BulkRequestBuffer retryRequest = null;
+            final int itemCount = Math.min(itemNodeArray.size(), request.getItemCount());
+            for (int i = 0; i < itemCount; i++) {
+                final JsonNode itemNode = itemNodeArray.get(i);
+                final int status = itemNode.findPath("status").asInt();
+                if (isSuccess(status)) {
+                    continue;
+                }
+
+                if (retriesRemaining && isRetryable(status)) {
+                    if (retryRequest == null) {
+                        retryRequest = acquireBuffer();
+                    }
+                    retryRequest.copyItem(request, i);
+                } else {
+                    recordItemFailure(request.getRecordIndex(i), itemNode);
+                }
+            }
+
+            if (retryRequest != null) {
+                retriedItems.addAndGet(retryRequest.getItemCount());
+            }
+            return retryRequest;
+        }
+
+        private synchronized void recordItemFailure(final int recordIndex, final JsonNode itemNode) {
+            // Only log the first error unless configured to log all of them
+            if (!itemErrorLogged || logAllErrors) {
+                // Use "result" if it is present; this happens for status codes like 404 Not Found, which may not have an error/reason
+                String reason = itemNode.findPath("result").asText();
+                if (StringUtils.isEmpty(reason)) {
+                    // If there was no result, we expect an error with a string description in the "reason" field
+                    reason = itemNode.findPath("reason").asText();
+                }
+
+                getLogger().error("Failed to process record {} in FlowFile {} due to {}, transferring to failure", new Object[]{recordIndex, flowFile, reason});
+                itemErrorLogged = true;
+            }
+            failures.add(recordIndex);
+        }
+
+        private synchronized void recordRequestException(final Throwable t) {
+            if (requestException == null) {
+                requestException = t;
+            }
+        }
+
+        private synchronized void recordResponseException(final IOException ioe) {
+            if (responseException == null) {
+                responseException = ioe;
+            }
+        }
+
+        private synchronized void recordStatus(final int statusCode, final String message, final boolean retry) {
+            if (retry && retryStatusCode == null) {
+                retryStatusCode = statusCode;
+                retryStatusMessage = message;
+            } else if (!retry && failedStatusCode == null) {
+                failedStatusCode = statusCode;
+                failedStatusMessage = message;
+            }
+        }
+    }
+}
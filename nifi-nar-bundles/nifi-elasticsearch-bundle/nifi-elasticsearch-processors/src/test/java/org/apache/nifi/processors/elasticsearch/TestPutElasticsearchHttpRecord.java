@@ -16,7 +16,13 @@
  */
 package org.apache.nifi.processors.elasticsearch;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -25,6 +31,7 @@ import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
+import org.apache.commons.io.IOUtils;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
@@ -41,8 +48,11 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -52,6 +62,11 @@ import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
@@ -469,6 +484,189 @@ public class TestPutElasticsearchHttpRecord {
         assertEquals(2, runner.getLogger().getErrorMessages().size());
     }
 
+    @Test
+    public void testPutElasticsearchOnTriggerConcurrentBulkRequests() throws IOException {
+        final BulkApiStub stub = new BulkApiStub((id, attempt) -> 200);
+        try {
+            runner = TestRunners.newTestRunner(new PutElasticsearchHttpRecord());
+            generateTestData(20);
+            runner.setProperty(AbstractElasticsearchHttpProcessor.ES_URL, stub.getUrl());
+            runner.setProperty(PutElasticsearchHttpRecord.INDEX, "doc");
+            runner.setProperty(PutElasticsearchHttpRecord.TYPE, "status");
+            runner.setProperty(PutElasticsearchHttpRecord.ID_RECORD_PATH, "/id");
+            runner.setProperty(PutElasticsearchHttpRecord.RECORDS_PER_REQUEST, "2");
+            runner.setProperty(PutElasticsearchHttpRecord.MAX_IN_FLIGHT_REQUESTS, "4");
+
+            runner.enqueue(new byte[0]);
+            runner.run(1, true, true);
+
+            runner.assertAllFlowFilesTransferred(PutElasticsearchHttpRecord.REL_SUCCESS, 1);
+            runner.getFlowFilesForRelationship(PutElasticsearchHttpRecord.REL_SUCCESS).get(0).assertAttributeEquals("record.count", "20");
+            assertEquals(10, stub.getRequestCount());
+            assertEquals(20, stub.getAttempts().size());
+            assertTrue(stub.getMaxConcurrentRequests() > 1);
+            assertTrue(stub.getMaxConcurrentRequests() <= 4);
+        } finally {
+            stub.stop();
+        }
+    }
+
+    @Test
+    public void testPutElasticsearchOnTriggerRetriesOnlyRejectedItems() throws IOException {
+        // Reject every other document the first time that it is sent
+        final BulkApiStub stub = new BulkApiStub((id, attempt) -> id % 2 == 0 && attempt == 1 ? 429 : 201);
+        try {
+            runner = TestRunners.newTestRunner(new PutElasticsearchHttpRecord());
+            generateTestData();
+            runner.setProperty(AbstractElasticsearchHttpProcessor.ES_URL, stub.getUrl());
+            runner.setProperty(PutElasticsearchHttpRecord.INDEX, "doc");
+            runner.setProperty(PutElasticsearchHttpRecord.TYPE, "status");
+            runner.setProperty(PutElasticsearchHttpRecord.ID_RECORD_PATH, "/id");
+            runner.setProperty(PutElasticsearchHttpRecord.MAX_ITEM_RETRIES, "2");
+
+            runner.enqueue(new byte[0]);
+            runner.run(1, true, true);
+
+            runner.assertAllFlowFilesTransferred(PutElasticsearchHttpRecord.REL_SUCCESS, 1);
+            runner.getFlowFilesForRelationship(PutElasticsearchHttpRecord.REL_SUCCESS).get(0).assertAttributeEquals("record.count", "4");
+            assertEquals(2, stub.getRequestCount());
+            assertEquals(1, stub.getAttempts().get(1).get());
+            assertEquals(2, stub.getAttempts().get(2).get());
+            assertEquals(1, stub.getAttempts().get(3).get());
+            assertEquals(2, stub.getAttempts().get(4).get());
+            assertEquals(Long.valueOf(2), runner.getCounterValue("Bulk Items Retried"));
+        } finally {
+            stub.stop();
+        }
+    }
+
+    @Test
+    public void testPutElasticsearchOnTriggerItemRetriesExhausted() throws IOException {
+        // Document 2 is always rejected as the cluster is busy, document 3 cannot be indexed at all
+        final BulkApiStub stub = new BulkApiStub((id, attempt) -> id == 2 ? 429 : (id == 3 ? 400 : 201));
+        try {
+            runner = TestRunners.newTestRunner(new PutElasticsearchHttpRecord());
+            generateTestData();
+            generateWriter();
+            runner.setProperty(AbstractElasticsearchHttpProcessor.ES_URL, stub.getUrl());
+            runner.setProperty(PutElasticsearchHttpRecord.INDEX, "doc");
+            runner.setProperty(PutElasticsearchHttpRecord.TYPE, "status");
+            runner.setProperty(PutElasticsearchHttpRecord.ID_RECORD_PATH, "/id");
+            runner.setProperty(PutElasticsearchHttpRecord.MAX_ITEM_RETRIES, "1");
+
+            runner.enqueue(new byte[0]);
+            runner.run(1, true, true);
+
+            runner.assertTransferCount(PutElasticsearchHttpRecord.REL_SUCCESS, 1);
+            runner.assertTransferCount(PutElasticsearchHttpRecord.REL_FAILURE, 1);
+            runner.getFlowFilesForRelationship(PutElasticsearchHttpRecord.REL_SUCCESS).get(0).assertAttributeEquals("record.count", "2");
+            final MockFlowFile flowFileFailure = runner.getFlowFilesForRelationship(PutElasticsearchHttpRecord.REL_FAILURE).get(0);
+            flowFileFailure.assertAttributeEquals("failure.count", "2");
+            final String[] failedRecords = new String(flowFileFailure.toByteArray(), StandardCharsets.UTF_8).split("\n");
+            assertEquals(2, failedRecords.length);
+            assertTrue(failedRecords[0].startsWith("\"2\","));
+            assertTrue(failedRecords[1].startsWith("\"3\","));
+            assertEquals(2, stub.getAttempts().get(2).get());
+            assertEquals(1, stub.getAttempts().get(3).get());
+        } finally {
+            stub.stop();
+        }
+    }
+
+    /**
+     * A local HTTP server that stands in for the Elasticsearch Bulk API. The status of each item is chosen by a function of the
+     * document's identifier and the number of times that the document has been sent.
+     */
+    private static class BulkApiStub implements HttpHandler {
+        private final ObjectMapper mapper = new ObjectMapper();
+        private final BiFunction<Integer, Integer, Integer> itemStatus;
+        private final HttpServer server;
+        private final Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        private final AtomicInteger requestCount = new AtomicInteger(0);
+        private final AtomicInteger concurrentRequests = new AtomicInteger(0);
+        private final AtomicInteger maxConcurrentRequests = new AtomicInteger(0);
+
+        BulkApiStub(final BiFunction<Integer, Integer, Integer> itemStatus) throws IOException {
+            this.itemStatus = itemStatus;
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/_bulk", this);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        int getRequestCount() {
+            return requestCount.get();
+        }
+
+        int getMaxConcurrentRequests() {
+            return maxConcurrentRequests.get();
+        }
+
+        Map<Integer, AtomicInteger> getAttempts() {
+            return attempts;
+        }
+
+        void stop() {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            requestCount.incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+            try {
+                final List<String> lines = IOUtils.readLines(exchange.getRequestBody(), StandardCharsets.UTF_8);
+
+                final ArrayNode items = mapper.createArrayNode();
+                boolean errors = false;
+                for (int i = 0; i < lines.size(); i += 2) {
+                    // Every action line is followed by the document
+                    final JsonNode action = mapper.readTree(lines.get(i)).get("index");
+                    final int id = action.get("_id").asInt();
+                    mapper.readTree(lines.get(i + 1));
+
+                    final int attempt = attempts.computeIfAbsent(id, key -> new AtomicInteger(0)).incrementAndGet();
+                    final int status = itemStatus.apply(id, attempt);
+                    errors |= status / 100 != 2;
+
+                    final ObjectNode item = items.addObject().putObject("index");
+                    item.put("_index", action.get("_index").asText());
+                    item.put("_id", String.valueOf(id));
+                    item.put("status", status);
+                    if (status / 100 != 2) {
+                        item.putObject("error").put("reason", "Rejected with status " + status);
+                    }
+                }
+
+                // Give the other requests a chance to overlap with this one
+                Thread.sleep(100L);
+
+                final ObjectNode response = mapper.createObjectNode();
+                response.put("took", 1);
+                response.put("errors", errors);
+                response.set("items", items);
+                final byte[] responseBytes = mapper.writeValueAsBytes(response);
+
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, responseBytes.length);
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(responseBytes);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                concurrentRequests.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+
     /**
      * A Test class that extends the processor in order to inject/mock behavior
      */
@@ -23,6 +23,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.nifi.annotation.behavior.Stateful;
 import org.apache.nifi.annotation.behavior.TriggerSerially;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.annotation.notification.OnPrimaryNodeStateChange;
 import org.apache.nifi.annotation.notification.PrimaryNodeState;
 import org.apache.nifi.components.AllowableValue;
@@ -810,6 +811,17 @@ public abstract class AbstractListProcessor<T extends ListableEntity> extends Ab
         }
     }
 
+    @OnStopped
+    public void closeListedEntityTracker() {
+        if (listedEntityTracker != null) {
+            try {
+                listedEntityTracker.close();
+            } catch (IOException e) {
+                getLogger().warn("Failed to close the storage of previously listed entities due to {}", new Object[]{e}, e);
+            }
+        }
+    }
+
     protected ListedEntityTracker<T> createListedEntityTracker() {
         return new ListedEntityTracker<>(getIdentifier(), getLogger(), getRecordSchema());
     }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.nifi.distributed.cache.client.Deserializer;
+import org.apache.nifi.distributed.cache.client.DistributedMapCacheClient;
+import org.apache.nifi.distributed.cache.client.Serializer;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.stream.io.GZIPOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Holds all listed entities in memory and persists them to a {@link DistributedMapCacheClient} as a single Gzipped JSON value.
+ */
+class DistributedMapCacheListedEntityStore implements ListedEntityStore {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Serializer<String> stringSerializer = (v, o) -> o.write(v.getBytes(StandardCharsets.UTF_8));
+
+    private final Serializer<Map<String, ListedEntity>> listedEntitiesSerializer = (v, o) -> {
+        final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(o);
+        objectMapper.writeValue(gzipOutputStream, v);
+        // Finish writing gzip data without closing the underlying stream.
+        gzipOutputStream.finish();
+    };
+
+    private final Deserializer<Map<String, ListedEntity>> listedEntitiesDeserializer = v -> {
+        if (v == null || v.length == 0) {
+            return null;
+        }
+        try (final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(v))) {
+            return objectMapper.readValue(in, new TypeReference<Map<String, ListedEntity>>() {});
+        }
+    };
+
+    private final DistributedMapCacheClient mapCacheClient;
+    private final String cacheKey;
+    private final ComponentLog logger;
+    private volatile Map<String, ListedEntity> alreadyListedEntities = new ConcurrentHashMap<>();
+
+    DistributedMapCacheListedEntityStore(final DistributedMapCacheClient mapCacheClient, final String cacheKey, final ComponentLog logger) {
+        this.mapCacheClient = mapCacheClient;
+        this.cacheKey = cacheKey;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean restore() throws IOException {
+        final Map<String, ListedEntity> listedEntities = mapCacheClient.get(cacheKey, stringSerializer, listedEntitiesDeserializer);
+        logger.debug("Fetched listed entities: {}={}", new Object[]{cacheKey, listedEntities});
+
+        if (listedEntities == null) {
+            alreadyListedEntities = new ConcurrentHashMap<>();
+            return false;
+        }
+
+        alreadyListedEntities = new ConcurrentHashMap<>(listedEntities);
+        return true;
+    }
+
+    @Override
+    public ListedEntity get(final String identifier) {
+        return alreadyListedEntities.get(identifier);
+    }
+
+    @Override
+    public void putAll(final Map<String, ListedEntity> entities) {
+        alreadyListedEntities.putAll(entities);
+    }
+
+    @Override
+    public int removeEntitiesOlderThan(final long timestamp) {
+        final List<String> oldEntityIds = alreadyListedEntities.entrySet().stream()
+                .filter(entry -> entry.getValue().getTimestamp() < timestamp).map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        logger.trace("Removing old entities: {}", new Object[]{oldEntityIds});
+        oldEntityIds.forEach(alreadyListedEntities::remove);
+        return oldEntityIds.size();
+    }
+
+    @Override
+    public void persist() throws IOException {
+        logger.debug("Persisting listed entities: {}={}", new Object[]{cacheKey, alreadyListedEntities});
+        mapCacheClient.put(cacheKey, alreadyListedEntities, stringSerializer, listedEntitiesSerializer);
+    }
+
+    @Override
+    public void clear() throws IOException {
+        alreadyListedEntities = new ConcurrentHashMap<>();
+        logger.debug("Removing listed entities from cache storage: {}", new Object[]{cacheKey});
+        mapCacheClient.remove(cacheKey, stringSerializer);
+    }
+
+    @Override
+    public void close() {
+        // The entities are held in memory, so there is nothing to release
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Stores the entities that have already been listed by a {@link ListedEntityTracker}.
+ */
+interface ListedEntityStore extends Closeable {
+
+    /**
+     * Restores the entities that were stored by a previous listing.
+     *
+     * @return <code>true</code> if entities have been stored before, <code>false</code> if this is the initial listing
+     * @throws IOException if unable to restore the entities
+     */
+    boolean restore() throws IOException;
+
+    /**
+     * @param identifier the identifier of the entity
+     * @return the entity that was listed with the given identifier, or <code>null</code> if no such entity has been listed
+     * @throws IOException if unable to retrieve the entity
+     */
+    ListedEntity get(String identifier) throws IOException;
+
+    /**
+     * Adds or replaces the given entities. The changes are not guaranteed to be durable until {@link #persist()} is called.
+     *
+     * @param entities the entities to store, keyed by identifier
+     * @throws IOException if unable to store the entities
+     */
+    void putAll(Map<String, ListedEntity> entities) throws IOException;
+
+    /**
+     * Removes all entities whose timestamp is older than the given timestamp.
+     *
+     * @param timestamp the minimum timestamp of an entity to keep
+     * @return the number of entities that were removed
+     * @throws IOException if unable to remove the entities
+     */
+    int removeEntitiesOlderThan(long timestamp) throws IOException;
+
+    /**
+     * Makes all changes durable.
+     *
+     * @throws IOException if unable to persist the changes
+     */
+    void persist() throws IOException;
+
+    /**
+     * Removes all stored entities, so that the next listing is an initial listing.
+     *
+     * @throws IOException if unable to remove the entities
+     */
+    void clear() throws IOException;
+
+    /**
+     * Releases any resources held by the store. The store may be used again after it has been closed.
+     *
+     * @throws IOException if unable to release the resources
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -16,16 +16,12 @@
  */
 package org.apache.nifi.processor.util.list;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.ValidationContext;
 import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.components.state.Scope;
-import org.apache.nifi.distributed.cache.client.Deserializer;
 import org.apache.nifi.distributed.cache.client.DistributedMapCacheClient;
-import org.apache.nifi.distributed.cache.client.Serializer;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
@@ -38,32 +34,30 @@ import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
 import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.RecordSchema;
-import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.util.StringUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 import static java.lang.String.format;
 import static org.apache.nifi.processor.util.list.AbstractListProcessor.REL_SUCCESS;
 
 public class ListedEntityTracker<T extends ListableEntity> {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private volatile Map<String, ListedEntity> alreadyListedEntities;
+    private volatile ListedEntityStore listedEntityStore;
+    private volatile String listedEntityStoreLocation;
+    private volatile boolean listedEntitiesRestored = false;
 
     private static final String NOTE = "Used by 'Tracking Entities' strategy.";
     public static final PropertyDescriptor TRACKING_STATE_CACHE = new PropertyDescriptor.Builder()
@@ -83,6 +77,21 @@ public class ListedEntityTracker<T extends ListableEntity> {
             .identifiesControllerService(DistributedMapCacheClient.class)
             .build();
 
+    public static final PropertyDescriptor TRACKING_STATE_DIRECTORY = new PropertyDescriptor.Builder()
+            .name("et-local-storage-directory")
+            .displayName("Entity Tracking Local Storage Directory")
+            .description(format("As an alternative to 'Entity Tracking State Cache', listed entities can be stored in an embedded database" +
+                    " on the local disk, within a subdirectory of the specified directory that is named after the processor's identifier." +
+                    " Each entity is stored and expired individually rather than as part of a single cache entry," +
+                    " so the number of entities that can be tracked is limited by disk space rather than heap." +
+                    " Because the database is local to each node, listed entities are not shared across the cluster:" +
+                    " if the Primary Node changes, the new Primary Node lists based on the entities that it has tracked itself." +
+                    " The subdirectory will be deleted when target listing configuration is changed." +
+                    " %s", NOTE))
+            .addValidator(StandardValidators.createDirectoryExistsValidator(true, true))
+            .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+            .build();
+
     public static final PropertyDescriptor TRACKING_TIME_WINDOW = new PropertyDescriptor.Builder()
             .name("et-time-window")
             .displayName("Entity Tracking Time Window")
@@ -128,36 +137,10 @@ public class ListedEntityTracker<T extends ListableEntity> {
     static final Supplier<Long> DEFAULT_CURRENT_TIMESTAMP_SUPPLIER = System::currentTimeMillis;
     private final Supplier<Long> currentTimestampSupplier;
 
-    private final Serializer<String> stringSerializer = (v, o) -> o.write(v.getBytes(StandardCharsets.UTF_8));
-
-    private final Serializer<Map<String, ListedEntity>> listedEntitiesSerializer = (v, o) -> {
-        final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(o);
-        objectMapper.writeValue(gzipOutputStream, v);
-        // Finish writing gzip data without closing the underlying stream.
-        gzipOutputStream.finish();
-    };
-
-    private final Deserializer<Map<String, ListedEntity>> listedEntitiesDeserializer = v -> {
-        if (v == null || v.length == 0) {
-            return null;
-        }
-        try (final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(v))) {
-            return objectMapper.readValue(in, new TypeReference<Map<String, ListedEntity>>() {});
-        }
-    };
-
     private final String componentId;
     private final ComponentLog logger;
     private final RecordSchema recordSchema;
 
-    /*
-     * The scope, nodeId and mapCacheClient being used at the previous trackEntities method execution is captured,
-     * so that it can be used when resetListedEntities is called.
-     */
-    private Scope scope;
-    private String nodeId;
-    private DistributedMapCacheClient mapCacheClient;
-
     ListedEntityTracker(final String componentId, final ComponentLog logger, final RecordSchema recordSchema) {
         this(componentId, logger, DEFAULT_CURRENT_TIMESTAMP_SUPPLIER, recordSchema);
     }
@@ -174,10 +157,20 @@ public class ListedEntityTracker<T extends ListableEntity> {
     }
 
     static void validateProperties(ValidationContext context, Collection<ValidationResult> results, Scope scope) {
-        validateRequiredProperty(context, results, ListedEntityTracker.TRACKING_STATE_CACHE);
+        final boolean cacheSet = context.getProperty(TRACKING_STATE_CACHE).isSet();
+        final boolean directorySet = context.getProperty(TRACKING_STATE_DIRECTORY).isSet();
+        if (cacheSet && directorySet) {
+            results.add(new ValidationResult.Builder()
+                    .subject(TRACKING_STATE_DIRECTORY.getDisplayName())
+                    .explanation(format("'%s' and '%s' cannot both be set", TRACKING_STATE_CACHE.getDisplayName(), TRACKING_STATE_DIRECTORY.getDisplayName()))
+                    .valid(false)
+                    .build());
+        } else if (!directorySet) {
+            validateRequiredProperty(context, results, ListedEntityTracker.TRACKING_STATE_CACHE);
+        }
         validateRequiredProperty(context, results, ListedEntityTracker.TRACKING_TIME_WINDOW);
 
-        if (Scope.LOCAL.equals(scope)
+        if (!directorySet && Scope.LOCAL.equals(scope)
             && StringUtils.isEmpty(context.getProperty(NODE_IDENTIFIER).evaluateAttributeExpressions().getValue())) {
             results.add(new ValidationResult.Builder()
                     .subject(NODE_IDENTIFIER.getDisplayName())
@@ -199,7 +192,7 @@ public class ListedEntityTracker<T extends ListableEntity> {
     }
 
     private static final String CACHE_KEY_PREFIX = "ListedEntities";
-    private String getCacheKey() {
+    private String getCacheKey(final Scope scope, final String nodeId) {
         switch (scope) {
             case LOCAL:
                 return format("%s::%s::%s", CACHE_KEY_PREFIX, componentId, nodeId);
@@ -209,25 +202,56 @@ public class ListedEntityTracker<T extends ListableEntity> {
         throw new IllegalArgumentException("Unknown scope: " + scope);
     }
 
-    private void persistListedEntities(Map<String, ListedEntity> listedEntities) throws IOException {
-        final String cacheKey = getCacheKey();
-        logger.debug("Persisting listed entities: {}={}", new Object[]{cacheKey, listedEntities});
-        mapCacheClient.put(cacheKey, listedEntities, stringSerializer, listedEntitiesSerializer);
-    }
+    /**
+     * Returns the store that is configured for the given context, replacing the store that was used by the previous listing if the configuration has changed.
+     */
+    private ListedEntityStore getListedEntityStore(final ProcessContext context, final Scope scope) throws IOException {
+        final String storageDirectory = context.getProperty(TRACKING_STATE_DIRECTORY).evaluateAttributeExpressions().getValue();
+
+        final String cacheKey;
+        final String location;
+        if (storageDirectory == null) {
+            final String nodeId = Scope.LOCAL.equals(scope) ? context.getProperty(NODE_IDENTIFIER).evaluateAttributeExpressions().getValue() : null;
+            cacheKey = getCacheKey(scope, nodeId);
+            location = context.getProperty(TRACKING_STATE_CACHE).getValue() + "/" + cacheKey;
+        } else {
+            cacheKey = null;
+            location = Paths.get(storageDirectory, componentId).toString();
+        }
 
-    private Map<String, ListedEntity> fetchListedEntities() throws IOException {
-        final String cacheKey = getCacheKey();
-        final Map<String, ListedEntity> listedEntities = mapCacheClient.get(cacheKey, stringSerializer, listedEntitiesDeserializer);
-        logger.debug("Fetched listed entities: {}={}", new Object[]{cacheKey, listedEntities});
-        return listedEntities;
+        if (listedEntityStore == null || !location.equals(listedEntityStoreLocation)) {
+            if (listedEntityStore != null) {
+                listedEntityStore.close();
+            }
+
+            if (storageDirectory == null) {
+                final DistributedMapCacheClient mapCacheClient = context.getProperty(TRACKING_STATE_CACHE).asControllerService(DistributedMapCacheClient.class);
+                listedEntityStore = new DistributedMapCacheListedEntityStore(mapCacheClient, cacheKey, logger);
+            } else {
+                listedEntityStore = new RocksDBListedEntityStore(Paths.get(location), logger);
+            }
+
+            listedEntityStoreLocation = location;
+            listedEntitiesRestored = false;
+        }
+
+        return listedEntityStore;
     }
 
     void clearListedEntities() throws IOException {
-        alreadyListedEntities = null;
-        if (mapCacheClient != null) {
-            final String cacheKey = getCacheKey();
-            logger.debug("Removing listed entities from cache storage: {}", new Object[]{cacheKey});
-            mapCacheClient.remove(cacheKey, stringSerializer);
+        listedEntitiesRestored = false;
+        if (listedEntityStore != null) {
+            listedEntityStore.clear();
+        }
+    }
+
+    /**
+     * Releases any resources held in order to track listed entities, such as an embedded database. Tracking resumes where it left off
+     * the next time that {@link #trackEntities} is called.
+     */
+    void close() throws IOException {
+        if (listedEntityStore != null) {
+            listedEntityStore.close();
         }
     }
 
@@ -238,25 +262,19 @@ public class ListedEntityTracker<T extends ListableEntity> {
                               Function<T, Map<String, String>> createAttributes) throws ProcessException {
 
         boolean initialListing = false;
-        mapCacheClient = context.getProperty(TRACKING_STATE_CACHE).asControllerService(DistributedMapCacheClient.class);
-        this.scope = scope;
-        if (Scope.LOCAL.equals(scope)) {
-            nodeId = context.getProperty(ListedEntityTracker.NODE_IDENTIFIER).evaluateAttributeExpressions().getValue();
-        } else {
-            nodeId = null;
+        final ListedEntityStore store;
+        try {
+            store = getListedEntityStore(context, scope);
+        } catch (IOException e) {
+            throw new ProcessException("Failed to access already-listed entities due to " + e, e);
         }
 
-        if (alreadyListedEntities == null || justElectedPrimaryNode) {
+        if (!listedEntitiesRestored || justElectedPrimaryNode) {
             logger.info(justElectedPrimaryNode ? "Just elected as Primary node, restoring already-listed entities." : "At the first onTrigger, restoring already-listed entities.");
 
             try {
-                final Map<String, ListedEntity> fetchedListedEntities = fetchListedEntities();
-                if (fetchedListedEntities == null) {
-                    this.alreadyListedEntities = new ConcurrentHashMap<>();
-                    initialListing = true;
-                } else {
-                    this.alreadyListedEntities = new ConcurrentHashMap<>(fetchedListedEntities);
-                }
+                initialListing = !store.restore();
+                listedEntitiesRestored = true;
             } catch (IOException e) {
                 throw new ProcessException("Failed to restore already-listed entities due to " + e, e);
             }
@@ -285,7 +303,7 @@ public class ListedEntityTracker<T extends ListableEntity> {
                 return false;
             }
 
-            final ListedEntity alreadyListedEntity = alreadyListedEntities.get(identifier);
+            final ListedEntity alreadyListedEntity = getListedEntity(store, identifier);
             if (alreadyListedEntity == null) {
                 logger.trace("Picked {} being newly found.", new Object[]{identifier});
                 return true;
@@ -305,46 +323,57 @@ public class ListedEntityTracker<T extends ListableEntity> {
             return false;
         }).collect(Collectors.toList());
 
-        // Find old enough entries.
-        final List<String> oldEntityIds = alreadyListedEntities.entrySet().stream()
-                .filter(entry -> entry.getValue().getTimestamp() < minTimestampToList).map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        // Remove old entries.
+        final int oldEntityCount;
+        try {
+            oldEntityCount = store.removeEntitiesOlderThan(minTimestampToList);
+        } catch (IOException e) {
+            throw new ProcessException("Failed to remove old already-listed entities due to " + e, e);
+        }
 
-        if (updatedEntities.isEmpty() && oldEntityIds.isEmpty()) {
+        if (updatedEntities.isEmpty() && oldEntityCount == 0) {
             logger.debug("None of updated or old entity was found. Yielding.");
             context.yield();
             return;
         }
 
-        // Remove old entries.
-        oldEntityIds.forEach(oldEntityId -> alreadyListedEntities.remove(oldEntityId));
-
         // Emit updated entities.
+        final Map<String, ListedEntity> emittedEntities = new LinkedHashMap<>();
         if (context.getProperty(AbstractListProcessor.RECORD_WRITER).isSet()) {
             try {
-                createRecordsForEntities(context, session, updatedEntities);
+                createRecordsForEntities(context, session, updatedEntities, emittedEntities);
             } catch (final IOException | SchemaNotFoundException e) {
                 logger.error("Failed to create records for listed entities", e);
             }
         } else {
-            createFlowFilesForEntities(session, updatedEntities, createAttributes);
+            createFlowFilesForEntities(session, updatedEntities, createAttributes, emittedEntities);
         }
 
         // Commit ProcessSession before persisting listed entities.
         // In case persisting listed entities failure, same entities may be listed again, but better than not listing.
         session.commit();
         try {
-            logger.debug("Removed old entities count: {}, Updated entities count: {}", new Object[]{oldEntityIds.size(), updatedEntities.size()});
-            logger.trace("Removed old entities: {}, Updated entities: {}", new Object[]{oldEntityIds, updatedEntities});
+            logger.debug("Removed old entities count: {}, Updated entities count: {}", new Object[]{oldEntityCount, updatedEntities.size()});
+            logger.trace("Updated entities: {}", new Object[]{updatedEntities});
 
-            persistListedEntities(alreadyListedEntities);
+            store.putAll(emittedEntities);
+            store.persist();
         } catch (IOException e) {
             throw new ProcessException("Failed to persist already-listed entities due to " + e, e);
         }
 
     }
 
-    private void createRecordsForEntities(final ProcessContext context, final ProcessSession session, final List<T> updatedEntities) throws IOException, SchemaNotFoundException {
+    private ListedEntity getListedEntity(final ListedEntityStore store, final String identifier) {
+        try {
+            return store.get(identifier);
+        } catch (IOException e) {
+            throw new ProcessException("Failed to retrieve already-listed entity " + identifier + " due to " + e, e);
+        }
+    }
+
+    private void createRecordsForEntities(final ProcessContext context, final ProcessSession session, final List<T> updatedEntities,
+                                          final Map<String, ListedEntity> emittedEntities) throws IOException, SchemaNotFoundException {
         if (updatedEntities.isEmpty()) {
             logger.debug("No entities to write records for");
             return;
@@ -363,7 +392,7 @@ public class ListedEntityTracker<T extends ListableEntity> {
 
                 // In order to reduce object size, discard meta data captured at the sub-classes.
                 final ListedEntity listedEntity = new ListedEntity(updatedEntity.getTimestamp(), updatedEntity.getSize());
-                alreadyListedEntities.put(updatedEntity.getIdentifier(), listedEntity);
+                emittedEntities.put(updatedEntity.getIdentifier(), listedEntity);
             }
 
             writeResult = recordSetWriter.finishRecordSet();
@@ -376,14 +405,15 @@ public class ListedEntityTracker<T extends ListableEntity> {
         session.transfer(flowFile, REL_SUCCESS);
     }
 
-    private void createFlowFilesForEntities(final ProcessSession session, final List<T> updatedEntities, final Function<T, Map<String, String>> createAttributes) {
+    private void createFlowFilesForEntities(final ProcessSession session, final List<T> updatedEntities, final Function<T, Map<String, String>> createAttributes,
+                                            final Map<String, ListedEntity> emittedEntities) {
         for (T updatedEntity : updatedEntities) {
             FlowFile flowFile = session.create();
             flowFile = session.putAllAttributes(flowFile, createAttributes.apply(updatedEntity));
             session.transfer(flowFile, REL_SUCCESS);
             // In order to reduce object size, discard meta data captured at the sub-classes.
             final ListedEntity listedEntity = new ListedEntity(updatedEntity.getTimestamp(), updatedEntity.getSize());
-            alreadyListedEntities.put(updatedEntity.getIdentifier(), listedEntity);
+            emittedEntities.put(updatedEntity.getIdentifier(), listedEntity);
         }
     }
 
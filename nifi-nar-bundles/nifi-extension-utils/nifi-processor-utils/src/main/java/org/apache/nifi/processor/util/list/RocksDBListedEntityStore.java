@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.rocksdb.RocksDBMetronome;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Stores listed entities in an embedded RocksDB database on the local disk, so that the number of entities that can be tracked
+ * is not limited by the heap. Each entity is stored, updated and removed individually.
+ * </p>
+ *
+ * <p>
+ * Two column families are used: one maps the identifier of each entity to its timestamp and size, and the other holds a key for each
+ * entity that is made up of its timestamp followed by its identifier, so that entities that have aged out of the tracking time window
+ * can be found by iterating over only those entities, in timestamp order.
+ * </p>
+ */
+class RocksDBListedEntityStore implements ListedEntityStore {
+
+    private static final String ENTITIES_FAMILY = "listed.entities";
+    private static final String TIMESTAMPS_FAMILY = "listed.entity.timestamps";
+    private static final byte[] INITIALIZED_KEY = "initialized".getBytes(StandardCharsets.UTF_8);
+
+    private final Path storagePath;
+    private final ComponentLog logger;
+
+    private RocksDBMetronome db;
+    private ColumnFamilyHandle entitiesFamily;
+    private ColumnFamilyHandle timestampsFamily;
+    private boolean initialized = false;
+
+    RocksDBListedEntityStore(final Path storagePath, final ComponentLog logger) {
+        this.storagePath = storagePath;
+        this.logger = logger;
+    }
+
+    private RocksDBMetronome getDatabase() throws IOException {
+        if (db == null) {
+            // A listing writes comparatively little, so use much smaller write buffers than the defaults, which are sized for a repository
+            final RocksDBMetronome metronome = new RocksDBMetronome.Builder()
+                    .setStoragePath(storagePath)
+                    .addColumnFamily(ENTITIES_FAMILY)
+                    .addColumnFamily(TIMESTAMPS_FAMILY)
+                    .setParallelThreads(1)
+                    .setWriteBufferSize(8 * 1024 * 1024)
+                    .setMaxWriteBufferNumber(2)
+                    .setPeriodicSyncEnabled(false) // changes are synced once per listing by persist()
+                    .build();
+            metronome.initialize();
+
+            entitiesFamily = metronome.getColumnFamilyHandle(ENTITIES_FAMILY);
+            timestampsFamily = metronome.getColumnFamilyHandle(TIMESTAMPS_FAMILY);
+            db = metronome;
+        }
+
+        return db;
+    }
+
+    @Override
+    public boolean restore() throws IOException {
+        try {
+            initialized = getDatabase().getConfiguration(INITIALIZED_KEY) != null;
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to read listed entities from " + storagePath, e);
+        }
+
+        logger.debug("Opened listed entities at {}; entities have {}been stored before", new Object[]{storagePath, initialized ? "" : "not "});
+        return initialized;
+    }
+
+    @Override
+    public ListedEntity get(final String identifier) throws IOException {
+        final byte[] value;
+        try {
+            value = getDatabase().get(entitiesFamily, identifier.getBytes(StandardCharsets.UTF_8));
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to read listed entity " + identifier + " from " + storagePath, e);
+        }
+
+        if (value == null) {
+            return null;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(value);
+        return new ListedEntity(buffer.getLong(), buffer.getLong());
+    }
+
+    @Override
+    public void putAll(final Map<String, ListedEntity> entities) throws IOException {
+        final RocksDBMetronome database = getDatabase();
+
+        try {
+            for (final Map.Entry<String, ListedEntity> entry : entities.entrySet()) {
+                final byte[] identifier = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                final ListedEntity entity = entry.getValue();
+
+                final byte[] previousValue = database.get(entitiesFamily, identifier);
+                if (previousValue != null) {
+                    database.delete(timestampsFamily, createTimestampKey(ByteBuffer.wrap(previousValue).getLong(), identifier));
+                }
+
+                final byte[] value = ByteBuffer.allocate(16).putLong(entity.getTimestamp()).putLong(entity.getSize()).array();
+                database.put(entitiesFamily, identifier, value);
+                database.put(timestampsFamily, createTimestampKey(entity.getTimestamp(), identifier), new byte[0]);
+            }
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to store listed entities in " + storagePath, e);
+        }
+    }
+
+    @Override
+    public int removeEntitiesOlderThan(final long timestamp) throws IOException {
+        final RocksDBMetronome database = getDatabase();
+
+        int removed = 0;
+        try (final RocksIterator iterator = database.getIterator(timestampsFamily)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final byte[] key = iterator.key();
+                final ByteBuffer buffer = ByteBuffer.wrap(key);
+                if (decodeTimestamp(buffer.getLong()) >= timestamp) {
+                    break;
+                }
+
+                final byte[] identifier = new byte[buffer.remaining()];
+                buffer.get(identifier);
+
+                database.delete(entitiesFamily, identifier);
+                database.delete(timestampsFamily, key);
+                removed++;
+            }
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to remove old listed entities from " + storagePath, e);
+        }
+
+        return removed;
+    }
+
+    @Override
+    public void persist() throws IOException {
+        try {
+            if (!initialized) {
+                getDatabase().putConfiguration(INITIALIZED_KEY, new byte[0]);
+                initialized = true;
+            }
+
+            getDatabase().forceSync();
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to persist listed entities to " + storagePath, e);
+        }
+    }
+
+    @Override
+    public void clear() throws IOException {
+        close();
+        initialized = false;
+
+        if (!Files.exists(storagePath)) {
+            return;
+        }
+
+        logger.debug("Removing listed entities from {}", new Object[]{storagePath});
+        try (final Stream<Path> paths = Files.walk(storagePath)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (db != null) {
+            try {
+                db.close();
+            } finally {
+                db = null;
+                entitiesFamily = null;
+                timestampsFamily = null;
+            }
+        }
+    }
+
+    /**
+     * Creates a key that sorts by timestamp, including negative timestamps, and then by identifier
+     */
+    private static byte[] createTimestampKey(final long timestamp, final byte[] identifier) {
+        return ByteBuffer.allocate(8 + identifier.length).putLong(timestamp ^ Long.MIN_VALUE).put(identifier).array();
+    }
+
+    private static long decodeTimestamp(final long encodedTimestamp) {
+        return encodedTimestamp ^ Long.MIN_VALUE;
+    }
+}
@@ -311,6 +311,60 @@ public class TestAbstractListProcessor {
         assertEquals(6, runner.getFlowFilesForRelationship(AbstractListProcessor.REL_SUCCESS).size());
     }
 
+    @Test
+    public void testEntityTrackingStrategyWithLocalStorage() throws InitializationException, IOException {
+        runner.setProperty(AbstractListProcessor.LISTING_STRATEGY, AbstractListProcessor.BY_ENTITIES);
+        runner.setProperty(ListedEntityTracker.TRACKING_TIME_WINDOW, "10ms");
+
+        final File storageDirectory = testFolder.newFolder("entity-tracking");
+        runner.setProperty(ListedEntityTracker.TRACKING_STATE_DIRECTORY, storageDirectory.getAbsolutePath());
+        runner.assertValid();
+
+        // The cache and the local storage cannot both be used
+        final DistributedCache trackingCache = new DistributedCache();
+        runner.addControllerService("tracking-cache", trackingCache);
+        runner.enableControllerService(trackingCache);
+        runner.setProperty(ListedEntityTracker.TRACKING_STATE_CACHE, "tracking-cache");
+        runner.assertNotValid();
+        runner.removeProperty(ListedEntityTracker.TRACKING_STATE_CACHE);
+        runner.assertValid();
+
+        proc.addEntity("one", "one", 1, 1);
+        proc.currentTimestamp.set(1L);
+        runner.run();
+        runner.assertAllFlowFilesTransferred(AbstractListProcessor.REL_SUCCESS, 1);
+        Assert.assertTrue(new File(storageDirectory, proc.getIdentifier()).isDirectory());
+
+        // Each run stops the processor, which closes the database, so the entities must have been persisted.
+        proc.currentTimestamp.set(2L);
+        runner.clearTransferState();
+        runner.run();
+        runner.assertAllFlowFilesTransferred(AbstractListProcessor.REL_SUCCESS, 0);
+
+        // Only new entities and entities that have changed are listed.
+        proc.currentTimestamp.set(11L);
+        proc.addEntity("one", "one", 1, 1);
+        proc.addEntity("two", "two", 3, 2);
+        runner.clearTransferState();
+        runner.run();
+        runner.assertAllFlowFilesTransferred(AbstractListProcessor.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(AbstractListProcessor.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "two");
+
+        proc.currentTimestamp.set(12L);
+        proc.addEntity("two", "two", 4, 2);
+        runner.clearTransferState();
+        runner.run();
+        runner.assertAllFlowFilesTransferred(AbstractListProcessor.REL_SUCCESS, 1);
+
+        // Resetting the state removes the storage, so that all entities are listed again.
+        proc.currentTimestamp.set(13L);
+        runner.setProperty(ListedEntityTracker.INITIAL_LISTING_TARGET, "all");
+        runner.setProperty(ConcreteListProcessor.RESET_STATE, "1");
+        runner.clearTransferState();
+        runner.run();
+        runner.assertAllFlowFilesTransferred(AbstractListProcessor.REL_SUCCESS, 2);
+    }
+
     static class DistributedCache extends AbstractControllerService implements DistributedMapCacheClient {
         private final Map<Object, Object> stored = new HashMap<>();
         private int fetchCount = 0;
@@ -396,6 +450,7 @@ public class TestAbstractListProcessor {
             properties.add(DISTRIBUTED_CACHE_SERVICE);
             properties.add(TARGET_SYSTEM_TIMESTAMP_PRECISION);
             properties.add(ListedEntityTracker.TRACKING_STATE_CACHE);
+            properties.add(ListedEntityTracker.TRACKING_STATE_DIRECTORY);
             properties.add(ListedEntityTracker.TRACKING_TIME_WINDOW);
             properties.add(ListedEntityTracker.INITIAL_LISTING_TARGET);
             properties.add(RESET_STATE);
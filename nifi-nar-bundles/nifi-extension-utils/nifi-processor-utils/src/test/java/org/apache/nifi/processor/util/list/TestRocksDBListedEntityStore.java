@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import org.apache.nifi.util.MockComponentLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRocksDBListedEntityStore {
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void testEntitiesSurviveReopening() throws IOException {
+        final Path storagePath = testFolder.getRoot().toPath().resolve("store");
+
+        try (final RocksDBListedEntityStore store = new RocksDBListedEntityStore(storagePath, new MockComponentLog("id", this))) {
+            assertFalse(store.restore());
+
+            final Map<String, ListedEntity> entities = new HashMap<>();
+            entities.put("a", new ListedEntity(-5L, 1L));
+            entities.put("b", new ListedEntity(10L, 2L));
+            store.putAll(entities);
+            store.persist();
+        }
+
+        try (final RocksDBListedEntityStore store = new RocksDBListedEntityStore(storagePath, new MockComponentLog("id", this))) {
+            assertTrue(store.restore());
+            assertEquals(-5L, store.get("a").getTimestamp());
+            assertEquals(1L, store.get("a").getSize());
+            assertEquals(10L, store.get("b").getTimestamp());
+            assertNull(store.get("c"));
+        }
+    }
+
+    @Test
+    public void testRemoveEntitiesOlderThan() throws IOException {
+        final Path storagePath = testFolder.getRoot().toPath().resolve("store");
+
+        try (final RocksDBListedEntityStore store = new RocksDBListedEntityStore(storagePath, new MockComponentLog("id", this))) {
+            store.restore();
+
+            final Map<String, ListedEntity> entities = new HashMap<>();
+            entities.put("negative", new ListedEntity(-1L, 0L));
+            entities.put("old", new ListedEntity(5L, 0L));
+            entities.put("updated", new ListedEntity(6L, 0L));
+            entities.put("new", new ListedEntity(20L, 0L));
+            store.putAll(entities);
+
+            // Updating an entity must replace its timestamp, so that it is not removed based on the previous timestamp
+            store.putAll(Collections.singletonMap("updated", new ListedEntity(15L, 0L)));
+
+            assertEquals(2, store.removeEntitiesOlderThan(10L));
+            assertNull(store.get("negative"));
+            assertNull(store.get("old"));
+            assertEquals(15L, store.get("updated").getTimestamp());
+            assertEquals(20L, store.get("new").getTimestamp());
+
+            assertEquals(0, store.removeEntitiesOlderThan(10L));
+            assertEquals(1, store.removeEntitiesOlderThan(16L));
+        }
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        final Path storagePath = testFolder.getRoot().toPath().resolve("store");
+
+        final RocksDBListedEntityStore store = new RocksDBListedEntityStore(storagePath, new MockComponentLog("id", this));
+        store.restore();
+        store.putAll(Collections.singletonMap("a", new ListedEntity(1L, 1L)));
+        store.persist();
+
+        store.clear();
+        assertFalse(Files.exists(storagePath));
+
+        assertFalse(store.restore());
+        assertNull(store.get("a"));
+        store.close();
+    }
+}
@@ -31,13 +31,20 @@ import org.apache.nifi.reporting.EventAccess;
 import org.apache.nifi.reporting.ReportingContext;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -145,6 +152,25 @@ public class ProvenanceEventConsumer {
 
     public void consumeEvents(final ReportingContext context,
                               final BiConsumer<ComponentMapHolder, List<ProvenanceEventRecord>> consumer) throws ProcessException {
+        consumeEventsAsync(context, (mapHolder, events) -> {
+            consumer.accept(mapHolder, events);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Consumes events in the same way as {@link #consumeEvents(ReportingContext, BiConsumer)}, but allows the consumer to
+     * finish handling each batch asynchronously, so that several batches may be in flight at once. The consumer is expected
+     * to provide its own back pressure, by blocking when it cannot accept another batch. The last consumed event id is only
+     * stored in state once the futures of that batch and of all batches before it have completed successfully. If a future
+     * fails, no further batches are consumed and the failure is thrown once the batches already in flight have finished.
+     *
+     * @param context the reporting context
+     * @param consumer the consumer of each batch, returning a future that completes once the batch has been handled
+     * @throws ProcessException if the consumer fails to handle a batch
+     */
+    public void consumeEventsAsync(final ReportingContext context,
+                                   final BiFunction<ComponentMapHolder, List<ProvenanceEventRecord>, Future<?>> consumer) throws ProcessException {
 
         if (context == null) {
             logger.debug("No ReportingContext available.");
@@ -212,26 +238,120 @@ public class ProvenanceEventConsumer {
             return;
         }
 
-        // Consume while there are more events and not stopped.
-        while (rawEvents != null && !rawEvents.isEmpty() && isScheduled()) {
+        // Batches that have been handed to the consumer but whose events have not yet been recorded in state, in the order consumed.
+        final Deque<PendingBatch> pendingBatches = new ArrayDeque<>();
+        try {
+            // Consume while there are more events and not stopped.
+            while (rawEvents != null && !rawEvents.isEmpty() && isScheduled()) {
+
+                final Future<?> future;
+                if (filteredEvents.isEmpty()) {
+                    future = CompletableFuture.completedFuture(null);
+                } else {
+                    // Executes callback.
+                    future = consumer.apply(componentMapHolder, filteredEvents);
+                }
+                pendingBatches.add(new PendingBatch(rawEvents, future));
+
+                // Record all batches that have finished, in order.
+                while (!pendingBatches.isEmpty() && pendingBatches.peek().future.isDone()) {
+                    completeBatch(pendingBatches.poll(), stateManager);
+                }
+
+                // Stop as soon as any batch has failed, even if a batch before it is still in flight.
+                if (pendingBatches.stream().anyMatch(batch -> hasFailed(batch.future))) {
+                    break;
+                }
 
-            if (!filteredEvents.isEmpty()) {
-                // Executes callback.
-                consumer.accept(componentMapHolder, filteredEvents);
+                // Retrieve the next batch
+                final long nextEventId = rawEvents.get(rawEvents.size() - 1).getEventId() + 1;
+                try {
+                    rawEvents = eventAccess.getProvenanceEvents(nextEventId, batchSize);
+                    filteredEvents = filterEvents(componentMapHolder, rawEvents);
+                } catch (final IOException ioe) {
+                    logger.error("Failed to retrieve Provenance Events from repository due to: " + ioe.getMessage(), ioe);
+                    return;
+                }
             }
+        } finally {
+            // Wait for the batches still in flight so that the state reflects everything that was handled successfully.
+            ProcessException failure = null;
+            while (!pendingBatches.isEmpty()) {
+                final PendingBatch batch = pendingBatches.poll();
+                if (failure != null) {
+                    waitQuietly(batch.future);
+                    continue;
+                }
 
-            firstEventId = updateLastEventId(rawEvents, stateManager);
+                try {
+                    completeBatch(batch, stateManager);
+                } catch (final ProcessException pe) {
+                    failure = pe;
+                }
+            }
 
-            // Retrieve the next batch
-            try {
-                rawEvents = eventAccess.getProvenanceEvents(firstEventId, batchSize);
-                filteredEvents = filterEvents(componentMapHolder, rawEvents);
-            } catch (final IOException ioe) {
-                logger.error("Failed to retrieve Provenance Events from repository due to: " + ioe.getMessage(), ioe);
-                return;
+            if (failure != null) {
+                throw failure;
             }
         }
+    }
 
+    private void completeBatch(final PendingBatch batch, final StateManager stateManager) throws ProcessException {
+        try {
+            batch.future.get();
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof ProcessException) {
+                throw (ProcessException) cause;
+            }
+            throw new ProcessException(cause);
+        } catch (final CancellationException ce) {
+            throw new ProcessException("Consumption of Provenance Events was cancelled", ce);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ProcessException("Interrupted while waiting for Provenance Events to be consumed", ie);
+        }
+
+        firstEventId = updateLastEventId(batch.rawEvents, stateManager);
+    }
+
+    private boolean hasFailed(final Future<?> future) {
+        if (!future.isDone()) {
+            return false;
+        }
+        if (future.isCancelled()) {
+            return true;
+        }
+
+        try {
+            future.get();
+            return false;
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (final ExecutionException ee) {
+            return true;
+        }
+    }
+
+    private void waitQuietly(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException | CancellationException ignored) {
+            // the first failure has already been captured
+        }
+    }
+
+    private static class PendingBatch {
+        private final List<ProvenanceEventRecord> rawEvents;
+        private final Future<?> future;
+
+        private PendingBatch(final List<ProvenanceEventRecord> rawEvents, final Future<?> future) {
+            this.rawEvents = rawEvents;
+            this.future = future;
+        }
     }
 
     private long updateLastEventId(final List<ProvenanceEventRecord> events, final StateManager stateManager) {
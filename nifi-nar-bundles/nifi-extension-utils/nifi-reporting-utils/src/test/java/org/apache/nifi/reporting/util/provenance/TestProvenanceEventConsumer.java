@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.reporting.util.provenance;
+
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.components.state.StateManager;
+import org.apache.nifi.components.state.StateMap;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.reporting.EventAccess;
+import org.apache.nifi.reporting.ReportingContext;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestProvenanceEventConsumer {
+
+    @Test
+    public void testConsumeEventsAsyncStopsWhenLaterBatchFailsWhileEarlierBatchIsPending() throws IOException {
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (long id = 0; id < 4; id++) {
+            final ProvenanceEventRecord event = mock(ProvenanceEventRecord.class);
+            when(event.getEventId()).thenReturn(id);
+            events.add(event);
+        }
+
+        final ProvenanceEventRepository repository = mock(ProvenanceEventRepository.class);
+        when(repository.getMaxEventId()).thenReturn(3L);
+
+        final EventAccess eventAccess = mock(EventAccess.class);
+        when(eventAccess.getControllerStatus()).thenReturn(new ProcessGroupStatus());
+        when(eventAccess.getProvenanceRepository()).thenReturn(repository);
+        when(eventAccess.getProvenanceEvents(anyLong(), anyInt())).thenAnswer(invocation -> {
+            final long firstEventId = invocation.getArgument(0);
+            final int maxRecords = invocation.getArgument(1);
+            return events.stream()
+                    .filter(event -> event.getEventId() >= firstEventId)
+                    .limit(maxRecords)
+                    .collect(Collectors.toList());
+        });
+
+        final StateMap stateMap = mock(StateMap.class);
+        when(stateMap.toMap()).thenReturn(Collections.emptyMap());
+        final Map<String, String> storedState = new HashMap<>();
+        final StateManager stateManager = mock(StateManager.class);
+        when(stateManager.getState(Scope.LOCAL)).thenReturn(stateMap);
+        doAnswer(invocation -> {
+            storedState.putAll(invocation.getArgument(0));
+            return null;
+        }).when(stateManager).setState(anyMap(), eq(Scope.LOCAL));
+
+        final ReportingContext context = mock(ReportingContext.class);
+        when(context.getEventAccess()).thenReturn(eventAccess);
+        when(context.getStateManager()).thenReturn(stateManager);
+
+        final ProvenanceEventConsumer consumer = new ProvenanceEventConsumer();
+        consumer.setBatchSize(1);
+        consumer.setScheduled(true);
+        consumer.setLogger(mock(ComponentLog.class));
+
+        // The first batch is still in flight when the second batch fails, and only completes afterwards.
+        final CompletableFuture<Void> firstBatch = new CompletableFuture<>();
+        final List<Long> consumedEventIds = new ArrayList<>();
+        try {
+            consumer.consumeEventsAsync(context, (componentMapHolder, batch) -> {
+                consumedEventIds.add(batch.get(0).getEventId());
+                if (consumedEventIds.size() == 1) {
+                    return firstBatch;
+                }
+
+                new Thread(() -> {
+                    try {
+                        Thread.sleep(100L);
+                    } catch (final InterruptedException ignored) {
+                    }
+                    firstBatch.complete(null);
+                }).start();
+
+                final CompletableFuture<Void> failedBatch = new CompletableFuture<>();
+                failedBatch.completeExceptionally(new ProcessException("Batch " + consumedEventIds.size() + " failed"));
+                return failedBatch;
+            });
+            fail("Expected the failure of the second batch to be thrown");
+        } catch (final ProcessException pe) {
+            assertEquals("Batch 2 failed", pe.getMessage());
+        }
+
+        // No batch after the failed one is consumed, and only the batch before it is recorded in state.
+        assertEquals(2, consumedEventIds.size());
+        assertEquals(Collections.singletonMap(ProvenanceEventConsumer.LAST_EVENT_ID_KEY, "0"), storedState);
+    }
+}
@@ -41,6 +41,9 @@ public class RemoteProcessGroupStatusSnapshotDTO implements Cloneable {
     private Long bytesReceived = 0L;
     private String received;
 
+    private Integer adaptiveBatchCount;
+    private Long achievedThroughput;
+
     /**
      * @return The id for the remote process group
      */
@@ -174,6 +177,26 @@ public class RemoteProcessGroupStatusSnapshotDTO implements Cloneable {
         this.bytesReceived = bytesReceived;
     }
 
+    @ApiModelProperty("The number of FlowFiles per transaction that adaptive batching currently chooses for the Input Ports of the "
+            + "remote process group, or null if none of them use adaptive batching. When clustered, this is the largest value across the nodes.")
+    public Integer getAdaptiveBatchCount() {
+        return adaptiveBatchCount;
+    }
+
+    public void setAdaptiveBatchCount(Integer adaptiveBatchCount) {
+        this.adaptiveBatchCount = adaptiveBatchCount;
+    }
+
+    @ApiModelProperty("The number of bytes per second achieved by the Input Ports of the remote process group that use adaptive batching, "
+            + "or null if none of them use adaptive batching. When clustered, this is the total across the nodes.")
+    public Long getAchievedThroughput() {
+        return achievedThroughput;
+    }
+
+    public void setAchievedThroughput(Long achievedThroughput) {
+        this.achievedThroughput = achievedThroughput;
+    }
+
     @Override
     public RemoteProcessGroupStatusSnapshotDTO clone() {
         final RemoteProcessGroupStatusSnapshotDTO other = new RemoteProcessGroupStatusSnapshotDTO();
@@ -189,6 +212,8 @@ public class RemoteProcessGroupStatusSnapshotDTO implements Cloneable {
         other.setBytesReceived(getBytesReceived());
         other.setReceived(getReceived());
         other.setSent(getSent());
+        other.setAdaptiveBatchCount(getAdaptiveBatchCount());
+        other.setAchievedThroughput(getAchievedThroughput());
 
         return other;
     }
@@ -593,6 +593,16 @@ public class StatusMerger {
         target.setBytesSent(target.getBytesSent() + toMerge.getBytesSent());
         target.setFlowFilesReceived(target.getFlowFilesReceived() + toMerge.getFlowFilesReceived());
         target.setBytesReceived(target.getBytesReceived() + toMerge.getBytesReceived());
+
+        // Adaptive batching is only reported by nodes that use it
+        if (toMerge.getAdaptiveBatchCount() != null) {
+            target.setAdaptiveBatchCount(target.getAdaptiveBatchCount() == null
+                    ? toMerge.getAdaptiveBatchCount() : Math.max(target.getAdaptiveBatchCount(), toMerge.getAdaptiveBatchCount()));
+        }
+        if (toMerge.getAchievedThroughput() != null) {
+            target.setAchievedThroughput(target.getAchievedThroughput() == null
+                    ? toMerge.getAchievedThroughput() : target.getAchievedThroughput() + toMerge.getAchievedThroughput());
+        }
         updatePrettyPrintedFields(target);
     }
 
@@ -321,5 +321,13 @@ class PermissionBasedStatusMergerSpec extends Specification {
         new RemoteProcessGroupStatusSnapshotDTO(groupId: 'hidden', id: 'hidden', name: 'hidden', targetUri: 'hidden') | false         |
                 new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real')         | true           ||
                 new RemoteProcessGroupStatusSnapshotDTO(groupId: 'hidden', id: 'hidden', name: 'hidden', targetUri: 'hidden', received: '0 (0 bytes)', sent: '0 (0 bytes)')
+        new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real', adaptiveBatchCount: 100, achievedThroughput: 1000) | true |
+                new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real', adaptiveBatchCount: 250, achievedThroughput: 500) | true ||
+                new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real', received: '0 (0 bytes)', sent: '0 (0 bytes)',
+                        adaptiveBatchCount: 250, achievedThroughput: 1500)
+        new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real')         | true          |
+                new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real', adaptiveBatchCount: 250, achievedThroughput: 500) | true ||
+                new RemoteProcessGroupStatusSnapshotDTO(groupId: 'real', id: 'real', name: 'real', targetUri: 'real', received: '0 (0 bytes)', sent: '0 (0 bytes)',
+                        adaptiveBatchCount: 250, achievedThroughput: 500)
     }
 }
@@ -54,4 +54,16 @@ public abstract class RemoteGroupPort extends AbstractPort implements Port, Remo
     public abstract String getBatchDuration();
 
     public abstract void setBatchDuration(String batchDuration);
+
+    /**
+     * @return the number of FlowFiles that adaptive batching currently chooses to send per transaction, or
+     * <code>null</code> if adaptive batching is not in use for this port
+     */
+    public abstract Integer getAdaptiveBatchCount();
+
+    /**
+     * @return the average number of bytes per second that recent transactions have achieved when adaptive batching is in
+     * use, or <code>null</code> if adaptive batching is not in use for this port
+     */
+    public abstract Long getAchievedThroughput();
 }
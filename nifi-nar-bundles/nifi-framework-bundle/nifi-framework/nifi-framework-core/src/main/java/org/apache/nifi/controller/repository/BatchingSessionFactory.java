@@ -31,6 +31,7 @@ import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.io.BufferLease;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -252,6 +253,11 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             return session.getProvenanceReporter();
         }
 
+        @Override
+        public BufferLease leaseBuffer(final int minimumSize) {
+            return session.leaseBuffer(minimumSize);
+        }
+
         @Override
         public OutputStream write(final FlowFile source) {
             return session.write(source);
@@ -19,9 +19,12 @@ package org.apache.nifi.controller.repository;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ContentDeduplicationIndex;
+import org.apache.nifi.controller.repository.claim.ContentRegion;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.io.BufferPool;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.processor.DataUnit;
@@ -123,8 +126,11 @@ public class FileSystemRepository implements ContentRepository {
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
     private final ScheduledExecutorService containerCleanupExecutor;
+    private final boolean deduplicationEnabled;
+    private final int maxDeduplicationEntries;
 
     private ResourceClaimManager resourceClaimManager; // effectively final
+    private ContentDeduplicationIndex deduplicationIndex; // effectively final; null if deduplication is disabled
 
     // Map of container to archived files that should be deleted next.
     private final Map<String, BlockingQueue<ArchiveInfo>> archivedFiles = new HashMap<>();
@@ -149,6 +155,8 @@ public class FileSystemRepository implements ContentRepository {
         maxAppendableClaimLength = 0;
         maxFlowFilesPerClaim = 0;
         writableClaimQueue = null;
+        deduplicationEnabled = false;
+        maxDeduplicationEntries = 0;
     }
 
     public FileSystemRepository(final NiFiProperties nifiProperties) throws IOException {
@@ -249,6 +257,25 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+
+        this.deduplicationEnabled = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_ENABLED));
+        final String maxDeduplicationEntriesValue = nifiProperties.getProperty(NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES);
+        if (StringUtils.isBlank(maxDeduplicationEntriesValue)) {
+            this.maxDeduplicationEntries = NiFiProperties.DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES;
+        } else {
+            try {
+                this.maxDeduplicationEntries = Integer.parseInt(maxDeduplicationEntriesValue.trim());
+            } catch (final NumberFormatException nfe) {
+                throw new RuntimeException("Invalid value specified for the '" + NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES + "' property. Value must be a positive integer");
+            }
+            if (maxDeduplicationEntries < 1) {
+                throw new RuntimeException("Invalid value specified for the '" + NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES + "' property. Value must be a positive integer");
+            }
+        }
+        if (deduplicationEnabled) {
+            LOG.info("Content deduplication is enabled for FileSystemRepository, tracking up to {} distinct pieces of content", maxDeduplicationEntries);
+        }
+
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -257,6 +284,9 @@ public class FileSystemRepository implements ContentRepository {
     @Override
     public void initialize(final ResourceClaimManager claimManager) {
         this.resourceClaimManager = claimManager;
+        if (deduplicationEnabled) {
+            this.deduplicationIndex = new ContentDeduplicationIndex(claimManager, maxDeduplicationEntries);
+        }
 
         final Map<String, Path> fileRespositoryPaths = nifiProperties.getContentRepositoryPaths();
 
@@ -273,6 +303,10 @@ public class FileSystemRepository implements ContentRepository {
             final Runnable cleanup = new DestroyExpiredArchiveClaims(containerName, containerPath);
             containerCleanupExecutor.scheduleWithFixedDelay(cleanup, cleanupMillis, cleanupMillis, TimeUnit.MILLISECONDS);
         }
+
+        if (deduplicationIndex != null) {
+            executor.scheduleWithFixedDelay(this::logDeduplicationStatistics, 5, 5, TimeUnit.MINUTES);
+        }
     }
 
     @Override
@@ -634,6 +668,59 @@ public class FileSystemRepository implements ContentRepository {
         return scc;
     }
 
+    @Override
+    public String getDeduplicationDigestAlgorithm() {
+        return deduplicationIndex == null ? null : ContentDeduplicationIndex.DIGEST_ALGORITHM;
+    }
+
+    @Override
+    public ContentRegion findDuplicate(final byte[] digest, final long length) {
+        if (deduplicationIndex == null) {
+            return null;
+        }
+
+        final ContentRegion duplicate = deduplicationIndex.findDuplicate(digest, length);
+        if (duplicate != null) {
+            LOG.debug("Found {} holding content identical to {} bytes of newly written content", duplicate, length);
+        }
+        return duplicate;
+    }
+
+    @Override
+    public void registerContent(final ContentRegion region, final byte[] digest) {
+        if (deduplicationIndex == null) {
+            return;
+        }
+
+        deduplicationIndex.register(region, digest);
+    }
+
+    /**
+     * @param containerName the name of the container
+     * @return the fraction, between 0 and 1, of the content written to the given container that was found to duplicate existing
+     * content, or 0 if content deduplication is not enabled
+     */
+    public double getDeduplicationRatio(final String containerName) {
+        return deduplicationIndex == null ? 0D : deduplicationIndex.getDeduplicationRatio(containerName);
+    }
+
+    // visible for testing
+    ContentDeduplicationIndex getDeduplicationIndex() {
+        return deduplicationIndex;
+    }
+
+    private void logDeduplicationStatistics() {
+        for (final String containerName : containerNames) {
+            final long bytesExamined = deduplicationIndex.getBytesExamined(containerName);
+            if (bytesExamined == 0L) {
+                continue;
+            }
+
+            LOG.info("Content deduplication for container {}: {} of {} bytes examined were duplicates ({}%)", containerName,
+                deduplicationIndex.getBytesDeduplicated(containerName), bytesExamined, String.format("%.2f", deduplicationIndex.getDeduplicationRatio(containerName) * 100D));
+        }
+    }
+
     @Override
     public int incrementClaimaintCount(final ContentClaim claim) {
         return incrementClaimantCount(claim == null ? null : claim.getResourceClaim(), false);
@@ -671,10 +758,10 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
-        return remove(claim.getResourceClaim());
+        return removeResourceClaim(claim.getResourceClaim());
     }
 
-    private boolean remove(final ResourceClaim claim) {
+    protected boolean removeResourceClaim(final ResourceClaim claim) {
         if (claim == null) {
             return false;
         }
@@ -849,14 +936,18 @@ public class FileSystemRepository implements ContentRepository {
         }
         try (final InputStream in = read(claim)) {
             StreamUtils.skip(in, offset);
-            final byte[] buffer = new byte[8192];
-            int len;
-            long copied = 0L;
-            while ((len = in.read(buffer, 0, (int) Math.min(length - copied, buffer.length))) > 0) {
-                destination.write(buffer, 0, len);
-                copied += len;
+            final byte[] buffer = BufferPool.getInstance().acquire(8192);
+            try {
+                int len;
+                long copied = 0L;
+                while ((len = in.read(buffer, 0, (int) Math.min(length - copied, buffer.length))) > 0) {
+                    destination.write(buffer, 0, len);
+                    copied += len;
+                }
+                return copied;
+            } finally {
+                BufferPool.getInstance().release(buffer);
             }
-            return copied;
         }
     }
 
@@ -1427,7 +1518,7 @@ public class FileSystemRepository implements ContentRepository {
                                         LOG.warn("", e);
                                     }
                                 }
-                            } else if (remove(claim)) {
+                            } else if (removeResourceClaim(claim)) {
                                 successCount++;
                             }
                         }
@@ -24,13 +24,16 @@ import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ContentClaimWriteCache;
+import org.apache.nifi.controller.repository.claim.ContentRegion;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.io.BufferPool;
 import org.apache.nifi.controller.repository.io.ContentClaimInputStream;
 import org.apache.nifi.controller.repository.io.DisableOnCloseInputStream;
 import org.apache.nifi.controller.repository.io.DisableOnCloseOutputStream;
 import org.apache.nifi.controller.repository.io.FlowFileAccessInputStream;
 import org.apache.nifi.controller.repository.io.FlowFileAccessOutputStream;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
+import org.apache.nifi.controller.repository.io.PooledBufferedOutputStream;
 import org.apache.nifi.controller.repository.io.TaskTerminationInputStream;
 import org.apache.nifi.controller.repository.io.TaskTerminationOutputStream;
 import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
@@ -44,6 +47,7 @@ import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.exception.TerminatedTaskException;
+import org.apache.nifi.processor.io.BufferLease;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -59,7 +63,6 @@ import org.apache.nifi.stream.io.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.EOFException;
@@ -68,6 +71,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
@@ -128,6 +134,8 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     private final Map<FlowFile, Integer> readRecursionSet = new HashMap<>();// set used to track what is currently being operated on to prevent logic failures if recursive calls occurring
     private final Set<FlowFile> writeRecursionSet = new HashSet<>();
     private final Map<FlowFile, Path> deleteOnCommit = new HashMap<>();
+    // content written in this session that the Content Repository should consider for deduplication, once the session is committed
+    private final Map<ContentRegion, byte[]> deduplicationCandidates = new HashMap<>();
     private final long sessionId;
     private final String connectableDescription;
 
@@ -378,6 +386,11 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
                 throw new ProcessException("FlowFile Repository failed to update", ioe);
             }
 
+            // Now that the content has been flushed and is referenced by the FlowFile Repository, identical content may be deduplicated against it
+            for (final Map.Entry<ContentRegion, byte[]> entry : checkpoint.deduplicationCandidates.entrySet()) {
+                context.getContentRepository().registerContent(entry.getKey(), entry.getValue());
+            }
+
             final long flowFileRepoUpdateFinishNanos = System.nanoTime();
             final long flowFileRepoUpdateNanos = flowFileRepoUpdateFinishNanos - flowFileRepoUpdateStart;
 
@@ -1152,6 +1165,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         connectionCounts.clear();
         createdFlowFiles.clear();
         removedFlowFiles.clear();
+        deduplicationCandidates.clear();
         if (countersOnCommit != null) {
             countersOnCommit.clear();
         }
@@ -2537,7 +2551,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
 
         try {
             try (final OutputStream rawOut = contentRepo.write(newClaim);
-                final OutputStream out = new BufferedOutputStream(rawOut)) {
+                final OutputStream out = new PooledBufferedOutputStream(rawOut, BufferPool.getInstance(), 8192)) {
 
                 if (header != null && header.length > 0) {
                     out.write(header);
@@ -2732,6 +2746,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
 
         long writtenToFlowFile = 0L;
         ContentClaim newClaim = null;
+        final MessageDigest digest = createDeduplicationDigest();
         try {
             newClaim = claimCache.getContentClaim();
             claimLog.debug("Creating ContentClaim {} for 'write' for {}", newClaim, source);
@@ -2739,7 +2754,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
             ensureNotAppending(newClaim);
             try (final OutputStream stream = claimCache.write(newClaim);
                 final OutputStream disableOnClose = new DisableOnCloseOutputStream(stream);
-                final ByteCountingOutputStream countingOut = new ByteCountingOutputStream(disableOnClose)) {
+                final ByteCountingOutputStream countingOut = new ByteCountingOutputStream(digest == null ? disableOnClose : new DigestOutputStream(disableOnClose, digest))) {
                 try {
                     writeRecursionSet.add(source);
                     final OutputStream ffaos = new FlowFileAccessOutputStream(countingOut, source);
@@ -2770,12 +2785,12 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
 
         removeTemporaryClaim(record);
-        final FlowFileRecord newFile = new StandardFlowFileRecord.Builder()
+        final FlowFileRecord newFile = deduplicate(new StandardFlowFileRecord.Builder()
             .fromFlowFile(record.getCurrent())
             .contentClaim(newClaim)
             .contentClaimOffset(Math.max(0, newClaim.getLength() - writtenToFlowFile))
             .size(writtenToFlowFile)
-            .build();
+            .build(), record, digest);
 
         record.setWorking(newFile);
         return newFile;
@@ -2806,7 +2821,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
                     claimLog.debug("Creating ContentClaim {} for 'append' for {}", newClaim, source);
 
                     final OutputStream rawOutStream = context.getContentRepository().write(newClaim);
-                    final OutputStream bufferedOutStream = new BufferedOutputStream(rawOutStream);
+                    final OutputStream bufferedOutStream = new PooledBufferedOutputStream(rawOutStream, BufferPool.getInstance(), 8192);
                     outStream = new ByteCountingOutputStream(bufferedOutStream);
                     originalByteWrittenCount = 0;
 
@@ -2973,6 +2988,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
 
         long writtenToFlowFile = 0L;
         ContentClaim newClaim = null;
+        final MessageDigest digest = createDeduplicationDigest();
         try {
             newClaim = claimCache.getContentClaim();
             claimLog.debug("Creating ContentClaim {} for 'write' for {}", newClaim, source);
@@ -2989,7 +3005,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
                 final ByteCountingInputStream countingIn = new ByteCountingInputStream(disableOnCloseIn, bytesRead);
                 final OutputStream os = claimCache.write(newClaim);
                 final OutputStream disableOnCloseOut = new DisableOnCloseOutputStream(os);
-                final ByteCountingOutputStream countingOut = new ByteCountingOutputStream(disableOnCloseOut)) {
+                final ByteCountingOutputStream countingOut = new ByteCountingOutputStream(digest == null ? disableOnCloseOut : new DigestOutputStream(disableOnCloseOut, digest))) {
 
                 writeRecursionSet.add(source);
 
@@ -3034,18 +3050,73 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
 
         removeTemporaryClaim(record);
-        final FlowFileRecord newFile = new StandardFlowFileRecord.Builder()
+        final FlowFileRecord newFile = deduplicate(new StandardFlowFileRecord.Builder()
             .fromFlowFile(record.getCurrent())
             .contentClaim(newClaim)
             .contentClaimOffset(Math.max(0L, newClaim.getLength() - writtenToFlowFile))
             .size(writtenToFlowFile)
-            .build();
+            .build(), record, digest);
 
         record.setWorking(newFile);
 
         return newFile;
     }
 
+    /**
+     * Creates a MessageDigest for computing the digest of content as it is written, if the Content Repository deduplicates content
+     *
+     * @return a new MessageDigest, or <code>null</code> if the Content Repository does not deduplicate content
+     */
+    private MessageDigest createDeduplicationDigest() {
+        final String algorithm = context.getContentRepository().getDeduplicationDigestAlgorithm();
+        if (algorithm == null) {
+            return null;
+        }
+
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new ProcessException("Content Repository requested unsupported digest algorithm " + algorithm + " for content deduplication", e);
+        }
+    }
+
+    /**
+     * If the Content Repository already holds content identical to the content of the given FlowFile, returns a FlowFile that references
+     * the existing content instead, releasing the claim that the content was just written to. Otherwise, returns the given FlowFile and
+     * records its content as a candidate for deduplication once the session is committed.
+     *
+     * The digest can only be compared once all of the content has been written, so this saves no write I/O; the duplicate bytes have
+     * already been written to the claim and are merely left unreferenced.
+     *
+     * @param flowFile the FlowFile whose content was just written
+     * @param record the repository record for the FlowFile
+     * @param digest the digest of the content that was written, or <code>null</code> if content is not to be deduplicated
+     * @return the FlowFile that should be used going forward
+     */
+    private FlowFileRecord deduplicate(final FlowFileRecord flowFile, final StandardRepositoryRecord record, final MessageDigest digest) {
+        if (digest == null || flowFile.getSize() == 0L) {
+            return flowFile;
+        }
+
+        final byte[] contentDigest = digest.digest();
+        final ContentRegion duplicate = context.getContentRepository().findDuplicate(contentDigest, flowFile.getSize());
+        if (duplicate == null) {
+            deduplicationCandidates.put(new ContentRegion(flowFile.getContentClaim(), flowFile.getContentClaimOffset(), flowFile.getSize()), contentDigest);
+            return flowFile;
+        }
+
+        // The Content Repository has already incremented the claimant count of the duplicate's claim on our behalf. The bytes that we wrote
+        // remain in the claim that we wrote them to, but no FlowFile will reference them, so that claim becomes a transient claim.
+        claimLog.debug("Content written for {} duplicates {}; referencing existing content instead", flowFile, duplicate);
+        decrementClaimCount(flowFile.getContentClaim());
+        record.addTransientClaim(flowFile.getContentClaim());
+        return new StandardFlowFileRecord.Builder()
+            .fromFlowFile(flowFile)
+            .contentClaim(duplicate.getClaim())
+            .contentClaimOffset(duplicate.getOffset())
+            .build();
+    }
+
     @Override
     public FlowFile importFrom(final Path source, final boolean keepSourceFile, FlowFile destination) {
         verifyTaskActive();
@@ -3335,6 +3406,12 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         super.finalize();
     }
 
+    @Override
+    public BufferLease leaseBuffer(final int minimumSize) {
+        verifyTaskActive();
+        return BufferPool.getInstance().lease(minimumSize);
+    }
+
     @Override
     public ProvenanceReporter getProvenanceReporter() {
         verifyTaskActive();
@@ -3371,6 +3448,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         private Map<String, Long> immediateCounters = new HashMap<>();
 
         private final Map<FlowFile, Path> deleteOnCommit = new HashMap<>();
+        private final Map<ContentRegion, byte[]> deduplicationCandidates = new HashMap<>();
         private final Set<String> removedFlowFiles = new HashSet<>();
         private final Set<String> createdFlowFiles = new HashSet<>();
 
@@ -3398,6 +3476,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
             mergeMaps(this.immediateCounters, session.immediateCounters, Long::sum);
 
             this.deleteOnCommit.putAll(session.deleteOnCommit);
+            this.deduplicationCandidates.putAll(session.deduplicationCandidates);
             this.removedFlowFiles.addAll(session.removedFlowFiles);
             this.createdFlowFiles.addAll(session.createdFlowFiles);
 
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A {@link FileSystemRepository} that stores content in two tiers. All content is written to the containers configured via the
+ * <code>nifi.content.repository.directory.</code> properties, which are expected to reside on fast storage. A background task
+ * periodically migrates Resource Claims that are no longer writable and that are older than the configured migration age to one
+ * of the directories configured via the <code>nifi.content.repository.cold.directory.</code> properties, which may reside on
+ * slower, cheaper storage. Reads are served transparently from whichever tier currently holds the content.
+ * </p>
+ *
+ * <p>
+ * A Resource Claim is migrated by copying it to the cold tier under a temporary name, syncing it, renaming it into place and only
+ * then deleting it from the hot tier, so that at every point in time at least one complete copy exists. Content in the cold tier is
+ * never archived: when a Resource Claim that has been migrated is no longer needed, it is deleted.
+ * </p>
+ *
+ * <p>
+ * Is thread safe
+ * </p>
+ */
+public class TieredFileSystemRepository extends FileSystemRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(TieredFileSystemRepository.class);
+
+    static final String PARTIAL_FILE_SUFFIX = ".partial";
+    private static final long MIGRATION_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Map<String, Path> hotContainers;
+    private final List<Path> coldPaths;
+    private final long migrationAgeMillis;
+    private final ScheduledExecutorService migrationExecutor;
+
+    /**
+     * Default no args constructor for service loading only
+     */
+    public TieredFileSystemRepository() {
+        super();
+        hotContainers = null;
+        coldPaths = null;
+        migrationAgeMillis = 0L;
+        migrationExecutor = null;
+    }
+
+    public TieredFileSystemRepository(final NiFiProperties nifiProperties) throws IOException {
+        super(nifiProperties);
+
+        final Map<String, Path> configuredColdPaths = nifiProperties.getContentRepositoryColdPaths();
+        if (configuredColdPaths.isEmpty()) {
+            throw new RuntimeException("No cold tier directories are configured for the Tiered File System Repository. At least one property with the prefix '"
+                + NiFiProperties.REPOSITORY_CONTENT_COLD_PREFIX + "' must be specified.");
+        }
+
+        // Sort by name so that the directory chosen for any given Resource Claim does not change between restarts
+        final List<String> coldNames = new ArrayList<>(configuredColdPaths.keySet());
+        Collections.sort(coldNames);
+        final List<Path> resolvedColdPaths = new ArrayList<>();
+        for (final String coldName : coldNames) {
+            final Path coldPath = configuredColdPaths.get(coldName);
+            resolvedColdPaths.add(Files.createDirectories(coldPath).toRealPath());
+        }
+        this.coldPaths = Collections.unmodifiableList(resolvedColdPaths);
+
+        final Map<String, Path> resolvedHotContainers = new HashMap<>();
+        for (final Map.Entry<String, Path> entry : nifiProperties.getContentRepositoryPaths().entrySet()) {
+            resolvedHotContainers.put(entry.getKey(), entry.getValue().toRealPath());
+        }
+        this.hotContainers = Collections.unmodifiableMap(resolvedHotContainers);
+
+        final String migrationAge = nifiProperties.getProperty(NiFiProperties.CONTENT_REPOSITORY_COLD_MIGRATION_AGE, NiFiProperties.DEFAULT_CONTENT_REPOSITORY_COLD_MIGRATION_AGE);
+        this.migrationAgeMillis = Math.round(FormatUtils.getPreciseTimeDuration(migrationAge.trim(), TimeUnit.MILLISECONDS));
+        LOG.info("Initializing Tiered File System Repository with cold tier {}; Resource Claims older than {} will be migrated to the cold tier", coldPaths, migrationAge);
+
+        this.migrationExecutor = new FlowEngine(hotContainers.size(), "Tiered FileSystemRepository Migration", true);
+    }
+
+    @Override
+    public void initialize(final ResourceClaimManager claimManager) {
+        super.initialize(claimManager);
+
+        for (final Map.Entry<String, Path> entry : hotContainers.entrySet()) {
+            final Runnable migration = new MigrateClaims(entry.getKey(), entry.getValue());
+            migrationExecutor.scheduleWithFixedDelay(migration, MIGRATION_INTERVAL_MILLIS, MIGRATION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        migrationExecutor.shutdown();
+        super.shutdown();
+    }
+
+    @Override
+    public Path getPath(final ContentClaim claim, final boolean verifyExists) throws ContentNotFoundException {
+        final Path hotPath = super.getPath(claim, false);
+        if (hotPath != null && Files.exists(hotPath)) {
+            return hotPath;
+        }
+
+        final Path coldPath = getColdPath(claim.getResourceClaim());
+        if (Files.exists(coldPath)) {
+            return coldPath;
+        }
+
+        if (verifyExists) {
+            throw new ContentNotFoundException(claim);
+        }
+
+        return hotPath;
+    }
+
+    @Override
+    public InputStream read(final ContentClaim claim) throws IOException {
+        try {
+            return super.read(claim);
+        } catch (final FileNotFoundException fnfe) {
+            // The Resource Claim may have been migrated between resolving its path and opening the file. In that case, resolving
+            // the path again will find it in the cold tier.
+            LOG.debug("Failed to open {} in hot tier; will attempt to read from cold tier", claim, fnfe);
+            return super.read(claim);
+        }
+    }
+
+    @Override
+    public boolean isAccessible(final ContentClaim contentClaim) throws IOException {
+        if (super.isAccessible(contentClaim)) {
+            return true;
+        }
+
+        return contentClaim != null && Files.exists(getColdPath(contentClaim.getResourceClaim()));
+    }
+
+    @Override
+    protected boolean removeResourceClaim(final ResourceClaim claim) {
+        final boolean removed = super.removeResourceClaim(claim);
+        if (!removed) {
+            return false;
+        }
+
+        return deleteColdCopy(claim);
+    }
+
+    @Override
+    boolean archive(final ResourceClaim claim) throws IOException {
+        if (claim.isInUse()) {
+            return false;
+        }
+
+        // Content that has been migrated to the cold tier is not archived; it is simply deleted.
+        final Path coldPath = getColdPath(claim);
+        if (Files.exists(coldPath)) {
+            deleteColdCopy(claim);
+            return false;
+        }
+
+        return super.archive(claim);
+    }
+
+    @Override
+    public void cleanup() {
+        super.cleanup();
+
+        final ResourceClaimManager claimManager = getResourceClaimManager();
+        for (final Path coldPath : coldPaths) {
+            final File[] containerDirs = coldPath.toFile().listFiles(File::isDirectory);
+            if (containerDirs == null) {
+                continue;
+            }
+
+            for (final File containerDir : containerDirs) {
+                final File[] sectionDirs = containerDir.listFiles(File::isDirectory);
+                if (sectionDirs == null) {
+                    continue;
+                }
+
+                for (final File sectionDir : sectionDirs) {
+                    final File[] files = sectionDir.listFiles(File::isFile);
+                    if (files == null) {
+                        continue;
+                    }
+
+                    for (final File file : files) {
+                        final String filename = file.getName();
+                        final boolean partial = filename.endsWith(PARTIAL_FILE_SUFFIX);
+                        if (!partial) {
+                            final ResourceClaim resourceClaim = claimManager.newResourceClaim(containerDir.getName(), sectionDir.getName(), filename, false, false);
+                            if (claimManager.getClaimantCount(resourceClaim) > 0) {
+                                continue;
+                            }
+                        }
+
+                        LOG.info("Found {} {} in cold tier of Tiered File System Repository; removing file", partial ? "incomplete migration" : "unknown file", file);
+                        if (!file.delete() && file.exists()) {
+                            LOG.warn("Unable to remove {} from cold tier of Tiered File System Repository", file);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the location that the given Resource Claim occupies, or would occupy, in the cold tier. The cold directory is chosen by
+     * hashing the identifier of the claim, so that content is spread across all cold directories without having to keep track of
+     * where each claim was placed.
+     *
+     * @param resourceClaim the Resource Claim
+     * @return the path of the Resource Claim in the cold tier
+     */
+    Path getColdPath(final ResourceClaim resourceClaim) {
+        final int index = Math.floorMod(resourceClaim.getId().hashCode(), coldPaths.size());
+        return coldPaths.get(index).resolve(resourceClaim.getContainer()).resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+    }
+
+    private boolean deleteColdCopy(final ResourceClaim claim) {
+        final Path coldPath = getColdPath(claim);
+        try {
+            Files.deleteIfExists(coldPath);
+            return true;
+        } catch (final IOException e) {
+            LOG.warn("Unable to delete {} from cold tier at path {}", claim, coldPath, e);
+            return false;
+        }
+    }
+
+    /**
+     * Migrates a single Resource Claim from the hot tier to the cold tier
+     *
+     * @param resourceClaim the Resource Claim to migrate
+     * @param hotPath the current location of the Resource Claim in the hot tier
+     * @return the number of bytes migrated, or -1 if the Resource Claim was not migrated
+     * @throws IOException if unable to copy the content
+     */
+    long migrate(final ResourceClaim resourceClaim, final Path hotPath) throws IOException {
+        final Path coldPath = getColdPath(resourceClaim);
+        final Path partialPath = coldPath.resolveSibling(coldPath.getFileName().toString() + PARTIAL_FILE_SUFFIX);
+        Files.createDirectories(coldPath.getParent());
+
+        final long bytesCopied;
+        try {
+            Files.copy(hotPath, partialPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final NoSuchFileException nsfe) {
+            // the claim was destroyed or archived while we were preparing to copy it
+            return -1L;
+        }
+
+        try (final FileChannel channel = FileChannel.open(partialPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+            bytesCopied = channel.size();
+        }
+
+        Files.move(partialPath, coldPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // If the hot copy no longer exists, the Resource Claim was destroyed or archived while we were copying it. In that case,
+        // nothing refers to the cold copy, either, so we remove it.
+        if (!Files.deleteIfExists(hotPath)) {
+            Files.deleteIfExists(coldPath);
+            return -1L;
+        }
+
+        return bytesCopied;
+    }
+
+    private class MigrateClaims implements Runnable {
+        private final String containerName;
+        private final Path containerPath;
+
+        MigrateClaims(final String containerName, final Path containerPath) {
+            this.containerName = containerName;
+            this.containerPath = containerPath;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final long start = System.nanoTime();
+                final long threshold = System.currentTimeMillis() - migrationAgeMillis;
+                final ResourceClaimManager claimManager = getResourceClaimManager();
+
+                int claimsMigrated = 0;
+                long bytesMigrated = 0L;
+                for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
+                    final String section = String.valueOf(i);
+                    final File[] files = containerPath.resolve(section).toFile().listFiles(File::isFile);
+                    if (files == null) {
+                        continue;
+                    }
+
+                    for (final File file : files) {
+                        if (file.lastModified() > threshold) {
+                            continue;
+                        }
+
+                        // Only migrate claims that are still referenced and can no longer be appended to. A claim that the
+                        // Resource Claim Manager does not know about is no longer referenced and will soon be destroyed.
+                        final ResourceClaim resourceClaim = claimManager.getResourceClaim(containerName, section, file.getName());
+                        if (resourceClaim == null || resourceClaim.isWritable() || claimManager.isDestructable(resourceClaim)) {
+                            continue;
+                        }
+
+                        try {
+                            final long migrated = migrate(resourceClaim, file.toPath());
+                            if (migrated >= 0) {
+                                claimsMigrated++;
+                                bytesMigrated += migrated;
+                            }
+                        } catch (final IOException ioe) {
+                            LOG.warn("Failed to migrate {} to cold tier", resourceClaim, ioe);
+                        }
+                    }
+                }
+
+                if (claimsMigrated > 0) {
+                    final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    LOG.info("Migrated {} Resource Claims ({} bytes) from Container {} to cold tier in {} millis", claimsMigrated, bytesMigrated, containerName, millis);
+                }
+            } catch (final Throwable t) {
+                LOG.error("Failed to migrate Resource Claims from Container {} to cold tier", containerName, t);
+            }
+        }
+    }
+}
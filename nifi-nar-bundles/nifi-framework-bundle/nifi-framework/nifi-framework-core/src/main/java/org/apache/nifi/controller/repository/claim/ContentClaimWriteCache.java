@@ -17,7 +17,6 @@
 
 package org.apache.nifi.controller.repository.claim;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.LinkedList;
@@ -26,6 +25,8 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.nifi.controller.repository.ContentRepository;
+import org.apache.nifi.controller.repository.io.BufferPool;
+import org.apache.nifi.controller.repository.io.PooledBufferedOutputStream;
 
 public class ContentClaimWriteCache {
     private final ContentRepository contentRepo;
@@ -65,7 +66,7 @@ public class ContentClaimWriteCache {
 
     private OutputStream registerStream(final ContentClaim contentClaim) throws IOException {
         final OutputStream out = contentRepo.write(contentClaim);
-        final OutputStream buffered = new BufferedOutputStream(out, bufferSize);
+        final OutputStream buffered = new PooledBufferedOutputStream(out, BufferPool.getInstance(), bufferSize);
         streamMap.put(contentClaim.getResourceClaim(), buffered);
         return buffered;
     }
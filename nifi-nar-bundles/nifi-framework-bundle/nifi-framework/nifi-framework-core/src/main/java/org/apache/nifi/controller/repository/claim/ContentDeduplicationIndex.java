@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.claim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A bounded index from content digests to the regions of the Content Repository that hold that content. When content is written
+ * whose digest is already present in the index, and the region holding it is still referenced, the new FlowFile can reference the
+ * existing region instead, so that the Resource Claim that the duplicate bytes were written to can be cleaned up sooner.
+ * </p>
+ *
+ * <p>
+ * The index retains at most a configured number of digests, evicting the least recently used digest first. It also keeps track,
+ * for each container, of how many bytes of content were examined and how many of those bytes were found to be duplicates.
+ * </p>
+ *
+ * <p>
+ * Is thread safe
+ * </p>
+ */
+public class ContentDeduplicationIndex {
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final ResourceClaimManager resourceClaimManager;
+    private final Map<DigestKey, ContentRegion> regions; // guarded by synchronizing on this
+    private final ConcurrentMap<String, ContainerStatistics> statistics = new ConcurrentHashMap<>();
+
+    public ContentDeduplicationIndex(final ResourceClaimManager resourceClaimManager, final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max number of entries must be positive but was " + maxEntries);
+        }
+
+        this.resourceClaimManager = resourceClaimManager;
+        this.regions = new LinkedHashMap<DigestKey, ContentRegion>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<DigestKey, ContentRegion> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Finds a region holding content with the given digest and length. If one is found, the claimant count of its Resource Claim is
+     * incremented before the region is returned, so that the content cannot be destroyed out from under the caller.
+     *
+     * @param digest the digest of the content
+     * @param length the number of bytes of content
+     * @return a region holding identical content, or <code>null</code> if there is no such region that is still referenced
+     */
+    public ContentRegion findDuplicate(final byte[] digest, final long length) {
+        final DigestKey key = new DigestKey(digest, length);
+        final ContentRegion region;
+        synchronized (this) {
+            region = regions.get(key);
+        }
+
+        if (region == null) {
+            return null;
+        }
+
+        // The Resource Claim Manager synchronizes on the Resource Claim when decrementing claimant counts and marking claims as
+        // destructable, so holding the lock here ensures that the claim cannot become destructable between the check and the increment.
+        // We never resurrect a claim whose count has already dropped to 0, as it may already be queued for destruction.
+        final ResourceClaim resourceClaim = region.getClaim().getResourceClaim();
+        final boolean referenced;
+        synchronized (resourceClaim) {
+            referenced = resourceClaimManager.getClaimantCount(resourceClaim) > 0 && !resourceClaimManager.isDestructable(resourceClaim);
+            if (referenced) {
+                resourceClaimManager.incrementClaimantCount(resourceClaim);
+            }
+        }
+
+        if (!referenced) {
+            synchronized (this) {
+                regions.remove(key, region);
+            }
+            return null;
+        }
+
+        getStatistics(resourceClaim.getContainer()).recordDuplicate(length);
+        return region;
+    }
+
+    /**
+     * Records that the given region holds content with the given digest
+     *
+     * @param region the region holding the content
+     * @param digest the digest of the content
+     */
+    public void register(final ContentRegion region, final byte[] digest) {
+        final DigestKey key = new DigestKey(digest, region.getLength());
+        synchronized (this) {
+            regions.putIfAbsent(key, region);
+        }
+
+        getStatistics(region.getClaim().getResourceClaim().getContainer()).recordUnique(region.getLength());
+    }
+
+    /**
+     * @return the number of digests currently held by the index
+     */
+    public synchronized int size() {
+        return regions.size();
+    }
+
+    /**
+     * @param containerName the name of the container
+     * @return the number of bytes of content written to the given container that were examined for duplicates
+     */
+    public long getBytesExamined(final String containerName) {
+        final ContainerStatistics containerStatistics = statistics.get(containerName);
+        return containerStatistics == null ? 0L : containerStatistics.getBytesExamined();
+    }
+
+    /**
+     * @param containerName the name of the container
+     * @return the number of bytes of content that were found to duplicate content already held in the given container
+     */
+    public long getBytesDeduplicated(final String containerName) {
+        final ContainerStatistics containerStatistics = statistics.get(containerName);
+        return containerStatistics == null ? 0L : containerStatistics.getBytesDeduplicated();
+    }
+
+    /**
+     * @param containerName the name of the container
+     * @return the fraction, between 0 and 1, of the examined bytes for the given container that were found to be duplicates
+     */
+    public double getDeduplicationRatio(final String containerName) {
+        final long examined = getBytesExamined(containerName);
+        return examined == 0L ? 0D : (double) getBytesDeduplicated(containerName) / examined;
+    }
+
+    private ContainerStatistics getStatistics(final String containerName) {
+        return statistics.computeIfAbsent(containerName, name -> new ContainerStatistics());
+    }
+
+    private static class ContainerStatistics {
+        private final AtomicLong bytesExamined = new AtomicLong(0L);
+        private final AtomicLong bytesDeduplicated = new AtomicLong(0L);
+
+        public void recordUnique(final long length) {
+            bytesExamined.addAndGet(length);
+        }
+
+        public void recordDuplicate(final long length) {
+            bytesExamined.addAndGet(length);
+            bytesDeduplicated.addAndGet(length);
+        }
+
+        public long getBytesExamined() {
+            return bytesExamined.get();
+        }
+
+        public long getBytesDeduplicated() {
+            return bytesDeduplicated.get();
+        }
+    }
+
+    private static class DigestKey {
+        private final byte[] digest;
+        private final long length;
+        private final int hashCode;
+
+        public DigestKey(final byte[] digest, final long length) {
+            this.digest = digest;
+            this.length = length;
+            this.hashCode = 31 * Arrays.hashCode(digest) + Long.hashCode(length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof DigestKey)) {
+                return false;
+            }
+
+            final DigestKey other = (DigestKey) obj;
+            return length == other.length && Arrays.equals(digest, other.digest);
+        }
+    }
+}
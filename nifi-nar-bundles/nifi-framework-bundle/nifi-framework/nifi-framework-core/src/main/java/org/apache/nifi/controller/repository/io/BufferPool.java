@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.processor.io.BufferLease;
+
+/**
+ * A pool of heap buffers that is shared by the Content Repository, the Process Sessions and, through
+ * {@link org.apache.nifi.processor.ProcessSession#leaseBuffer(int)}, by Processors. Buffers are grouped into
+ * size classes that are powers of two between {@link #MIN_POOLED_SIZE} and {@link #MAX_POOLED_SIZE}. Each size
+ * class retains a bounded number of buffers so that the memory held by an idle pool stays small; requests for
+ * buffers larger than the largest size class are always satisfied with a new array.
+ */
+public class BufferPool {
+    public static final int MIN_POOLED_SIZE = 4 * 1024;
+    public static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE);
+    private static final long DEFAULT_RETAINED_BYTES_PER_SIZE_CLASS = 4L * 1024 * 1024;
+    private static final int MIN_RETAINED_BUFFERS_PER_SIZE_CLASS = 4;
+
+    private static final BufferPool INSTANCE = new BufferPool(DEFAULT_RETAINED_BYTES_PER_SIZE_CLASS);
+
+    private final SizeClass[] sizeClasses;
+    private final AtomicLong unpooledLeases = new AtomicLong(0L);
+    private final AtomicLong unpooledBytesAllocated = new AtomicLong(0L);
+
+    public BufferPool(final long retainedBytesPerSizeClass) {
+        sizeClasses = new SizeClass[MAX_SHIFT - MIN_SHIFT + 1];
+        for (int i = 0; i < sizeClasses.length; i++) {
+            final int bufferSize = 1 << (MIN_SHIFT + i);
+            final int capacity = (int) Math.max(MIN_RETAINED_BUFFERS_PER_SIZE_CLASS, retainedBytesPerSizeClass / bufferSize);
+            sizeClasses[i] = new SizeClass(bufferSize, capacity);
+        }
+    }
+
+    public static BufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Obtains a buffer whose length is at least the given size. The buffer should be handed back via
+     * {@link #release(byte[])} once it is no longer in use, but it is not an error to never release it.
+     *
+     * @param minimumSize the minimum length of the buffer
+     * @return a buffer whose length is at least <code>minimumSize</code>
+     */
+    public byte[] acquire(final int minimumSize) {
+        if (minimumSize < 0) {
+            throw new IllegalArgumentException("Buffer size cannot be negative");
+        }
+
+        final SizeClass sizeClass = getSizeClass(minimumSize);
+        if (sizeClass == null) {
+            unpooledLeases.incrementAndGet();
+            unpooledBytesAllocated.addAndGet(minimumSize);
+            return new byte[minimumSize];
+        }
+
+        return sizeClass.acquire();
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers whose length does not match one of the size classes are ignored.
+     *
+     * @param buffer the buffer to return
+     */
+    public void release(final byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        final int length = buffer.length;
+        if (Integer.bitCount(length) != 1) {
+            return;
+        }
+
+        final SizeClass sizeClass = getSizeClass(length);
+        if (sizeClass == null) {
+            return;
+        }
+
+        sizeClass.release(buffer);
+    }
+
+    public BufferLease lease(final int minimumSize) {
+        return new PooledBufferLease(acquire(minimumSize));
+    }
+
+    private SizeClass getSizeClass(final int size) {
+        if (size > MAX_POOLED_SIZE) {
+            return null;
+        }
+        if (size <= MIN_POOLED_SIZE) {
+            return sizeClasses[0];
+        }
+
+        final int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return sizeClasses[shift - MIN_SHIFT];
+    }
+
+    public List<SizeClassStatistics> getStatistics() {
+        final List<SizeClassStatistics> stats = new ArrayList<>(sizeClasses.length);
+        for (final SizeClass sizeClass : sizeClasses) {
+            stats.add(sizeClass.getStatistics());
+        }
+        return stats;
+    }
+
+    public long getUnpooledLeaseCount() {
+        return unpooledLeases.get();
+    }
+
+    public long getUnpooledBytesAllocated() {
+        return unpooledBytesAllocated.get();
+    }
+
+    /**
+     * @return the total number of bytes that have been allocated by this pool, including buffers too large to be pooled
+     */
+    public long getBytesAllocated() {
+        long total = unpooledBytesAllocated.get();
+        for (final SizeClass sizeClass : sizeClasses) {
+            total += sizeClass.allocations.get() * sizeClass.bufferSize;
+        }
+        return total;
+    }
+
+    private class PooledBufferLease implements BufferLease {
+        private byte[] buffer;
+
+        PooledBufferLease(final byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public byte[] getBuffer() {
+            if (buffer == null) {
+                throw new IllegalStateException("Buffer lease has already been closed");
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            final byte[] toRelease = buffer;
+            buffer = null;
+            release(toRelease);
+        }
+    }
+
+    private static class SizeClass {
+        private final int bufferSize;
+        private final BlockingQueue<byte[]> buffers;
+        private final AtomicLong leases = new AtomicLong(0L);
+        private final AtomicLong allocations = new AtomicLong(0L);
+        private final AtomicLong discards = new AtomicLong(0L);
+
+        SizeClass(final int bufferSize, final int capacity) {
+            this.bufferSize = bufferSize;
+            this.buffers = new ArrayBlockingQueue<>(capacity);
+        }
+
+        byte[] acquire() {
+            leases.incrementAndGet();
+
+            final byte[] buffer = buffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+
+            allocations.incrementAndGet();
+            return new byte[bufferSize];
+        }
+
+        void release(final byte[] buffer) {
+            if (!buffers.offer(buffer)) {
+                discards.incrementAndGet();
+            }
+        }
+
+        SizeClassStatistics getStatistics() {
+            return new SizeClassStatistics(bufferSize, leases.get(), allocations.get(), discards.get(), buffers.size());
+        }
+    }
+
+    public static class SizeClassStatistics {
+        private final int bufferSize;
+        private final long leaseCount;
+        private final long allocationCount;
+        private final long discardCount;
+        private final int pooledCount;
+
+        public SizeClassStatistics(final int bufferSize, final long leaseCount, final long allocationCount, final long discardCount, final int pooledCount) {
+            this.bufferSize = bufferSize;
+            this.leaseCount = leaseCount;
+            this.allocationCount = allocationCount;
+            this.discardCount = discardCount;
+            this.pooledCount = pooledCount;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public long getLeaseCount() {
+            return leaseCount;
+        }
+
+        public long getAllocationCount() {
+            return allocationCount;
+        }
+
+        public long getDiscardCount() {
+            return discardCount;
+        }
+
+        public int getPooledCount() {
+            return pooledCount;
+        }
+
+        /**
+         * @return the fraction of leases that were satisfied by a buffer already held in the pool
+         */
+        public double getHitRatio() {
+            return leaseCount == 0 ? 0D : (double) (leaseCount - allocationCount) / leaseCount;
+        }
+    }
+}
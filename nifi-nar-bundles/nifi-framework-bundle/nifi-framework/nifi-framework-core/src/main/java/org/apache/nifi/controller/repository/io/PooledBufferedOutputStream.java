@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A buffered OutputStream, equivalent to {@link java.io.BufferedOutputStream}, whose buffer is obtained from a
+ * {@link BufferPool} and handed back to the pool when the stream is closed.
+ */
+public class PooledBufferedOutputStream extends FilterOutputStream {
+    private final BufferPool bufferPool;
+    private byte[] buffer;
+    private int count;
+
+    public PooledBufferedOutputStream(final OutputStream out, final BufferPool bufferPool, final int bufferSize) {
+        super(out);
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.acquire(bufferSize);
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private byte[] getBuffer() throws IOException {
+        if (buffer == null) {
+            throw new IOException("Stream is closed");
+        }
+        return buffer;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        final byte[] buf = getBuffer();
+        if (count >= buf.length) {
+            flushBuffer();
+        }
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        final byte[] buf = getBuffer();
+        if (len >= buf.length) {
+            // No point in copying data that will not fit into the buffer anyway.
+            flushBuffer();
+            out.write(b, off, len);
+            return;
+        }
+
+        if (len > buf.length - count) {
+            flushBuffer();
+        }
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer != null) {
+            flushBuffer();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+
+        try (final OutputStream toClose = out) {
+            flushBuffer();
+        } finally {
+            final byte[] toRelease = buffer;
+            buffer = null;
+            bufferPool.release(toRelease);
+        }
+    }
+}
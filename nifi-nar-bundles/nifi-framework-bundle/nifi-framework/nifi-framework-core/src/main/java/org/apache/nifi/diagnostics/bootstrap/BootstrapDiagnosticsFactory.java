@@ -22,6 +22,7 @@ import org.apache.nifi.diagnostics.DiagnosticsDump;
 import org.apache.nifi.diagnostics.DiagnosticsDumpElement;
 import org.apache.nifi.diagnostics.DiagnosticsFactory;
 import org.apache.nifi.diagnostics.StandardDiagnosticsDump;
+import org.apache.nifi.diagnostics.bootstrap.tasks.BufferPoolDiagnosticTask;
 import org.apache.nifi.diagnostics.bootstrap.tasks.ClusterDiagnosticTask;
 import org.apache.nifi.diagnostics.bootstrap.tasks.ComponentCountTask;
 import org.apache.nifi.diagnostics.bootstrap.tasks.ContentRepositoryScanTask;
@@ -77,6 +78,7 @@ public class BootstrapDiagnosticsFactory implements DiagnosticsFactory {
         tasks.add(new ClusterDiagnosticTask(flowController));
         tasks.add(new GarbageCollectionDiagnosticTask(flowController));
         tasks.add(new MemoryPoolPeakUsageTask());
+        tasks.add(new BufferPoolDiagnosticTask());
         tasks.add(new RepositoryDiagnosticTask(flowController));
         tasks.add(new ComponentCountTask(flowController));
         tasks.add(new NiFiPropertiesDiagnosticTask(nifiProperties));
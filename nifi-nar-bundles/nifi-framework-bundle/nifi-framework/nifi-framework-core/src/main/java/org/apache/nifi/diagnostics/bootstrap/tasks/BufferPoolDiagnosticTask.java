@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.diagnostics.bootstrap.tasks;
+
+import org.apache.nifi.controller.repository.io.BufferPool;
+import org.apache.nifi.diagnostics.DiagnosticTask;
+import org.apache.nifi.diagnostics.DiagnosticsDumpElement;
+import org.apache.nifi.diagnostics.StandardDiagnosticsDumpElement;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BufferPoolDiagnosticTask implements DiagnosticTask {
+    private final BufferPool bufferPool;
+
+    public BufferPoolDiagnosticTask() {
+        this(BufferPool.getInstance());
+    }
+
+    public BufferPoolDiagnosticTask(final BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public DiagnosticsDumpElement captureDump(final boolean verbose) {
+        final List<String> details = new ArrayList<>();
+
+        long totalLeases = bufferPool.getUnpooledLeaseCount();
+        long totalAllocations = bufferPool.getUnpooledLeaseCount();
+        for (final BufferPool.SizeClassStatistics stats : bufferPool.getStatistics()) {
+            totalLeases += stats.getLeaseCount();
+            totalAllocations += stats.getAllocationCount();
+
+            if (stats.getLeaseCount() == 0 && !verbose) {
+                continue;
+            }
+
+            details.add(String.format("%1$,d byte buffers: %2$,d leases, %3$,d allocations, %4$.2f%% hit ratio, %5$,d discarded, %6$,d currently pooled",
+                stats.getBufferSize(), stats.getLeaseCount(), stats.getAllocationCount(), stats.getHitRatio() * 100D, stats.getDiscardCount(), stats.getPooledCount()));
+        }
+
+        details.add(String.format("Buffers too large to pool: %1$,d leases, %2$,d bytes allocated", bufferPool.getUnpooledLeaseCount(), bufferPool.getUnpooledBytesAllocated()));
+
+        final long bytesAllocated = bufferPool.getBytesAllocated();
+        final long uptimeSeconds = Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(ManagementFactory.getRuntimeMXBean().getUptime()));
+        details.add(String.format("Total: %1$,d leases, %2$,d allocations, %3$,d bytes allocated", totalLeases, totalAllocations, bytesAllocated));
+        details.add(String.format("Average Allocation Rate: %1$,d bytes/sec", bytesAllocated / uptimeSeconds));
+
+        return new StandardDiagnosticsDumpElement("Buffer Pool", details);
+    }
+}
@@ -610,7 +610,10 @@ public class StandardEventAccess implements UserAwareEventAccess {
         long lineageMillis = 0L;
         int flowFilesRemoved = 0;
         int flowFilesTransferred = 0;
-        for (final Port port : remoteGroup.getInputPorts()) {
+        int adaptivePortCount = 0;
+        long adaptiveBatchCount = 0L;
+        long achievedThroughput = 0L;
+        for (final RemoteGroupPort port : remoteGroup.getInputPorts()) {
             // determine if this input port is connected
             final boolean isConnected = port.hasIncomingConnection();
 
@@ -632,6 +635,15 @@ public class StandardEventAccess implements UserAwareEventAccess {
                     sentCount += portEvent.getFlowFilesSent();
                     sentContentSize += portEvent.getBytesSent();
                 }
+
+                final Integer portBatchCount = port.getAdaptiveBatchCount();
+                if (portBatchCount != null) {
+                    adaptivePortCount++;
+                    adaptiveBatchCount += portBatchCount;
+
+                    final Long portThroughput = port.getAchievedThroughput();
+                    achievedThroughput += portThroughput == null ? 0L : portThroughput;
+                }
             }
         }
 
@@ -666,6 +678,10 @@ public class StandardEventAccess implements UserAwareEventAccess {
         status.setSentCount(sentCount);
         status.setActiveRemotePortCount(activePortCount);
         status.setInactiveRemotePortCount(inactivePortCount);
+        if (adaptivePortCount > 0) {
+            status.setAdaptiveBatchCount((int) (adaptiveBatchCount / adaptivePortCount));
+            status.setAchievedThroughput(achievedThroughput);
+        }
 
         final int flowFilesOutOrRemoved = flowFilesTransferred + flowFilesRemoved;
         status.setAverageLineageDuration(flowFilesOutOrRemoved == 0 ? 0 : lineageMillis / flowFilesOutOrRemoved, TimeUnit.MILLISECONDS);
@@ -25,6 +25,7 @@ import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.NopConnectionEventListener;
 import org.apache.nifi.controller.queue.StandardFlowFileQueue;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ContentRegion;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
@@ -2321,6 +2322,77 @@ public class TestStandardProcessSession {
         flowFile = session.putAttribute(flowFile, "counter", "4");
     }
 
+    @Test
+    public void testWriteReferencesDuplicateContentOnceCommitted() throws IOException {
+        contentRepo.deduplicationEnabled = true;
+        final Relationship relationship = new Relationship.Builder().name("A").build();
+
+        FlowFile original = session.create();
+        original = session.write(original, out -> out.write("hello".getBytes(StandardCharsets.UTF_8)));
+        session.transfer(original, relationship);
+
+        // content is only considered for deduplication once the session that wrote it is committed
+        FlowFile sameSession = session.create();
+        sameSession = session.write(sameSession, out -> out.write("hello".getBytes(StandardCharsets.UTF_8)));
+        session.transfer(sameSession, relationship);
+        assertEquals(5L, ((FlowFileRecord) sameSession).getContentClaimOffset());
+        session.commit();
+
+        final ContentClaim claim = ((FlowFileRecord) original).getContentClaim();
+        assertEquals(2, contentRepo.getClaimantCount(claim));
+
+        final ProcessSession newSession = new StandardProcessSession(context, () -> false);
+        FlowFile duplicate = newSession.create();
+        duplicate = newSession.write(duplicate, out -> out.write("hello".getBytes(StandardCharsets.UTF_8)));
+
+        // the duplicate references the original content, and the claim that it was written to is no longer referenced
+        assertSame(claim, ((FlowFileRecord) duplicate).getContentClaim());
+        assertEquals(5L, duplicate.getSize());
+        assertEquals(3, contentRepo.getClaimantCount(claim));
+        assertEquals(Collections.singleton(claim), contentRepo.getExistingClaims());
+
+        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            newSession.read(duplicate, in -> StreamUtils.copy(in, baos));
+            assertEquals("hello", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        newSession.transfer(duplicate, relationship);
+        newSession.commit();
+        assertEquals(3, contentRepo.getClaimantCount(claim));
+    }
+
+    @Test
+    public void testRollbackReleasesDuplicateContent() throws IOException {
+        contentRepo.deduplicationEnabled = true;
+        final Relationship relationship = new Relationship.Builder().name("A").build();
+
+        FlowFile original = session.create();
+        original = session.write(original, out -> out.write("hello".getBytes(StandardCharsets.UTF_8)));
+        session.transfer(original, relationship);
+        session.commit();
+
+        final ContentClaim claim = ((FlowFileRecord) original).getContentClaim();
+        assertEquals(1, contentRepo.getClaimantCount(claim));
+
+        final ProcessSession newSession = new StandardProcessSession(context, () -> false);
+        FlowFile duplicate = newSession.create();
+        duplicate = newSession.write(duplicate, out -> out.write("hello".getBytes(StandardCharsets.UTF_8)));
+        newSession.transfer(duplicate, relationship);
+        assertSame(claim, ((FlowFileRecord) duplicate).getContentClaim());
+        assertEquals(2, contentRepo.getClaimantCount(claim));
+
+        // rolling back releases the claimant count that was taken on the original content, but does not destroy it
+        newSession.rollback();
+        assertEquals(1, contentRepo.getClaimantCount(claim));
+        assertEquals(Collections.singleton(claim), contentRepo.getExistingClaims());
+
+        try (final InputStream in = contentRepo.read(claim);
+             final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            StreamUtils.copy(in, baos);
+            assertEquals("hello", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
 
     private static class MockFlowFileRepository implements FlowFileRepository {
 
@@ -2431,6 +2503,8 @@ public class TestStandardProcessSession {
         private final AtomicLong claimsRemoved = new AtomicLong(0L);
         private ResourceClaimManager claimManager;
         private boolean disableRead = false;
+        private boolean deduplicationEnabled = false;
+        private final Map<String, ContentRegion> deduplicationRegions = new ConcurrentHashMap<>();
 
         private final ConcurrentMap<ContentClaim, AtomicInteger> claimantCounts = new ConcurrentHashMap<>();
 
@@ -2677,5 +2751,26 @@ public class TestStandardProcessSession {
         public void initialize(ResourceClaimManager claimManager) throws IOException {
             this.claimManager = claimManager;
         }
+
+        @Override
+        public String getDeduplicationDigestAlgorithm() {
+            return deduplicationEnabled ? "SHA-256" : null;
+        }
+
+        @Override
+        public ContentRegion findDuplicate(final byte[] digest, final long length) {
+            final ContentRegion region = deduplicationRegions.get(Arrays.toString(digest) + ":" + length);
+            if (region == null || getClaimantCount(region.getClaim()) < 1) {
+                return null;
+            }
+
+            incrementClaimaintCount(region.getClaim());
+            return region;
+        }
+
+        @Override
+        public void registerContent(final ContentRegion region, final byte[] digest) {
+            deduplicationRegions.putIfAbsent(Arrays.toString(digest) + ":" + region.getLength(), region);
+        }
     }
 }
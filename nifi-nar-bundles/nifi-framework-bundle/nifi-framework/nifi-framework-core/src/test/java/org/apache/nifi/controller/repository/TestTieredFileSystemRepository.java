@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.util.DiskUtils;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestTieredFileSystemRepository {
+
+    private static final int MAX_APPENDABLE_CLAIM_SIZE = 1024 * 1024;
+
+    private final File hotRoot = new File("target/content_repository");
+    private final File coldRoot = new File("target/content_repository_cold");
+
+    private TieredFileSystemRepository repository;
+    private StandardResourceClaimManager claimManager;
+
+    @BeforeClass
+    public static void setupClass() {
+        Assume.assumeTrue("Test only runs on *nix", !SystemUtils.IS_OS_WINDOWS);
+    }
+
+    @Before
+    public void setup() throws IOException {
+        DiskUtils.deleteRecursively(hotRoot);
+        DiskUtils.deleteRecursively(coldRoot);
+
+        final Map<String, String> additionalProperties = new HashMap<>();
+        additionalProperties.put(NiFiProperties.REPOSITORY_CONTENT_COLD_PREFIX + "cold", coldRoot.getPath());
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(
+            TestTieredFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(), additionalProperties);
+
+        repository = new TieredFileSystemRepository(nifiProperties);
+        claimManager = new StandardResourceClaimManager();
+        repository.initialize(claimManager);
+        repository.purge();
+    }
+
+    @After
+    public void shutdown() {
+        repository.shutdown();
+    }
+
+    @Test
+    public void testReadAfterMigration() throws IOException {
+        final byte[] data = createData();
+        final ContentClaim claim = writeFullClaim(data);
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+
+        final Path hotPath = repository.getPath(claim, true);
+        assertEquals(data.length, repository.migrate(resourceClaim, hotPath));
+        assertFalse(Files.exists(hotPath));
+        assertEquals(repository.getColdPath(resourceClaim), repository.getPath(claim, true));
+        assertTrue(repository.isAccessible(claim));
+        assertEquals(data.length, repository.size(claim));
+
+        try (final InputStream in = repository.read(claim)) {
+            final byte[] read = new byte[data.length];
+            StreamUtils.fillBuffer(in, read);
+            assertArrayEquals(data, read);
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testRemoveDeletesColdCopy() throws IOException {
+        final ContentClaim claim = writeFullClaim(createData());
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        repository.migrate(resourceClaim, repository.getPath(claim, true));
+
+        final Path coldPath = repository.getColdPath(resourceClaim);
+        assertTrue(Files.exists(coldPath));
+
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertTrue(repository.remove(claim));
+        assertFalse(Files.exists(coldPath));
+        assertFalse(repository.isAccessible(claim));
+    }
+
+    @Test
+    public void testMigrationOfDestroyedClaimLeavesNoColdCopy() throws IOException {
+        final ContentClaim claim = writeFullClaim(createData());
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final Path hotPath = repository.getPath(claim, true);
+
+        Files.delete(hotPath);
+        assertEquals(-1L, repository.migrate(resourceClaim, hotPath));
+        assertFalse(Files.exists(repository.getColdPath(resourceClaim)));
+    }
+
+    @Test
+    public void testCleanupRemovesPartialAndUnreferencedFiles() throws IOException {
+        final ContentClaim claim = writeFullClaim(createData());
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        repository.migrate(resourceClaim, repository.getPath(claim, true));
+
+        final Path coldPath = repository.getColdPath(resourceClaim);
+        final Path partialPath = coldPath.resolveSibling("1-1" + TieredFileSystemRepository.PARTIAL_FILE_SUFFIX);
+        final Path unknownPath = coldPath.resolveSibling("1-2");
+        Files.write(partialPath, new byte[10]);
+        Files.write(unknownPath, new byte[10]);
+
+        repository.cleanup();
+        assertTrue(Files.exists(coldPath));
+        assertFalse(Files.exists(partialPath));
+        assertFalse(Files.exists(unknownPath));
+    }
+
+    private ContentClaim writeFullClaim(final byte[] data) throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(data);
+        }
+
+        // Writing at least the max appendable claim size means that the Resource Claim can no longer be written to
+        assertFalse(claim.getResourceClaim().isWritable());
+        return claim;
+    }
+
+    private static byte[] createData() {
+        final byte[] data = new byte[MAX_APPENDABLE_CLAIM_SIZE];
+        new Random().nextBytes(data);
+        return data;
+    }
+}
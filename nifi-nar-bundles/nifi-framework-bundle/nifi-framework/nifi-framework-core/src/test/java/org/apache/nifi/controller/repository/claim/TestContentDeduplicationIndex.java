@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.claim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestContentDeduplicationIndex {
+
+    private StandardResourceClaimManager claimManager;
+    private ContentDeduplicationIndex index;
+
+    @Before
+    public void setup() {
+        claimManager = new StandardResourceClaimManager();
+        index = new ContentDeduplicationIndex(claimManager, 2);
+    }
+
+    @Test
+    public void testFindDuplicateIncrementsClaimantCount() throws NoSuchAlgorithmException {
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim("container", "1", "1", false, false);
+        claimManager.incrementClaimantCount(resourceClaim, true);
+        final ContentRegion region = new ContentRegion(new StandardContentClaim(resourceClaim, 0L), 10L, 5L);
+
+        final byte[] digest = digest("hello");
+        assertNull(index.findDuplicate(digest, 5L));
+        index.register(region, digest);
+
+        assertNull(index.findDuplicate(digest, 6L));
+        assertSame(region, index.findDuplicate(digest("hello"), 5L));
+        assertEquals(2, claimManager.getClaimantCount(resourceClaim));
+
+        assertEquals(10L, index.getBytesExamined("container"));
+        assertEquals(5L, index.getBytesDeduplicated("container"));
+        assertEquals(0.5D, index.getDeduplicationRatio("container"), 0.0001D);
+        assertEquals(0.0D, index.getDeduplicationRatio("other"), 0.0001D);
+    }
+
+    @Test
+    public void testUnreferencedContentIsNotReused() throws NoSuchAlgorithmException {
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim("container", "1", "1", false, false);
+        claimManager.incrementClaimantCount(resourceClaim, true);
+        final ContentRegion region = new ContentRegion(new StandardContentClaim(resourceClaim, 0L), 0L, 5L);
+
+        final byte[] digest = digest("hello");
+        index.register(region, digest);
+        claimManager.decrementClaimantCount(resourceClaim);
+
+        assertNull(index.findDuplicate(digest, 5L));
+        assertEquals(0, claimManager.getClaimantCount(resourceClaim));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDigestEvicted() throws NoSuchAlgorithmException {
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim("container", "1", "1", false, false);
+        claimManager.incrementClaimantCount(resourceClaim, true);
+        final ContentClaim contentClaim = new StandardContentClaim(resourceClaim, 0L);
+
+        index.register(new ContentRegion(contentClaim, 0L, 1L), digest("a"));
+        index.register(new ContentRegion(contentClaim, 1L, 1L), digest("b"));
+        index.findDuplicate(digest("a"), 1L);
+        index.register(new ContentRegion(contentClaim, 2L, 1L), digest("c"));
+
+        assertEquals(2, index.size());
+        assertNull(index.findDuplicate(digest("b"), 1L));
+        assertEquals(0L, index.findDuplicate(digest("a"), 1L).getOffset());
+        assertEquals(2L, index.findDuplicate(digest("c"), 1L).getOffset());
+    }
+
+    private static byte[] digest(final String content) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(ContentDeduplicationIndex.DIGEST_ALGORITHM).digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
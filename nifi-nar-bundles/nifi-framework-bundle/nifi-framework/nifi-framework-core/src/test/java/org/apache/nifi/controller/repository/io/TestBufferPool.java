@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.nifi.processor.io.BufferLease;
+import org.junit.Test;
+
+public class TestBufferPool {
+
+    @Test
+    public void testBuffersAreRoundedToSizeClassAndReused() {
+        final BufferPool pool = new BufferPool(1024 * 1024);
+
+        final byte[] first = pool.acquire(5000);
+        assertEquals(8192, first.length);
+        pool.release(first);
+
+        final byte[] second = pool.acquire(8000);
+        assertSame(first, second);
+
+        final BufferPool.SizeClassStatistics stats = pool.getStatistics().get(1);
+        assertEquals(8192, stats.getBufferSize());
+        assertEquals(2, stats.getLeaseCount());
+        assertEquals(1, stats.getAllocationCount());
+        assertEquals(0.5D, stats.getHitRatio(), 0.0001D);
+    }
+
+    @Test
+    public void testLargeBuffersAreNotPooled() {
+        final BufferPool pool = new BufferPool(1024 * 1024);
+
+        final int size = BufferPool.MAX_POOLED_SIZE + 1;
+        final byte[] buffer = pool.acquire(size);
+        assertEquals(size, buffer.length);
+        pool.release(buffer);
+
+        assertEquals(1, pool.getUnpooledLeaseCount());
+        assertEquals(size, pool.getUnpooledBytesAllocated());
+        for (final BufferPool.SizeClassStatistics stats : pool.getStatistics()) {
+            assertEquals(0, stats.getPooledCount());
+        }
+    }
+
+    @Test
+    public void testRetainedBuffersAreBounded() {
+        final BufferPool pool = new BufferPool(0L);
+
+        final byte[][] buffers = new byte[6][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.acquire(BufferPool.MIN_POOLED_SIZE);
+        }
+        for (final byte[] buffer : buffers) {
+            pool.release(buffer);
+        }
+
+        final BufferPool.SizeClassStatistics stats = pool.getStatistics().get(0);
+        assertEquals(4, stats.getPooledCount());
+        assertEquals(2, stats.getDiscardCount());
+    }
+
+    @Test
+    public void testLeaseReturnsBufferOnceOnClose() {
+        final BufferPool pool = new BufferPool(1024 * 1024);
+
+        final BufferLease lease = pool.lease(100);
+        final byte[] buffer = lease.getBuffer();
+        lease.close();
+        lease.close();
+
+        assertEquals(1, pool.getStatistics().get(0).getPooledCount());
+        assertSame(buffer, pool.acquire(100));
+    }
+
+    @Test
+    public void testPooledBufferedOutputStream() throws IOException {
+        final BufferPool pool = new BufferPool(1024 * 1024);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        final byte[] large = new byte[10_000];
+        try (final PooledBufferedOutputStream out = new PooledBufferedOutputStream(baos, pool, 4096)) {
+            out.write("hello".getBytes(StandardCharsets.UTF_8));
+            out.write(' ');
+            assertEquals(0, baos.size());
+
+            out.write(large);
+            assertEquals(6 + large.length, baos.size());
+
+            out.write("world".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final byte[] written = baos.toByteArray();
+        assertEquals(11 + large.length, written.length);
+        assertArrayEquals("hello ".getBytes(StandardCharsets.UTF_8), Arrays.copyOf(written, 6));
+        assertEquals(1, pool.getStatistics().get(0).getPooledCount());
+    }
+}
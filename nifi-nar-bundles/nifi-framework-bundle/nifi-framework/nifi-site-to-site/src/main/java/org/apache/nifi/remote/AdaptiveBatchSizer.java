@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Chooses the number of FlowFiles that a Remote Group Port sends in a single Site-to-Site transaction, based on what
+ * was observed for previous transactions.
+ * </p>
+ *
+ * <p>
+ * Every transaction pays a fixed cost to confirm and complete it, in addition to the time spent streaming FlowFiles.
+ * The sizer aims for a batch that takes roughly {@link #ACKNOWLEDGEMENT_OVERHEAD_RATIO} times as long to stream as it
+ * takes to acknowledge, so that the acknowledgement is a small fraction of each transaction, while never exceeding the
+ * configured maximum batch duration. When the remote instance asks the client to back off because its queues are full,
+ * or a transaction fails, the batch size is halved.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public class AdaptiveBatchSizer {
+    static final int ACKNOWLEDGEMENT_OVERHEAD_RATIO = 9;
+    static final int DEFAULT_INITIAL_BATCH_COUNT = 100;
+    static final int DEFAULT_MAX_BATCH_COUNT = 10_000;
+    private static final long MIN_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+    private static final double SMOOTHING_FACTOR = 0.3D;
+
+    private final int minBatchCount;
+    private final int maxBatchCount;
+    private final long maxBatchNanos;
+
+    private int batchCount;
+    private double bytesPerSecond = -1D;
+
+    public AdaptiveBatchSizer(final int maxBatchCount, final long maxBatchDuration, final TimeUnit timeUnit) {
+        this(Math.min(DEFAULT_INITIAL_BATCH_COUNT, maxBatchCount), 1, maxBatchCount, maxBatchDuration, timeUnit);
+    }
+
+    public AdaptiveBatchSizer(final int initialBatchCount, final int minBatchCount, final int maxBatchCount, final long maxBatchDuration, final TimeUnit timeUnit) {
+        if (minBatchCount < 1 || maxBatchCount < minBatchCount) {
+            throw new IllegalArgumentException("Invalid batch count bounds: [" + minBatchCount + ", " + maxBatchCount + "]");
+        }
+        if (maxBatchDuration <= 0) {
+            throw new IllegalArgumentException("Max Batch Duration must be positive");
+        }
+
+        this.minBatchCount = minBatchCount;
+        this.maxBatchCount = maxBatchCount;
+        this.maxBatchNanos = timeUnit.toNanos(maxBatchDuration);
+        this.batchCount = clamp(initialBatchCount);
+    }
+
+    /**
+     * @return the maximum number of FlowFiles that should be sent in the next transaction
+     */
+    public synchronized int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return a smoothed average of the number of bytes per second that recent transactions achieved, including the time
+     * taken to acknowledge them, or 0 if no transaction has completed yet
+     */
+    public synchronized long getAchievedBytesPerSecond() {
+        return bytesPerSecond < 0 ? 0L : Math.round(bytesPerSecond);
+    }
+
+    /**
+     * Records the outcome of a transaction that completed successfully.
+     *
+     * @param flowFileCount the number of FlowFiles sent in the transaction
+     * @param byteCount the number of bytes of content sent in the transaction
+     * @param sendNanos the number of nanoseconds spent streaming FlowFiles to the remote instance
+     * @param acknowledgeNanos the number of nanoseconds spent confirming and completing the transaction
+     * @param backoff whether or not the remote instance indicated that the client should back off
+     */
+    public synchronized void transactionCompleted(final int flowFileCount, final long byteCount, final long sendNanos, final long acknowledgeNanos, final boolean backoff) {
+        final long totalNanos = Math.max(1L, sendNanos + acknowledgeNanos);
+        final double transactionBytesPerSecond = byteCount * (double) TimeUnit.SECONDS.toNanos(1L) / totalNanos;
+        bytesPerSecond = bytesPerSecond < 0 ? transactionBytesPerSecond : bytesPerSecond + SMOOTHING_FACTOR * (transactionBytesPerSecond - bytesPerSecond);
+
+        if (backoff) {
+            batchCount = clamp(batchCount / 2);
+            return;
+        }
+
+        if (flowFileCount < 1) {
+            return;
+        }
+
+        // Estimate how many FlowFiles could be streamed in the target duration at the rate observed for this transaction.
+        final long targetNanos = Math.min(maxBatchNanos, Math.max(MIN_BATCH_NANOS, acknowledgeNanos * ACKNOWLEDGEMENT_OVERHEAD_RATIO));
+        final double nanosPerFlowFile = Math.max(1D, (double) sendNanos / flowFileCount);
+        final long idealCount = (long) (targetNanos / nanosPerFlowFile);
+
+        // If the transaction was cut short because the queue ran dry, it says nothing about whether a larger batch would
+        // help, so only allow the batch to shrink.
+        if (idealCount > batchCount && flowFileCount < batchCount) {
+            return;
+        }
+
+        // Move towards the ideal size gradually, and at most double per transaction, so that a single outlier does not
+        // cause the batch size to swing wildly.
+        final long smoothed = Math.round(batchCount + SMOOTHING_FACTOR * (idealCount - batchCount));
+        final long bounded = Math.min(smoothed, 2L * batchCount);
+        batchCount = clamp(bounded);
+    }
+
+    /**
+     * Records that a transaction failed, which halves the batch size.
+     */
+    public synchronized void transactionFailed() {
+        batchCount = clamp(batchCount / 2);
+    }
+
+    private int clamp(final long count) {
+        return (int) Math.max(minBatchCount, Math.min(maxBatchCount, count));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveBatchSizer[batchCount=" + batchCount + ", bytesPerSecond=" + getAchievedBytesPerSecond() + "]";
+    }
+}
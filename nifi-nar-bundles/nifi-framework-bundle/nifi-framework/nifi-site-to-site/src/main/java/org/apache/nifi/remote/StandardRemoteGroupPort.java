@@ -84,6 +84,8 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
     private final SSLContext sslContext;
     private final TransferDirection transferDirection;
     private volatile String targetId;
+    private final boolean adaptiveBatching;
+    private volatile AdaptiveBatchSizer batchSizer;
 
     private final AtomicReference<SiteToSiteClient> clientRef = new AtomicReference<>();
 
@@ -103,6 +105,8 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
         this.remoteGroup = remoteGroup;
         this.transferDirection = direction;
         this.sslContext = sslContext;
+        this.adaptiveBatching = nifiProperties != null
+            && Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.SITE_TO_SITE_ADAPTIVE_BATCHING_ENABLED, "false"));
         setScheduldingPeriod(MINIMUM_SCHEDULING_NANOS + " nanos");
     }
 
@@ -189,7 +193,19 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
             clientBuilder.requestBatchDuration(FormatUtils.getTimeDuration(batchDuration.trim(), TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
         }
 
-        clientRef.set(clientBuilder.build());
+        final SiteToSiteClient client = clientBuilder.build();
+        clientRef.set(client);
+
+        // The batch that is received from an Output Port is chosen by the remote instance, so only sending can adapt.
+        if (adaptiveBatching && getConnectableType() == ConnectableType.REMOTE_INPUT_PORT) {
+            final SiteToSiteClientConfig config = client.getConfig();
+            final int maxBatchCount = config.getPreferredBatchCount() > 0 ? config.getPreferredBatchCount() : AdaptiveBatchSizer.DEFAULT_MAX_BATCH_COUNT;
+            final long preferredBatchDuration = config.getPreferredBatchDuration(TimeUnit.NANOSECONDS);
+            final long maxBatchDuration = preferredBatchDuration > 0 ? preferredBatchDuration : BATCH_SEND_NANOS;
+            batchSizer = new AdaptiveBatchSizer(maxBatchCount, maxBatchDuration, TimeUnit.NANOSECONDS);
+        } else {
+            batchSizer = null;
+        }
     }
 
     @Override
@@ -286,6 +302,11 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
             remoteGroup.getEventReporter().reportEvent(Severity.ERROR, CATEGORY, message);
             transaction.error();
             session.rollback();
+
+            final AdaptiveBatchSizer sizer = batchSizer;
+            if (sizer != null && getConnectableType() == ConnectableType.REMOTE_INPUT_PORT) {
+                sizer.transactionFailed();
+            }
         }
     }
 
@@ -303,13 +324,14 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
             final long startSendingNanos = System.nanoTime();
             final StopWatch stopWatch = new StopWatch(true);
             long bytesSent = 0L;
+            long sendingNanos = 0L;
 
             final SiteToSiteClientConfig siteToSiteClientConfig = getSiteToSiteClient().getConfig();
             final long maxBatchBytes = siteToSiteClientConfig.getPreferredBatchSize();
-            final int maxBatchCount = siteToSiteClientConfig.getPreferredBatchCount();
             final long preferredBatchDuration = siteToSiteClientConfig.getPreferredBatchDuration(TimeUnit.NANOSECONDS);
             final long maxBatchDuration = preferredBatchDuration > 0 ? preferredBatchDuration : BATCH_SEND_NANOS;
-
+            final AdaptiveBatchSizer sizer = batchSizer;
+            final int maxBatchCount = sizer == null ? siteToSiteClientConfig.getPreferredBatchCount() : sizer.getBatchCount();
 
             final Set<FlowFile> flowFilesSent = new HashSet<>();
             boolean continueTransaction = true;
@@ -337,7 +359,7 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
                 session.getProvenanceReporter().send(flowFile, transitUri, "Remote DN=" + userDn, transferMillis, false);
                 session.remove(flowFile);
 
-                final long sendingNanos = System.nanoTime() - startSendingNanos;
+                sendingNanos = System.nanoTime() - startSendingNanos;
 
                 if (maxBatchCount > 0 && flowFilesSent.size() >= maxBatchCount) {
                     flowFile = null;
@@ -352,6 +374,7 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
                 continueTransaction = (flowFile != null);
             }
 
+            final long startAcknowledgeNanos = System.nanoTime();
             transaction.confirm();
 
             // consume input stream entirely, ignoring its contents. If we
@@ -361,7 +384,13 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
             final long uploadMillis = stopWatch.getDuration(TimeUnit.MILLISECONDS);
             final String dataSize = FormatUtils.formatDataSize(bytesSent);
 
-            transaction.complete();
+            final TransactionCompletion completion = transaction.complete();
+            if (sizer != null) {
+                final long acknowledgeNanos = System.nanoTime() - startAcknowledgeNanos;
+                final boolean backoff = completion != null && completion.isBackoff();
+                sizer.transactionCompleted(flowFilesSent.size(), bytesSent, sendingNanos, acknowledgeNanos, backoff);
+                logger.debug("{} Adjusted batch size after sending {} FlowFiles (backoff={}): {}", this, flowFilesSent.size(), backoff, sizer);
+            }
             session.commit();
 
             final String flowFileDescription = (flowFilesSent.size() < 20) ? flowFilesSent.toString() : flowFilesSent.size() + " FlowFiles";
@@ -547,6 +576,18 @@ public class StandardRemoteGroupPort extends RemoteGroupPort {
         this.batchDuration.set(batchDuration);
     }
 
+    @Override
+    public Integer getAdaptiveBatchCount() {
+        final AdaptiveBatchSizer sizer = batchSizer;
+        return sizer == null ? null : sizer.getBatchCount();
+    }
+
+    @Override
+    public Long getAchievedThroughput() {
+        final AdaptiveBatchSizer sizer = batchSizer;
+        return sizer == null ? null : sizer.getAchievedBytesPerSecond();
+    }
+
     @Override
     public String toString() {
         return "RemoteGroupPort[name=" + getName() + ",targets=" + remoteGroup.getTargetUris() + "]";
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestAdaptiveBatchSizer {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    @Test
+    public void testGrowsWhenAcknowledgementDominates() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 1, 10_000, 500, TimeUnit.MILLISECONDS);
+
+        // 10 FlowFiles in 1 ms, but 20 ms to acknowledge: the ideal batch streams for 180 ms, i.e. 1,800 FlowFiles
+        int previous = sizer.getBatchCount();
+        for (int i = 0; i < 20; i++) {
+            final int count = sizer.getBatchCount();
+            sizer.transactionCompleted(count, count * 1024L, count * MILLIS / 10, 20 * MILLIS, false);
+            assertTrue(sizer.getBatchCount() >= previous);
+            assertTrue(sizer.getBatchCount() <= 2 * previous);
+            previous = sizer.getBatchCount();
+        }
+
+        assertTrue("Batch count was " + sizer.getBatchCount(), Math.abs(sizer.getBatchCount() - 1800) < 100);
+        assertTrue(sizer.getAchievedBytesPerSecond() > 0L);
+    }
+
+    @Test
+    public void testDoesNotGrowWhenQueueRunsDry() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 1, 10_000, 500, TimeUnit.MILLISECONDS);
+        sizer.transactionCompleted(5, 5L, MILLIS, 20 * MILLIS, false);
+        assertEquals(100, sizer.getBatchCount());
+    }
+
+    @Test
+    public void testBackoffAndFailureHalveBatch() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 1, 10_000, 500, TimeUnit.MILLISECONDS);
+        sizer.transactionCompleted(100, 100L, MILLIS, 20 * MILLIS, true);
+        assertEquals(50, sizer.getBatchCount());
+
+        sizer.transactionFailed();
+        assertEquals(25, sizer.getBatchCount());
+
+        for (int i = 0; i < 10; i++) {
+            sizer.transactionFailed();
+        }
+        assertEquals(1, sizer.getBatchCount());
+    }
+
+    @Test
+    public void testBoundedByMaxBatchDuration() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 1, 100_000, 50, TimeUnit.MILLISECONDS);
+
+        // 1 ms per FlowFile with a 1 second acknowledgement: the batch must still stream for no more than 50 ms
+        for (int i = 0; i < 50; i++) {
+            final int count = sizer.getBatchCount();
+            sizer.transactionCompleted(count, count, count * MILLIS, 1000 * MILLIS, false);
+        }
+
+        assertTrue("Batch count was " + sizer.getBatchCount(), sizer.getBatchCount() <= 55);
+    }
+
+    @Test
+    public void testBoundedByMaxBatchCount() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(200, 1000, TimeUnit.MILLISECONDS);
+        assertEquals(100, sizer.getBatchCount());
+
+        for (int i = 0; i < 20; i++) {
+            final int count = sizer.getBatchCount();
+            sizer.transactionCompleted(count, count, count * 1000L, 100 * MILLIS, false);
+        }
+
+        assertEquals(200, sizer.getBatchCount());
+    }
+}
@@ -1018,6 +1018,8 @@ public final class DtoFactory {
         snapshot.setBytesSent(remoteProcessGroupStatus.getSentContentSize());
         snapshot.setFlowFilesReceived(remoteProcessGroupStatus.getReceivedCount());
         snapshot.setBytesReceived(remoteProcessGroupStatus.getReceivedContentSize());
+        snapshot.setAdaptiveBatchCount(remoteProcessGroupStatus.getAdaptiveBatchCount());
+        snapshot.setAchievedThroughput(remoteProcessGroupStatus.getAchievedThroughput());
 
         StatusMerger.updatePrettyPrintedFields(snapshot);
         return dto;
@@ -34,16 +34,20 @@ import org.apache.nifi.annotation.behavior.WritesAttribute;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.RequiredPermission;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.hadoop.util.ParallelHDFSTransfer;
 import org.apache.nifi.util.StopWatch;
 
 import java.io.FileNotFoundException;
@@ -54,13 +58,17 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SupportsBatching
 @InputRequirement(Requirement.INPUT_REQUIRED)
 @Tags({"hadoop", "hdfs", "get", "ingest", "fetch", "source"})
 @CapabilityDescription("Retrieves a file from HDFS. The content of the incoming FlowFile is replaced by the content of the file in HDFS. "
-        + "The file in HDFS is left intact without any changes being made to it.")
+        + "The file in HDFS is left intact without any changes being made to it. Large files may optionally be read as several parts concurrently, "
+        + "as configured by the Parallel Fetch properties.")
 @WritesAttribute(attribute="hdfs.failure.reason", description="When a FlowFile is routed to 'failure', this attribute is added indicating why the file could "
         + "not be fetched from HDFS")
 @SeeAlso({ListHDFS.class, GetHDFS.class, PutHDFS.class})
@@ -71,6 +79,8 @@ import java.util.concurrent.TimeUnit;
 })
 public class FetchHDFS extends AbstractHadoopProcessor {
 
+    private static final long MAX_PART_SIZE = 1024L * 1024L * 1024L;
+
     static final PropertyDescriptor FILENAME = new PropertyDescriptor.Builder()
         .name("HDFS Filename")
         .description("The name of the HDFS file to retrieve")
@@ -80,6 +90,27 @@ public class FetchHDFS extends AbstractHadoopProcessor {
         .addValidator(StandardValidators.ATTRIBUTE_EXPRESSION_LANGUAGE_VALIDATOR)
         .build();
 
+    static final PropertyDescriptor PARALLEL_FETCH_THREADS = new PropertyDescriptor.Builder()
+        .name("fetch-hdfs-parallel-fetch-threads")
+        .displayName("Parallel Fetch Threads")
+        .description("The number of parts of a single file that may be read from HDFS concurrently. When greater than 1, a file that is larger than "
+                + "the Parallel Fetch Part Size is read with concurrent positional reads, each of which may be served by a different DataNode, and the parts "
+                + "are written to the content of the FlowFile in order. Each part that is being read is held in memory, so this may use up to this many "
+                + "times the Parallel Fetch Part Size of heap for each concurrent task. Files that are decompressed are always read by a single stream.")
+        .required(true)
+        .defaultValue("1")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+
+    static final PropertyDescriptor PARALLEL_FETCH_PART_SIZE = new PropertyDescriptor.Builder()
+        .name("fetch-hdfs-parallel-fetch-part-size")
+        .displayName("Parallel Fetch Part Size")
+        .description("The size of each part when a file is read in parallel. Only used when Parallel Fetch Threads is greater than 1.")
+        .required(true)
+        .defaultValue("32 MB")
+        .addValidator(StandardValidators.createDataSizeBoundsValidator(1, MAX_PART_SIZE))
+        .build();
+
     static final Relationship REL_SUCCESS = new Relationship.Builder()
         .name("success")
         .description("FlowFiles will be routed to this relationship once they have been updated with the content of the HDFS file")
@@ -100,9 +131,36 @@ public class FetchHDFS extends AbstractHadoopProcessor {
         final List<PropertyDescriptor> props = new ArrayList<>(properties);
         props.add(FILENAME);
         props.add(COMPRESSION_CODEC);
+        props.add(PARALLEL_FETCH_THREADS);
+        props.add(PARALLEL_FETCH_PART_SIZE);
         return props;
     }
 
+    private volatile ExecutorService fetchExecutor;
+
+    @OnScheduled
+    public void startFetchExecutor(final ProcessContext context) {
+        final int threads = context.getProperty(PARALLEL_FETCH_THREADS).asInteger();
+        if (threads > 1) {
+            final String threadNamePrefix = getClass().getSimpleName() + " " + getIdentifier() + " Fetch-";
+            final AtomicInteger threadCount = new AtomicInteger(0);
+            fetchExecutor = Executors.newFixedThreadPool(threads * context.getMaxConcurrentTasks(), runnable -> {
+                final Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @OnStopped
+    public void stopFetchExecutor() {
+        final ExecutorService executor = fetchExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            fetchExecutor = null;
+        }
+    }
+
     @Override
     public Set<Relationship> getRelationships() {
         final Set<Relationship> relationships = new HashSet<>();
@@ -158,17 +216,30 @@ public class FetchHDFS extends AbstractHadoopProcessor {
                 try {
                     final String outputFilename;
                     final String originalFilename = path.getName();
-                    stream = hdfs.open(path, 16384);
 
-                    // Check if compression codec is defined (inferred or otherwise)
-                    if (codec != null) {
-                        stream = codec.createInputStream(stream);
-                        outputFilename = StringUtils.removeEnd(originalFilename, codec.getDefaultExtension());
-                    } else {
+                    // Large files are read as concurrent parts, unless they need to be decompressed
+                    final ExecutorService executor = fetchExecutor;
+                    final int partSize = context.getProperty(PARALLEL_FETCH_PART_SIZE).asDataSize(DataUnit.B).intValue();
+                    final long parallelFetchLength = executor != null && codec == null ? hdfs.getFileStatus(path).getLen() : -1L;
+
+                    if (parallelFetchLength > partSize) {
+                        final int maxConcurrentParts = context.getProperty(PARALLEL_FETCH_THREADS).asInteger();
+                        final ParallelHDFSTransfer transfer = new ParallelHDFSTransfer(executor, hdfs, ugi, partSize, maxConcurrentParts);
                         outputFilename = originalFilename;
-                    }
+                        flowFile = session.write(finalFlowFile, out -> transfer.download(path, parallelFetchLength, out));
+                    } else {
+                        stream = hdfs.open(path, 16384);
 
-                    flowFile = session.importFrom(stream, finalFlowFile);
+                        // Check if compression codec is defined (inferred or otherwise)
+                        if (codec != null) {
+                            stream = codec.createInputStream(stream);
+                            outputFilename = StringUtils.removeEnd(originalFilename, codec.getDefaultExtension());
+                        } else {
+                            outputFilename = originalFilename;
+                        }
+
+                        flowFile = session.importFrom(stream, finalFlowFile);
+                    }
                     flowFile = session.putAttribute(flowFile, CoreAttributes.FILENAME.key(), outputFilename);
 
                     stopWatch.stop();
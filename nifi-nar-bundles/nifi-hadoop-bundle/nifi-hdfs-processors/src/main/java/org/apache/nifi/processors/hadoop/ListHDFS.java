@@ -23,6 +23,12 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSInotifyEventInputStream;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.client.HdfsAdmin;
+import org.apache.hadoop.hdfs.inotify.Event;
+import org.apache.hadoop.hdfs.inotify.EventBatch;
+import org.apache.hadoop.hdfs.inotify.MissingEventsException;
 import org.apache.nifi.annotation.behavior.InputRequirement;
 import org.apache.nifi.annotation.behavior.InputRequirement.Requirement;
 import org.apache.nifi.annotation.behavior.PrimaryNodeOnly;
@@ -62,6 +68,7 @@ import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.security.PrivilegedExceptionAction;
@@ -71,6 +78,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -88,7 +96,8 @@ import java.util.regex.Pattern;
         + "cases where files with the same timestamp are written immediately before and after a single execution of the processor. For each file that is "
         + "listed in HDFS, this processor creates a FlowFile that represents the HDFS file to be fetched in conjunction with FetchHDFS. This Processor is "
         +  "designed to run on Primary Node only in a cluster. If the primary node changes, the new Primary Node will pick up where the previous node left "
-        +  "off without duplicating all of the data. Unlike GetHDFS, this Processor does not delete any data from HDFS.")
+        +  "off without duplicating all of the data. Unlike GetHDFS, this Processor does not delete any data from HDFS. With the HDFS Event Stream listing strategy, "
+        +  "the directory is listed once and afterwards only the files that the HDFS inotify event stream reports as changed are looked up.")
 @WritesAttributes({
     @WritesAttribute(attribute="filename", description="The name of the file that was read from HDFS."),
     @WritesAttribute(attribute="path", description="The path is set to the absolute path of the file's directory on HDFS. For example, if the Directory property is set to /tmp, "
@@ -106,7 +115,8 @@ import java.util.regex.Pattern;
         + "timestamp of all the files transferred are both stored. This allows the Processor to list only files that have been added or modified after "
         + "this date the next time that the Processor is run, without having to store all of the actual filenames/paths which could lead to performance "
         + "problems. State is stored across the cluster so that this Processor can be run on Primary Node only and if a new Primary "
-        + "Node is selected, the new node can pick up where the previous node left off, without duplicating the data.")
+        + "Node is selected, the new node can pick up where the previous node left off, without duplicating the data. With the HDFS Event Stream "
+        + "listing strategy, the last transaction id read from the event stream and the paths of files that are not yet old enough to be listed are stored as well.")
 @SeeAlso({GetHDFS.class, FetchHDFS.class, PutHDFS.class})
 public class ListHDFS extends AbstractHadoopProcessor {
 
@@ -222,6 +232,23 @@ public class ListHDFS extends AbstractHadoopProcessor {
         .addValidator(StandardValidators.createTimePeriodValidator(100, TimeUnit.MILLISECONDS, Long.MAX_VALUE, TimeUnit.NANOSECONDS))
         .build();
 
+    static final AllowableValue FULL_LISTING_STRATEGY = new AllowableValue("full-listing", "Full Listing",
+        "Every listing lists the contents of the Directory, and of its subdirectories if " + RECURSE_SUBDIRS.getDisplayName() + " is true.");
+    static final AllowableValue EVENT_STREAM_STRATEGY = new AllowableValue("hdfs-event-stream", "HDFS Event Stream",
+        "The Directory is listed once, after which the HDFS inotify event stream is followed and only the files that have been closed, renamed, truncated or "
+            + "had their modification time changed are looked up. A full listing is performed again if events are missing from the stream, for example "
+            + "because the NameNode has already purged the edit logs that contain them, or if more than " + ListHDFS.MAX_PENDING_PATHS + " files that were found "
+            + "could not be listed yet. Reading the event stream requires HDFS super user privileges. If the file system is not HDFS, Full Listing is used instead.");
+
+    public static final PropertyDescriptor LISTING_STRATEGY = new PropertyDescriptor.Builder()
+        .name("listing-strategy")
+        .displayName("Listing Strategy")
+        .description("Determines how the files to list are found.")
+        .required(true)
+        .allowableValues(FULL_LISTING_STRATEGY, EVENT_STREAM_STRATEGY)
+        .defaultValue(FULL_LISTING_STRATEGY.getValue())
+        .build();
+
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
         .name("success")
         .description("All FlowFiles are transferred to this relationship")
@@ -233,6 +260,19 @@ public class ListHDFS extends AbstractHadoopProcessor {
     private volatile boolean resetState = false;
     static final String LISTING_TIMESTAMP_KEY = "listing.timestamp";
     static final String EMITTED_TIMESTAMP_KEY = "emitted.timestamp";
+    static final String EVENT_TX_ID_KEY = "event.tx.id";
+    static final String PENDING_PATH_KEY_PREFIX = "pending.path.";
+
+    // The maximum number of event batches that are read from the event stream for a single listing
+    private static final int MAX_EVENT_BATCHES_PER_LISTING = 10_000;
+    // The maximum number of files that are kept in the state to be looked up again, so that the state stays well within the size that ZooKeeper allows
+    static final int MAX_PENDING_PATHS = 1_000;
+
+    private volatile long lastEventTxId = -1L;
+    private volatile Set<String> pendingPaths = Collections.emptySet();
+    private volatile DFSInotifyEventInputStream eventStream;
+    private volatile long eventStreamTxId = -1L;
+    private volatile boolean eventStreamUnsupportedLogged = false;
 
     static final long LISTING_LAG_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
     private Pattern fileFilterRegexPattern;
@@ -265,6 +305,7 @@ public class ListHDFS extends AbstractHadoopProcessor {
         props.add(FILE_FILTER_MODE);
         props.add(MIN_AGE);
         props.add(MAX_AGE);
+        props.add(LISTING_STRATEGY);
         return props;
     }
 
@@ -385,8 +426,10 @@ public class ListHDFS extends AbstractHadoopProcessor {
         if (resetState) {
             getLogger().debug("Property has been modified. Resetting the state values - listing.timestamp and emitted.timestamp to -1L");
             context.getStateManager().clear(Scope.CLUSTER);
+            eventStream = null;
             this.resetState = false;
         }
+        eventStreamUnsupportedLogged = false;
     }
 
     @Override
@@ -410,6 +453,8 @@ public class ListHDFS extends AbstractHadoopProcessor {
             if (stateMap.getVersion() == -1L) {
                 latestTimestampEmitted = -1L;
                 latestTimestampListed = -1L;
+                // Without state, everything is listed again, so a full listing is performed rather than continuing the event stream
+                eventStream = null;
                 getLogger().debug("Found no state stored");
             } else {
                 // Determine if state is stored in the 'new' format or the 'old' format
@@ -430,6 +475,17 @@ public class ListHDFS extends AbstractHadoopProcessor {
                         new Object[] {latestTimestampEmitted, latestTimestampListed});
                 }
             }
+
+            final String eventTxIdString = stateMap.get(EVENT_TX_ID_KEY);
+            lastEventTxId = eventTxIdString == null ? -1L : Long.parseLong(eventTxIdString);
+
+            final Set<String> storedPendingPaths = new LinkedHashSet<>();
+            for (final Map.Entry<String, String> entry : stateMap.toMap().entrySet()) {
+                if (entry.getKey().startsWith(PENDING_PATH_KEY_PREFIX)) {
+                    storedPendingPaths.add(entry.getValue());
+                }
+            }
+            pendingPaths = storedPendingPaths;
         } catch (final IOException ioe) {
             getLogger().error("Failed to retrieve timestamp of last listing from the State Manager. Will not perform listing until this is accomplished.");
             context.yield();
@@ -440,11 +496,16 @@ public class ListHDFS extends AbstractHadoopProcessor {
         final FileSystem hdfs = getFileSystem();
         final boolean recursive = context.getProperty(RECURSE_SUBDIRS).asBoolean();
         String fileFilterMode = context.getProperty(FILE_FILTER_MODE).getValue();
+        final boolean useEventStream = EVENT_STREAM_STRATEGY.getValue().equals(context.getProperty(LISTING_STRATEGY).getValue()) && isEventStreamSupported(hdfs);
 
         final Set<FileStatus> statuses;
         try {
             final Path rootPath = new Path(directory);
-            statuses = getStatuses(rootPath, recursive, hdfs, createPathFilter(context), fileFilterMode);
+            if (useEventStream) {
+                statuses = getChangedStatuses(rootPath, recursive, hdfs, createPathFilter(context), fileFilterMode);
+            } else {
+                statuses = getStatuses(rootPath, recursive, hdfs, createPathFilter(context), fileFilterMode);
+            }
             getLogger().debug("Found a total of {} files in HDFS", new Object[] {statuses.size()});
         } catch (final IOException | IllegalArgumentException e) {
             getLogger().error("Failed to perform listing of HDFS", e);
@@ -479,6 +540,17 @@ public class ListHDFS extends AbstractHadoopProcessor {
             }
         }
 
+        if (useEventStream) {
+            pendingPaths = getPendingPaths(statuses, listable, context);
+            if (pendingPaths.size() > MAX_PENDING_PATHS) {
+                getLogger().info("{} files were found that cannot be listed yet, which is more than the {} that are kept in the state; "
+                    + "the next listing will be a full listing", new Object[] {pendingPaths.size(), MAX_PENDING_PATHS});
+                pendingPaths = Collections.emptySet();
+                eventStream = null;
+                lastEventTxId = -1L;
+            }
+        }
+
         final int listCount = listable.size();
         if ( listCount > 0 ) {
             getLogger().info("Successfully created listing with {} new files from HDFS", new Object[] {listCount});
@@ -491,6 +563,14 @@ public class ListHDFS extends AbstractHadoopProcessor {
         final Map<String, String> updatedState = new HashMap<>(1);
         updatedState.put(LISTING_TIMESTAMP_KEY, String.valueOf(latestTimestampListed));
         updatedState.put(EMITTED_TIMESTAMP_KEY, String.valueOf(latestTimestampEmitted));
+        if (useEventStream) {
+            updatedState.put(EVENT_TX_ID_KEY, String.valueOf(lastEventTxId));
+
+            int pendingPathIndex = 0;
+            for (final String pendingPath : pendingPaths) {
+                updatedState.put(PENDING_PATH_KEY_PREFIX + pendingPathIndex++, pendingPath);
+            }
+        }
         getLogger().debug("New state map: {}", new Object[] {updatedState});
 
         try {
@@ -559,6 +639,224 @@ public class ListHDFS extends AbstractHadoopProcessor {
         return RECORD_SCHEMA;
     }
 
+    /**
+     * Finds the files that may need to be listed by reading the HDFS inotify event stream from where the previous listing left off.
+     * The candidates are the files that have been closed, renamed, truncated or had their modification time changed since then, along with the
+     * files that were found by a previous listing but could not be listed yet. If there is no position in the event stream to continue
+     * from, or events are missing from it, the event stream is followed from its current position and a full listing is performed.
+     */
+    private Set<FileStatus> getChangedStatuses(final Path path, final boolean recursive, final FileSystem hdfs, final PathFilter filter, final String filterMode)
+            throws IOException, InterruptedException {
+        // The event stream is only continued if nothing else has changed the transaction id in the state since it was last read
+        if (eventStream != null && eventStreamTxId != lastEventTxId) {
+            eventStream = null;
+        }
+
+        try {
+            if (eventStream == null && lastEventTxId >= 0L) {
+                eventStream = getHdfsAdmin().getInotifyEventStream(lastEventTxId);
+                eventStreamTxId = lastEventTxId;
+            }
+
+            if (eventStream == null) {
+                getLogger().info("No position in the HDFS event stream is known; following the event stream from its current position and performing a full listing of {}",
+                    new Object[] {path});
+                return getStatusesFollowingEventStream(path, recursive, hdfs, filter, filterMode);
+            }
+
+            final Path root = Path.getPathWithoutSchemeAndAuthority(path.isAbsolute() ? path : new Path(hdfs.getWorkingDirectory(), path));
+            final Set<String> changedPaths = new LinkedHashSet<>(pendingPaths);
+            long txId = lastEventTxId;
+            try {
+                EventBatch eventBatch;
+                int eventBatchCount = 0;
+                while (eventBatchCount++ < MAX_EVENT_BATCHES_PER_LISTING && (eventBatch = eventStream.poll()) != null) {
+                    for (final Event event : eventBatch.getEvents()) {
+                        addChangedPath(event, changedPaths, root, recursive);
+                    }
+                    txId = eventBatch.getTxid();
+                }
+            } catch (final MissingEventsException e) {
+                getLogger().warn("Events between transaction ids {} and {} are missing from the HDFS event stream; performing a full listing of {}",
+                    new Object[] {e.getExpectedTxid(), e.getActualTxid(), path});
+                return getStatusesFollowingEventStream(path, recursive, hdfs, filter, filterMode);
+            }
+
+            final Set<FileStatus> statusSet = new HashSet<>();
+            for (final String changedPath : changedPaths) {
+                final FileStatus status;
+                try {
+                    status = getUserGroupInformation().doAs((PrivilegedExceptionAction<FileStatus>) () -> hdfs.getFileStatus(new Path(changedPath)));
+                } catch (final FileNotFoundException e) {
+                    // The file has been removed or renamed since, in which case there is a later event for it
+                    continue;
+                }
+
+                if (status == null || !isWithinListing(root, status, recursive, filter, filterMode)) {
+                    continue;
+                }
+
+                if (status.isDirectory()) {
+                    // A directory that was renamed into the listing is listed in full, since no events are reported for its contents
+                    statusSet.addAll(getStatuses(status.getPath(), recursive, hdfs, filter, filterMode));
+                } else {
+                    statusSet.add(status);
+                }
+            }
+
+            getLogger().debug("Read the HDFS event stream up to transaction id {} and found {} changed paths", new Object[] {txId, changedPaths.size()});
+            lastEventTxId = txId;
+            eventStreamTxId = txId;
+            return statusSet;
+        } catch (final IOException | InterruptedException | RuntimeException e) {
+            // The events that have been read from the stream were not used, so they are read again by the next listing
+            eventStream = null;
+            throw e;
+        }
+    }
+
+    private Set<FileStatus> getStatusesFollowingEventStream(final Path path, final boolean recursive, final FileSystem hdfs, final PathFilter filter, final String filterMode)
+            throws IOException, InterruptedException {
+        // The event stream is opened before listing, so that no change made during the listing is missed. Its position is stored with the
+        // listing, so that another node can continue from it rather than performing a full listing again.
+        final long txId = getCurrentEventTxId(hdfs);
+        eventStream = getHdfsAdmin().getInotifyEventStream(txId);
+        lastEventTxId = txId;
+        eventStreamTxId = txId;
+        return getStatuses(path, recursive, hdfs, filter, filterMode);
+    }
+
+    /**
+     * Adds the path that the given event reports as changed, if that path may be part of the listing. The event stream covers the whole
+     * namespace, so paths outside of the listed directory are dropped here, before any of them is looked up.
+     */
+    private void addChangedPath(final Event event, final Set<String> changedPaths, final Path root, final boolean recursive) {
+        switch (event.getEventType()) {
+            case CLOSE:
+                addIfWithinRoot(((Event.CloseEvent) event).getPath(), changedPaths, root, recursive);
+                break;
+            case RENAME:
+                final Event.RenameEvent renameEvent = (Event.RenameEvent) event;
+                changedPaths.remove(renameEvent.getSrcPath());
+                addIfWithinRoot(renameEvent.getDstPath(), changedPaths, root, recursive);
+                break;
+            case METADATA:
+                final Event.MetadataUpdateEvent metadataEvent = (Event.MetadataUpdateEvent) event;
+                if (metadataEvent.getMetadataType() == Event.MetadataUpdateEvent.MetadataType.TIMES) {
+                    addIfWithinRoot(metadataEvent.getPath(), changedPaths, root, recursive);
+                }
+                break;
+            case TRUNCATE:
+                addIfWithinRoot(((Event.TruncateEvent) event).getPath(), changedPaths, root, recursive);
+                break;
+            case UNLINK:
+                changedPaths.remove(((Event.UnlinkEvent) event).getPath());
+                break;
+            default:
+                // Files that are created or appended to are listed once the CLOSE event for them is received
+                break;
+        }
+    }
+
+    private void addIfWithinRoot(final String changedPath, final Set<String> changedPaths, final Path root, final boolean recursive) {
+        final String relativePath = getRelativePath(root, changedPath);
+        // Without recursion, only the direct children of the root are listed
+        if (relativePath != null && (recursive || !relativePath.contains(Path.SEPARATOR))) {
+            changedPaths.add(changedPath);
+        }
+    }
+
+    /**
+     * @return the given path relative to the given root directory, or <code>null</code> if the path is not below the root directory
+     */
+    private String getRelativePath(final Path root, final String path) {
+        final String rootPath = root.toString();
+        if (rootPath.equals(Path.SEPARATOR)) {
+            return path.length() > 1 && path.startsWith(Path.SEPARATOR) ? path.substring(1) : null;
+        } else if (path.startsWith(rootPath + Path.SEPARATOR)) {
+            return path.substring(rootPath.length() + 1);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Determines whether the given file or directory would be found by listing the given root directory, taking into account
+     * whether subdirectories are listed and how the file filter is applied.
+     */
+    private boolean isWithinListing(final Path root, final FileStatus status, final boolean recursive, final PathFilter filter, final String filterMode) {
+        final String relativePath = getRelativePath(root, Path.getPathWithoutSchemeAndAuthority(status.getPath()).toString());
+        if (relativePath == null) {
+            return false;
+        }
+
+        final int depth = relativePath.split(Path.SEPARATOR).length;
+        if (!recursive && (status.isDirectory() || depth > 1)) {
+            return false;
+        }
+
+        // Directory names are only filtered in the Directories and Files filter mode
+        final boolean filterDirectories = !isPostListingFilterNeeded(filterMode);
+        Path current = status.getPath();
+        for (int i = 0; i < depth; i++) {
+            final boolean isFile = i == 0 && !status.isDirectory();
+            if ((isFile || filterDirectories) && !filter.accept(current)) {
+                return false;
+            }
+            current = current.getParent();
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines which of the files that were found, but not listed, have to be looked up again by the next listing when the event stream is
+     * followed. These are the files that may still be listed later, because they are newer than the latest file emitted, such as the newest files
+     * that are held back for a cycle and files that are not yet old enough to be listed.
+     */
+    private Set<String> getPendingPaths(final Set<FileStatus> statuses, final Set<FileStatus> listable, final ProcessContext context) {
+        final Long maxAgeProp = context.getProperty(MAX_AGE).asTimePeriod(TimeUnit.MILLISECONDS);
+        final long maximumAge = (maxAgeProp == null) ? Long.MAX_VALUE : maxAgeProp;
+
+        final Set<String> pending = new LinkedHashSet<>();
+        for (final FileStatus status : statuses) {
+            final long fileAge = System.currentTimeMillis() - status.getModificationTime();
+            if (!listable.contains(status) && status.getModificationTime() > latestTimestampEmitted && fileAge <= maximumAge) {
+                pending.add(Path.getPathWithoutSchemeAndAuthority(status.getPath()).toString());
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * Determines whether the HDFS inotify event stream can be read for the given file system. If not, a Full Listing is performed instead.
+     */
+    protected boolean isEventStreamSupported(final FileSystem hdfs) {
+        if (hdfs instanceof DistributedFileSystem) {
+            return true;
+        }
+
+        if (!eventStreamUnsupportedLogged) {
+            getLogger().warn("The {} Listing Strategy requires HDFS, but the file system is {}; performing a {} instead",
+                new Object[] {EVENT_STREAM_STRATEGY.getDisplayName(), hdfs.getUri(), FULL_LISTING_STRATEGY.getDisplayName()});
+            eventStreamUnsupportedLogged = true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the id of the latest transaction in the NameNode's edit log, which is the position that the event stream is followed from
+     */
+    protected long getCurrentEventTxId(final FileSystem hdfs) throws IOException {
+        return ((DistributedFileSystem) hdfs).getClient().getNamenode().getCurrentEditLogTxid();
+    }
+
+    protected HdfsAdmin getHdfsAdmin() throws IOException {
+        // HdfsAdmin is the only public API that gives access to the inotify event stream, which requires HDFS super user privileges
+        return new HdfsAdmin(getFileSystem().getUri(), getFileSystem().getConf());
+    }
+
     private Set<FileStatus> getStatuses(final Path path, final boolean recursive, final FileSystem hdfs, final PathFilter filter, String filterMode) throws IOException, InterruptedException {
         final Set<FileStatus> statusSet = new HashSet<>();
 
@@ -22,6 +22,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsCreateModes;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.nifi.annotation.behavior.InputRequirement;
@@ -34,6 +35,8 @@ import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.PropertyValue;
@@ -48,6 +51,7 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.hadoop.util.ParallelHDFSTransfer;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.StopWatch;
 import org.ietf.jgss.GSSException;
@@ -67,7 +71,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -76,7 +83,8 @@ import java.util.stream.Stream;
  */
 @InputRequirement(Requirement.INPUT_REQUIRED)
 @Tags({"hadoop", "HDFS", "put", "copy", "filesystem"})
-@CapabilityDescription("Write FlowFile data to Hadoop Distributed File System (HDFS)")
+@CapabilityDescription("Write FlowFile data to Hadoop Distributed File System (HDFS). Large files may optionally be uploaded as several "
+        + "parts that are written concurrently and then combined into a single file, as configured by the Parallel Upload properties.")
 @ReadsAttribute(attribute = "filename", description = "The name of the file written to HDFS comes from the value of this attribute.")
 @WritesAttributes({
         @WritesAttribute(attribute = "filename", description = "The name of the file written to HDFS is stored in this attribute."),
@@ -107,6 +115,8 @@ public class PutHDFS extends AbstractHadoopProcessor {
     public static final String BUFFER_SIZE_KEY = "io.file.buffer.size";
     public static final int BUFFER_SIZE_DEFAULT = 4096;
 
+    private static final long MAX_PART_SIZE = 1024L * 1024L * 1024L;
+
     // relationships
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
             .name("success")
@@ -183,6 +193,28 @@ public class PutHDFS extends AbstractHadoopProcessor {
             .addValidator(StandardValidators.BOOLEAN_VALIDATOR)
             .build();
 
+    public static final PropertyDescriptor PARALLEL_UPLOAD_THREADS = new PropertyDescriptor.Builder()
+            .name("put-hdfs-parallel-upload-threads")
+            .displayName("Parallel Upload Threads")
+            .description("The number of parts of a single file that may be written to HDFS concurrently. When greater than 1, a file that is larger than "
+                    + "the Parallel Upload Part Size is written as several part files next to the destination file, each through its own DataNode pipeline, "
+                    + "and the parts are then combined with the HDFS concat operation. If the file system is not HDFS, the parts are copied "
+                    + "into the destination file instead. Each part that is being written is held in memory, so this may use up to this many times the "
+                    + "Parallel Upload Part Size of heap for each concurrent task. Files that are compressed or appended to are always written by a single stream.")
+            .required(true)
+            .defaultValue("1")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor PARALLEL_UPLOAD_PART_SIZE = new PropertyDescriptor.Builder()
+            .name("put-hdfs-parallel-upload-part-size")
+            .displayName("Parallel Upload Part Size")
+            .description("The size of each part when a file is uploaded in parallel. Only used when Parallel Upload Threads is greater than 1.")
+            .required(true)
+            .defaultValue("32 MB")
+            .addValidator(StandardValidators.createDataSizeBoundsValidator(1, MAX_PART_SIZE))
+            .build();
+
     private static final Set<Relationship> relationships;
 
     static {
@@ -213,9 +245,36 @@ public class PutHDFS extends AbstractHadoopProcessor {
         props.add(REMOTE_GROUP);
         props.add(COMPRESSION_CODEC);
         props.add(IGNORE_LOCALITY);
+        props.add(PARALLEL_UPLOAD_THREADS);
+        props.add(PARALLEL_UPLOAD_PART_SIZE);
         return props;
     }
 
+    private volatile ExecutorService uploadExecutor;
+
+    @OnScheduled
+    public void startUploadExecutor(final ProcessContext context) {
+        final int threads = context.getProperty(PARALLEL_UPLOAD_THREADS).asInteger();
+        if (threads > 1) {
+            final String threadNamePrefix = getClass().getSimpleName() + " " + getIdentifier() + " Upload-";
+            final AtomicInteger threadCount = new AtomicInteger(0);
+            uploadExecutor = Executors.newFixedThreadPool(threads * context.getMaxConcurrentTasks(), runnable -> {
+                final Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @OnStopped
+    public void stopUploadExecutor() {
+        final ExecutorService executor = uploadExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            uploadExecutor = null;
+        }
+    }
+
     @Override
     protected void preProcessConfiguration(final Configuration config, final ProcessContext context) {
         // Set umask once, to avoid thread safety issues doing it in onTrigger
@@ -315,28 +374,43 @@ public class PutHDFS extends AbstractHadoopProcessor {
                         }
                     }
 
+                    final EnumSet<CreateFlag> cflags = EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE);
+
+                    final Boolean ignoreLocality = context.getProperty(IGNORE_LOCALITY).asBoolean();
+                    if (ignoreLocality) {
+                        cflags.add(CreateFlag.IGNORE_CLIENT_LOCALITY);
+                    }
+
+                    final ParallelHDFSTransfer.FileCreator fileCreator = file -> hdfs.create(file, FsCreateModes.applyUMask(FsPermission.getFileDefault(),
+                            FsPermission.getUMask(hdfs.getConf())), cflags, bufferSize, replication, blockSize, null, null);
+
+                    // Large files are uploaded as concurrently written parts, unless they are compressed or appended to an existing file
+                    final ExecutorService executor = uploadExecutor;
+                    final boolean appendToExisting = conflictResponse.equals(APPEND_RESOLUTION_AV.getValue()) && destinationExists;
+                    final int partSize = context.getProperty(PARALLEL_UPLOAD_PART_SIZE).asDataSize(DataUnit.B).intValue();
+                    final boolean uploadInParallel = executor != null && codec == null && !appendToExisting && putFlowFile.getSize() > partSize;
+
                     // Write FlowFile to temp file on HDFS
                     final StopWatch stopWatch = new StopWatch(true);
                     session.read(putFlowFile, new InputStreamCallback() {
 
                         @Override
                         public void process(InputStream in) throws IOException {
+                            if (uploadInParallel) {
+                                final int maxConcurrentParts = context.getProperty(PARALLEL_UPLOAD_THREADS).asInteger();
+                                final ParallelHDFSTransfer transfer = new ParallelHDFSTransfer(executor, hdfs, ugi, partSize, maxConcurrentParts);
+                                final int partCount = transfer.upload(in, tempCopyFile, fileCreator, isConcatSupported(hdfs));
+                                getLogger().debug("Uploaded {} to {} as {} parts", new Object[]{flowFile, tempCopyFile, partCount});
+                                return;
+                            }
+
                             OutputStream fos = null;
                             Path createdFile = null;
                             try {
-                                if (conflictResponse.equals(APPEND_RESOLUTION_AV.getValue()) && destinationExists) {
+                                if (appendToExisting) {
                                     fos = hdfs.append(copyFile, bufferSize);
                                 } else {
-                                  final EnumSet<CreateFlag> cflags = EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE);
-
-                                  final Boolean ignoreLocality = context.getProperty(IGNORE_LOCALITY).asBoolean();
-                                  if (ignoreLocality) {
-                                    cflags.add(CreateFlag.IGNORE_CLIENT_LOCALITY);
-                                  }
-
-                                  fos = hdfs.create(tempCopyFile, FsCreateModes.applyUMask(FsPermission.getFileDefault(),
-                                      FsPermission.getUMask(hdfs.getConf())), cflags, bufferSize, replication, blockSize,
-                                      null, null);
+                                    fos = fileCreator.create(tempCopyFile);
                                 }
 
                                 if (codec != null) {
@@ -448,6 +522,14 @@ public class PutHDFS extends AbstractHadoopProcessor {
                .findFirst();
     }
 
+    /**
+     * Returns whether the parts of a parallel upload can be combined with concat. Only HDFS appends the other parts to the first part;
+     * other file systems either do not support concat or replace the contents of the first part.
+     */
+    protected boolean isConcatSupported(final FileSystem hdfs) {
+        return hdfs instanceof DistributedFileSystem;
+    }
+
     protected void changeOwner(final ProcessContext context, final FileSystem hdfs, final Path name, final FlowFile flowFile) {
         try {
             // Change owner and group of file if configured to do so
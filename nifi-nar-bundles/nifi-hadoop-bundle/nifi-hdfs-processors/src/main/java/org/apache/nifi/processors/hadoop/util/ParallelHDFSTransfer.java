@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.hadoop.util;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.concurrency.OrderedTaskQueue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Transfers a single file to or from HDFS as several parts at once, so that the throughput for a large file is not bounded by
+ * a single DataNode pipeline.
+ *
+ * An upload reads the content sequentially into part-sized buffers, writes each part to its own file next to the target file,
+ * and then combines the parts with the HDFS concat operation. Other file systems either do not support concat or, like the local
+ * file system, replace the contents of the target rather than appending to it, so for those the parts are copied into the target
+ * file instead. A download reads the parts of the file with concurrent positional reads and writes them to the
+ * output in order.
+ *
+ * Every part that is being transferred is held in memory, so a transfer uses at most the part size times the maximum number of
+ * concurrent parts.
+ */
+public class ParallelHDFSTransfer {
+
+    /**
+     * Creates the file that a part of an upload is written to, along with the file that the parts are copied into when the file
+     * system does not support concat.
+     */
+    @FunctionalInterface
+    public interface FileCreator {
+        OutputStream create(Path file) throws IOException;
+    }
+
+    private final ExecutorService executor;
+    private final FileSystem fileSystem;
+    private final UserGroupInformation userGroupInformation;
+    private final int partSize;
+    private final int maxConcurrentParts;
+
+    public ParallelHDFSTransfer(final ExecutorService executor, final FileSystem fileSystem, final UserGroupInformation userGroupInformation,
+                                final int partSize, final int maxConcurrentParts) {
+        if (partSize < 1) {
+            throw new IllegalArgumentException("Part size must be positive but was " + partSize);
+        }
+
+        this.executor = executor;
+        this.fileSystem = fileSystem;
+        this.userGroupInformation = userGroupInformation;
+        this.partSize = partSize;
+        this.maxConcurrentParts = Math.max(1, maxConcurrentParts);
+    }
+
+    /**
+     * Writes the given content to the target file. The target file is replaced if it exists, and is deleted if the upload fails.
+     *
+     * @param in the content to write
+     * @param target the file to write
+     * @param fileCreator creates the part files and, if needed, the target file
+     * @param useConcat whether the parts are combined with concat, which must append the other parts to the first part as HDFS does,
+     *                  rather than copied into the target file
+     * @return the number of parts that the content was uploaded as
+     * @throws IOException if the content could not be read or any of the parts could not be written
+     */
+    public int upload(final InputStream in, final Path target, final FileCreator fileCreator, final boolean useConcat) throws IOException {
+        final List<Path> partFiles = new ArrayList<>();
+        final OrderedTaskQueue<Void> pendingParts = new OrderedTaskQueue<>(executor);
+        boolean uploaded = false;
+
+        try {
+            int bytesRead = partSize;
+            while (bytesRead == partSize) {
+                // Wait for a part to be written before filling another buffer, so that the memory used is bounded
+                awaitCompletion(pendingParts, maxConcurrentParts - 1);
+
+                final byte[] buffer = new byte[partSize];
+                bytesRead = StreamUtils.fillBuffer(in, buffer, false);
+                if (bytesRead == 0 && !partFiles.isEmpty()) {
+                    break;
+                }
+
+                final Path partFile = getPartFile(target, partFiles.size());
+                partFiles.add(partFile);
+
+                final int length = bytesRead;
+                pendingParts.submit(() -> userGroupInformation.doAs((PrivilegedExceptionAction<Void>) () -> {
+                    try (final OutputStream out = fileCreator.create(partFile)) {
+                        out.write(buffer, 0, length);
+                    }
+                    return null;
+                }));
+            }
+
+            awaitCompletion(pendingParts, 0);
+            if (useConcat) {
+                concatParts(target, partFiles);
+            } else {
+                copyParts(target, partFiles, fileCreator);
+            }
+            uploaded = true;
+            return partFiles.size();
+        } finally {
+            // Wait for any part that is still being written, so that its file exists by the time it is deleted below
+            pendingParts.cancelAll();
+
+            // After a successful concat the parts no longer exist, so this only removes what was left behind
+            for (final Path partFile : partFiles) {
+                deleteQuietly(partFile);
+            }
+            if (!uploaded) {
+                deleteQuietly(target);
+            }
+        }
+    }
+
+    private void concatParts(final Path target, final List<Path> partFiles) throws IOException {
+        final Path firstPart = partFiles.get(0);
+
+        if (partFiles.size() > 1) {
+            final Path[] remainingParts = partFiles.subList(1, partFiles.size()).toArray(new Path[0]);
+            fileSystem.concat(firstPart, remainingParts);
+        }
+
+        deleteQuietly(target);
+        if (!fileSystem.rename(firstPart, target)) {
+            throw new IOException("Uploaded all parts but could not rename " + firstPart + " to " + target);
+        }
+    }
+
+    private void copyParts(final Path target, final List<Path> partFiles, final FileCreator fileCreator) throws IOException {
+        try (final OutputStream out = fileCreator.create(target)) {
+            for (final Path partFile : partFiles) {
+                try (final InputStream in = fileSystem.open(partFile)) {
+                    StreamUtils.copy(in, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the given number of bytes from the start of the source file and writes them to the given output.
+     *
+     * @param source the file to read
+     * @param length the number of bytes to read
+     * @param out the output to write to
+     * @return the number of parts that the file was downloaded as
+     * @throws IOException if any of the parts could not be read, or the output could not be written
+     */
+    public int download(final Path source, final long length, final OutputStream out) throws IOException {
+        final OrderedTaskQueue<byte[]> pendingParts = new OrderedTaskQueue<>(executor);
+        int partCount = 0;
+
+        // Positional reads do not change the position of the stream, so concurrent reads can share it
+        try (final FSDataInputStream in = fileSystem.open(source)) {
+            try {
+                long position = 0L;
+                while (position < length || !pendingParts.isEmpty()) {
+                    while (position < length && pendingParts.size() < maxConcurrentParts) {
+                        final long partPosition = position;
+                        final int partLength = (int) Math.min(partSize, length - position);
+
+                        pendingParts.submit(() -> userGroupInformation.doAs((PrivilegedExceptionAction<byte[]>) () -> {
+                            final byte[] buffer = new byte[partLength];
+                            in.readFully(partPosition, buffer, 0, partLength);
+                            return buffer;
+                        }));
+
+                        position += partLength;
+                        partCount++;
+                    }
+
+                    out.write(getResult(pendingParts));
+                }
+            } finally {
+                // Wait for any read that is still in progress, as the stream is closed next
+                pendingParts.cancelAll();
+            }
+        }
+
+        return partCount;
+    }
+
+    private static Path getPartFile(final Path target, final int partIndex) {
+        return new Path(target.getParent(), target.getName() + ".part-" + partIndex);
+    }
+
+    private void deleteQuietly(final Path file) {
+        try {
+            fileSystem.delete(file, false);
+        } catch (final IOException ignored) {
+            // The file may not exist, and there is nothing more to do if it cannot be removed
+        }
+    }
+
+    private static <T> void awaitCompletion(final OrderedTaskQueue<T> pendingParts, final int maxRemaining) throws IOException {
+        while (pendingParts.size() > maxRemaining) {
+            getResult(pendingParts);
+        }
+    }
+
+    private static <T> T getResult(final OrderedTaskQueue<T> pendingParts) throws IOException {
+        try {
+            return pendingParts.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a part to be transferred", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to transfer part", cause);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.util.Progressable;
@@ -49,14 +50,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -459,6 +465,80 @@ public class PutHDFSTest {
         mockFileSystem.delete(p, true);
     }
 
+    @Test
+    public void testPutFileInParallelParts() throws IOException {
+        // The local file system is not HDFS, so this only exercises copying the parts into the destination file
+        final FileSystem localFileSystem = FileSystem.getLocal(new Configuration()).getRawFileSystem();
+        final Path dir = new Path("target/test-parallel-put");
+        localFileSystem.delete(dir, true);
+
+        PutHDFS proc = new TestablePutHDFS(kerberosProperties, localFileSystem);
+        TestRunner runner = TestRunners.newTestRunner(proc);
+        runner.setProperty(PutHDFS.DIRECTORY, dir.toString());
+        runner.setProperty(PutHDFS.CONFLICT_RESOLUTION, "replace");
+        runner.setProperty(PutHDFS.PARALLEL_UPLOAD_THREADS, "4");
+        runner.setProperty(PutHDFS.PARALLEL_UPLOAD_PART_SIZE, "64 KB");
+        try (FileInputStream fis = new FileInputStream("src/test/resources/testdata/randombytes-1")) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put(CoreAttributes.FILENAME.key(), "randombytes-1");
+            runner.enqueue(fis, attributes);
+            runner.run();
+        }
+
+        runner.assertAllFlowFilesTransferred(PutHDFS.REL_SUCCESS, 1);
+
+        final byte[] expected = Files.readAllBytes(Paths.get("src/test/resources/testdata/randombytes-1"));
+        final byte[] actual = Files.readAllBytes(Paths.get(dir.toString(), "randombytes-1"));
+        assertArrayEquals(expected, actual);
+
+        // only the destination file is left, as the parts have been combined into it
+        final FileStatus[] statuses = localFileSystem.listStatus(dir);
+        assertEquals(1, statuses.length);
+        assertEquals("randombytes-1", statuses[0].getPath().getName());
+
+        localFileSystem.delete(dir, true);
+    }
+
+    @Test
+    public void testPutFileInParallelPartsWithConcat() throws IOException {
+        final ConcatLocalFileSystem localFileSystem = new ConcatLocalFileSystem();
+        localFileSystem.initialize(URI.create("file:///"), new Configuration());
+        final Path dir = new Path("target/test-parallel-put-concat");
+        localFileSystem.delete(dir, true);
+
+        PutHDFS proc = new TestablePutHDFS(kerberosProperties, localFileSystem) {
+            @Override
+            protected boolean isConcatSupported(final FileSystem hdfs) {
+                return true;
+            }
+        };
+        TestRunner runner = TestRunners.newTestRunner(proc);
+        runner.setProperty(PutHDFS.DIRECTORY, dir.toString());
+        runner.setProperty(PutHDFS.CONFLICT_RESOLUTION, "replace");
+        runner.setProperty(PutHDFS.PARALLEL_UPLOAD_THREADS, "4");
+        runner.setProperty(PutHDFS.PARALLEL_UPLOAD_PART_SIZE, "64 KB");
+        try (FileInputStream fis = new FileInputStream("src/test/resources/testdata/randombytes-1")) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put(CoreAttributes.FILENAME.key(), "randombytes-1");
+            runner.enqueue(fis, attributes);
+            runner.run();
+        }
+
+        runner.assertAllFlowFilesTransferred(PutHDFS.REL_SUCCESS, 1);
+        assertEquals(1, localFileSystem.concatCount);
+
+        final byte[] expected = Files.readAllBytes(Paths.get("src/test/resources/testdata/randombytes-1"));
+        final byte[] actual = Files.readAllBytes(Paths.get(dir.toString(), "randombytes-1"));
+        assertArrayEquals(expected, actual);
+
+        // only the destination file is left, as the parts have been concatenated and renamed
+        final FileStatus[] statuses = localFileSystem.listStatus(dir);
+        assertEquals(1, statuses.length);
+        assertEquals("randombytes-1", statuses[0].getPath().getName());
+
+        localFileSystem.delete(dir, true);
+    }
+
     private class TestablePutHDFS extends PutHDFS {
 
         private KerberosProperties testKerberosProperties;
@@ -486,6 +566,24 @@ public class PutHDFSTest {
         }
     }
 
+    /**
+     * A local file system whose concat appends the sources to the target and deletes them, as HDFS does.
+     */
+    private static class ConcatLocalFileSystem extends RawLocalFileSystem {
+        private volatile int concatCount = 0;
+
+        @Override
+        public void concat(final Path trg, final Path[] psrcs) throws IOException {
+            try (final OutputStream out = new FileOutputStream(pathToFile(trg), true)) {
+                for (final Path src : psrcs) {
+                    Files.copy(pathToFile(src).toPath(), out);
+                    delete(src, false);
+                }
+            }
+            concatCount++;
+        }
+    }
+
     private class MockFileSystem extends FileSystem {
         private final Map<Path, FileStatus> pathToStatus = new HashMap<>();
         private final boolean failOnClose;
@@ -172,6 +172,25 @@ public class TestFetchHDFS {
         flowFile.assertContentEquals(expected);
     }
 
+    @Test
+    public void testParallelFetch() throws IOException {
+        FetchHDFS proc = new TestableFetchHDFS(kerberosProperties);
+        TestRunner runner = TestRunners.newTestRunner(proc);
+        runner.setProperty(FetchHDFS.FILENAME, "src/test/resources/testdata/randombytes-1");
+        runner.setProperty(FetchHDFS.PARALLEL_FETCH_THREADS, "4");
+        runner.setProperty(FetchHDFS.PARALLEL_FETCH_PART_SIZE, "64 KB");
+        runner.enqueue(new String("trigger flow file"));
+        runner.run();
+
+        List<MockFlowFile> flowFiles = runner.getFlowFilesForRelationship(FetchHDFS.REL_SUCCESS);
+        assertEquals(1, flowFiles.size());
+
+        MockFlowFile flowFile = flowFiles.get(0);
+        assertEquals("randombytes-1", flowFile.getAttribute(CoreAttributes.FILENAME.key()));
+        InputStream expected = getClass().getResourceAsStream("/testdata/randombytes-1");
+        flowFile.assertContentEquals(expected);
+    }
+
     private static class TestableFetchHDFS extends FetchHDFS {
         private final KerberosProperties testKerberosProps;
 
@@ -23,6 +23,11 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSInotifyEventInputStream;
+import org.apache.hadoop.hdfs.client.HdfsAdmin;
+import org.apache.hadoop.hdfs.inotify.Event;
+import org.apache.hadoop.hdfs.inotify.EventBatch;
+import org.apache.hadoop.hdfs.inotify.MissingEventsException;
 import org.apache.hadoop.util.Progressable;
 import org.apache.nifi.components.state.Scope;
 import org.apache.nifi.controller.AbstractControllerService;
@@ -46,6 +51,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -64,6 +70,7 @@ import static org.apache.nifi.processors.hadoop.ListHDFS.FILTER_DIRECTORIES_AND_
 import static org.apache.nifi.processors.hadoop.ListHDFS.FILTER_FILES_ONLY_VALUE;
 import static org.apache.nifi.processors.hadoop.ListHDFS.FILTER_FULL_PATH_VALUE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -71,11 +78,14 @@ import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TestListHDFS {
 
+    private static final long CURRENT_EVENT_TX_ID = 3L;
+
     private TestRunner runner;
     private ListHDFSWithMockedFileSystem proc;
     private NiFiProperties mockNiFiProperties;
@@ -717,6 +727,141 @@ public class TestListHDFS {
         runner.assertPenalizeCount(0);
     }
 
+    @Test
+    public void testListingFollowingEventStream() throws InterruptedException, IOException, MissingEventsException {
+        final HdfsAdmin hdfsAdmin = mock(HdfsAdmin.class);
+        final DFSInotifyEventInputStream eventStream = mock(DFSInotifyEventInputStream.class);
+        when(hdfsAdmin.getInotifyEventStream(CURRENT_EVENT_TX_ID)).thenReturn(eventStream);
+        proc.hdfsAdmin = hdfsAdmin;
+
+        runner.setProperty(ListHDFS.LISTING_STRATEGY, ListHDFS.EVENT_STREAM_STRATEGY.getValue());
+        runner.setProperty(ListHDFS.RECURSE_SUBDIRS, "false");
+        proc.fileSystem.addFileStatus(new Path("/test"), new FileStatus(1L, false, 1, 1L, 0L, 0L, create777(), "owner", "group", new Path("/test/testFile.txt")));
+
+        // the first listing is a full listing, which holds back the newest file for a cycle; the second listing looks it up again
+        runner.run();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * ListHDFS.LISTING_LAG_NANOS));
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ListHDFS.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListHDFS.REL_SUCCESS).get(0).assertAttributeEquals("filename", "testFile.txt");
+        verify(hdfsAdmin).getInotifyEventStream(CURRENT_EVENT_TX_ID);
+        // the position of the event stream is stored, so that a new primary node continues from it rather than performing a full listing
+        runner.getStateManager().assertStateEquals(ListHDFS.EVENT_TX_ID_KEY, String.valueOf(CURRENT_EVENT_TX_ID), Scope.CLUSTER);
+
+        // a file that is written without an event is not found, since the directory is not listed again
+        proc.fileSystem.addFileStatus(new Path("/test"), new FileStatus(1L, false, 1, 1L, 20L, 0L, create777(), "owner", "group", new Path("/test/unseenFile.txt")));
+        proc.fileSystem.addFileStatus(new Path("/test"), new FileStatus(1L, false, 1, 1L, 10L, 0L, create777(), "owner", "group", new Path("/test/newFile.txt")));
+        proc.fileSystem.addFileStatus(new Path("/other"), new FileStatus(1L, false, 1, 1L, 10L, 0L, create777(), "owner", "group", new Path("/other/otherFile.txt")));
+        proc.fileSystem.addFileStatus(new Path("/test/subDir"), new FileStatus(1L, false, 1, 1L, 10L, 0L, create777(), "owner", "group", new Path("/test/subDir/subFile.txt")));
+        final Event[] events = new Event[] {
+            new Event.CloseEvent("/test/newFile.txt", 1L, 10L),
+            new Event.CloseEvent("/other/otherFile.txt", 1L, 10L),
+            new Event.CloseEvent("/test/subDir/subFile.txt", 1L, 10L),
+            new Event.CloseEvent("/testing/similarFile.txt", 1L, 10L)
+        };
+        when(eventStream.poll()).thenReturn(new EventBatch(5L, events), (EventBatch) null);
+
+        runner.clearTransferState();
+        proc.fileSystem.lookedUpPaths.clear();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * ListHDFS.LISTING_LAG_NANOS));
+        runner.run();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * ListHDFS.LISTING_LAG_NANOS));
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ListHDFS.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListHDFS.REL_SUCCESS).get(0).assertAttributeEquals("filename", "newFile.txt");
+        // paths outside of the directory, and below it when not recursing, are never looked up
+        assertEquals(Collections.singleton(new Path("/test/newFile.txt")), new HashSet<>(proc.fileSystem.lookedUpPaths));
+        runner.getStateManager().assertStateEquals(ListHDFS.EVENT_TX_ID_KEY, "5", Scope.CLUSTER);
+        runner.getStateManager().assertStateEquals(ListHDFS.EMITTED_TIMESTAMP_KEY, "10", Scope.CLUSTER);
+    }
+
+    @Test
+    public void testListingFollowingEventStreamWithMissingEvents() throws InterruptedException, IOException, MissingEventsException {
+        final HdfsAdmin hdfsAdmin = mock(HdfsAdmin.class);
+        final DFSInotifyEventInputStream missingEventStream = mock(DFSInotifyEventInputStream.class);
+        final DFSInotifyEventInputStream eventStream = mock(DFSInotifyEventInputStream.class);
+        when(missingEventStream.poll()).thenThrow(new MissingEventsException(6L, 9L));
+        when(hdfsAdmin.getInotifyEventStream(5L)).thenReturn(missingEventStream);
+        when(hdfsAdmin.getInotifyEventStream(CURRENT_EVENT_TX_ID)).thenReturn(eventStream);
+        proc.hdfsAdmin = hdfsAdmin;
+
+        final Map<String, String> state = new HashMap<>();
+        state.put(ListHDFS.LISTING_TIMESTAMP_KEY, "0");
+        state.put(ListHDFS.EMITTED_TIMESTAMP_KEY, "0");
+        state.put(ListHDFS.EVENT_TX_ID_KEY, "5");
+        // setting the Directory in setup() clears the state when the processor is first scheduled, so that is done before the state is set
+        proc.resetStateIfNecessary(runner.getProcessContext());
+        runner.getStateManager().setState(state, Scope.CLUSTER);
+
+        runner.setProperty(ListHDFS.LISTING_STRATEGY, ListHDFS.EVENT_STREAM_STRATEGY.getValue());
+        proc.fileSystem.addFileStatus(new Path("/test"), new FileStatus(1L, false, 1, 1L, 10L, 0L, create777(), "owner", "group", new Path("/test/testFile.txt")));
+        proc.fileSystem.addFileStatus(new Path("/test"), new FileStatus(1L, false, 1, 1L, 20L, 0L, create777(), "owner", "group", new Path("/test/laterFile.txt")));
+
+        // the gap in the event stream causes a full listing, after which the event stream is followed from its current position
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ListHDFS.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListHDFS.REL_SUCCESS).get(0).assertAttributeEquals("filename", "testFile.txt");
+        verify(hdfsAdmin).getInotifyEventStream(5L);
+        verify(hdfsAdmin).getInotifyEventStream(CURRENT_EVENT_TX_ID);
+
+        // the file held back by the full listing is listed from the pending paths
+        runner.clearTransferState();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * ListHDFS.LISTING_LAG_NANOS));
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ListHDFS.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListHDFS.REL_SUCCESS).get(0).assertAttributeEquals("filename", "laterFile.txt");
+    }
+
+    @Test
+    public void testListingFollowingEventStreamWithTooManyPendingPaths() throws InterruptedException, IOException, MissingEventsException {
+        final HdfsAdmin hdfsAdmin = mock(HdfsAdmin.class);
+        final DFSInotifyEventInputStream eventStream = mock(DFSInotifyEventInputStream.class);
+        when(hdfsAdmin.getInotifyEventStream(CURRENT_EVENT_TX_ID)).thenReturn(eventStream);
+        proc.hdfsAdmin = hdfsAdmin;
+
+        runner.setProperty(ListHDFS.LISTING_STRATEGY, ListHDFS.EVENT_STREAM_STRATEGY.getValue());
+        runner.setProperty(ListHDFS.MIN_AGE, "1 hour");
+        final long modificationTime = System.currentTimeMillis();
+        for (int i = 0; i <= ListHDFS.MAX_PENDING_PATHS; i++) {
+            proc.fileSystem.addFileStatus(new Path("/test"),
+                new FileStatus(1L, false, 1, 1L, modificationTime, 0L, create777(), "owner", "group", new Path("/test/testFile" + i + ".txt")));
+        }
+
+        // none of the files is old enough to be listed, and there are too many of them to keep in the state
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ListHDFS.REL_SUCCESS, 0);
+        final Map<String, String> state = runner.getStateManager().getState(Scope.CLUSTER).toMap();
+        assertEquals("-1", state.get(ListHDFS.EVENT_TX_ID_KEY));
+        assertFalse(state.keySet().stream().anyMatch(key -> key.startsWith(ListHDFS.PENDING_PATH_KEY_PREFIX)));
+
+        // so the next listing is a full listing again
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * ListHDFS.LISTING_LAG_NANOS));
+        runner.run();
+
+        verify(hdfsAdmin, times(2)).getInotifyEventStream(CURRENT_EVENT_TX_ID);
+        verify(eventStream, never()).poll();
+    }
+
+    @Test
+    public void testEventStreamFallsBackToFullListingWithoutHdfs() throws InterruptedException {
+        runner.setProperty(ListHDFS.LISTING_STRATEGY, ListHDFS.EVENT_STREAM_STRATEGY.getValue());
+        proc.fileSystem.addFileStatus(new Path("/test"), new FileStatus(1L, false, 1, 1L, 0L, 0L, create777(), "owner", "group", new Path("/test/testFile.txt")));
+
+        // the processor stays scheduled between the listings, so the warning is logged only once
+        runner.run(1, false, true);
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * ListHDFS.LISTING_LAG_NANOS));
+        runner.run(1, true, false);
+
+        runner.assertAllFlowFilesTransferred(ListHDFS.REL_SUCCESS, 1);
+        runner.getStateManager().assertStateNotSet(ListHDFS.EVENT_TX_ID_KEY, Scope.CLUSTER);
+        assertEquals(1, mockLogger.getWarnMessages().size());
+    }
+
     private FsPermission create777() {
         return new FsPermission((short) 0777);
     }
@@ -725,6 +870,7 @@ public class TestListHDFS {
     private class ListHDFSWithMockedFileSystem extends ListHDFS {
         private final MockFileSystem fileSystem = new MockFileSystem();
         private final KerberosProperties testKerberosProps;
+        private HdfsAdmin hdfsAdmin;
 
         public ListHDFSWithMockedFileSystem(KerberosProperties kerberosProperties) {
             this.testKerberosProps = kerberosProperties;
@@ -745,6 +891,21 @@ public class TestListHDFS {
             return new File("target/conf/state-file");
         }
 
+        @Override
+        protected boolean isEventStreamSupported(final FileSystem hdfs) {
+            return hdfsAdmin != null || super.isEventStreamSupported(hdfs);
+        }
+
+        @Override
+        protected long getCurrentEventTxId(final FileSystem hdfs) {
+            return CURRENT_EVENT_TX_ID;
+        }
+
+        @Override
+        protected HdfsAdmin getHdfsAdmin() throws IOException {
+            return hdfsAdmin == null ? super.getHdfsAdmin() : hdfsAdmin;
+        }
+
         @Override
         protected FileSystem getFileSystem(final Configuration config) throws IOException {
             return fileSystem;
@@ -753,6 +914,7 @@ public class TestListHDFS {
 
     private class MockFileSystem extends FileSystem {
         private final Map<Path, Set<FileStatus>> fileStatuses = new HashMap<>();
+        private final List<Path> lookedUpPaths = new ArrayList<>();
 
         public void addFileStatus(final Path parent, final FileStatus child) {
             Set<FileStatus> children = fileStatuses.get(parent);
@@ -848,7 +1010,12 @@ public class TestListHDFS {
 
         @Override
         public FileStatus getFileStatus(final Path f) throws IOException {
-            return null;
+            lookedUpPaths.add(f);
+            return fileStatuses.values().stream()
+                    .flatMap(Set::stream)
+                    .filter(status -> Path.getPathWithoutSchemeAndAuthority(status.getPath()).equals(Path.getPathWithoutSchemeAndAuthority(f)))
+                    .findFirst()
+                    .orElseThrow(() -> new FileNotFoundException(String.format("%s instance does not contain %s", this.getClass().getSimpleName(), f)));
         }
 
     }
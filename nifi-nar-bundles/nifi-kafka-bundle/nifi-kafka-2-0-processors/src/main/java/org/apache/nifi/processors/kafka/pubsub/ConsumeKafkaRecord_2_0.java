@@ -54,6 +54,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -86,6 +89,12 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
     static final AllowableValue OFFSET_NONE = new AllowableValue("none", "none", "Throw exception to the consumer if no previous offset is found for the consumer's group");
     static final AllowableValue TOPIC_NAME = new AllowableValue("names", "names", "Topic is a full topic name or comma separated list of names");
     static final AllowableValue TOPIC_PATTERN = new AllowableValue("pattern", "pattern", "Topic is a regex using the Java Pattern syntax");
+    static final AllowableValue PASS_THROUGH_NONE = new AllowableValue("none", "None", "Every message is read using the configured Record Reader and written using the configured Record Writer");
+    static final AllowableValue PASS_THROUGH_CONFLUENT_AVRO = new AllowableValue("confluent-avro", "Confluent Encoded Avro",
+        "Messages that are encoded in the Confluent wire format, that is a 0 byte followed by a 4-byte schema identifier and a single Avro-encoded record, are written "
+            + "to FlowFiles without being read and re-written. The messages that have the same schema identifier are bundled together by writing a single header followed by "
+            + "the Avro-encoded record of each message, which is the content that an Avro Record Writer produces when configured to write a Confluent Schema Registry Reference "
+            + "for the same schema. Any other message is read and written using the configured Record Reader and Record Writer.");
 
     static final PropertyDescriptor TOPICS = new Builder()
             .name("topic")
@@ -207,6 +216,31 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
         .required(false)
         .build();
 
+    static final PropertyDescriptor PASS_THROUGH_FORMAT = new Builder()
+        .name("pass-through-format")
+        .displayName("Pass-Through Format")
+        .description("The format of messages that can be written to FlowFiles exactly as they are received, instead of being read using the configured Record Reader and written "
+            + "using the configured Record Writer. This avoids parsing and serializing each record when the Record Reader and the Record Writer use the same format and schema, "
+            + "and should not be used otherwise, as the messages are neither validated nor transformed.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .allowableValues(PASS_THROUGH_NONE, PASS_THROUGH_CONFLUENT_AVRO)
+        .defaultValue(PASS_THROUGH_NONE.getValue())
+        .required(true)
+        .build();
+
+    static final PropertyDescriptor PARTITION_PROCESSING_THREADS = new Builder()
+        .name("partition-processing-threads")
+        .displayName("Partition Processing Threads")
+        .description("The maximum number of threads that are used to read and write the records that a single consumer receives from different partitions. "
+            + "If greater than 1, the messages that are received from each partition in a single poll are read and written in parallel, so that record conversion "
+            + "is not limited to one core per Concurrent Task. The messages of any one partition are always processed in order by a single thread, and offsets are "
+            + "committed only after the messages of all partitions have been written. The threads are shared by all Concurrent Tasks.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1")
+        .required(true)
+        .build();
+
     static final Relationship REL_SUCCESS = new Relationship.Builder()
             .name("success")
             .description("FlowFiles received from Kafka.  Depending on demarcation strategy it is a flow file per message or a bundle of messages grouped by topic and partition.")
@@ -221,6 +255,7 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
     static final Set<Relationship> RELATIONSHIPS;
 
     private volatile ConsumerPool consumerPool = null;
+    private volatile ExecutorService partitionExecutor = null;
     private final Set<ConsumerLease> activeLeases = Collections.synchronizedSet(new HashSet<>());
 
     static {
@@ -230,6 +265,7 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
         descriptors.add(TOPIC_TYPE);
         descriptors.add(RECORD_READER);
         descriptors.add(RECORD_WRITER);
+        descriptors.add(PASS_THROUGH_FORMAT);
         descriptors.add(HONOR_TRANSACTIONS);
         descriptors.add(KafkaProcessorUtils.SECURITY_PROTOCOL);
         descriptors.add(KafkaProcessorUtils.SASL_MECHANISM);
@@ -248,6 +284,7 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
         descriptors.add(MAX_POLL_RECORDS);
         descriptors.add(MAX_UNCOMMITTED_TIME);
         descriptors.add(COMMS_TIMEOUT);
+        descriptors.add(PARTITION_PROCESSING_THREADS);
         DESCRIPTORS = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> rels = new HashSet<>();
@@ -274,6 +311,13 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
         if (pool != null) {
             pool.close();
         }
+
+        final ExecutorService executor = partitionExecutor;
+        partitionExecutor = null;
+
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     @Override
@@ -328,6 +372,12 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
         final String headerNameRegex = context.getProperty(HEADER_NAME_REGEX).getValue();
         final Pattern headerNamePattern = headerNameRegex == null ? null : Pattern.compile(headerNameRegex);
 
+        final boolean passThroughConfluentAvro = PASS_THROUGH_CONFLUENT_AVRO.getValue().equals(context.getProperty(PASS_THROUGH_FORMAT).getValue());
+
+        final int partitionThreads = context.getProperty(PARTITION_PROCESSING_THREADS).asInteger();
+        final ExecutorService executor = partitionThreads > 1 ? createPartitionExecutor(partitionThreads) : null;
+        partitionExecutor = executor;
+
         if (topicType.equals(TOPIC_NAME.getValue())) {
             for (final String topic : topicListing.split(",", 100)) {
                 final String trimmedName = topic.trim();
@@ -337,17 +387,33 @@ public class ConsumeKafkaRecord_2_0 extends AbstractProcessor {
             }
 
             return new ConsumerPool(maxLeases, readerFactory, writerFactory, props, topics, maxUncommittedTime, securityProtocol,
-                bootstrapServers, log, honorTransactions, charset, headerNamePattern);
+                bootstrapServers, log, honorTransactions, charset, headerNamePattern, passThroughConfluentAvro, executor);
         } else if (topicType.equals(TOPIC_PATTERN.getValue())) {
             final Pattern topicPattern = Pattern.compile(topicListing.trim());
             return new ConsumerPool(maxLeases, readerFactory, writerFactory, props, topicPattern, maxUncommittedTime, securityProtocol,
-                bootstrapServers, log, honorTransactions, charset, headerNamePattern);
+                bootstrapServers, log, honorTransactions, charset, headerNamePattern, passThroughConfluentAvro, executor);
         } else {
             getLogger().error("Subscription type has an unknown value {}", new Object[] {topicType});
             return null;
         }
     }
 
+    private ExecutorService createPartitionExecutor(final int partitionThreads) {
+        final String threadName = getClass().getSimpleName() + " " + getIdentifier() + " Partition Processing Thread";
+
+        return Executors.newFixedThreadPool(partitionThreads, new ThreadFactory() {
+            private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = defaultFactory.newThread(r);
+                t.setName(threadName);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
     @OnUnscheduled
     public void interruptActiveThreads() {
         // There are known issues with the Kafka client library that result in the client code hanging
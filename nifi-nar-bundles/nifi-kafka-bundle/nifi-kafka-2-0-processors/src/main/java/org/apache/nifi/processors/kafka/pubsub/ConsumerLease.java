@@ -46,14 +46,21 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -72,6 +79,10 @@ import static org.apache.nifi.processors.kafka.pubsub.KafkaProcessorUtils.UTF8_E
  */
 public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListener {
 
+    // The Confluent wire format consists of a 0 'magic byte' followed by a 4-byte schema identifier
+    private static final int CONFLUENT_HEADER_LENGTH = 5;
+    private static final String AVRO_MIME_TYPE = "application/avro-binary";
+
     private final long maxWaitMillis;
     private final Consumer<byte[], byte[]> kafkaConsumer;
     private final ComponentLog logger;
@@ -83,10 +94,14 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
     private final RecordReaderFactory readerFactory;
     private final Charset headerCharacterSet;
     private final Pattern headerNamePattern;
+    private final boolean passThroughConfluentAvro;
+    private final ExecutorService partitionExecutor;
+    // guards all access to the ProcessSession while the records of several partitions are written in parallel
+    private final Object sessionLock = new Object();
     private boolean poisoned = false;
     //used for tracking demarcated flowfiles to their TopicPartition so we can append
     //to them on subsequent poll calls
-    private final Map<BundleInformation, BundleTracker> bundleMap = new HashMap<>();
+    private final Map<BundleInformation, BundleTracker> bundleMap = new ConcurrentHashMap<>();
     private final Map<TopicPartition, OffsetAndMetadata> uncommittedOffsetsMap = new HashMap<>();
     private long leaseStartNanos = -1;
     private boolean lastPollEmpty = false;
@@ -103,7 +118,9 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
             final RecordSetWriterFactory writerFactory,
             final ComponentLog logger,
             final Charset headerCharacterSet,
-            final Pattern headerNamePattern) {
+            final Pattern headerNamePattern,
+            final boolean passThroughConfluentAvro,
+            final ExecutorService partitionExecutor) {
         this.maxWaitMillis = maxWaitMillis;
         this.kafkaConsumer = kafkaConsumer;
         this.demarcatorBytes = demarcatorBytes;
@@ -115,6 +132,8 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         this.logger = logger;
         this.headerCharacterSet = headerCharacterSet;
         this.headerNamePattern = headerNamePattern;
+        this.passThroughConfluentAvro = passThroughConfluentAvro;
+        this.partitionExecutor = partitionExecutor;
     }
 
     /**
@@ -315,6 +334,11 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
     public abstract void yield();
 
     private void processRecords(final ConsumerRecords<byte[], byte[]> records) {
+        if (partitionExecutor != null && readerFactory != null && writerFactory != null && records.partitions().size() > 1) {
+            processRecordsInParallel(records);
+            return;
+        }
+
         records.partitions().stream().forEach(partition -> {
             List<ConsumerRecord<byte[], byte[]>> messages = records.records(partition);
             if (!messages.isEmpty()) {
@@ -328,7 +352,12 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
                 if (demarcatorBytes != null) {
                     writeDemarcatedData(getProcessSession(), messages, partition);
                 } else if (readerFactory != null && writerFactory != null) {
-                    writeRecordData(getProcessSession(), messages, partition);
+                    final List<TopicPartition> partitionsToRollback = new ArrayList<>(1);
+                    try {
+                        writeRecordData(getProcessSession(), messages, partition, partitionsToRollback);
+                    } finally {
+                        partitionsToRollback.forEach(this::rollback);
+                    }
                 } else {
                     messages.stream().forEach(message -> {
                         writeData(getProcessSession(), message, partition);
@@ -341,6 +370,71 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         });
     }
 
+    /**
+     * Reads and writes the messages of each partition using a separate thread. The messages of a given partition are always written
+     * by a single thread, in the order in which they were received, and only to the bundles of that partition. The Kafka Consumer is
+     * only ever accessed by the polling thread, so any offsets that must be rolled back are rolled back once all partitions have been
+     * written, and the offsets to commit are not updated unless the messages of all partitions were written successfully.
+     */
+    private void processRecordsInParallel(final ConsumerRecords<byte[], byte[]> records) {
+        final ProcessSession session = getProcessSession();
+        final Set<TopicPartition> partitionsToRollback = ConcurrentHashMap.newKeySet();
+
+        final List<TopicPartition> partitions = new ArrayList<>(records.partitions());
+        final List<Future<?>> futures = new ArrayList<>(partitions.size() - 1);
+        for (final TopicPartition partition : partitions.subList(1, partitions.size())) {
+            futures.add(partitionExecutor.submit(() -> writeRecordData(session, records.records(partition), partition, partitionsToRollback)));
+        }
+
+        // Write the first partition using this thread rather than waiting idly for the others
+        Throwable failure = null;
+        try {
+            writeRecordData(session, records.records(partitions.get(0)), partitions.get(0), partitionsToRollback);
+        } catch (final Throwable t) {
+            failure = t;
+        }
+
+        // Every task must complete before returning, even if one has failed, because the tasks make use of the session
+        boolean interrupted = false;
+        for (final Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (final InterruptedException ie) {
+                    interrupted = true;
+                } catch (final ExecutionException ee) {
+                    if (failure == null) {
+                        failure = ee.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        partitionsToRollback.forEach(this::rollback);
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new ProcessException(failure);
+        }
+
+        for (final TopicPartition partition : partitions) {
+            final List<ConsumerRecord<byte[], byte[]>> messages = records.records(partition);
+            final long maxOffset = messages.get(messages.size() - 1).offset();
+
+            totalMessages += messages.size();
+            uncommittedOffsetsMap.put(partition, new OffsetAndMetadata(maxOffset + 1L));
+        }
+    }
+
     private static String encodeKafkaKey(final byte[] key, final String encoding) {
         if (key == null) {
             return null;
@@ -387,6 +481,8 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
             attributes.put(CoreAttributes.MIME_TYPE.key(), writer.getMimeType());
 
             bundle.flowFile = getProcessSession().putAllAttributes(bundle.flowFile, attributes);
+        } else if (bundle.passThroughMimeType != null) {
+            bundle.flowFile = getProcessSession().putAttribute(bundle.flowFile, CoreAttributes.MIME_TYPE.key(), bundle.passThroughMimeType);
         }
 
         populateAttributes(bundle);
@@ -467,26 +563,27 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         attributes.put(KafkaProcessorUtils.KAFKA_PARTITION, String.valueOf(consumerRecord.partition()));
         attributes.put(KafkaProcessorUtils.KAFKA_TOPIC, consumerRecord.topic());
 
-        FlowFile failureFlowFile = session.create();
+        final String transitUri = KafkaProcessorUtils.buildTransitURI(securityProtocol, bootstrapServers, consumerRecord.topic());
 
-        final byte[] value = consumerRecord.value();
-        if (value != null) {
-            failureFlowFile = session.write(failureFlowFile, out -> out.write(value));
-        }
-        failureFlowFile = session.putAllAttributes(failureFlowFile, attributes);
+        synchronized (sessionLock) {
+            FlowFile failureFlowFile = session.create();
 
-        final String transitUri = KafkaProcessorUtils.buildTransitURI(securityProtocol, bootstrapServers, consumerRecord.topic());
-        session.getProvenanceReporter().receive(failureFlowFile, transitUri);
+            final byte[] value = consumerRecord.value();
+            if (value != null) {
+                failureFlowFile = session.write(failureFlowFile, out -> out.write(value));
+            }
+            failureFlowFile = session.putAllAttributes(failureFlowFile, attributes);
 
-        session.transfer(failureFlowFile, REL_PARSE_FAILURE);
+            session.getProvenanceReporter().receive(failureFlowFile, transitUri);
+            session.transfer(failureFlowFile, REL_PARSE_FAILURE);
+            session.adjustCounter("Parse Failures", 1, false);
+        }
 
         if (cause == null) {
             logger.error(message);
         } else {
             logger.error(message, cause);
         }
-
-        session.adjustCounter("Parse Failures", 1, false);
     }
 
     private Map<String, String> getAttributes(final ConsumerRecord<?, ?> consumerRecord) {
@@ -506,14 +603,89 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         return attributes;
     }
 
-    private void writeRecordData(final ProcessSession session, final List<ConsumerRecord<byte[], byte[]>> records, final TopicPartition topicPartition) {
+    /**
+     * Appends the messages that are in the Confluent wire format to FlowFiles as they are, writing the header only once per FlowFile. This is exactly the
+     * content that an Avro Record Writer that writes a Confluent Schema Registry Reference would produce after the messages were parsed, so parsing and
+     * re-serializing each record is avoided.
+     *
+     * @return the messages that are not in the Confluent wire format and so must be parsed using the Record Reader
+     */
+    private List<ConsumerRecord<byte[], byte[]>> writePassThroughData(final ProcessSession session, final List<ConsumerRecord<byte[], byte[]>> records,
+                                                                      final TopicPartition topicPartition) {
+        final List<ConsumerRecord<byte[], byte[]>> recordsToParse = new ArrayList<>();
+
+        // Group the messages by their schema identifier and attributes, retaining the order in which they were received
+        final Map<BundleInformation, List<ConsumerRecord<byte[], byte[]>>> map = new LinkedHashMap<>();
+        for (final ConsumerRecord<byte[], byte[]> consumerRecord : records) {
+            final byte[] value = consumerRecord.value();
+            if (value == null || value.length < CONFLUENT_HEADER_LENGTH || value[0] != 0) {
+                recordsToParse.add(consumerRecord);
+                continue;
+            }
+
+            final int schemaId = ByteBuffer.wrap(value, 1, 4).getInt();
+            final BundleInformation bundleInfo = new BundleInformation(topicPartition, null, schemaId, getAttributes(consumerRecord));
+            map.computeIfAbsent(bundleInfo, info -> new ArrayList<>()).add(consumerRecord);
+        }
+
+        for (final Map.Entry<BundleInformation, List<ConsumerRecord<byte[], byte[]>>> entry : map.entrySet()) {
+            final BundleInformation bundleInfo = entry.getKey();
+            final List<ConsumerRecord<byte[], byte[]>> recordList = entry.getValue();
+
+            synchronized (sessionLock) {
+                final boolean writeHeader;
+
+                BundleTracker tracker = bundleMap.get(bundleInfo);
+                if (tracker == null) {
+                    tracker = new BundleTracker(recordList.get(0), topicPartition, keyEncoding, null, AVRO_MIME_TYPE);
+                    FlowFile flowFile = session.create();
+                    flowFile = session.putAllAttributes(flowFile, bundleInfo.attributes);
+                    tracker.updateFlowFile(flowFile);
+                    bundleMap.put(bundleInfo, tracker);
+                    writeHeader = true;
+                } else {
+                    writeHeader = false;
+                }
+
+                final FlowFile flowFile = session.append(tracker.flowFile, out -> {
+                    if (writeHeader) {
+                        out.write(recordList.get(0).value(), 0, CONFLUENT_HEADER_LENGTH);
+                    }
+
+                    for (final ConsumerRecord<byte[], byte[]> record : recordList) {
+                        final byte[] value = record.value();
+                        out.write(value, CONFLUENT_HEADER_LENGTH, value.length - CONFLUENT_HEADER_LENGTH);
+                    }
+                });
+
+                tracker.updateFlowFile(flowFile);
+                tracker.incrementRecordCount(recordList.size());
+                session.adjustCounter("Records Received", recordList.size(), false);
+                session.adjustCounter("Records Passed Through", recordList.size(), false);
+            }
+        }
+
+        return recordsToParse;
+    }
+
+    /**
+     * Reads the given messages, all of which belong to the given partition, and writes the records to the bundles of that partition. Any access
+     * to the session is guarded by the session lock, so that the messages of different partitions may be written concurrently.
+     *
+     * @param partitionsToRollback the collection to which the partition is added if its offset must be rolled back by the polling thread
+     */
+    private void writeRecordData(final ProcessSession session, final List<ConsumerRecord<byte[], byte[]>> records, final TopicPartition topicPartition,
+                                 final Collection<TopicPartition> partitionsToRollback) {
+        final List<ConsumerRecord<byte[], byte[]>> recordsToParse = passThroughConfluentAvro ? writePassThroughData(session, records, topicPartition) : records;
+
         // In order to obtain a RecordReader from the RecordReaderFactory, we need to give it a FlowFile.
         // We don't want to create a new FlowFile for each record that we receive, so we will just create
         // a "temporary flowfile" that will be removed in the finally block below and use that to pass to
         // the createRecordReader method.
         RecordSetWriter writer = null;
+        long recordsReceived = 0L;
         try {
-            for (final ConsumerRecord<byte[], byte[]> consumerRecord : records) {
+            for (final ConsumerRecord<byte[], byte[]> consumerRecord : recordsToParse) {
                 final Map<String, String> attributes = getAttributes(consumerRecord);
 
                 final byte[] recordBytes = consumerRecord.value() == null ? new byte[0] : consumerRecord.value();
@@ -524,9 +696,11 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
                         reader = readerFactory.createRecordReader(attributes, in, recordBytes.length, logger);
                     } catch (final IOException e) {
                         yield();
-                        rollback(topicPartition);
+                        partitionsToRollback.add(topicPartition);
                         handleParseFailure(consumerRecord, session, e, "Failed to parse message from Kafka due to comms failure. Will roll back session and try again momentarily.");
-                        closeWriter(writer);
+                        synchronized (sessionLock) {
+                            closeWriter(writer);
+                        }
                         return;
                     } catch (final Exception e) {
                         handleParseFailure(consumerRecord, session, e);
@@ -542,10 +716,13 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
 
                             BundleTracker tracker = bundleMap.get(bundleInfo);
                             if (tracker == null) {
-                                FlowFile flowFile = session.create();
-                                flowFile = session.putAllAttributes(flowFile, attributes);
-
-                                final OutputStream rawOut = session.write(flowFile);
+                                FlowFile flowFile;
+                                final OutputStream rawOut;
+                                synchronized (sessionLock) {
+                                    flowFile = session.create();
+                                    flowFile = session.putAllAttributes(flowFile, attributes);
+                                    rawOut = session.write(flowFile);
+                                }
 
                                 final RecordSchema writeSchema;
                                 try {
@@ -553,7 +730,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
                                 } catch (final Exception e) {
                                     logger.error("Failed to obtain Schema for FlowFile. Will roll back the Kafka message offsets.", e);
 
-                                    rollback(topicPartition);
+                                    partitionsToRollback.add(topicPartition);
                                     yield();
 
                                     throw new ProcessException(e);
@@ -578,7 +755,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
                             }
 
                             tracker.incrementRecordCount(1L);
-                            session.adjustCounter("Records Received", 1L, false);
+                            recordsReceived++;
                         }
                     } catch (final IOException | MalformedRecordException | SchemaValidationException e) {
                         handleParseFailure(consumerRecord, session, e);
@@ -589,10 +766,18 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         } catch (final Exception e) {
             logger.error("Failed to properly receive messages from Kafka. Will roll back session and any un-committed offsets from Kafka.", e);
 
-            closeWriter(writer);
-            rollback(topicPartition);
+            synchronized (sessionLock) {
+                closeWriter(writer);
+            }
+            partitionsToRollback.add(topicPartition);
 
             throw new ProcessException(e);
+        } finally {
+            if (recordsReceived > 0) {
+                synchronized (sessionLock) {
+                    session.adjustCounter("Records Received", recordsReceived, false);
+                }
+            }
         }
     }
 
@@ -634,7 +819,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         if (tracker.totalRecords > 1) {
             // Add a record.count attribute to remain consistent with other record-oriented processors. If not
             // reading/writing records, then use "kafka.count" attribute.
-            if (tracker.recordWriter == null) {
+            if (tracker.recordWriter == null && tracker.passThroughMimeType == null) {
                 kafkaAttrs.put(KafkaProcessorUtils.KAFKA_COUNT, String.valueOf(tracker.totalRecords));
             } else {
                 kafkaAttrs.put("record.count", String.valueOf(tracker.totalRecords));
@@ -655,6 +840,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         final String topic;
         final String key;
         final RecordSetWriter recordWriter;
+        final String passThroughMimeType;
         FlowFile flowFile;
         long totalRecords = 0;
 
@@ -663,11 +849,17 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         }
 
         private BundleTracker(final ConsumerRecord<byte[], byte[]> initialRecord, final TopicPartition topicPartition, final String keyEncoding, final RecordSetWriter recordWriter) {
+            this(initialRecord, topicPartition, keyEncoding, recordWriter, null);
+        }
+
+        private BundleTracker(final ConsumerRecord<byte[], byte[]> initialRecord, final TopicPartition topicPartition, final String keyEncoding, final RecordSetWriter recordWriter,
+                              final String passThroughMimeType) {
             this.initialOffset = initialRecord.offset();
             this.initialTimestamp = initialRecord.timestamp();
             this.partition = topicPartition.partition();
             this.topic = topicPartition.topic();
             this.recordWriter = recordWriter;
+            this.passThroughMimeType = passThroughMimeType;
             this.key = encodeKafkaKey(initialRecord.key(), keyEncoding);
         }
 
@@ -684,17 +876,24 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
     private static class BundleInformation {
         private final TopicPartition topicPartition;
         private final RecordSchema schema;
+        private final Integer schemaId;
         private final Map<String, String> attributes;
 
         public BundleInformation(final TopicPartition topicPartition, final RecordSchema schema, final Map<String, String> attributes) {
+            this(topicPartition, schema, null, attributes);
+        }
+
+        public BundleInformation(final TopicPartition topicPartition, final RecordSchema schema, final Integer schemaId, final Map<String, String> attributes) {
             this.topicPartition = topicPartition;
             this.schema = schema;
+            this.schemaId = schemaId;
             this.attributes = attributes;
         }
 
         @Override
         public int hashCode() {
-            return 41 + 13 * topicPartition.hashCode() + ((schema == null) ? 0 : 13 * schema.hashCode()) + ((attributes == null) ? 0 : 13 * attributes.hashCode());
+            return 41 + 13 * topicPartition.hashCode() + ((schema == null) ? 0 : 13 * schema.hashCode()) + ((schemaId == null) ? 0 : 13 * schemaId.hashCode())
+                + ((attributes == null) ? 0 : 13 * attributes.hashCode());
         }
 
         @Override
@@ -710,7 +909,8 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
             }
 
             final BundleInformation other = (BundleInformation) obj;
-            return Objects.equals(topicPartition, other.topicPartition) && Objects.equals(schema, other.schema) && Objects.equals(attributes, other.attributes);
+            return Objects.equals(topicPartition, other.topicPartition) && Objects.equals(schema, other.schema) && Objects.equals(schemaId, other.schemaId)
+                && Objects.equals(attributes, other.attributes);
         }
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.processors.kafka.pubsub;
+
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.ProcessSession;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A batch of FlowFiles whose messages have been sent to Kafka but whose session has not yet been committed, because
+ * Kafka may not have acknowledged all of the messages yet. The batch is owned by whichever thread removes it from the
+ * processor's queue of in-flight batches, so its session is never accessed by more than one thread at a time.
+ */
+class InFlightBatch {
+    private final ProcessSession session;
+    private final List<FlowFile> flowFiles;
+    private final InFlightMessageTracker tracker;
+    private final long sendNanos;
+    private final long maxAckWaitNanos;
+    private final long bytes;
+
+    InFlightBatch(final ProcessSession session, final List<FlowFile> flowFiles, final InFlightMessageTracker tracker, final long sendNanos, final long maxAckWaitMillis) {
+        this.session = session;
+        this.flowFiles = flowFiles;
+        this.tracker = tracker;
+        this.sendNanos = sendNanos;
+        this.maxAckWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxAckWaitMillis);
+
+        long totalBytes = 0L;
+        for (final FlowFile flowFile : flowFiles) {
+            totalBytes += flowFile.getSize();
+        }
+        this.bytes = totalBytes;
+    }
+
+    ProcessSession getSession() {
+        return session;
+    }
+
+    List<FlowFile> getFlowFiles() {
+        return flowFiles;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return <code>true</code> if all messages have been acknowledged or failed, or if the Acknowledgment Wait Time has elapsed
+     */
+    boolean isDone() {
+        return tracker.isComplete() || System.nanoTime() - sendNanos >= maxAckWaitNanos;
+    }
+
+    /**
+     * @return the number of milliseconds between sending the batch and Kafka last acknowledging one of its messages
+     */
+    long getAckLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0L, tracker.getLastProgressNanos() - sendNanos));
+    }
+
+    /**
+     * Waits for the remainder of the Acknowledgment Wait Time, if necessary, for Kafka to acknowledge all messages in the batch
+     *
+     * @return the result of publishing the batch, in which any message that was not acknowledged in time is failed
+     */
+    PublishResult awaitResult() {
+        final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(sendNanos + maxAckWaitNanos - System.nanoTime());
+
+        try {
+            if (!tracker.isComplete()) {
+                if (remainingMillis <= 0L) {
+                    throw new TimeoutException();
+                }
+
+                tracker.awaitCompletion(remainingMillis);
+            }
+
+            return tracker.createPublishResult();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return tracker.failOutstanding(e);
+        } catch (final TimeoutException e) {
+            return tracker.failOutstanding(e);
+        }
+    }
+}
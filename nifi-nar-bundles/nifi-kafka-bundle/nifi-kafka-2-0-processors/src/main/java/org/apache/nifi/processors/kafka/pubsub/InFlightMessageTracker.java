@@ -31,6 +31,7 @@ public class InFlightMessageTracker {
     private final ConcurrentMap<FlowFile, Exception> failures = new ConcurrentHashMap<>();
     private final Object progressMutex = new Object();
     private final ComponentLog logger;
+    private volatile long lastProgressNanos = System.nanoTime();
 
     public InFlightMessageTracker(final ComponentLog logger) {
         this.logger = logger;
@@ -39,6 +40,7 @@ public class InFlightMessageTracker {
     public void incrementAcknowledgedCount(final FlowFile flowFile) {
         final Counts counter = messageCountsByFlowFile.computeIfAbsent(flowFile, ff -> new Counts());
         counter.incrementAcknowledgedCount();
+        lastProgressNanos = System.nanoTime();
 
         synchronized (progressMutex) {
             progressMutex.notify();
@@ -71,6 +73,7 @@ public class InFlightMessageTracker {
     public void fail(final FlowFile flowFile, final Exception exception) {
         failures.putIfAbsent(flowFile, exception);
         logger.error("Failed to send " + flowFile + " to Kafka", exception);
+        lastProgressNanos = System.nanoTime();
 
         synchronized (progressMutex) {
             progressMutex.notify();
@@ -114,11 +117,19 @@ public class InFlightMessageTracker {
         return false;
     }
 
-    private boolean isComplete() {
+    boolean isComplete() {
         return messageCountsByFlowFile.keySet().stream()
             .allMatch(flowFile -> isComplete(flowFile));
     }
 
+    /**
+     * @return the value of System.nanoTime() when a message was last acknowledged or failed, or when this tracker was created
+     * if no message has been acknowledged or failed yet
+     */
+    long getLastProgressNanos() {
+        return lastProgressNanos;
+    }
+
     void awaitCompletion(final long millis) throws InterruptedException, TimeoutException {
         final long startTime = System.nanoTime();
         final long maxTime = startTime + TimeUnit.MILLISECONDS.toNanos(millis);
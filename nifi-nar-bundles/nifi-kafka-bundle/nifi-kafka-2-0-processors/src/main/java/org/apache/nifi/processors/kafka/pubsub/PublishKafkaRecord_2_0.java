@@ -35,10 +35,11 @@ import org.apache.nifi.components.PropertyDescriptor.Builder;
 import org.apache.nifi.components.ValidationContext;
 import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.flowfile.FlowFile;
-import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.AbstractSessionFactoryProcessor;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.InputStreamCallback;
@@ -70,7 +71,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAccumulator;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -93,8 +97,9 @@ import static org.apache.nifi.expression.ExpressionLanguageScope.VARIABLE_REGIST
 @WritesAttribute(attribute = "msg.count", description = "The number of messages that were sent to Kafka for this FlowFile. This attribute is added only to "
     + "FlowFiles that are routed to success.")
 @SeeAlso({PublishKafka_2_0.class, ConsumeKafka_2_0.class, ConsumeKafkaRecord_2_0.class})
-public class PublishKafkaRecord_2_0 extends AbstractProcessor {
+public class PublishKafkaRecord_2_0 extends AbstractSessionFactoryProcessor {
     protected static final String MSG_COUNT = "msg.count";
+    private static final String IN_FLIGHT_BYTES_COUNTER = "In-Flight Bytes";
 
     static final AllowableValue DELIVERY_REPLICATED = new AllowableValue("all", "Guarantee Replicated Delivery",
         "FlowFile will be routed to failure unless the message is replicated to the appropriate "
@@ -265,6 +270,28 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
         .defaultValue("UTF-8")
         .required(false)
         .build();
+    static final PropertyDescriptor PIPELINED_PUBLISHING = new Builder()
+        .name("pipelined-publishing")
+        .displayName("Pipelined Publishing")
+        .description("Specifies whether the Processor should wait for Kafka to acknowledge the messages that it sends before sending more. If false, each task "
+            + "sends a batch of FlowFiles and waits for all of its messages to be acknowledged. If true, a task sends a batch of FlowFiles and leaves it in flight, "
+            + "and the FlowFiles are routed to 'success' or 'failure' by a later task once Kafka has acknowledged the messages or the <Acknowledgment Wait Time> has elapsed, "
+            + "so that sending is not limited by the time Kafka takes to acknowledge each batch. Pipelined Publishing cannot be used with Transactions.")
+        .expressionLanguageSupported(NONE)
+        .allowableValues("true", "false")
+        .defaultValue("false")
+        .required(true)
+        .build();
+    static final PropertyDescriptor MAX_IN_FLIGHT_SIZE = new Builder()
+        .name("max-in-flight-size")
+        .displayName("Max In-Flight Size")
+        .description("When <Pipelined Publishing> is enabled, the maximum total size of the FlowFiles whose messages have been sent to Kafka but not yet acknowledged. "
+            + "Once this size is reached, a task waits for the oldest batch of FlowFiles to be acknowledged before sending more.")
+        .expressionLanguageSupported(NONE)
+        .addValidator(StandardValidators.DATA_SIZE_VALIDATOR)
+        .defaultValue("10 MB")
+        .required(true)
+        .build();
 
     static final Relationship REL_SUCCESS = new Relationship.Builder()
         .name("success")
@@ -281,6 +308,8 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
 
     private volatile PublisherPool publisherPool = null;
     private final RecordPathCache recordPathCache = new RecordPathCache(25);
+    private final BlockingQueue<InFlightBatch> inFlightBatches = new LinkedBlockingQueue<>();
+    private final AtomicLong inFlightBytes = new AtomicLong(0L);
 
     static {
         final List<PropertyDescriptor> properties = new ArrayList<>();
@@ -290,6 +319,8 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
         properties.add(RECORD_WRITER);
         properties.add(USE_TRANSACTIONS);
         properties.add(TRANSACTIONAL_ID_PREFIX);
+        properties.add(PIPELINED_PUBLISHING);
+        properties.add(MAX_IN_FLIGHT_SIZE);
         properties.add(DELIVERY_GUARANTEE);
         properties.add(ATTRIBUTE_NAME_REGEX);
         properties.add(MESSAGE_HEADER_ENCODING);
@@ -356,6 +387,15 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
                         + "Either change the <Use Transactions> property or the <Delivery Guarantee> property.")
                     .build());
             }
+
+            if (validationContext.getProperty(PIPELINED_PUBLISHING).asBoolean()) {
+                results.add(new ValidationResult.Builder()
+                    .subject("Pipelined Publishing")
+                    .valid(false)
+                    .explanation("Pipelined Publishing cannot be used with Transactions, as a transaction must be committed before its messages are acknowledged. "
+                        + "Either change the <Use Transactions> property or the <Pipelined Publishing> property.")
+                    .build());
+            }
         }
 
         final String partitionClass = validationContext.getProperty(PARTITION_CLASS).getValue();
@@ -419,7 +459,10 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
     }
 
     @OnStopped
-    public void closePool() {
+    public void closePool(final ProcessContext context) {
+        // Route any FlowFiles that are still in flight before closing the publishers that sent them
+        completeInFlightBatches(context, true);
+
         if (publisherPool != null) {
             publisherPool.close();
         }
@@ -428,7 +471,23 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
     }
 
     @Override
-    public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+    public void onTrigger(final ProcessContext context, final ProcessSessionFactory sessionFactory) throws ProcessException {
+        if (context.getProperty(PIPELINED_PUBLISHING).asBoolean()) {
+            onTriggerPipelined(context, sessionFactory);
+            return;
+        }
+
+        final ProcessSession session = sessionFactory.createSession();
+        try {
+            onTrigger(context, session);
+            session.commit();
+        } catch (final Throwable t) {
+            session.rollback(true);
+            throw t;
+        }
+    }
+
+    private void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
         final List<FlowFile> flowFiles = session.get(FlowFileFilters.newSizeBasedFilter(1, DataUnit.MB, 500));
         if (flowFiles.isEmpty()) {
             return;
@@ -440,10 +499,6 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
             return;
         }
 
-        final String securityProtocol = context.getProperty(KafkaProcessorUtils.SECURITY_PROTOCOL).getValue();
-        final String bootstrapServers = context.getProperty(KafkaProcessorUtils.BOOTSTRAP_SERVERS).evaluateAttributeExpressions().getValue();
-        final RecordSetWriterFactory writerFactory = context.getProperty(RECORD_WRITER).asControllerService(RecordSetWriterFactory.class);
-        final RecordReaderFactory readerFactory = context.getProperty(RECORD_READER).asControllerService(RecordReaderFactory.class);
         final boolean useTransactions = context.getProperty(USE_TRANSACTIONS).asBoolean();
 
         final long startTime = System.nanoTime();
@@ -453,79 +508,199 @@ public class PublishKafkaRecord_2_0 extends AbstractProcessor {
                     lease.beginTransaction();
                 }
 
-                // Send each FlowFile to Kafka asynchronously.
-                final Iterator<FlowFile> itr = flowFiles.iterator();
-                while (itr.hasNext()) {
-                    final FlowFile flowFile = itr.next();
-
-                    if (!isScheduled()) {
-                        // If stopped, re-queue FlowFile instead of sending it
-                        if (useTransactions) {
-                            session.rollback();
-                            lease.rollback();
-                            return;
-                        }
-
-                        session.transfer(flowFile);
-                        itr.remove();
-                        continue;
-                    }
-
-                    final String topic = context.getProperty(TOPIC).evaluateAttributeExpressions(flowFile).getValue();
-                    final String messageKeyField = context.getProperty(MESSAGE_KEY_FIELD).evaluateAttributeExpressions(flowFile).getValue();
-
-                    final Function<Record, Integer> partitioner = getPartitioner(context, flowFile);
-
-                    try {
-                        session.read(flowFile, new InputStreamCallback() {
-                            @Override
-                            public void process(final InputStream in) throws IOException {
-                                try {
-                                    final RecordReader reader = readerFactory.createRecordReader(flowFile, in, getLogger());
-                                    final RecordSet recordSet = reader.createRecordSet();
-
-                                    final RecordSchema schema = writerFactory.getSchema(flowFile.getAttributes(), recordSet.getSchema());
-                                    lease.publish(flowFile, recordSet, writerFactory, schema, messageKeyField, topic, partitioner);
-                                } catch (final SchemaNotFoundException | MalformedRecordException e) {
-                                    throw new ProcessException(e);
-                                }
-                            }
-                        });
-                    } catch (final Exception e) {
-                        // The FlowFile will be obtained and the error logged below, when calling publishResult.getFailedFlowFiles()
-                        lease.fail(flowFile, e);
-                        continue;
-                    }
+                if (!sendFlowFiles(context, session, lease, flowFiles, useTransactions)) {
+                    return;
                 }
 
                 // Complete the send
                 final PublishResult publishResult = lease.complete();
 
-                if (publishResult.isFailure()) {
-                    getLogger().info("Failed to send FlowFile to kafka; transferring to failure");
-                    session.transfer(flowFiles, REL_FAILURE);
-                    return;
-                }
-
-                // Transfer any successful FlowFiles.
                 final long transmissionMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
-                for (FlowFile success : flowFiles) {
-                    final String topic = context.getProperty(TOPIC).evaluateAttributeExpressions(success).getValue();
+                transferFlowFiles(context, session, flowFiles, publishResult, transmissionMillis);
+            } catch (final ProducerFencedException | OutOfOrderSequenceException | AuthorizationException e) {
+                lease.poison();
+                getLogger().error("Failed to send messages to Kafka; will yield Processor and transfer FlowFiles to failure");
+                session.transfer(flowFiles, REL_FAILURE);
+                context.yield();
+            }
+        }
+    }
 
-                    final int msgCount = publishResult.getSuccessfulMessageCount(success);
-                    success = session.putAttribute(success, MSG_COUNT, String.valueOf(msgCount));
-                    session.adjustCounter("Messages Sent", msgCount, true);
+    private void onTriggerPipelined(final ProcessContext context, final ProcessSessionFactory sessionFactory) throws ProcessException {
+        // Route the FlowFiles of any batches that have already been acknowledged, and then wait for the oldest batches if too much data is in flight
+        completeInFlightBatches(context, false);
 
-                    final String transitUri = KafkaProcessorUtils.buildTransitURI(securityProtocol, bootstrapServers, topic);
-                    session.getProvenanceReporter().send(success, transitUri, "Sent " + msgCount + " messages", transmissionMillis);
-                    session.transfer(success, REL_SUCCESS);
-                }
+        final long maxInFlightBytes = context.getProperty(MAX_IN_FLIGHT_SIZE).asDataSize(DataUnit.B).longValue();
+        InFlightBatch oldestBatch;
+        while (inFlightBytes.get() >= maxInFlightBytes && (oldestBatch = inFlightBatches.poll()) != null) {
+            completeInFlightBatch(context, oldestBatch);
+        }
+
+        final ProcessSession session = sessionFactory.createSession();
+        final List<FlowFile> flowFiles = session.get(FlowFileFilters.newSizeBasedFilter(1, DataUnit.MB, 500));
+        if (flowFiles.isEmpty()) {
+            session.commit();
+
+            // Nothing else is queued, so there may not be another task to route the FlowFiles that are still in flight
+            completeInFlightBatches(context, true);
+            return;
+        }
+
+        final PublisherPool pool = getPublisherPool(context);
+        if (pool == null) {
+            session.rollback();
+            context.yield();
+            return;
+        }
+
+        final long maxAckWaitMillis = context.getProperty(ACK_WAIT_TIME).asTimePeriod(TimeUnit.MILLISECONDS).longValue();
+        final InFlightBatch batch;
+        try (final PublisherLease lease = pool.obtainPublisher()) {
+            try {
+                final long startTime = System.nanoTime();
+                sendFlowFiles(context, session, lease, flowFiles, false);
+                batch = new InFlightBatch(session, flowFiles, lease.handOff(), startTime, maxAckWaitMillis);
             } catch (final ProducerFencedException | OutOfOrderSequenceException | AuthorizationException e) {
                 lease.poison();
                 getLogger().error("Failed to send messages to Kafka; will yield Processor and transfer FlowFiles to failure");
                 session.transfer(flowFiles, REL_FAILURE);
+                session.commit();
                 context.yield();
+                return;
+            }
+        } catch (final Throwable t) {
+            session.rollback(true);
+            throw t;
+        }
+
+        final boolean moreQueued = session.getQueueSize().getObjectCount() > 0;
+
+        session.adjustCounter(IN_FLIGHT_BYTES_COUNTER, batch.getBytes(), true);
+        inFlightBytes.addAndGet(batch.getBytes());
+        inFlightBatches.add(batch);
+
+        if (!moreQueued) {
+            completeInFlightBatches(context, true);
+        }
+    }
+
+    /**
+     * Routes the FlowFiles of the batches that are in flight and commits their sessions
+     *
+     * @param context the process context
+     * @param wait whether to wait for Kafka to acknowledge each batch; if <code>false</code>, only batches that are already done are completed
+     */
+    private void completeInFlightBatches(final ProcessContext context, final boolean wait) {
+        for (final InFlightBatch batch : inFlightBatches) {
+            if (!wait && !batch.isDone()) {
+                continue;
             }
+
+            // Another task may have already claimed the batch
+            if (inFlightBatches.remove(batch)) {
+                completeInFlightBatch(context, batch);
+            }
+        }
+    }
+
+    private void completeInFlightBatch(final ProcessContext context, final InFlightBatch batch) {
+        final ProcessSession session = batch.getSession();
+        inFlightBytes.addAndGet(-batch.getBytes());
+        session.adjustCounter(IN_FLIGHT_BYTES_COUNTER, -batch.getBytes(), true);
+
+        try {
+            final PublishResult publishResult = batch.awaitResult();
+            final long ackLatencyMillis = batch.getAckLatencyMillis();
+            session.adjustCounter("Acknowledged Batches", 1, false);
+            session.adjustCounter("Acknowledgment Latency (millis)", ackLatencyMillis, false);
+
+            transferFlowFiles(context, session, batch.getFlowFiles(), publishResult, ackLatencyMillis);
+            session.commit();
+        } catch (final Throwable t) {
+            session.rollback(true);
+            throw t;
+        }
+    }
+
+    /**
+     * Sends each of the given FlowFiles to Kafka asynchronously
+     *
+     * @return <code>false</code> if the processor was stopped and the session and transaction were rolled back, <code>true</code> otherwise
+     */
+    private boolean sendFlowFiles(final ProcessContext context, final ProcessSession session, final PublisherLease lease, final List<FlowFile> flowFiles,
+                                  final boolean useTransactions) {
+        final RecordSetWriterFactory writerFactory = context.getProperty(RECORD_WRITER).asControllerService(RecordSetWriterFactory.class);
+        final RecordReaderFactory readerFactory = context.getProperty(RECORD_READER).asControllerService(RecordReaderFactory.class);
+
+        final Iterator<FlowFile> itr = flowFiles.iterator();
+        while (itr.hasNext()) {
+            final FlowFile flowFile = itr.next();
+
+            if (!isScheduled()) {
+                // If stopped, re-queue FlowFile instead of sending it
+                if (useTransactions) {
+                    session.rollback();
+                    lease.rollback();
+                    return false;
+                }
+
+                session.transfer(flowFile);
+                itr.remove();
+                continue;
+            }
+
+            final String topic = context.getProperty(TOPIC).evaluateAttributeExpressions(flowFile).getValue();
+            final String messageKeyField = context.getProperty(MESSAGE_KEY_FIELD).evaluateAttributeExpressions(flowFile).getValue();
+
+            final Function<Record, Integer> partitioner = getPartitioner(context, flowFile);
+
+            try {
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(final InputStream in) throws IOException {
+                        try {
+                            final RecordReader reader = readerFactory.createRecordReader(flowFile, in, getLogger());
+                            final RecordSet recordSet = reader.createRecordSet();
+
+                            final RecordSchema schema = writerFactory.getSchema(flowFile.getAttributes(), recordSet.getSchema());
+                            lease.publish(flowFile, recordSet, writerFactory, schema, messageKeyField, topic, partitioner);
+                        } catch (final SchemaNotFoundException | MalformedRecordException e) {
+                            throw new ProcessException(e);
+                        }
+                    }
+                });
+            } catch (final Exception e) {
+                // The FlowFile will be obtained and the error logged below, when calling publishResult.getFailedFlowFiles()
+                lease.fail(flowFile, e);
+                continue;
+            }
+        }
+
+        return true;
+    }
+
+    private void transferFlowFiles(final ProcessContext context, final ProcessSession session, final List<FlowFile> flowFiles, final PublishResult publishResult,
+                                   final long transmissionMillis) {
+        if (publishResult.isFailure()) {
+            getLogger().info("Failed to send FlowFile to kafka; transferring to failure");
+            session.transfer(flowFiles, REL_FAILURE);
+            return;
+        }
+
+        final String securityProtocol = context.getProperty(KafkaProcessorUtils.SECURITY_PROTOCOL).getValue();
+        final String bootstrapServers = context.getProperty(KafkaProcessorUtils.BOOTSTRAP_SERVERS).evaluateAttributeExpressions().getValue();
+
+        // Transfer any successful FlowFiles.
+        for (FlowFile success : flowFiles) {
+            final String topic = context.getProperty(TOPIC).evaluateAttributeExpressions(success).getValue();
+
+            final int msgCount = publishResult.getSuccessfulMessageCount(success);
+            success = session.putAttribute(success, MSG_COUNT, String.valueOf(msgCount));
+            session.adjustCounter("Messages Sent", msgCount, true);
+
+            final String transitUri = KafkaProcessorUtils.buildTransitURI(securityProtocol, bootstrapServers, topic);
+            session.getProvenanceReporter().send(success, transitUri, "Sent " + msgCount + " messages", transmissionMillis);
+            session.transfer(success, REL_SUCCESS);
         }
     }
 
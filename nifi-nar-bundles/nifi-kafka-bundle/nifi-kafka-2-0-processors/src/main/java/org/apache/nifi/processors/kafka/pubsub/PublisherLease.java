@@ -295,6 +295,29 @@ public class PublisherLease implements Closeable {
         }
     }
 
+    /**
+     * Hands off the messages that have been published since the last call to {@link #complete()} or to this method, without waiting
+     * for Kafka to acknowledge them, so that this lease can be used to publish other messages while the acknowledgments arrive.
+     * Messages that are part of a transaction cannot be handed off, as the transaction must be committed before they are acknowledged.
+     * <p>
+     * Unlike {@link #complete()}, this does not call {@link Producer#flush()}, because flushing blocks until every message that has been
+     * sent is acknowledged, which is exactly the wait that handing off avoids. The messages are already in the producer's buffer, and its
+     * I/O thread sends them once a batch is full or <code>linger.ms</code> has elapsed, whether or not the producer is flushed. If the lease
+     * is closed before then, {@link Producer#close(long, TimeUnit)} sends them before closing.
+     * </p>
+     *
+     * @return the tracker that records the acknowledgments of the messages that were handed off
+     */
+    InFlightMessageTracker handOff() {
+        if (activeTransaction) {
+            throw new IllegalStateException("Cannot hand off messages that were published as part of a transaction");
+        }
+
+        final InFlightMessageTracker handedOff = getTracker();
+        tracker = null;
+        return handedOff;
+    }
+
     @Override
     public void close() {
         producer.close(maxAckWaitMillis, TimeUnit.MILLISECONDS);
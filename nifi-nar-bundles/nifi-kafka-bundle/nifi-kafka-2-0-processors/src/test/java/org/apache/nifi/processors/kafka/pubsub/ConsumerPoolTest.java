@@ -19,6 +19,7 @@ package org.apache.nifi.processors.kafka.pubsub;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.nifi.logging.ComponentLog;
@@ -27,11 +28,20 @@ import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processors.kafka.pubsub.ConsumerLease;
 import org.apache.nifi.processors.kafka.pubsub.ConsumerPool;
 import org.apache.nifi.processors.kafka.pubsub.ConsumerPool.PoolStats;
+import org.apache.nifi.processors.kafka.pubsub.util.MockRecordParser;
 import org.apache.nifi.provenance.ProvenanceReporter;
+import org.apache.nifi.serialization.record.MockRecordWriter;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.MockProcessSession;
+import org.apache.nifi.util.SharedSessionState;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -39,11 +49,18 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -218,6 +235,176 @@ public class ConsumerPoolTest {
         assertEquals(1, stats.leasesObtainedCount);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void validatePassThroughConfluentAvro() throws Exception {
+        final byte[][] values = new byte[][]{
+            createConfluentMessage(1, "first"),
+            createConfluentMessage(2, "second"),
+            "Bob,42".getBytes(StandardCharsets.UTF_8),
+            createConfluentMessage(1, "third")
+        };
+
+        when(consumer.poll(anyLong())).thenReturn(createConsumerRecords("foo", 1, 1L, values));
+
+        final ConsumeKafkaRecord_2_0 processor = new ConsumeKafkaRecord_2_0();
+        final MockProcessSession session = new MockProcessSession(new SharedSessionState(processor, new AtomicLong()), processor);
+        final ConsumerPool pool = createRecordPool(true, null);
+        try (final ConsumerLease lease = pool.obtainConsumer(session, mockContext)) {
+            lease.poll();
+            lease.commit();
+        }
+        pool.close();
+
+        session.assertAllFlowFilesTransferred(ConsumeKafkaRecord_2_0.REL_SUCCESS, 3);
+        final List<MockFlowFile> flowFiles = session.getFlowFilesForRelationship(ConsumeKafkaRecord_2_0.REL_SUCCESS);
+
+        final MockFlowFile firstSchema = flowFiles.stream().filter(ff -> new String(ff.toByteArray(), StandardCharsets.UTF_8).endsWith("third")).findFirst().get();
+        assertArrayEquals(concat(createConfluentMessage(1, "first"), "third".getBytes(StandardCharsets.UTF_8)), firstSchema.toByteArray());
+        firstSchema.assertAttributeEquals("record.count", "2");
+        firstSchema.assertAttributeEquals("mime.type", "application/avro-binary");
+
+        final MockFlowFile secondSchema = flowFiles.stream().filter(ff -> new String(ff.toByteArray(), StandardCharsets.UTF_8).endsWith("second")).findFirst().get();
+        assertArrayEquals(createConfluentMessage(2, "second"), secondSchema.toByteArray());
+
+        // The message that is not in the Confluent wire format must be parsed and written with the configured Record Writer
+        final MockFlowFile parsed = flowFiles.stream().filter(ff -> new String(ff.toByteArray(), StandardCharsets.UTF_8).contains("Bob")).findFirst().get();
+        parsed.assertContentEquals("name, age\n\"Bob\",\"42\"\n");
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing, in order to compare the throughput of the pass-through and parse/write paths")
+    @SuppressWarnings("unchecked")
+    public void testPassThroughThroughput() throws Exception {
+        final int messageCount = 500_000;
+        final int batchSize = 1000;
+        final byte[][] values = new byte[batchSize][];
+        for (int i = 0; i < batchSize; i++) {
+            values[i] = createConfluentMessage(1, "Bob,42");
+        }
+
+        for (int iteration = 0; iteration < 5; iteration++) {
+            for (final boolean passThrough : new boolean[] {false, true}) {
+                when(consumer.poll(anyLong())).thenReturn(createConsumerRecords("foo", 1, 1L, values));
+
+                final ConsumeKafkaRecord_2_0 processor = new ConsumeKafkaRecord_2_0();
+                final ConsumerPool pool = createRecordPool(passThrough, null);
+                final long start = System.nanoTime();
+                for (int i = 0; i < messageCount / batchSize; i++) {
+                    final MockProcessSession session = new MockProcessSession(new SharedSessionState(processor, new AtomicLong()), processor);
+                    try (final ConsumerLease lease = pool.obtainConsumer(session, mockContext)) {
+                        lease.poll();
+                        lease.commit();
+                    }
+                }
+                final long millis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                pool.close();
+
+                System.out.println((passThrough ? "Pass-Through: " : "Parse/Write: ") + (messageCount * 1000L / millis) + " messages/sec");
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void validateParallelPartitionProcessing() throws Exception {
+        final int partitionCount = 4;
+        final int messagesPerPartition = 200;
+
+        final Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> map = new HashMap<>();
+        final Map<TopicPartition, Long> expectedOffsets = new HashMap<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            final byte[][] values = new byte[messagesPerPartition][];
+            for (int i = 0; i < messagesPerPartition; i++) {
+                values[i] = ("p" + partition + "-" + i + "," + i).getBytes(StandardCharsets.UTF_8);
+            }
+
+            final ConsumerRecords<byte[], byte[]> partitionRecords = createConsumerRecords("foo", partition, 10L, values);
+            final TopicPartition topicPartition = new TopicPartition("foo", partition);
+            map.put(topicPartition, partitionRecords.records(topicPartition));
+            expectedOffsets.put(topicPartition, 10L + messagesPerPartition);
+        }
+
+        when(consumer.poll(anyLong())).thenReturn(new ConsumerRecords<>(map));
+
+        // The lease clears the map of offsets once they are committed, so the offsets must be copied when they are committed
+        final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+        doAnswer(invocation -> {
+            final Map<TopicPartition, OffsetAndMetadata> offsets = invocation.getArgument(0);
+            offsets.forEach((partition, offset) -> committedOffsets.put(partition, offset.offset()));
+            return null;
+        }).when(consumer).commitSync(anyMap());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final ConsumeKafkaRecord_2_0 processor = new ConsumeKafkaRecord_2_0();
+            final MockProcessSession session = new MockProcessSession(new SharedSessionState(processor, new AtomicLong()), processor);
+            final ConsumerPool pool = createRecordPool(false, executor);
+            try (final ConsumerLease lease = pool.obtainConsumer(session, mockContext)) {
+                lease.poll();
+                lease.commit();
+            }
+            pool.close();
+
+            assertEquals(expectedOffsets, committedOffsets);
+            session.assertAllFlowFilesTransferred(ConsumeKafkaRecord_2_0.REL_SUCCESS, partitionCount);
+
+            // Each partition must be written to its own FlowFile, in the order in which its messages were received
+            final List<MockFlowFile> flowFiles = session.getFlowFilesForRelationship(ConsumeKafkaRecord_2_0.REL_SUCCESS);
+            for (final MockFlowFile flowFile : flowFiles) {
+                final String partition = flowFile.getAttribute(KafkaProcessorUtils.KAFKA_PARTITION);
+                final StringBuilder expected = new StringBuilder("name, age\n");
+                for (int i = 0; i < messagesPerPartition; i++) {
+                    expected.append("\"p").append(partition).append("-").append(i).append("\",\"").append(i).append("\"\n");
+                }
+
+                flowFile.assertContentEquals(expected.toString());
+                flowFile.assertAttributeEquals("record.count", String.valueOf(messagesPerPartition));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ConsumerPool createRecordPool(final boolean passThroughConfluentAvro, final ExecutorService partitionExecutor) {
+        final MockRecordParser readerFactory = new MockRecordParser();
+        readerFactory.addSchemaField("name", RecordFieldType.STRING);
+        readerFactory.addSchemaField("age", RecordFieldType.INT);
+
+        return new ConsumerPool(
+                1,
+                readerFactory,
+                new MockRecordWriter("name, age"),
+                Collections.emptyMap(),
+                Collections.singletonList("nifi"),
+                100L,
+                "ssl",
+                "localhost",
+                logger,
+                true,
+                StandardCharsets.UTF_8,
+                null,
+                passThroughConfluentAvro,
+                partitionExecutor) {
+            @Override
+            protected Consumer<byte[], byte[]> createKafkaConsumer() {
+                return consumer;
+            }
+        };
+    }
+
+    private static byte[] createConfluentMessage(final int schemaId, final String body) {
+        final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(5 + bodyBytes.length).put((byte) 0).putInt(schemaId).put(bodyBytes).array();
+    }
+
+    private static byte[] concat(final byte[] first, final byte[] second) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(first, 0, first.length);
+        baos.write(second, 0, second.length);
+        return baos.toByteArray();
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     static ConsumerRecords<byte[], byte[]> createConsumerRecords(final String topic, final int partition, final long startingOffset, final byte[][] rawRecords) {
         final Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> map = new HashMap<>();
@@ -28,6 +28,7 @@ import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.RecordSet;
+import org.apache.nifi.util.MockComponentLog;
 import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
@@ -339,6 +340,84 @@ public class TestPublishKafkaRecord_2_0 {
     }
 
 
+    @Test
+    public void testPipelinedSuccess() {
+        final List<FlowFile> flowFiles = new ArrayList<>();
+        flowFiles.add(runner.enqueue("John Doe, 48"));
+        flowFiles.add(runner.enqueue("John Doe, 48\nJane Doe, 47"));
+
+        final InFlightMessageTracker tracker = new InFlightMessageTracker(new MockComponentLog("1", "unit-test"));
+        tracker.incrementSentCount(flowFiles.get(0));
+        tracker.incrementSentCount(flowFiles.get(1));
+        tracker.incrementSentCount(flowFiles.get(1));
+        tracker.incrementAcknowledgedCount(flowFiles.get(0));
+        tracker.incrementAcknowledgedCount(flowFiles.get(1));
+        tracker.incrementAcknowledgedCount(flowFiles.get(1));
+        when(mockLease.handOff()).thenReturn(tracker);
+
+        runner.setProperty(PublishKafkaRecord_2_0.USE_TRANSACTIONS, "false");
+        runner.setProperty(PublishKafkaRecord_2_0.PIPELINED_PUBLISHING, "true");
+        runner.run();
+        runner.assertAllFlowFilesTransferred(PublishKafkaRecord_2_0.REL_SUCCESS, 2);
+
+        final List<MockFlowFile> successFlowFiles = runner.getFlowFilesForRelationship(PublishKafkaRecord_2_0.REL_SUCCESS);
+        successFlowFiles.get(0).assertAttributeEquals("msg.count", "1");
+        successFlowFiles.get(1).assertAttributeEquals("msg.count", "2");
+        assertEquals(Long.valueOf(1L), runner.getCounterValue("Acknowledged Batches"));
+        assertEquals(Long.valueOf(0L), runner.getCounterValue("In-Flight Bytes"));
+
+        verify(mockLease, times(1)).handOff();
+        verify(mockLease, times(0)).complete();
+        verify(mockLease, times(1)).close();
+    }
+
+    @Test
+    public void testPipelinedBatchRemainsInFlightWhileMoreQueued() {
+        for (int i = 0; i < 501; i++) {
+            runner.enqueue("John Doe, 48");
+        }
+
+        when(mockLease.handOff()).thenAnswer(invocation -> new InFlightMessageTracker(new MockComponentLog("1", "unit-test")));
+
+        runner.setProperty(PublishKafkaRecord_2_0.USE_TRANSACTIONS, "false");
+        runner.setProperty(PublishKafkaRecord_2_0.PIPELINED_PUBLISHING, "true");
+
+        // The first batch is only routed by the next task, as more FlowFiles are queued
+        runner.run(1, false);
+        runner.assertTransferCount(PublishKafkaRecord_2_0.REL_SUCCESS, 0);
+        runner.assertQueueNotEmpty();
+
+        runner.run();
+        runner.assertAllFlowFilesTransferred(PublishKafkaRecord_2_0.REL_SUCCESS, 501);
+        assertEquals(Long.valueOf(2L), runner.getCounterValue("Acknowledged Batches"));
+        verify(mockLease, times(2)).handOff();
+    }
+
+    @Test
+    public void testPipelinedAcknowledgmentTimeout() {
+        final FlowFile flowFile = runner.enqueue("John Doe, 48");
+
+        final InFlightMessageTracker tracker = new InFlightMessageTracker(new MockComponentLog("1", "unit-test"));
+        tracker.incrementSentCount(flowFile);
+        when(mockLease.handOff()).thenReturn(tracker);
+
+        runner.setProperty(PublishKafkaRecord_2_0.USE_TRANSACTIONS, "false");
+        runner.setProperty(PublishKafkaRecord_2_0.PIPELINED_PUBLISHING, "true");
+        runner.setProperty(PublishKafkaRecord_2_0.ACK_WAIT_TIME, "10 millis");
+        runner.run();
+        runner.assertAllFlowFilesTransferred(PublishKafkaRecord_2_0.REL_FAILURE, 1);
+    }
+
+    @Test
+    public void testPipelinedPublishingRequiresNoTransactions() {
+        runner.setProperty(PublishKafkaRecord_2_0.PIPELINED_PUBLISHING, "true");
+        runner.assertNotValid();
+
+        runner.setProperty(PublishKafkaRecord_2_0.USE_TRANSACTIONS, "false");
+        runner.assertValid();
+    }
+
+
     private PublishResult createAllSuccessPublishResult(final FlowFile successfulFlowFile, final int msgCount) {
         return createAllSuccessPublishResult(Collections.singleton(successfulFlowFile), msgCount);
     }
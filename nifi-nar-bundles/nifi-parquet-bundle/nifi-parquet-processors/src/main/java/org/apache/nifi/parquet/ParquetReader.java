@@ -19,20 +19,32 @@ package org.apache.nifi.parquet;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
+import org.apache.nifi.annotation.lifecycle.OnEnabled;
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.parquet.record.DirectParquetRecordReader;
 import org.apache.nifi.parquet.record.ParquetRecordReader;
 import org.apache.nifi.parquet.utils.ParquetConfig;
 import org.apache.nifi.parquet.utils.ParquetUtils;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.nifi.parquet.utils.ParquetUtils.applyCommonConfig;
 import static org.apache.nifi.parquet.utils.ParquetUtils.createParquetConfig;
@@ -42,11 +54,92 @@ import static org.apache.nifi.parquet.utils.ParquetUtils.createParquetConfig;
         "The schema will come from the Parquet data itself.")
 public class ParquetReader extends AbstractControllerService implements RecordReaderFactory {
 
+    static final AllowableValue AVRO_DECODING = new AllowableValue("avro", "Avro",
+            "Each row is read as an Avro record, which is then converted into a Record.");
+    static final AllowableValue DIRECT_DECODING = new AllowableValue("direct", "Direct",
+            "The columns are decoded directly into Records, without creating an Avro record for each row. This supports the Projected Fields "
+                    + "and Row Group Decoding Threads properties.");
+
+    static final PropertyDescriptor RECORD_DECODING = new PropertyDescriptor.Builder()
+            .name("parquet-record-decoding")
+            .displayName("Record Decoding")
+            .description("Specifies how the Parquet data is decoded into Records")
+            .allowableValues(AVRO_DECODING, DIRECT_DECODING)
+            .defaultValue(AVRO_DECODING.getValue())
+            .required(true)
+            .build();
+
+    static final PropertyDescriptor PROJECTED_FIELDS = new PropertyDescriptor.Builder()
+            .name("parquet-projected-fields")
+            .displayName("Projected Fields")
+            .description("A comma-separated list of the names of the top-level fields to read. The columns of any other field are neither read nor "
+                    + "decompressed, and the field is not part of the Records' schema. Fields that do not exist in the data are ignored. If not specified, "
+                    + "all fields are read. Only used when Record Decoding is 'Direct'.")
+            .expressionLanguageSupported(ExpressionLanguageScope.FLOWFILE_ATTRIBUTES)
+            .addValidator(StandardValidators.NON_EMPTY_EL_VALIDATOR)
+            .required(false)
+            .build();
+
+    static final PropertyDescriptor ROW_GROUP_DECODING_THREADS = new PropertyDescriptor.Builder()
+            .name("parquet-row-group-decoding-threads")
+            .displayName("Row Group Decoding Threads")
+            .description("The number of row groups that are decompressed and decoded concurrently for each Parquet file. When greater than 1, the "
+                    + "row groups are read ahead of the records that are being returned, and each row group that is read ahead is held in memory. "
+                    + "These threads are shared by all users of this service. Only used when Record Decoding is 'Direct'.")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .defaultValue("1")
+            .required(true)
+            .build();
+
+    private volatile boolean directDecoding;
+    private volatile int rowGroupDecodingThreads;
+    private volatile ExecutorService rowGroupExecutor;
+
+    @OnEnabled
+    public void onEnabled(final ConfigurationContext context) {
+        directDecoding = DIRECT_DECODING.getValue().equals(context.getProperty(RECORD_DECODING).getValue());
+        rowGroupDecodingThreads = context.getProperty(ROW_GROUP_DECODING_THREADS).asInteger();
+
+        if (directDecoding && rowGroupDecodingThreads > 1) {
+            final String threadNamePrefix = getClass().getSimpleName() + " " + getIdentifier() + " Row Group Decoder-";
+            final AtomicInteger threadCount = new AtomicInteger(0);
+            rowGroupExecutor = Executors.newFixedThreadPool(rowGroupDecodingThreads, runnable -> {
+                final Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @OnDisabled
+    public void onDisabled() {
+        final ExecutorService executor = rowGroupExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            rowGroupExecutor = null;
+        }
+    }
+
     @Override
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final long inputLength, final ComponentLog logger) throws IOException {
         final Configuration conf = new Configuration();
         final ParquetConfig parquetConfig = createParquetConfig(getConfigurationContext(), variables);
         applyCommonConfig(conf, parquetConfig);
+
+        if (directDecoding) {
+            final Set<String> projectedFields = new LinkedHashSet<>();
+            final String projectedFieldNames = getConfigurationContext().getProperty(PROJECTED_FIELDS).evaluateAttributeExpressions(variables).getValue();
+            if (projectedFieldNames != null) {
+                for (final String fieldName : projectedFieldNames.split(",")) {
+                    if (!fieldName.trim().isEmpty()) {
+                        projectedFields.add(fieldName.trim());
+                    }
+                }
+            }
+
+            return new DirectParquetRecordReader(in, inputLength, conf, projectedFields, rowGroupExecutor, rowGroupDecodingThreads);
+        }
+
         return new ParquetRecordReader(in, inputLength, conf);
     }
 
@@ -54,6 +147,9 @@ public class ParquetReader extends AbstractControllerService implements RecordRe
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>();
         properties.add(ParquetUtils.AVRO_READ_COMPATIBILITY);
+        properties.add(RECORD_DECODING);
+        properties.add(PROJECTED_FIELDS);
+        properties.add(ROW_GROUP_DECODING_THREADS);
         return properties;
     }
 }
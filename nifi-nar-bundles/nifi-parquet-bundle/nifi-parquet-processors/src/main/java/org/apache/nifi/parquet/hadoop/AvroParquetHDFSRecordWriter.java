@@ -19,9 +19,9 @@ package org.apache.nifi.parquet.hadoop;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.nifi.avro.AvroTypeUtil;
+import org.apache.nifi.parquet.record.BoundedMemoryParquetWriter;
 import org.apache.nifi.processors.hadoop.record.HDFSRecordWriter;
 import org.apache.nifi.serialization.record.Record;
-import org.apache.parquet.hadoop.ParquetWriter;
 
 import java.io.IOException;
 
@@ -31,9 +31,9 @@ import java.io.IOException;
 public class AvroParquetHDFSRecordWriter implements HDFSRecordWriter {
 
     private final Schema avroSchema;
-    private final ParquetWriter<GenericRecord> parquetWriter;
+    private final BoundedMemoryParquetWriter parquetWriter;
 
-    public AvroParquetHDFSRecordWriter(final ParquetWriter<GenericRecord> parquetWriter, final Schema avroSchema) {
+    public AvroParquetHDFSRecordWriter(final BoundedMemoryParquetWriter parquetWriter, final Schema avroSchema) {
         this.avroSchema = avroSchema;
         this.parquetWriter = parquetWriter;
     }
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.parquet.record;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.nifi.parquet.utils.ParquetConfig;
+import org.apache.parquet.avro.AvroSchemaConverter;
+import org.apache.parquet.avro.AvroWriteSupport;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.MemoryManager;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetRecordWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.apache.nifi.parquet.utils.ParquetUtils.applyCommonConfig;
+
+/**
+ * Writes Avro records to a Parquet file while sharing a memory budget with every other BoundedMemoryParquetWriter in the JVM.
+ *
+ * A Parquet writer buffers a whole row group in memory before writing it out, so the memory that a writer needs is bounded by its row
+ * group size. All writers are registered with a single Parquet MemoryManager, whose pool is a fraction of the maximum heap size. While the
+ * row group sizes of the open writers add up to more than the pool, the row group size of every writer is scaled down proportionally, so
+ * that the writers flush their row groups early instead of exhausting the heap. The fraction defaults to 0.5 and may be changed with the
+ * system property {@value #MEMORY_POOL_RATIO_PROPERTY}.
+ *
+ * The MemoryManager does not expose its state, so the writers that are open and the resulting scale are tracked here as well, using the
+ * same pool size and the same rule that the MemoryManager applies.
+ */
+public class BoundedMemoryParquetWriter implements Closeable {
+
+    public static final String MEMORY_POOL_RATIO_PROPERTY = "nifi.parquet.writer.memory.pool.ratio";
+    private static final float DEFAULT_MEMORY_POOL_RATIO = 0.5f;
+
+    private static final float MEMORY_POOL_RATIO = getMemoryPoolRatio();
+    // No minimum allocation, so that writers flush small row groups rather than fail when many of them are open at once
+    private static final MemoryManager MEMORY_MANAGER = new MemoryManager(MEMORY_POOL_RATIO, 0L);
+    // The pool size that the MemoryManager computes from the same ratio
+    private static final long MEMORY_POOL_SIZE = Math.round((double) ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax() * MEMORY_POOL_RATIO);
+
+    // The requested allocation of each open writer, mirroring the writers registered with the MemoryManager; guarded by synchronizing on the class
+    private static final Map<BoundedMemoryParquetWriter, Long> OPEN_WRITERS = new IdentityHashMap<>();
+    private static long totalRequestedAllocation = 0L;
+
+    private final CodecFactory codecFactory;
+    private final ParquetRecordWriter<GenericRecord> recordWriter;
+    private final long requestedAllocation;
+    private long recordCount = 0L;
+
+    public BoundedMemoryParquetWriter(final OutputFile outputFile, final Schema avroSchema, final ParquetConfig parquetConfig, final Configuration conf) throws IOException {
+        applyCommonConfig(conf, parquetConfig);
+
+        final WriteSupport<GenericRecord> writeSupport = new AvroWriteSupport<>(new AvroSchemaConverter(conf).convert(avroSchema), avroSchema, GenericData.get());
+        final WriteSupport.WriteContext writeContext = writeSupport.init(conf);
+
+        requestedAllocation = parquetConfig.getRowGroupSize() == null ? ParquetWriter.DEFAULT_BLOCK_SIZE : parquetConfig.getRowGroupSize();
+        final int maxPaddingSize = parquetConfig.getMaxPaddingSize() == null ? ParquetWriter.MAX_PADDING_SIZE_DEFAULT : parquetConfig.getMaxPaddingSize();
+        final ParquetFileWriter.Mode mode = parquetConfig.getWriterMode() == null ? ParquetFileWriter.Mode.CREATE : parquetConfig.getWriterMode();
+        final CompressionCodecName codecName = parquetConfig.getCompressionCodec() == null ? CompressionCodecName.UNCOMPRESSED : parquetConfig.getCompressionCodec();
+        final boolean validating = parquetConfig.getEnableValidation() == null ? ParquetWriter.DEFAULT_IS_VALIDATING_ENABLED : parquetConfig.getEnableValidation();
+
+        final int pageSize = parquetConfig.getPageSize() == null ? ParquetProperties.DEFAULT_PAGE_SIZE : parquetConfig.getPageSize();
+        final int dictionaryPageSize = parquetConfig.getDictionaryPageSize() == null ? ParquetProperties.DEFAULT_DICTIONARY_PAGE_SIZE : parquetConfig.getDictionaryPageSize();
+        final boolean enableDictionary = parquetConfig.getEnableDictionaryEncoding() == null
+                ? ParquetProperties.DEFAULT_IS_DICTIONARY_ENABLED : parquetConfig.getEnableDictionaryEncoding();
+        final ParquetProperties.WriterVersion writerVersion = parquetConfig.getWriterVersion() == null
+                ? ParquetProperties.DEFAULT_WRITER_VERSION : parquetConfig.getWriterVersion();
+
+        // The file writer opens the output but cannot close it, so keep hold of the stream in case the record writer cannot be created
+        final StreamTrackingOutputFile trackingOutputFile = new StreamTrackingOutputFile(outputFile);
+        codecFactory = new CodecFactory(conf, pageSize);
+        try {
+            final ParquetFileWriter fileWriter = new ParquetFileWriter(trackingOutputFile, writeContext.getSchema(), mode, requestedAllocation, maxPaddingSize);
+            fileWriter.start();
+
+            // The record writer registers itself with the memory manager, which adjusts the row group size of every registered writer.
+            // This is the only public constructor that accepts a memory manager; ParquetWriter always writes without one.
+            recordWriter = createRecordWriter(fileWriter, writeSupport, writeContext, pageSize, codecFactory.getCompressor(codecName), dictionaryPageSize, enableDictionary,
+                    validating, writerVersion);
+        } catch (final IOException | RuntimeException e) {
+            codecFactory.release();
+            trackingOutputFile.closeQuietly();
+            throw e;
+        }
+
+        synchronized (BoundedMemoryParquetWriter.class) {
+            OPEN_WRITERS.put(this, requestedAllocation);
+            totalRequestedAllocation += requestedAllocation;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private ParquetRecordWriter<GenericRecord> createRecordWriter(final ParquetFileWriter fileWriter, final WriteSupport<GenericRecord> writeSupport,
+                                                                  final WriteSupport.WriteContext writeContext, final int pageSize, final CodecFactory.BytesCompressor compressor,
+                                                                  final int dictionaryPageSize, final boolean enableDictionary, final boolean validating,
+                                                                  final ParquetProperties.WriterVersion writerVersion) {
+        return new ParquetRecordWriter<>(fileWriter, writeSupport, writeContext.getSchema(), writeContext.getExtraMetaData(), requestedAllocation, pageSize, compressor,
+                dictionaryPageSize, enableDictionary, validating, writerVersion, MEMORY_MANAGER);
+    }
+
+    private static float getMemoryPoolRatio() {
+        final String ratio = System.getProperty(MEMORY_POOL_RATIO_PROPERTY);
+        if (ratio == null) {
+            return DEFAULT_MEMORY_POOL_RATIO;
+        }
+
+        try {
+            final float value = Float.parseFloat(ratio.trim());
+            return value > 0f && value <= 1f ? value : DEFAULT_MEMORY_POOL_RATIO;
+        } catch (final NumberFormatException e) {
+            return DEFAULT_MEMORY_POOL_RATIO;
+        }
+    }
+
+    public void write(final GenericRecord record) throws IOException {
+        try {
+            recordWriter.write(null, record);
+            recordCount++;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing Parquet record", e);
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the row group size that this writer asked for, which is the most memory that it buffers when the memory pool is not under pressure
+     */
+    public long getRequestedAllocation() {
+        return requestedAllocation;
+    }
+
+    /**
+     * @return the row group size that this writer currently flushes at, which bounds the memory that it buffers
+     */
+    public long getMemoryAllocation() {
+        // The same rounding that the memory manager applies to the row group size of each writer
+        return (long) Math.floor(requestedAllocation * getMemoryScale());
+    }
+
+    /**
+     * @return the fraction of their requested row group size that all writers are currently allowed to buffer
+     */
+    public static synchronized double getMemoryScale() {
+        // The rule that the memory manager applies: writers are only scaled down while their row groups add up to more than the pool
+        return totalRequestedAllocation <= MEMORY_POOL_SIZE ? 1.0D : (double) MEMORY_POOL_SIZE / totalRequestedAllocation;
+    }
+
+    /**
+     * @return the amount of heap that all writers share
+     */
+    public static long getMemoryPoolSize() {
+        return MEMORY_POOL_SIZE;
+    }
+
+    /**
+     * @return the number of writers that are currently open
+     */
+    public static synchronized int getOpenWriterCount() {
+        return OPEN_WRITERS.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // Also removes the writer from the memory manager
+            recordWriter.close(null);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing Parquet writer", e);
+        } finally {
+            codecFactory.release();
+            synchronized (BoundedMemoryParquetWriter.class) {
+                final Long allocation = OPEN_WRITERS.remove(this);
+                if (allocation != null) {
+                    totalRequestedAllocation -= allocation;
+                }
+            }
+        }
+    }
+
+    /**
+     * An OutputFile that remembers the stream that it creates, so that the stream can be closed if the ParquetFileWriter that created it fails.
+     */
+    private static class StreamTrackingOutputFile implements OutputFile {
+        private final OutputFile delegate;
+        private PositionOutputStream stream;
+
+        private StreamTrackingOutputFile(final OutputFile delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public PositionOutputStream create(final long blockSizeHint) throws IOException {
+            stream = delegate.create(blockSizeHint);
+            return stream;
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(final long blockSizeHint) throws IOException {
+            stream = delegate.createOrOverwrite(blockSizeHint);
+            return stream;
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return delegate.supportsBlockSize();
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return delegate.defaultBlockSize();
+        }
+
+        private void closeQuietly() {
+            if (stream == null) {
+                return;
+            }
+
+            try {
+                stream.close();
+            } catch (final IOException ignored) {
+                // The original failure is more relevant
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.parquet.record;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A CompressionCodecFactory whose decompressors may be used by several threads at once, so that the pages of different row groups
+ * can be decompressed concurrently. The decompressors of Parquet's own CodecFactory are shared by all of the pages that are read
+ * with the same codec and decompress lazily, so they must not be used concurrently. Instead, each decompression borrows a CodecFactory
+ * that no other thread is using, and decompresses eagerly so that the result no longer depends on the borrowed decompressor.
+ */
+class ConcurrentDecompressionCodecFactory implements CompressionCodecFactory {
+
+    private final Configuration configuration;
+    private final Queue<CodecFactory> idleFactories = new ConcurrentLinkedQueue<>();
+    private final Queue<CodecFactory> allFactories = new ConcurrentLinkedQueue<>();
+
+    ConcurrentDecompressionCodecFactory(final Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public BytesInputCompressor getCompressor(final CompressionCodecName codecName) {
+        throw new UnsupportedOperationException("Compression is not supported when reading Parquet data");
+    }
+
+    @Override
+    public BytesInputDecompressor getDecompressor(final CompressionCodecName codecName) {
+        return new BytesInputDecompressor() {
+            @Override
+            public BytesInput decompress(final BytesInput bytes, final int uncompressedSize) throws IOException {
+                final CodecFactory factory = borrowFactory();
+                try {
+                    return BytesInput.copy(factory.getDecompressor(codecName).decompress(bytes, uncompressedSize));
+                } finally {
+                    idleFactories.offer(factory);
+                }
+            }
+
+            @Override
+            public void decompress(final ByteBuffer input, final int compressedSize, final ByteBuffer output, final int uncompressedSize) throws IOException {
+                final CodecFactory factory = borrowFactory();
+                try {
+                    factory.getDecompressor(codecName).decompress(input, compressedSize, output, uncompressedSize);
+                } finally {
+                    idleFactories.offer(factory);
+                }
+            }
+
+            @Override
+            public void release() {
+                // The decompressors are released along with the factories that own them
+            }
+        };
+    }
+
+    @Override
+    public void release() {
+        CodecFactory factory;
+        while ((factory = allFactories.poll()) != null) {
+            factory.release();
+        }
+        idleFactories.clear();
+    }
+
+    private CodecFactory borrowFactory() {
+        final CodecFactory factory = idleFactories.poll();
+        if (factory != null) {
+            return factory;
+        }
+
+        final CodecFactory newFactory = new CodecFactory(configuration, ParquetProperties.DEFAULT_PAGE_SIZE);
+        allFactories.offer(newFactory);
+        return newFactory;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.parquet.record;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.nifi.parquet.stream.NifiParquetInputFile;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.util.concurrency.OrderedTaskQueue;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A RecordReader that decodes Parquet column chunks directly into NiFi Records, rather than reading each row as an Avro GenericRecord
+ * and converting it. Only the columns of the requested fields are read and decompressed.
+ *
+ * If an ExecutorService is provided, the row groups are decoded concurrently: the calling thread reads the (compressed) column chunks
+ * of the next row groups from the InputStream, which can only be read sequentially, while the executor decompresses and decodes the
+ * row groups that have already been read. Records are still returned in the order in which they are stored. Because each row group
+ * that is decoded concurrently is held in memory as a whole, at most the given number of row groups are read ahead.
+ */
+public class DirectParquetRecordReader implements RecordReader {
+
+    private final InputStream inputStream;
+    private final ParquetFileReader fileReader;
+    private final ConcurrentDecompressionCodecFactory codecFactory;
+    private final MessageType requestedSchema;
+    private final MessageColumnIO columnIO;
+    private final RecordSchema recordSchema;
+
+    private final ExecutorService executor;
+    private final int maxRowGroupsAhead;
+    private final OrderedTaskQueue<List<Record>> pendingRowGroups;
+    private boolean allRowGroupsRead = false;
+
+    // The row group that records are currently returned from, when row groups are decoded on the calling thread
+    private org.apache.parquet.io.RecordReader<Record> rowGroupReader;
+    private long rowGroupRecordsRemaining = 0L;
+
+    // The row group that records are currently returned from, when row groups are decoded concurrently
+    private List<Record> decodedRecords = Collections.emptyList();
+    private int decodedRecordIndex = 0;
+
+    /**
+     * @param inputStream the Parquet data, which must support mark/reset
+     * @param inputLength the length of the Parquet data
+     * @param configuration the Hadoop configuration to read with
+     * @param projectedFields the names of the top-level fields to read, or <code>null</code> or an empty collection to read all fields
+     * @param executor the executor to decode row groups with, or <code>null</code> to decode them on the calling thread
+     * @param maxRowGroupsAhead the maximum number of row groups to read ahead when decoding with an executor
+     */
+    public DirectParquetRecordReader(final InputStream inputStream, final long inputLength, final Configuration configuration, final Collection<String> projectedFields,
+                                     final ExecutorService executor, final int maxRowGroupsAhead) throws IOException {
+        if (inputLength < 0) {
+            throw new IllegalArgumentException("Invalid input length of '" + inputLength + "'. This record reader requires knowing " +
+                    "the length of the InputStream and cannot be used in some cases where the length may not be known.");
+        }
+
+        this.inputStream = inputStream;
+        this.executor = executor;
+        this.maxRowGroupsAhead = Math.max(1, maxRowGroupsAhead);
+        this.pendingRowGroups = executor == null ? null : new OrderedTaskQueue<>(executor);
+
+        codecFactory = new ConcurrentDecompressionCodecFactory(configuration);
+        final ParquetReadOptions readOptions = HadoopReadOptions.builder(configuration)
+                .withCodecFactory(codecFactory)
+                .build();
+
+        fileReader = ParquetFileReader.open(new NifiParquetInputFile(inputStream, inputLength), readOptions);
+
+        final MessageType fileSchema = fileReader.getFileMetaData().getSchema();
+        requestedSchema = createRequestedSchema(fileSchema, projectedFields);
+        fileReader.setRequestedSchema(requestedSchema);
+
+        columnIO = new ColumnIOFactory(fileReader.getFileMetaData().getCreatedBy()).getColumnIO(requestedSchema, fileSchema, true);
+        recordSchema = DirectRecordMaterializer.createSchema(requestedSchema);
+    }
+
+    private static MessageType createRequestedSchema(final MessageType fileSchema, final Collection<String> projectedFields) throws IOException {
+        if (projectedFields == null || projectedFields.isEmpty()) {
+            return fileSchema;
+        }
+
+        // Keep the order of the fields in the file, and ignore any field that is not in the file
+        final List<Type> requestedFields = new ArrayList<>(projectedFields.size());
+        for (final Type field : fileSchema.getFields()) {
+            if (projectedFields.contains(field.getName())) {
+                requestedFields.add(field);
+            }
+        }
+
+        if (requestedFields.isEmpty()) {
+            throw new IOException("None of the projected fields " + projectedFields + " exist in the Parquet schema " + fileSchema);
+        }
+
+        return new MessageType(fileSchema.getName(), requestedFields);
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException {
+        return executor == null ? nextRecordFromStream() : nextDecodedRecord();
+    }
+
+    private Record nextRecordFromStream() throws IOException {
+        while (rowGroupRecordsRemaining == 0L) {
+            final PageReadStore rowGroup = fileReader.readNextRowGroup();
+            if (rowGroup == null) {
+                return null;
+            }
+
+            rowGroupReader = columnIO.getRecordReader(rowGroup, new DirectRecordMaterializer(requestedSchema, recordSchema));
+            rowGroupRecordsRemaining = rowGroup.getRowCount();
+        }
+
+        rowGroupRecordsRemaining--;
+        return rowGroupReader.read();
+    }
+
+    private Record nextDecodedRecord() throws IOException {
+        while (decodedRecordIndex >= decodedRecords.size()) {
+            readAhead();
+
+            if (pendingRowGroups.isEmpty()) {
+                return null;
+            }
+
+            decodedRecords = takeDecodedRecords();
+            decodedRecordIndex = 0;
+
+            // Keep the executor busy while the records of this row group are returned
+            readAhead();
+        }
+
+        return decodedRecords.get(decodedRecordIndex++);
+    }
+
+    private void readAhead() throws IOException {
+        while (!allRowGroupsRead && pendingRowGroups.size() < maxRowGroupsAhead) {
+            final PageReadStore rowGroup = fileReader.readNextRowGroup();
+            if (rowGroup == null) {
+                allRowGroupsRead = true;
+                return;
+            }
+
+            pendingRowGroups.submit(() -> decodeRowGroup(rowGroup));
+        }
+    }
+
+    private List<Record> decodeRowGroup(final PageReadStore rowGroup) {
+        final org.apache.parquet.io.RecordReader<Record> reader = columnIO.getRecordReader(rowGroup, new DirectRecordMaterializer(requestedSchema, recordSchema));
+
+        final int rowCount = (int) rowGroup.getRowCount();
+        final List<Record> records = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            records.add(reader.read());
+        }
+
+        return records;
+    }
+
+    private List<Record> takeDecodedRecords() throws IOException {
+        try {
+            return pendingRowGroups.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a row group to be decoded", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to decode row group", cause);
+        }
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return recordSchema;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // Row groups that are still being decoded use the decompressors that are released below, so wait for them to finish.
+            // Row groups whose decoding has not started are not decoded at all.
+            if (pendingRowGroups != null) {
+                pendingRowGroups.cancelAll();
+            }
+
+            fileReader.close();
+        } finally {
+            try {
+                codecFactory.release();
+            } finally {
+                // ensure the input stream still gets closed
+                inputStream.close();
+            }
+        }
+    }
+}
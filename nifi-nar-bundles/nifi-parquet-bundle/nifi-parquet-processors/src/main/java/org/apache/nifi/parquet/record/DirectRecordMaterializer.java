@@ -0,0 +1,574 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.parquet.record;
+
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.io.api.RecordMaterializer;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Materializes the rows of a Parquet file directly as NiFi Records, without first creating an Avro GenericRecord for each row.
+ * Values are converted the same way that the Avro-based reader converts them, so that both produce the same Records for the same data.
+ *
+ * A materializer holds the state of the row that is being assembled, so each thread that decodes rows needs its own instance.
+ */
+public class DirectRecordMaterializer extends RecordMaterializer<Record> {
+
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588L;
+
+    private final RecordConverter rootConverter;
+    private Record currentRecord;
+
+    public DirectRecordMaterializer(final GroupType requestedSchema, final RecordSchema recordSchema) {
+        this.rootConverter = new RecordConverter(requestedSchema, recordSchema, record -> currentRecord = (Record) record);
+    }
+
+    @Override
+    public Record getCurrentRecord() {
+        return currentRecord;
+    }
+
+    @Override
+    public GroupConverter getRootConverter() {
+        return rootConverter;
+    }
+
+    /**
+     * Creates the RecordSchema of the Records that are materialized for the given Parquet schema
+     *
+     * @param groupType the Parquet schema, or the part of it that is read
+     * @return the corresponding RecordSchema
+     */
+    public static RecordSchema createSchema(final GroupType groupType) {
+        final List<RecordField> recordFields = new ArrayList<>(groupType.getFieldCount());
+        for (final Type field : groupType.getFields()) {
+            final DataType dataType = field.isRepetition(Type.Repetition.REPEATED)
+                    ? RecordFieldType.ARRAY.getArrayDataType(determineDataType(field))
+                    : determineDataType(field);
+            recordFields.add(new RecordField(field.getName(), dataType, !field.isRepetition(Type.Repetition.REQUIRED)));
+        }
+
+        return new SimpleRecordSchema(recordFields);
+    }
+
+    private static DataType determineDataType(final Type type) {
+        if (type.isPrimitive()) {
+            final PrimitiveType primitiveType = type.asPrimitiveType();
+            switch (ValueConversion.of(primitiveType)) {
+                case STRING:
+                    return RecordFieldType.STRING.getDataType();
+                case DECIMAL:
+                    return RecordFieldType.DECIMAL.getDecimalDataType(primitiveType.getDecimalMetadata().getPrecision(), primitiveType.getDecimalMetadata().getScale());
+                case BYTES:
+                    return RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.BYTE.getDataType());
+                case DATE:
+                    return RecordFieldType.DATE.getDataType();
+                case TIME_MILLIS:
+                case TIME_MICROS:
+                    return RecordFieldType.TIME.getDataType();
+                case TIMESTAMP_MILLIS:
+                case TIMESTAMP_MICROS:
+                case INT96_TIMESTAMP:
+                    return RecordFieldType.TIMESTAMP.getDataType();
+                case LONG:
+                    return RecordFieldType.LONG.getDataType();
+                case BOOLEAN:
+                    return RecordFieldType.BOOLEAN.getDataType();
+                case FLOAT:
+                    return RecordFieldType.FLOAT.getDataType();
+                case DOUBLE:
+                    return RecordFieldType.DOUBLE.getDataType();
+                case INT:
+                default:
+                    return RecordFieldType.INT.getDataType();
+            }
+        }
+
+        final GroupType groupType = type.asGroupType();
+        if (groupType.getOriginalType() == OriginalType.LIST) {
+            return RecordFieldType.ARRAY.getArrayDataType(determineDataType(getListElementType(groupType)));
+        } else if (groupType.getOriginalType() == OriginalType.MAP || groupType.getOriginalType() == OriginalType.MAP_KEY_VALUE) {
+            final GroupType keyValueType = groupType.getType(0).asGroupType();
+            return RecordFieldType.MAP.getMapDataType(determineDataType(keyValueType.getType(1)));
+        }
+
+        return RecordFieldType.RECORD.getRecordDataType(createSchema(groupType));
+    }
+
+    /**
+     * Determines which type holds the elements of a list, following the backward-compatibility rules of the Parquet format specification
+     */
+    private static Type getListElementType(final GroupType listType) {
+        final Type repeatedType = listType.getType(0);
+        if (isRepeatedTypeTheElement(listType, repeatedType)) {
+            return repeatedType;
+        }
+
+        return repeatedType.asGroupType().getType(0);
+    }
+
+    private static boolean isRepeatedTypeTheElement(final GroupType listType, final Type repeatedType) {
+        return repeatedType.isPrimitive()
+                || repeatedType.asGroupType().getFieldCount() > 1
+                || repeatedType.getName().equals("array")
+                || repeatedType.getName().equals(listType.getName() + "_tuple");
+    }
+
+    private static Converter createConverter(final Type type, final DataType dataType, final Consumer<Object> consumer) {
+        if (type.isPrimitive()) {
+            return new ValueConverter(type.asPrimitiveType(), consumer);
+        }
+
+        final GroupType groupType = type.asGroupType();
+        if (groupType.getOriginalType() == OriginalType.LIST) {
+            return new ListConverter(groupType, ((ArrayDataType) dataType).getElementType(), consumer);
+        } else if (groupType.getOriginalType() == OriginalType.MAP || groupType.getOriginalType() == OriginalType.MAP_KEY_VALUE) {
+            return new MapConverter(groupType, ((MapDataType) dataType).getValueType(), consumer);
+        }
+
+        return new RecordConverter(groupType, ((RecordDataType) dataType).getChildSchema(), consumer);
+    }
+
+    /**
+     * Assembles a Record from the values of its fields
+     */
+    private static class RecordConverter extends GroupConverter {
+        private final RecordSchema schema;
+        private final String[] fieldNames;
+        private final boolean[] repeated;
+        private final Converter[] converters;
+        private final Consumer<Object> consumer;
+
+        private Map<String, Object> values;
+        private List<Object>[] repeatedValues;
+
+        @SuppressWarnings("unchecked")
+        RecordConverter(final GroupType groupType, final RecordSchema schema, final Consumer<Object> consumer) {
+            this.schema = schema;
+            this.consumer = consumer;
+
+            final int fieldCount = groupType.getFieldCount();
+            this.fieldNames = new String[fieldCount];
+            this.repeated = new boolean[fieldCount];
+            this.converters = new Converter[fieldCount];
+            this.repeatedValues = new List[fieldCount];
+
+            for (int i = 0; i < fieldCount; i++) {
+                final Type fieldType = groupType.getType(i);
+                final String fieldName = fieldType.getName();
+                final DataType dataType = schema.getDataType(fieldName).get();
+                final int fieldIndex = i;
+
+                fieldNames[i] = fieldName;
+                if (fieldType.isRepetition(Type.Repetition.REPEATED)) {
+                    // A repeated field that is not annotated as a list is read as an array of its values
+                    repeated[i] = true;
+                    converters[i] = createConverter(fieldType, ((ArrayDataType) dataType).getElementType(), value -> repeatedValues[fieldIndex].add(value));
+                } else {
+                    converters[i] = createConverter(fieldType, dataType, value -> values.put(fieldName, value));
+                }
+            }
+        }
+
+        @Override
+        public Converter getConverter(final int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+            values = new HashMap<>(fieldNames.length * 2);
+            for (int i = 0; i < fieldNames.length; i++) {
+                if (repeated[i]) {
+                    repeatedValues[i] = new ArrayList<>();
+                }
+            }
+        }
+
+        @Override
+        public void end() {
+            for (int i = 0; i < fieldNames.length; i++) {
+                if (repeated[i]) {
+                    values.put(fieldNames[i], repeatedValues[i].toArray());
+                    repeatedValues[i] = null;
+                }
+            }
+
+            consumer.accept(new MapRecord(schema, values));
+            values = null;
+        }
+    }
+
+    /**
+     * Assembles an array from the elements of a field that is annotated as a list
+     */
+    private static class ListConverter extends GroupConverter {
+        private final Converter repeatedConverter;
+        private final Consumer<Object> consumer;
+        private List<Object> elements;
+
+        ListConverter(final GroupType listType, final DataType elementDataType, final Consumer<Object> consumer) {
+            this.consumer = consumer;
+
+            final Type repeatedType = listType.getType(0);
+            if (isRepeatedTypeTheElement(listType, repeatedType)) {
+                repeatedConverter = createConverter(repeatedType, elementDataType, element -> elements.add(element));
+            } else {
+                repeatedConverter = new ElementConverter(repeatedType.asGroupType().getType(0), elementDataType);
+            }
+        }
+
+        @Override
+        public Converter getConverter(final int fieldIndex) {
+            return repeatedConverter;
+        }
+
+        @Override
+        public void start() {
+            elements = new ArrayList<>();
+        }
+
+        @Override
+        public void end() {
+            consumer.accept(elements.toArray());
+            elements = null;
+        }
+
+        /**
+         * Converts the element of the repeated group of a three-level list, which has no value if the element is null
+         */
+        private class ElementConverter extends GroupConverter {
+            private final Converter converter;
+            private boolean hasValue;
+
+            ElementConverter(final Type elementType, final DataType elementDataType) {
+                this.converter = createConverter(elementType, elementDataType, element -> {
+                    elements.add(element);
+                    hasValue = true;
+                });
+            }
+
+            @Override
+            public Converter getConverter(final int fieldIndex) {
+                return converter;
+            }
+
+            @Override
+            public void start() {
+                hasValue = false;
+            }
+
+            @Override
+            public void end() {
+                if (!hasValue) {
+                    elements.add(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Assembles a Map from the key/value pairs of a field that is annotated as a map. Keys are always converted to Strings.
+     */
+    private static class MapConverter extends GroupConverter {
+        private final KeyValueConverter keyValueConverter;
+        private final Consumer<Object> consumer;
+        private Map<String, Object> entries;
+
+        MapConverter(final GroupType mapType, final DataType valueDataType, final Consumer<Object> consumer) {
+            this.consumer = consumer;
+            this.keyValueConverter = new KeyValueConverter(mapType.getType(0).asGroupType(), valueDataType);
+        }
+
+        @Override
+        public Converter getConverter(final int fieldIndex) {
+            return keyValueConverter;
+        }
+
+        @Override
+        public void start() {
+            entries = new HashMap<>();
+        }
+
+        @Override
+        public void end() {
+            consumer.accept(entries);
+            entries = null;
+        }
+
+        private class KeyValueConverter extends GroupConverter {
+            private final Converter keyConverter;
+            private final Converter valueConverter;
+            private String key;
+            private Object value;
+
+            KeyValueConverter(final GroupType keyValueType, final DataType valueDataType) {
+                this.keyConverter = new ValueConverter(keyValueType.getType(0).asPrimitiveType(), convertedKey -> key = convertedKey.toString());
+                this.valueConverter = createConverter(keyValueType.getType(1), valueDataType, convertedValue -> value = convertedValue);
+            }
+
+            @Override
+            public Converter getConverter(final int fieldIndex) {
+                return fieldIndex == 0 ? keyConverter : valueConverter;
+            }
+
+            @Override
+            public void start() {
+                key = null;
+                value = null;
+            }
+
+            @Override
+            public void end() {
+                entries.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * The ways in which the values of a primitive column are converted, based on the column's physical type and annotation
+     */
+    private enum ValueConversion {
+        STRING(true),
+        DECIMAL(true),
+        BYTES(false),
+        INT(true),
+        DATE(false),
+        TIME_MILLIS(false),
+        LONG(true),
+        TIME_MICROS(false),
+        TIMESTAMP_MILLIS(false),
+        TIMESTAMP_MICROS(false),
+        INT96_TIMESTAMP(false),
+        BOOLEAN(false),
+        FLOAT(true),
+        DOUBLE(true);
+
+        // Only immutable values can be decoded once per dictionary entry and then shared between rows
+        private final boolean dictionarySupported;
+
+        ValueConversion(final boolean dictionarySupported) {
+            this.dictionarySupported = dictionarySupported;
+        }
+
+        static ValueConversion of(final PrimitiveType primitiveType) {
+            final OriginalType originalType = primitiveType.getOriginalType();
+            if (originalType == OriginalType.DECIMAL) {
+                return DECIMAL;
+            }
+
+            switch (primitiveType.getPrimitiveTypeName()) {
+                case BINARY:
+                case FIXED_LEN_BYTE_ARRAY:
+                    return originalType == OriginalType.UTF8 || originalType == OriginalType.ENUM || originalType == OriginalType.JSON ? STRING : BYTES;
+                case INT32:
+                    if (originalType == OriginalType.DATE) {
+                        return DATE;
+                    } else if (originalType == OriginalType.TIME_MILLIS) {
+                        return TIME_MILLIS;
+                    }
+                    return INT;
+                case INT64:
+                    if (originalType == OriginalType.TIMESTAMP_MILLIS) {
+                        return TIMESTAMP_MILLIS;
+                    } else if (originalType == OriginalType.TIMESTAMP_MICROS) {
+                        return TIMESTAMP_MICROS;
+                    } else if (originalType == OriginalType.TIME_MICROS) {
+                        return TIME_MICROS;
+                    }
+                    return LONG;
+                case INT96:
+                    return INT96_TIMESTAMP;
+                case BOOLEAN:
+                    return BOOLEAN;
+                case FLOAT:
+                    return FLOAT;
+                case DOUBLE:
+                default:
+                    return DOUBLE;
+            }
+        }
+    }
+
+    /**
+     * Converts the values of a primitive column. Values of dictionary-encoded columns are converted once per dictionary entry
+     * rather than once per row, when the converted value is immutable.
+     */
+    private static class ValueConverter extends PrimitiveConverter {
+        private final PrimitiveType.PrimitiveTypeName primitiveTypeName;
+        private final ValueConversion conversion;
+        private final int scale;
+        private final Consumer<Object> consumer;
+        private Object[] dictionaryValues;
+
+        ValueConverter(final PrimitiveType primitiveType, final Consumer<Object> consumer) {
+            this.primitiveTypeName = primitiveType.getPrimitiveTypeName();
+            this.conversion = ValueConversion.of(primitiveType);
+            this.scale = conversion == ValueConversion.DECIMAL ? primitiveType.getDecimalMetadata().getScale() : 0;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public boolean hasDictionarySupport() {
+            return conversion.dictionarySupported;
+        }
+
+        @Override
+        public void setDictionary(final Dictionary dictionary) {
+            dictionaryValues = new Object[dictionary.getMaxId() + 1];
+            for (int i = 0; i < dictionaryValues.length; i++) {
+                switch (primitiveTypeName) {
+                    case INT32:
+                        dictionaryValues[i] = convertInt(dictionary.decodeToInt(i));
+                        break;
+                    case INT64:
+                        dictionaryValues[i] = convertLong(dictionary.decodeToLong(i));
+                        break;
+                    case FLOAT:
+                        dictionaryValues[i] = dictionary.decodeToFloat(i);
+                        break;
+                    case DOUBLE:
+                        dictionaryValues[i] = dictionary.decodeToDouble(i);
+                        break;
+                    default:
+                        dictionaryValues[i] = convertBinary(dictionary.decodeToBinary(i));
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public void addValueFromDictionary(final int dictionaryId) {
+            consumer.accept(dictionaryValues[dictionaryId]);
+        }
+
+        @Override
+        public void addBinary(final Binary value) {
+            consumer.accept(convertBinary(value));
+        }
+
+        @Override
+        public void addBoolean(final boolean value) {
+            consumer.accept(value);
+        }
+
+        @Override
+        public void addDouble(final double value) {
+            consumer.accept(value);
+        }
+
+        @Override
+        public void addFloat(final float value) {
+            consumer.accept(value);
+        }
+
+        @Override
+        public void addInt(final int value) {
+            consumer.accept(convertInt(value));
+        }
+
+        @Override
+        public void addLong(final long value) {
+            consumer.accept(convertLong(value));
+        }
+
+        private Object convertInt(final int value) {
+            switch (conversion) {
+                case DATE:
+                    return new Date(TimeUnit.DAYS.toMillis(value));
+                case TIME_MILLIS:
+                    return new Time(value);
+                case DECIMAL:
+                    return BigDecimal.valueOf(value, scale);
+                default:
+                    return value;
+            }
+        }
+
+        private Object convertLong(final long value) {
+            switch (conversion) {
+                case TIMESTAMP_MILLIS:
+                    return new Timestamp(value);
+                case TIMESTAMP_MICROS:
+                    return new Timestamp(TimeUnit.MICROSECONDS.toMillis(value));
+                case TIME_MICROS:
+                    return new Time(TimeUnit.MICROSECONDS.toMillis(value));
+                case DECIMAL:
+                    return BigDecimal.valueOf(value, scale);
+                default:
+                    return value;
+            }
+        }
+
+        private Object convertBinary(final Binary value) {
+            switch (conversion) {
+                case STRING:
+                    return value.toStringUsingUTF8();
+                case DECIMAL:
+                    return new BigDecimal(new BigInteger(value.getBytes()), scale);
+                case INT96_TIMESTAMP: {
+                    // Nanoseconds of the day followed by the Julian day, both little-endian
+                    final ByteBuffer buffer = value.toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                    final long nanosOfDay = buffer.getLong();
+                    final long julianDay = buffer.getInt();
+                    final long millis = TimeUnit.DAYS.toMillis(julianDay - JULIAN_DAY_OF_EPOCH) + TimeUnit.NANOSECONDS.toMillis(nanosOfDay);
+                    return new Timestamp(millis);
+                }
+                default: {
+                    // Bytes are represented the same way as the Avro-based reader represents them
+                    final byte[] bytes = value.getBytes();
+                    final Byte[] converted = new Byte[bytes.length];
+                    for (int i = 0; i < bytes.length; i++) {
+                        converted[i] = bytes[i];
+                    }
+                    return converted;
+                }
+            }
+        }
+    }
+}
@@ -25,21 +25,21 @@ import org.apache.nifi.parquet.stream.NifiParquetOutputFile;
 import org.apache.nifi.parquet.utils.ParquetConfig;
 import org.apache.nifi.serialization.AbstractRecordSetWriter;
 import org.apache.nifi.serialization.record.Record;
-import org.apache.parquet.avro.AvroParquetWriter;
-import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.io.OutputFile;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
-import static org.apache.nifi.parquet.utils.ParquetUtils.applyCommonConfig;
-
 public class WriteParquetResult extends AbstractRecordSetWriter {
 
+    public static final String MEMORY_ALLOCATION_ATTRIBUTE = "parquet.writer.memory.allocation";
+    public static final String REQUESTED_MEMORY_ALLOCATION_ATTRIBUTE = "parquet.writer.memory.requested";
+
     private final Schema schema;
-    private final ParquetWriter<GenericRecord> parquetWriter;
+    private final BoundedMemoryParquetWriter parquetWriter;
     private final ComponentLog componentLogger;
 
     public WriteParquetResult(final Schema schema, final OutputStream out, final ParquetConfig parquetConfig, final ComponentLog componentLogger) throws IOException {
@@ -50,10 +50,8 @@ public class WriteParquetResult extends AbstractRecordSetWriter {
         final Configuration conf = new Configuration();
         final OutputFile outputFile = new NifiParquetOutputFile(out);
 
-        final AvroParquetWriter.Builder<GenericRecord> writerBuilder =
-                AvroParquetWriter.<GenericRecord>builder(outputFile).withSchema(schema);
-        applyCommonConfig(writerBuilder, conf, parquetConfig);
-        parquetWriter = writerBuilder.build();
+        // Row groups are written straight to the output stream, and are flushed early when the shared memory pool is under pressure
+        parquetWriter = new BoundedMemoryParquetWriter(outputFile, schema, parquetConfig, conf);
     }
 
     @Override
@@ -63,6 +61,21 @@ public class WriteParquetResult extends AbstractRecordSetWriter {
         return Collections.emptyMap();
     }
 
+    @Override
+    protected Map<String, String> onFinishRecordSet() {
+        final long memoryAllocation = parquetWriter.getMemoryAllocation();
+        final long requestedAllocation = parquetWriter.getRequestedAllocation();
+        if (memoryAllocation < requestedAllocation) {
+            componentLogger.debug("Parquet row group size was reduced from {} to {} bytes because {} Parquet writers are sharing a memory pool of {} bytes",
+                    new Object[] {requestedAllocation, memoryAllocation, BoundedMemoryParquetWriter.getOpenWriterCount(), BoundedMemoryParquetWriter.getMemoryPoolSize()});
+        }
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(MEMORY_ALLOCATION_ATTRIBUTE, String.valueOf(memoryAllocation));
+        attributes.put(REQUESTED_MEMORY_ALLOCATION_ATTRIBUTE, String.valueOf(requestedAllocation));
+        return attributes;
+    }
+
     @Override
     public void close() throws IOException {
         try {
@@ -33,6 +33,7 @@ import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.parquet.record.BoundedMemoryParquetWriter;
 import org.apache.nifi.parquet.stream.NifiParquetOutputFile;
 import org.apache.nifi.parquet.utils.ParquetConfig;
 import org.apache.nifi.parquet.utils.ParquetUtils;
@@ -42,8 +43,6 @@ import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
-import org.apache.parquet.avro.AvroParquetWriter;
-import org.apache.parquet.hadoop.ParquetWriter;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
@@ -57,7 +56,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.apache.nifi.parquet.utils.ParquetUtils.applyCommonConfig;
 import static org.apache.nifi.parquet.utils.ParquetUtils.createParquetConfig;
 
 @Tags({"avro", "parquet", "convert"})
@@ -144,7 +142,7 @@ public class ConvertAvroToParquet extends AbstractProcessor {
 
                     Schema avroSchema = dataFileReader.getSchema();
                     getLogger().debug(avroSchema.toString(true));
-                    ParquetWriter<GenericRecord> writer = createParquetWriter(context, flowFile, rawOut, avroSchema );
+                    BoundedMemoryParquetWriter writer = createParquetWriter(context, flowFile, rawOut, avroSchema );
 
                     try {
                         int recordCount = 0;
@@ -186,24 +184,18 @@ public class ConvertAvroToParquet extends AbstractProcessor {
 
     }
 
-    private ParquetWriter createParquetWriter(final ProcessContext context, final FlowFile flowFile, final OutputStream out, final Schema schema)
+    private BoundedMemoryParquetWriter createParquetWriter(final ProcessContext context, final FlowFile flowFile, final OutputStream out, final Schema schema)
             throws IOException {
 
         NifiParquetOutputFile nifiParquetOutputFile = new NifiParquetOutputFile(out);
 
-        final AvroParquetWriter.Builder<GenericRecord> parquetWriter = AvroParquetWriter
-                .<GenericRecord>builder(nifiParquetOutputFile)
-                .withSchema(schema);
-
         final ParquetConfig parquetConfig = createParquetConfig(context, flowFile.getAttributes());
         parquetConfig.setAvroReadCompatibility(true);
         parquetConfig.setAvroAddListElementRecords(false);
         parquetConfig.setAvroWriteOldListStructure(false);
 
         final Configuration conf = new Configuration();
-        applyCommonConfig(parquetWriter, conf, parquetConfig);
-
-        return parquetWriter.build();
+        return new BoundedMemoryParquetWriter(nifiParquetOutputFile, schema, parquetConfig, conf);
     }
 
 }
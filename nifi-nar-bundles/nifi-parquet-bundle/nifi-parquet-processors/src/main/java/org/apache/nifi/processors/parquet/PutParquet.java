@@ -17,7 +17,6 @@
 package org.apache.nifi.processors.parquet;
 
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.nifi.annotation.behavior.InputRequirement;
@@ -40,18 +39,18 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processors.hadoop.AbstractPutHDFSRecord;
 import org.apache.nifi.processors.hadoop.record.HDFSRecordWriter;
 import org.apache.nifi.parquet.hadoop.AvroParquetHDFSRecordWriter;
+import org.apache.nifi.parquet.record.BoundedMemoryParquetWriter;
 import org.apache.nifi.parquet.utils.ParquetUtils;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
 import org.apache.nifi.serialization.record.RecordSchema;
-import org.apache.parquet.avro.AvroParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import static org.apache.nifi.parquet.utils.ParquetUtils.createParquetConfig;
-import static org.apache.nifi.parquet.utils.ParquetUtils.applyCommonConfig;
 
 @InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
 @Tags({"put", "parquet", "hadoop", "HDFS", "filesystem", "record"})
@@ -115,14 +114,10 @@ public class PutParquet extends AbstractPutHDFSRecord {
 
         final Schema avroSchema = AvroTypeUtil.extractAvroSchema(schema);
 
-        final AvroParquetWriter.Builder<GenericRecord> parquetWriter = AvroParquetWriter
-                .<GenericRecord>builder(path)
-                .withSchema(avroSchema);
-
         final ParquetConfig parquetConfig = createParquetConfig(context, flowFile.getAttributes());
-        applyCommonConfig(parquetWriter, conf, parquetConfig);
+        final BoundedMemoryParquetWriter parquetWriter = new BoundedMemoryParquetWriter(HadoopOutputFile.fromPath(path, conf), avroSchema, parquetConfig, conf);
 
-        return new AvroParquetHDFSRecordWriter(parquetWriter.build(), avroSchema);
+        return new AvroParquetHDFSRecordWriter(parquetWriter, avroSchema);
     }
 
     @Override
@@ -26,8 +26,10 @@ import org.apache.hadoop.fs.Path;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.parquet.record.DirectParquetRecordReader;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.util.MockComponentLog;
 import org.apache.nifi.util.MockConfigurationContext;
 import org.apache.parquet.avro.AvroParquetWriter;
@@ -35,6 +37,7 @@ import org.apache.parquet.hadoop.ParquetWriter;
 import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
@@ -43,11 +46,23 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class TestParquetReader {
 
@@ -106,6 +121,198 @@ public class TestParquetReader {
         }
     }
 
+    @Test
+    public void testReadUsersWithDirectDecoding() throws IOException, MalformedRecordException {
+        readerFactoryProperties.put(ParquetReader.RECORD_DECODING, ParquetReader.DIRECT_DECODING.getValue());
+        parquetReaderFactory.onEnabled(readerFactoryConfigContext);
+
+        final int numUsers = 10;
+        final File parquetFile = writeUsers("testReadUsersWithDirectDecoding", numUsers, ParquetWriter.DEFAULT_BLOCK_SIZE);
+        final byte[] parquetBytes = IOUtils.toByteArray(parquetFile.toURI());
+
+        try (final InputStream in = new ByteArrayInputStream(parquetBytes);
+             final RecordReader recordReader = parquetReaderFactory.createRecordReader(
+                     Collections.emptyMap(), in, parquetFile.length(), componentLog)) {
+
+            assertEquals(Arrays.asList("name", "favorite_number", "favorite_color"), recordReader.getSchema().getFieldNames());
+
+            for (int i = 0; i < numUsers; i++) {
+                final Record record = recordReader.nextRecord();
+                assertNotNull(record);
+                assertEquals("Bob" + i, record.getValue("name"));
+                assertEquals(i, record.getValue("favorite_number"));
+                assertEquals("blue" + i, record.getValue("favorite_color"));
+            }
+            assertNull(recordReader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testReadUsersWithProjectedFields() throws IOException, MalformedRecordException {
+        readerFactoryProperties.put(ParquetReader.RECORD_DECODING, ParquetReader.DIRECT_DECODING.getValue());
+        readerFactoryProperties.put(ParquetReader.PROJECTED_FIELDS, "favorite_color, ${extra.field}");
+        parquetReaderFactory.onEnabled(readerFactoryConfigContext);
+
+        final int numUsers = 10;
+        final File parquetFile = writeUsers("testReadUsersWithProjectedFields", numUsers, ParquetWriter.DEFAULT_BLOCK_SIZE);
+        final byte[] parquetBytes = IOUtils.toByteArray(parquetFile.toURI());
+
+        try (final InputStream in = new ByteArrayInputStream(parquetBytes);
+             final RecordReader recordReader = parquetReaderFactory.createRecordReader(
+                     Collections.singletonMap("extra.field", "name"), in, parquetFile.length(), componentLog)) {
+
+            // The fields are in the order of the file rather than the order in which they are listed
+            assertEquals(Arrays.asList("name", "favorite_color"), recordReader.getSchema().getFieldNames());
+
+            for (int i = 0; i < numUsers; i++) {
+                final Record record = recordReader.nextRecord();
+                assertEquals("Bob" + i, record.getValue("name"));
+                assertNull(record.getValue("favorite_number"));
+                assertEquals("blue" + i, record.getValue("favorite_color"));
+            }
+            assertNull(recordReader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testReadUsersWithConcurrentRowGroupDecoding() throws IOException, MalformedRecordException {
+        readerFactoryProperties.put(ParquetReader.RECORD_DECODING, ParquetReader.DIRECT_DECODING.getValue());
+        readerFactoryProperties.put(ParquetReader.ROW_GROUP_DECODING_THREADS, "4");
+        parquetReaderFactory.onEnabled(readerFactoryConfigContext);
+
+        // A small row group size results in many row groups
+        final int numUsers = 5000;
+        final File parquetFile = writeUsers("testReadUsersWithConcurrentRowGroupDecoding", numUsers, 1024);
+        final byte[] parquetBytes = IOUtils.toByteArray(parquetFile.toURI());
+
+        try (final InputStream in = new ByteArrayInputStream(parquetBytes);
+             final RecordReader recordReader = parquetReaderFactory.createRecordReader(
+                     Collections.emptyMap(), in, parquetFile.length(), componentLog)) {
+
+            for (int i = 0; i < numUsers; i++) {
+                final Record record = recordReader.nextRecord();
+                assertEquals("Bob" + i, record.getValue("name"));
+                assertEquals(i, record.getValue("favorite_number"));
+            }
+            assertNull(recordReader.nextRecord());
+        } finally {
+            parquetReaderFactory.onDisabled();
+        }
+    }
+
+    @Test
+    public void testCloseWhileRowGroupsAreDecoded() throws IOException, MalformedRecordException, InterruptedException {
+        // Counts the row groups whose decoding is in progress. The count is updated within the task itself, so it is
+        // decremented before the task's Future completes.
+        final AtomicInteger decodingRowGroups = new AtomicInteger(0);
+        final ExecutorService executor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+                return new FutureTask<>(() -> {
+                    decodingRowGroups.incrementAndGet();
+                    try {
+                        return callable.call();
+                    } finally {
+                        decodingRowGroups.decrementAndGet();
+                    }
+                });
+            }
+        };
+
+        try {
+            final int numUsers = 20000;
+            final File parquetFile = writeUsers("testCloseWhileRowGroupsAreDecoded", numUsers, 1024);
+            final byte[] parquetBytes = IOUtils.toByteArray(parquetFile.toURI());
+
+            for (int iteration = 0; iteration < 20; iteration++) {
+                final RecordReader recordReader = new DirectParquetRecordReader(new ByteArrayInputStream(parquetBytes), parquetBytes.length,
+                        new Configuration(), null, executor, 8);
+
+                // Close the reader part-way through the file, while later row groups are still queued or being decoded
+                for (int i = 0; i < 10; i++) {
+                    assertEquals("Bob" + i, recordReader.nextRecord().getValue("name"));
+                }
+                recordReader.close();
+
+                assertEquals(0, decodingRowGroups.get());
+            }
+
+            // Closing must not leave anything behind that prevents the executor from being used by another reader
+            try (final RecordReader recordReader = new DirectParquetRecordReader(new ByteArrayInputStream(parquetBytes), parquetBytes.length,
+                    new Configuration(), null, executor, 8)) {
+                int recordCount = 0;
+                while (recordReader.nextRecord() != null) {
+                    recordCount++;
+                }
+                assertEquals(numUsers, recordCount);
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing, to compare the throughput of the ways in which records can be decoded")
+    public void testDecodingThroughput() throws IOException, MalformedRecordException {
+        final int numUsers = 2_000_000;
+        final File parquetFile = writeUsers("testDecodingThroughput", numUsers, 8 * 1024 * 1024);
+        final byte[] parquetBytes = IOUtils.toByteArray(parquetFile.toURI());
+
+        final String[][] configurations = {
+                {ParquetReader.AVRO_DECODING.getValue(), null, "1"},
+                {ParquetReader.DIRECT_DECODING.getValue(), null, "1"},
+                {ParquetReader.DIRECT_DECODING.getValue(), "name", "1"},
+                {ParquetReader.DIRECT_DECODING.getValue(), null, "4"}
+        };
+
+        for (final String[] configuration : configurations) {
+            readerFactoryProperties.put(ParquetReader.RECORD_DECODING, configuration[0]);
+            if (configuration[1] == null) {
+                readerFactoryProperties.remove(ParquetReader.PROJECTED_FIELDS);
+            } else {
+                readerFactoryProperties.put(ParquetReader.PROJECTED_FIELDS, configuration[1]);
+            }
+            readerFactoryProperties.put(ParquetReader.ROW_GROUP_DECODING_THREADS, configuration[2]);
+            parquetReaderFactory.onEnabled(readerFactoryConfigContext);
+
+            for (int iteration = 0; iteration < 3; iteration++) {
+                final long start = System.nanoTime();
+                int recordCount = 0;
+                try (final InputStream in = new ByteArrayInputStream(parquetBytes);
+                     final RecordReader recordReader = parquetReaderFactory.createRecordReader(
+                             Collections.emptyMap(), in, parquetFile.length(), componentLog)) {
+                    while (recordReader.nextRecord() != null) {
+                        recordCount++;
+                    }
+                }
+
+                final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                System.out.println(String.format("Decoding=%s, Projected Fields=%s, Threads=%s: read %d records in %d millis (%d records/sec)",
+                        configuration[0], configuration[1], configuration[2], recordCount, millis, recordCount * 1000L / Math.max(1L, millis)));
+            }
+
+            parquetReaderFactory.onDisabled();
+        }
+    }
+
+    private File writeUsers(final String testName, final int numUsers, final int rowGroupSize) throws IOException {
+        final Schema schema = getSchema("src/test/resources/avro/user.avsc");
+        final File parquetFile = new File("target/TestParquetReader-" + testName + "-" + System.currentTimeMillis());
+
+        try (final ParquetWriter<GenericRecord> writer = createParquetWriter(schema, parquetFile, rowGroupSize)) {
+            for (int i = 0; i < numUsers; i++) {
+                final GenericRecord user = new GenericData.Record(schema);
+                user.put("name", "Bob" + i);
+                user.put("favorite_number", i);
+                user.put("favorite_color", "blue" + i);
+                writer.write(user);
+            }
+        }
+
+        return parquetFile;
+    }
+
     private Schema getSchema(final String schemaFilePath) throws IOException {
         final File schemaFile = new File(schemaFilePath);
         final String schemaString = IOUtils.toString(new FileInputStream(schemaFile), StandardCharsets.UTF_8);
@@ -113,6 +320,10 @@ public class TestParquetReader {
     }
 
     private ParquetWriter<GenericRecord> createParquetWriter(final Schema schema, final File parquetFile) throws IOException {
+        return createParquetWriter(schema, parquetFile, ParquetWriter.DEFAULT_BLOCK_SIZE);
+    }
+
+    private ParquetWriter<GenericRecord> createParquetWriter(final Schema schema, final File parquetFile, final int rowGroupSize) throws IOException {
         final Configuration conf = new Configuration();
         final Path parquetPath = new Path(parquetFile.getPath());
 
@@ -120,6 +331,7 @@ public class TestParquetReader {
                 AvroParquetWriter.<GenericRecord>builder(parquetPath)
                         .withSchema(schema)
                         .withConf(conf)
+                        .withRowGroupSize(rowGroupSize)
                         .build();
 
         return writer;
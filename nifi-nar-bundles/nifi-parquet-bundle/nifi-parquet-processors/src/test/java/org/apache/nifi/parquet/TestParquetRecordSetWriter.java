@@ -23,10 +23,13 @@ import org.apache.hadoop.fs.Path;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.parquet.record.BoundedMemoryParquetWriter;
+import org.apache.nifi.parquet.record.WriteParquetResult;
 import org.apache.nifi.schema.access.SchemaAccessUtils;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
 import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordSchema;
@@ -35,6 +38,7 @@ import org.apache.nifi.util.MockComponentLog;
 import org.apache.nifi.util.MockConfigurationContext;
 import org.apache.parquet.avro.AvroParquetReader;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.apache.parquet.io.InputFile;
 import org.junit.Before;
@@ -49,6 +53,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestParquetRecordSetWriter {
 
@@ -98,6 +103,42 @@ public class TestParquetRecordSetWriter {
         verifyParquetRecords(parquetFile, numUsers);
     }
 
+    @Test
+    public void testWriteUsersReportsMemoryAllocation() throws IOException, SchemaNotFoundException {
+        initRecordSetWriter("src/test/resources/avro/user.avsc");
+
+        final RecordSchema writeSchema = recordSetWriterFactory.getSchema(Collections.emptyMap(), null);
+        final File parquetFile = new File("target/testWriterUsersMemoryAllocation-" + System.currentTimeMillis());
+        final int openWriterCount = BoundedMemoryParquetWriter.getOpenWriterCount();
+
+        final WriteResult writeResult;
+        try (final OutputStream output = new FileOutputStream(parquetFile);
+            final RecordSetWriter recordSetWriter = recordSetWriterFactory.createWriter(componentLog, writeSchema, output, Collections.emptyMap())) {
+            assertEquals(openWriterCount + 1, BoundedMemoryParquetWriter.getOpenWriterCount());
+
+            recordSetWriter.beginRecordSet();
+            for (int i = 0; i < 10; i++) {
+                final Map<String, Object> userFields = new HashMap<>();
+                userFields.put("name", "user" + i);
+                userFields.put("favorite_number", i);
+                userFields.put("favorite_color", "blue");
+                recordSetWriter.write(new MapRecord(writeSchema, userFields));
+            }
+            writeResult = recordSetWriter.finishRecordSet();
+        }
+
+        // closing the writer releases its share of the memory pool
+        assertEquals(openWriterCount, BoundedMemoryParquetWriter.getOpenWriterCount());
+        assertEquals(10, writeResult.getRecordCount());
+
+        final long requested = Long.parseLong(writeResult.getAttributes().get(WriteParquetResult.REQUESTED_MEMORY_ALLOCATION_ATTRIBUTE));
+        final long allocated = Long.parseLong(writeResult.getAttributes().get(WriteParquetResult.MEMORY_ALLOCATION_ATTRIBUTE));
+        assertEquals(ParquetWriter.DEFAULT_BLOCK_SIZE, requested);
+        assertTrue(allocated > 0 && allocated <= requested);
+
+        verifyParquetRecords(parquetFile, 10);
+    }
+
     private void initRecordSetWriter(final String schemaFile) throws IOException {
         final ConfigurationContext configurationContext = getConfigurationContextWithSchema(schemaFile);
 
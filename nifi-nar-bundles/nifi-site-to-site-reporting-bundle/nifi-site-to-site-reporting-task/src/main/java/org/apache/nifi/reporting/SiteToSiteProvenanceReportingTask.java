@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.json.Json;
@@ -50,6 +51,7 @@ import org.apache.nifi.annotation.behavior.Stateful;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.annotation.lifecycle.OnUnscheduled;
 import org.apache.nifi.avro.AvroTypeUtil;
 import org.apache.nifi.components.AllowableValue;
@@ -63,8 +65,8 @@ import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventType;
-import org.apache.nifi.remote.Transaction;
-import org.apache.nifi.remote.TransferDirection;
+import org.apache.nifi.remote.TransactionCompletion;
+import org.apache.nifi.remote.client.TransactionPipeline;
 import org.apache.nifi.reporting.s2s.SiteToSiteUtils;
 import org.apache.nifi.reporting.util.provenance.ProvenanceEventConsumer;
 
@@ -181,6 +183,7 @@ public class SiteToSiteProvenanceReportingTask extends AbstractSiteToSiteReporti
             .build();
 
     private volatile ProvenanceEventConsumer consumer;
+    private volatile TransactionPipeline pipeline;
 
     public SiteToSiteProvenanceReportingTask() throws IOException {
         final InputStream schema = getClass().getClassLoader().getResourceAsStream("schema-provenance.avsc");
@@ -234,6 +237,10 @@ public class SiteToSiteProvenanceReportingTask extends AbstractSiteToSiteReporti
         }
 
         consumer.setScheduled(true);
+
+        closePipeline();
+        // The client is created lazily in onTrigger, so the pipeline looks it up for each Transaction
+        pipeline = new TransactionPipeline(this::getClient, context.getProperty(SiteToSiteUtils.MAX_TRANSACTIONS_IN_FLIGHT).asInteger());
     }
 
     @OnUnscheduled
@@ -243,6 +250,15 @@ public class SiteToSiteProvenanceReportingTask extends AbstractSiteToSiteReporti
         }
     }
 
+    @OnStopped
+    public void closePipeline() {
+        final TransactionPipeline pipeline = this.pipeline;
+        if (pipeline != null) {
+            pipeline.close();
+            this.pipeline = null;
+        }
+    }
+
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
@@ -256,6 +272,7 @@ public class SiteToSiteProvenanceReportingTask extends AbstractSiteToSiteReporti
         properties.add(FILTER_COMPONENT_NAME);
         properties.add(FILTER_COMPONENT_NAME_EXCLUDE);
         properties.add(START_POSITION);
+        properties.add(SiteToSiteUtils.MAX_TRANSACTIONS_IN_FLIGHT);
         return properties;
     }
 
@@ -291,7 +308,8 @@ public class SiteToSiteProvenanceReportingTask extends AbstractSiteToSiteReporti
         final DateFormat df = new SimpleDateFormat(TIMESTAMP_FORMAT);
         df.setTimeZone(TimeZone.getTimeZone("Z"));
 
-        consumer.consumeEvents(context, (mapHolder, events) -> {
+        final TransactionPipeline pipeline = this.pipeline;
+        consumer.consumeEventsAsync(context, (mapHolder, events) -> {
             final long start = System.nanoTime();
             // Create a JSON array of all the events in the current batch
             final JsonArrayBuilder arrayBuilder = factory.createArrayBuilder();
@@ -303,45 +321,40 @@ public class SiteToSiteProvenanceReportingTask extends AbstractSiteToSiteReporti
             }
             final JsonArray jsonArray = arrayBuilder.build();
 
-            // Send the JSON document for the current batch
-            Transaction transaction = null;
+            final Map<String, String> attributes = new HashMap<>();
+            final String transactionId = UUID.randomUUID().toString();
+            attributes.put("reporting.task.transaction.id", transactionId);
+            attributes.put("reporting.task.name", getName());
+            attributes.put("reporting.task.uuid", getIdentifier());
+            attributes.put("reporting.task.type", this.getClass().getSimpleName());
+            attributes.put("mime.type", "application/json");
+
+            // Send the JSON document for the current batch. Up to 'Max Transactions In Flight' batches are sent concurrently;
+            // the consumer only records a batch as sent once it and all batches before it have been acknowledged.
+            final CompletableFuture<TransactionCompletion> future;
             try {
                 // Lazily create SiteToSiteClient to provide a StateManager
                 setup(context);
 
-                transaction = getClient().createTransaction(TransferDirection.SEND);
-                if (transaction == null) {
-                    // Throw an exception to avoid provenance event id will not proceed so that those can be consumed again.
-                    throw new ProcessException("All destination nodes are penalized; will attempt to send data later");
-                }
-
-                final Map<String, String> attributes = new HashMap<>();
-                final String transactionId = UUID.randomUUID().toString();
-                attributes.put("reporting.task.transaction.id", transactionId);
-                attributes.put("reporting.task.name", getName());
-                attributes.put("reporting.task.uuid", getIdentifier());
-                attributes.put("reporting.task.type", this.getClass().getSimpleName());
-                attributes.put("mime.type", "application/json");
+                future = pipeline.send(transaction -> sendData(context, transaction, attributes, jsonArray));
+            } catch (final IOException e) {
+                throw new ProcessException("Failed to send Provenance Events to destination due to IOException:" + e.getMessage(), e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessException("Interrupted while sending Provenance Events to destination", e);
+            }
 
-                sendData(context, transaction, attributes, jsonArray);
-                transaction.confirm();
-                transaction.complete();
+            return future.handle((completion, failure) -> {
+                if (failure != null) {
+                    throw new ProcessException("Failed to send Provenance Events to destination due to " + failure.getMessage(), failure);
+                }
 
                 final long transferMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
                 getLogger().info("Successfully sent {} Provenance Events to destination in {} ms; Transaction ID = {}; First Event ID = {}",
                         new Object[] {events.size(), transferMillis, transactionId, events.get(0).getEventId()});
-            } catch (final Exception e) {
-                if (transaction != null) {
-                    transaction.error();
-                }
-                if (e instanceof ProcessException) {
-                    throw (ProcessException) e;
-                } else {
-                    throw new ProcessException("Failed to send Provenance Events to destination due to IOException:" + e.getMessage(), e);
-                }
-            }
+                return completion;
+            });
         });
-
     }
 
 
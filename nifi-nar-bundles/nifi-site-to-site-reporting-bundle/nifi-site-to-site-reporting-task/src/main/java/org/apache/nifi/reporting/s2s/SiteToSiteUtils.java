@@ -98,6 +98,16 @@ public class SiteToSiteUtils {
             .defaultValue("1000")
             .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
             .build();
+    public static final PropertyDescriptor MAX_TRANSACTIONS_IN_FLIGHT = new PropertyDescriptor.Builder()
+            .name("s2s-max-transactions-in-flight")
+            .displayName("Max Transactions In Flight")
+            .description("Specifies how many batches may be sent to the destination concurrently, each in its own Site-to-Site transaction. "
+                    + "Increasing this value allows the round trip needed to acknowledge one batch to overlap with sending the next, "
+                    + "which improves throughput when the destination is far away.")
+            .required(true)
+            .defaultValue("1")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
     public static final PropertyDescriptor TRANSPORT_PROTOCOL = new PropertyDescriptor.Builder()
             .name("s2s-transport-protocol")
             .displayName("Transport Protocol")
@@ -171,6 +181,7 @@ public class SiteToSiteUtils {
         if (stateManager == null && reportContext instanceof ReportingContext) {
             stateManager = ((ReportingContext) reportContext).getStateManager();
         }
+        final Integer maxTransactionsInFlight = reportContext.getProperty(SiteToSiteUtils.MAX_TRANSACTIONS_IN_FLIGHT).asInteger();
         return new SiteToSiteClient.Builder()
                 .urls(SiteToSiteRestApiClient.parseClusterUrls(destinationUrl))
                 .portName(reportContext.getProperty(SiteToSiteUtils.PORT_NAME).getValue())
@@ -181,6 +192,7 @@ public class SiteToSiteUtils {
                 .transportProtocol(mode)
                 .httpProxy(httpProxy)
                 .stateManager(stateManager)
+                .maxTransactionsInFlight(maxTransactionsInFlight == null ? 1 : maxTransactionsInFlight)
                 .build();
     }
 
@@ -19,6 +19,7 @@ package org.apache.nifi.reporting;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +28,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -223,6 +225,29 @@ public class TestSiteToSiteProvenanceReportingTask {
         assertNull(msgArray.get("emptyVal"));
     }
 
+    @Test
+    public void testMultipleTransactionsInFlight() throws IOException, InitializationException {
+        final Map<PropertyDescriptor, String> properties = new HashMap<>();
+        for (final PropertyDescriptor descriptor : new MockSiteToSiteProvenanceReportingTask().getSupportedPropertyDescriptors()) {
+            properties.put(descriptor, descriptor.getDefaultValue());
+        }
+        properties.put(SiteToSiteUtils.BATCH_SIZE, "1000");
+        properties.put(SiteToSiteUtils.MAX_TRANSACTIONS_IN_FLIGHT, "3");
+
+        ProvenanceEventRecord event = createProvenanceEventRecord();
+
+        MockSiteToSiteProvenanceReportingTask task = setup(event, properties);
+        task.initialize(initContext);
+        task.onScheduled(confContext);
+        task.onTrigger(context);
+
+        assertEquals(3, task.dataSent.size());
+        for (final byte[] data : task.dataSent) {
+            final JsonReader jsonReader = Json.createReader(new ByteArrayInputStream(data));
+            assertFalse(jsonReader.readArray().isEmpty());
+        }
+    }
+
     @Test
     public void testSerializedFormWithNullValues() throws IOException, InitializationException {
         final Map<PropertyDescriptor, String> properties = new HashMap<>();
@@ -674,7 +699,7 @@ public class TestSiteToSiteProvenanceReportingTask {
             super();
         }
 
-        final List<byte[]> dataSent = new ArrayList<>();
+        final List<byte[]> dataSent = Collections.synchronizedList(new ArrayList<>());
 
         @Override
         public void setup(ReportingContext reportContext) throws IOException {
@@ -29,12 +29,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 
+import org.apache.commons.compress.compressors.CompressorException;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
@@ -50,17 +54,24 @@ import org.apache.nifi.annotation.behavior.SystemResourceConsideration;
 import org.apache.nifi.annotation.behavior.WritesAttribute;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.BufferLease;
 import org.apache.nifi.processor.io.StreamCallback;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.standard.util.ParallelCompressionOutputStream;
+import org.apache.nifi.processors.standard.util.ParallelCompressionOutputStream.CompressionStreamFactory;
 import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.util.StopWatch;
 import org.tukaani.xz.LZMA2Options;
@@ -137,6 +148,26 @@ public class CompressContent extends AbstractProcessor {
         .allowableValues("true", "false")
         .defaultValue("false")
         .build();
+    public static final PropertyDescriptor COMPRESSION_THREADS = new PropertyDescriptor.Builder()
+        .name("compression-threads")
+        .displayName("Compression Threads")
+        .description("The number of threads to use for compressing a single FlowFile. If greater than 1, the content is divided into blocks of the configured "
+            + "Block Size that are compressed concurrently and written as a sequence of independently compressed streams, which standard tools decompress "
+            + "as a single stream. This applies only when compressing with gzip, bzip2, xz-lzma2 or lz4-framed; other formats, and decompression, always use "
+            + "a single thread. The threads are shared by all concurrent tasks of this Processor.")
+        .required(true)
+        .defaultValue("1")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+    public static final PropertyDescriptor BLOCK_SIZE = new PropertyDescriptor.Builder()
+        .name("compression-block-size")
+        .displayName("Block Size")
+        .description("The amount of uncompressed data in each block when more than one Compression Thread is used. Larger blocks compress slightly better, "
+            + "while up to twice the number of Compression Threads blocks may be held in memory for each concurrent task.")
+        .required(true)
+        .defaultValue("1 MB")
+        .addValidator(StandardValidators.createDataSizeBoundsValidator(64 * 1024, Integer.MAX_VALUE / 2))
+        .build();
 
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
     .name("success")
@@ -150,6 +181,7 @@ public class CompressContent extends AbstractProcessor {
     private List<PropertyDescriptor> properties;
     private Set<Relationship> relationships;
     private Map<String, String> compressionFormatMimeTypeMap;
+    private volatile ExecutorService compressionExecutor;
 
     @Override
     protected void init(final ProcessorInitializationContext context) {
@@ -158,6 +190,8 @@ public class CompressContent extends AbstractProcessor {
         properties.add(COMPRESSION_FORMAT);
         properties.add(COMPRESSION_LEVEL);
         properties.add(UPDATE_FILENAME);
+        properties.add(COMPRESSION_THREADS);
+        properties.add(BLOCK_SIZE);
         this.properties = Collections.unmodifiableList(properties);
 
         final Set<Relationship> relationships = new HashSet<>();
@@ -189,6 +223,33 @@ public class CompressContent extends AbstractProcessor {
         return properties;
     }
 
+    @OnScheduled
+    public void setupExecutor(final ProcessContext context) {
+        final int threads = context.getProperty(COMPRESSION_THREADS).asInteger();
+        if (threads > 1) {
+            compressionExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread t = defaultFactory.newThread(r);
+                    t.setName("CompressContent " + getIdentifier() + " Compression Thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+    }
+
+    @OnStopped
+    public void shutdownExecutor() {
+        final ExecutorService executor = compressionExecutor;
+        compressionExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) {
         FlowFile flowFile = session.get();
@@ -220,6 +281,9 @@ public class CompressContent extends AbstractProcessor {
 
         final String compressionFormat = compressionFormatValue;
         final AtomicReference<String> mimeTypeRef = new AtomicReference<>(null);
+        final ExecutorService executor = compressionExecutor;
+        final int compressionThreads = context.getProperty(COMPRESSION_THREADS).asInteger();
+        final int blockSize = context.getProperty(BLOCK_SIZE).asDataSize(DataUnit.B).intValue();
         final StopWatch stopWatch = new StopWatch(true);
 
         final String fileExtension;
@@ -270,7 +334,8 @@ public class CompressContent extends AbstractProcessor {
                             switch (compressionFormat.toLowerCase()) {
                                 case COMPRESSION_FORMAT_GZIP:
                                     int compressionLevel = context.getProperty(COMPRESSION_LEVEL).asInteger();
-                                    compressionOut = new GZIPOutputStream(bufferedOut, compressionLevel);
+                                    compressionOut = createBlockCompressionStream(bufferedOut, executor, compressionThreads, blockSize,
+                                        blockOut -> new GZIPOutputStream(blockOut, compressionLevel));
                                     mimeTypeRef.set("application/gzip");
                                     break;
                                 case COMPRESSION_FORMAT_DEFLATE:
@@ -284,7 +349,8 @@ public class CompressContent extends AbstractProcessor {
                                     break;
                                 case COMPRESSION_FORMAT_XZ_LZMA2:
                                     final int xzCompressionLevel = context.getProperty(COMPRESSION_LEVEL).asInteger();
-                                    compressionOut = new XZOutputStream(bufferedOut, new LZMA2Options(xzCompressionLevel));
+                                    compressionOut = createBlockCompressionStream(bufferedOut, executor, compressionThreads, blockSize,
+                                        blockOut -> new XZOutputStream(blockOut, new LZMA2Options(xzCompressionLevel)));
                                     mimeTypeRef.set("application/x-xz");
                                     break;
                                 case COMPRESSION_FORMAT_SNAPPY:
@@ -297,9 +363,14 @@ public class CompressContent extends AbstractProcessor {
                                     break;
                                 case COMPRESSION_FORMAT_LZ4_FRAMED:
                                     mimeTypeRef.set("application/x-lz4-framed");
-                                    compressionOut = new CompressorStreamFactory().createCompressorOutputStream(compressionFormat.toLowerCase(), bufferedOut);
+                                    compressionOut = createBlockCompressionStream(bufferedOut, executor, compressionThreads, blockSize,
+                                        blockOut -> createCompressorOutputStream(compressionFormat, blockOut));
                                     break;
                                 case COMPRESSION_FORMAT_BZIP2:
+                                    mimeTypeRef.set("application/x-bzip2");
+                                    compressionOut = createBlockCompressionStream(bufferedOut, executor, compressionThreads, blockSize,
+                                        blockOut -> createCompressorOutputStream(compressionFormat, blockOut));
+                                    break;
                                 default:
                                     mimeTypeRef.set("application/x-bzip2");
                                     compressionOut = new CompressorStreamFactory().createCompressorOutputStream(compressionFormat.toLowerCase(), bufferedOut);
@@ -344,10 +415,12 @@ public class CompressContent extends AbstractProcessor {
 
                     try (final InputStream in = compressionIn;
                         final OutputStream out = compressionOut) {
-                        final byte[] buffer = new byte[8192];
-                        int len;
-                        while ((len = in.read(buffer)) > 0) {
-                            out.write(buffer, 0, len);
+                        try (final BufferLease lease = session.leaseBuffer(8192)) {
+                            final byte[] buffer = lease.getBuffer();
+                            int len;
+                            while ((len = in.read(buffer)) > 0) {
+                                out.write(buffer, 0, len);
+                            }
                         }
                         out.flush();
                     }
@@ -384,6 +457,27 @@ public class CompressContent extends AbstractProcessor {
         }
     }
 
+    /**
+     * Creates the stream that compresses content using the given factory. If an ExecutorService is available, the content is
+     * compressed in blocks, concurrently; otherwise, it is compressed as a single stream by the calling thread.
+     */
+    private OutputStream createBlockCompressionStream(final OutputStream out, final ExecutorService executor, final int threads, final int blockSize,
+                                                      final CompressionStreamFactory streamFactory) throws IOException {
+        if (executor == null || threads < 2) {
+            return streamFactory.create(out);
+        }
+
+        return new ParallelCompressionOutputStream(out, executor, threads, blockSize, streamFactory);
+    }
+
+    private OutputStream createCompressorOutputStream(final String compressionFormat, final OutputStream out) throws IOException {
+        try {
+            return new CompressorStreamFactory().createCompressorOutputStream(compressionFormat.toLowerCase(), out);
+        } catch (final CompressorException e) {
+            throw new IOException(e);
+        }
+    }
+
     private void closeQuietly(final Closeable closeable) {
         if (closeable != null) {
             try {
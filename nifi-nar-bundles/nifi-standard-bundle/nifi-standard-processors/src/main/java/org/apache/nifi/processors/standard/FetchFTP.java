@@ -74,6 +74,9 @@ public class FetchFTP extends FetchFileTransfer {
         properties.add(FTPTransfer.HTTP_PROXY_PASSWORD);
         properties.add(FTPTransfer.BUFFER_SIZE);
         properties.add(FILE_NOT_FOUND_LOG_LEVEL);
+        properties.add(PARALLEL_DOWNLOAD_CONNECTIONS);
+        properties.add(PARALLEL_DOWNLOAD_THRESHOLD);
+        properties.add(PARALLEL_DOWNLOAD_CHUNK_SIZE);
         return properties;
     }
 
@@ -27,6 +27,7 @@ import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.logging.LogLevel;
 import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
@@ -40,14 +41,22 @@ import org.apache.nifi.util.Tuple;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -127,6 +136,36 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
         .required(true)
         .build();
 
+    static final PropertyDescriptor PARALLEL_DOWNLOAD_CONNECTIONS = new PropertyDescriptor.Builder()
+        .displayName("Parallel Download Connections")
+        .name("fetchfiletransfer-parallel-download-connections")
+        .description("The number of connections to the remote host that are used to fetch a single large file. When greater than 1, a file that is at least "
+            + "as large as the Parallel Download Threshold is fetched in chunks, with different chunks being read over different connections at the same time. "
+            + "This can greatly increase throughput over connections with high latency. The size of the file is taken from the 'file.size' attribute, which is "
+            + "written by the List processors; files without this attribute are always fetched over a single connection. Connections are taken from the pool of "
+            + "idle connections to the same host when possible, so the maximum number of connections to a host is the number of Concurrent Tasks multiplied by this value.")
+        .addValidator(StandardValidators.createLongValidator(1, 64, true))
+        .defaultValue("1")
+        .required(true)
+        .build();
+    static final PropertyDescriptor PARALLEL_DOWNLOAD_THRESHOLD = new PropertyDescriptor.Builder()
+        .displayName("Parallel Download Threshold")
+        .name("fetchfiletransfer-parallel-download-threshold")
+        .description("The minimum size of a file that is fetched over more than one connection. Ignored unless Parallel Download Connections is greater than 1.")
+        .addValidator(StandardValidators.DATA_SIZE_VALIDATOR)
+        .defaultValue("100 MB")
+        .required(true)
+        .build();
+    static final PropertyDescriptor PARALLEL_DOWNLOAD_CHUNK_SIZE = new PropertyDescriptor.Builder()
+        .displayName("Parallel Download Chunk Size")
+        .name("fetchfiletransfer-parallel-download-chunk-size")
+        .description("The size of each chunk that is read when a file is fetched over more than one connection. Up to two chunks per connection are held in "
+            + "memory while a file is being fetched. Ignored unless Parallel Download Connections is greater than 1.")
+        .addValidator(StandardValidators.createDataSizeBoundsValidator(1, Integer.MAX_VALUE))
+        .defaultValue("4 MB")
+        .required(true)
+        .build();
+
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
         .name("success")
         .description("All FlowFiles that are received are routed to success")
@@ -148,6 +187,7 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
     private final long IDLE_CONNECTION_MILLIS = TimeUnit.SECONDS.toMillis(10L); // amount of time to wait before closing an idle connection
     private volatile long lastClearTime = System.currentTimeMillis();
     private LogLevel levelFileNotFound = LogLevel.ERROR;
+    private volatile ExecutorService downloadExecutor;
 
     @Override
     public Set<Relationship> getRelationships() {
@@ -162,6 +202,20 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
     @OnScheduled
     public void onScheduled(final ProcessContext context) {
         levelFileNotFound = LogLevel.valueOf(context.getProperty(FILE_NOT_FOUND_LOG_LEVEL).getValue());
+
+        if (context.getProperty(PARALLEL_DOWNLOAD_CONNECTIONS).asInteger() > 1) {
+            downloadExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread t = defaultFactory.newThread(r);
+                    t.setName(getClass().getSimpleName() + " " + getIdentifier() + " Download Thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
     }
 
 
@@ -199,6 +253,12 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
 
     @OnStopped
     public void cleanup() {
+        final ExecutorService executor = downloadExecutor;
+        downloadExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
         // close all connections
         closeConnections(true);
     }
@@ -212,6 +272,9 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
         properties.add(COMPLETION_STRATEGY);
         properties.add(MOVE_DESTINATION_DIR);
         properties.add(MOVE_CREATE_DIRECTORY);
+        properties.add(PARALLEL_DOWNLOAD_CONNECTIONS);
+        properties.add(PARALLEL_DOWNLOAD_THRESHOLD);
+        properties.add(PARALLEL_DOWNLOAD_CHUNK_SIZE);
         return properties;
     }
 
@@ -258,7 +321,12 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
         try {
             // Pull data from remote system.
             try {
-                flowFile = transfer.getRemoteFile(filename, flowFile, session);
+                final ExecutorService executor = downloadExecutor;
+                if (executor != null && isParallelDownload(context, flowFile) && transfer.isRemoteFileRangeSupported(flowFile)) {
+                    flowFile = getRemoteFileInParallel(context, executor, transfer, transferQueue, filename, flowFile, session);
+                } else {
+                    flowFile = transfer.getRemoteFile(filename, flowFile, session);
+                }
 
             } catch (final FileNotFoundException e) {
                 closeConnection = false;
@@ -355,6 +423,142 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
     }
 
 
+    private boolean isParallelDownload(final ProcessContext context, final FlowFile flowFile) {
+        if (context.getProperty(PARALLEL_DOWNLOAD_CONNECTIONS).asInteger() < 2) {
+            return false;
+        }
+
+        final long expectedSize = getExpectedFileSize(flowFile);
+        return expectedSize >= 0 && expectedSize >= context.getProperty(PARALLEL_DOWNLOAD_THRESHOLD).asDataSize(DataUnit.B).longValue();
+    }
+
+    private static long getExpectedFileSize(final FlowFile flowFile) {
+        final String fileSize = flowFile.getAttribute(ListFile.FILE_SIZE_ATTRIBUTE);
+        if (fileSize == null) {
+            return -1L;
+        }
+
+        try {
+            return Long.parseLong(fileSize.trim());
+        } catch (final NumberFormatException nfe) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Fetches the remote file in chunks, reading different chunks over different connections to the same host at the same time, and writing the chunks
+     * to the FlowFile in order. The number of chunks that are held in memory is bounded by twice the number of connections.
+     */
+    private FlowFile getRemoteFileInParallel(final ProcessContext context, final ExecutorService executor, final FileTransfer transfer,
+                                             final BlockingQueue<FileTransferIdleWrapper> transferQueue, final String filename,
+                                             final FlowFile flowFile, final ProcessSession session) throws IOException {
+        final int connectionCount = context.getProperty(PARALLEL_DOWNLOAD_CONNECTIONS).asInteger();
+        final int chunkSize = context.getProperty(PARALLEL_DOWNLOAD_CHUNK_SIZE).asDataSize(DataUnit.B).intValue();
+        final int maxPendingChunks = 2 * connectionCount;
+        final long expectedSize = getExpectedFileSize(flowFile);
+
+        // Each chunk is read over whichever connection is free. Additional connections are borrowed from the pool for this host.
+        final BlockingQueue<FileTransfer> connections = new LinkedBlockingQueue<>();
+        connections.offer(transfer);
+        final List<FileTransfer> additionalTransfers = new ArrayList<>();
+        for (int i = 1; i < connectionCount; i++) {
+            final FileTransferIdleWrapper wrapper = transferQueue.poll();
+            final FileTransfer additionalTransfer = wrapper == null ? createFileTransfer(context) : wrapper.getFileTransfer();
+            additionalTransfers.add(additionalTransfer);
+            connections.offer(additionalTransfer);
+        }
+
+        final Deque<Future<Chunk>> pendingChunks = new ArrayDeque<>();
+        final long[] nextOffset = new long[] {0L};
+        final Runnable requestChunks = () -> {
+            // Keep every connection busy until the expected size has been requested. Beyond that, the file must have grown, so read one chunk at a time.
+            while (pendingChunks.size() < maxPendingChunks && (nextOffset[0] <= expectedSize || pendingChunks.isEmpty())) {
+                final long offset = nextOffset[0];
+                pendingChunks.addLast(executor.submit(() -> readChunk(connections, filename, flowFile, offset, chunkSize)));
+                nextOffset[0] += chunkSize;
+            }
+        };
+
+        // A file that cannot be found or read leaves the connections usable, but any other failure may not
+        boolean connectionsUsable = false;
+        try {
+            // Wait for the first chunk before writing to the FlowFile, so that a file that cannot be found or read is reported as such
+            requestChunks.run();
+            final Chunk firstChunk = getChunk(pendingChunks.removeFirst());
+
+            final FlowFile resultFlowFile = session.write(flowFile, out -> {
+                Chunk chunk = firstChunk;
+                out.write(chunk.buffer, 0, chunk.length);
+
+                while (chunk.length == chunkSize) {
+                    requestChunks.run();
+                    chunk = getChunk(pendingChunks.removeFirst());
+                    out.write(chunk.buffer, 0, chunk.length);
+                }
+            });
+
+            connectionsUsable = true;
+            return resultFlowFile;
+        } catch (final FileNotFoundException | PermissionDeniedException e) {
+            connectionsUsable = true;
+            throw e;
+        } finally {
+            // Chunks past the end of the file, or after a failure, may still be being read. Wait for them, so that no connection is still in use
+            // when it is returned to the pool.
+            for (final Future<Chunk> pendingChunk : pendingChunks) {
+                try {
+                    pendingChunk.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (final ExecutionException e) {
+                    if (!(e.getCause() instanceof FileNotFoundException)) {
+                        connectionsUsable = false;
+                    }
+                }
+            }
+
+            for (final FileTransfer additionalTransfer : additionalTransfers) {
+                if (connectionsUsable) {
+                    transferQueue.offer(new FileTransferIdleWrapper(additionalTransfer, System.nanoTime()));
+                } else {
+                    try {
+                        additionalTransfer.close();
+                    } catch (final IOException e) {
+                        getLogger().warn("Failed to close connection due to {}", new Object[] {e}, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Chunk readChunk(final BlockingQueue<FileTransfer> connections, final String filename, final FlowFile flowFile,
+                                   final long offset, final int chunkSize) throws IOException, InterruptedException {
+        final FileTransfer transfer = connections.take();
+        try {
+            final byte[] buffer = new byte[chunkSize];
+            final int length = transfer.getRemoteFileRange(filename, flowFile, offset, buffer);
+            return new Chunk(buffer, length);
+        } finally {
+            connections.offer(transfer);
+        }
+    }
+
+    private static Chunk getChunk(final Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a chunk of the file to be read");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to read a chunk of the file", cause);
+        }
+    }
+
     /**
      * Creates a new instance of a FileTransfer that can be used to pull files from a remote system.
      *
@@ -363,6 +567,19 @@ public abstract class FetchFileTransfer extends AbstractProcessor {
      */
     protected abstract FileTransfer createFileTransfer(ProcessContext context);
 
+    /**
+     * A chunk of the content of a remote file, which is shorter than the chunk size only if it is at the end of the file.
+     */
+    private static class Chunk {
+        private final byte[] buffer;
+        private final int length;
+
+        Chunk(final byte[] buffer, final int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+
     /**
      * Wrapper around a FileTransfer object that is used to know when the FileTransfer was last used, so that
      * we have the ability to close connections that are "idle," or unused for some period of time.
@@ -87,6 +87,10 @@ public class FetchSFTP extends FetchFileTransfer {
         properties.add(FTPTransfer.HTTP_PROXY_USERNAME);
         properties.add(FTPTransfer.HTTP_PROXY_PASSWORD);
         properties.add(FILE_NOT_FOUND_LOG_LEVEL);
+        properties.add(SFTPTransfer.OUTSTANDING_READ_REQUESTS);
+        properties.add(PARALLEL_DOWNLOAD_CONNECTIONS);
+        properties.add(PARALLEL_DOWNLOAD_THRESHOLD);
+        properties.add(PARALLEL_DOWNLOAD_CHUNK_SIZE);
         return properties;
     }
 
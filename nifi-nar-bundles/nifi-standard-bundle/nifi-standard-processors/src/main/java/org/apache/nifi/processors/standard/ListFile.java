@@ -47,9 +47,12 @@ import org.apache.nifi.processors.standard.util.FileInfo;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.util.Tuple;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
@@ -57,6 +60,10 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileOwnerAttributeView;
@@ -64,10 +71,12 @@ import java.nio.file.attribute.PosixFileAttributeView;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -265,6 +274,33 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         .defaultValue("3 mins")
         .build();
 
+    static final AllowableValue CHANGE_DETECTION_NONE = new AllowableValue("none", "None", "Every directory is listed each time that the Processor runs.");
+    static final AllowableValue CHANGE_DETECTION_MODIFICATION_TIME = new AllowableValue("directory-modification-time", "Directory Modification Time",
+        "A snapshot of each directory's listing is held in memory, along with the directory's last modified time, and a directory is listed again only if its last modified time has changed. "
+            + "Adding, removing or renaming a file changes the last modified time of its directory, but writing to an existing file does not, so changes to the size or last modified time of "
+            + "an existing file are not seen until its directory is listed again.");
+    static final AllowableValue CHANGE_DETECTION_WATCH_SERVICE = new AllowableValue("watch-service", "Watch Service",
+        "Behaves as 'Directory Modification Time' but also registers each directory with the operating system's file change notification mechanism (such as inotify on Linux), "
+            + "so that changes to existing files are seen as well. This should only be used when the Input Directory is located on a local disk, as network file systems generally do "
+            + "not deliver change notifications. If the operating system's limit on the number of watched directories is reached, any directory that cannot be watched falls back to "
+            + "'Directory Modification Time'. Because changes cannot be watched while the Processor is stopped, every directory is listed again after the Processor is started.");
+
+    public static final PropertyDescriptor DIRECTORY_CHANGE_DETECTION = new Builder()
+        .name("directory-change-detection")
+        .displayName("Directory Change Detection")
+        .description("Specifies how the Processor determines whether a directory has changed since it was last listed. Directories that have not changed are not listed again; instead, "
+            + "the files that were found the last time are filtered again, which avoids retrieving the attributes of every file on each run. The snapshots are held in memory and "
+            + "are discarded when NiFi is restarted or the Processor's configuration is changed.")
+        .required(true)
+        .allowableValues(CHANGE_DETECTION_NONE, CHANGE_DETECTION_MODIFICATION_TIME, CHANGE_DETECTION_WATCH_SERVICE)
+        .defaultValue(CHANGE_DETECTION_NONE.getValue())
+        .build();
+
+    /**
+     * A directory whose last modified time is within this many milliseconds of the time that its listing began is listed again on the next run, because some file systems
+     * store the last modified time with a granularity of up to 2 seconds, and a change made during that time may not change it.
+     */
+    private static final long DIRECTORY_TIMESTAMP_TOLERANCE_MILLIS = 2000L;
 
     private List<PropertyDescriptor> properties;
     private Set<Relationship> relationships;
@@ -276,6 +312,10 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     private volatile PerformanceTracker performanceTracker;
     private volatile long performanceLoggingTimestamp = System.currentTimeMillis();
     private final AtomicReference<BiPredicate<Path, BasicFileAttributes>> fileFilterRef = new AtomicReference<>();
+    private final AtomicReference<BiPredicate<Path, BasicFileAttributes>> staticFileFilterRef = new AtomicReference<>();
+    private final AtomicReference<BiPredicate<Path, BasicFileAttributes>> ageFileFilterRef = new AtomicReference<>();
+    private volatile Map<Path, DirectorySnapshot> directorySnapshots = Collections.emptyMap();
+    private volatile DirectoryWatcher directoryWatcher;
 
     public static final String FILE_CREATION_TIME_ATTRIBUTE = "file.creationTime";
     public static final String FILE_LAST_MODIFY_TIME_ATTRIBUTE = "file.lastModifiedTime";
@@ -302,8 +342,10 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         properties.add(MIN_SIZE);
         properties.add(MAX_SIZE);
         properties.add(IGNORE_HIDDEN_FILES);
+        properties.add(DIRECTORY_CHANGE_DETECTION);
         properties.add(TARGET_SYSTEM_TIMESTAMP_PRECISION);
         properties.add(ListedEntityTracker.TRACKING_STATE_CACHE);
+        properties.add(ListedEntityTracker.TRACKING_STATE_DIRECTORY);
         properties.add(ListedEntityTracker.TRACKING_TIME_WINDOW);
         properties.add(ListedEntityTracker.INITIAL_LISTING_TARGET);
         properties.add(ListedEntityTracker.NODE_IDENTIFIER);
@@ -336,9 +378,21 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         return relationships;
     }
 
+    @Override
+    public void onPropertyModified(final PropertyDescriptor descriptor, final String oldValue, final String newValue) {
+        super.onPropertyModified(descriptor, oldValue, newValue);
+
+        // The snapshots only hold the files that passed the filters that were configured when they were taken
+        directorySnapshots = Collections.emptyMap();
+    }
+
     @OnScheduled
     public void onScheduled(final ProcessContext context) {
-        fileFilterRef.set(createFileFilter(context));
+        final BiPredicate<Path, BasicFileAttributes> staticFileFilter = createStaticFileFilter(context);
+        final BiPredicate<Path, BasicFileAttributes> ageFileFilter = createAgeFileFilter(context);
+        staticFileFilterRef.set(staticFileFilter);
+        ageFileFilterRef.set(ageFileFilter);
+        fileFilterRef.set(ageFileFilter.and(staticFileFilter));
         includeFileAttributes = context.getProperty(INCLUDE_FILE_ATTRIBUTES).asBoolean();
 
         final long maxDiskOperationMillis = context.getProperty(MAX_DISK_OPERATION_TIME).evaluateAttributeExpressions().asTimePeriod(TimeUnit.MILLISECONDS);
@@ -355,6 +409,15 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         final long millisToKeepStats = TimeUnit.MINUTES.toMillis(15);
         final MonitorActiveTasks monitorTask = new MonitorActiveTasks(performanceTracker, getLogger(), maxDiskOperationMillis, maxListingMillis, millisToKeepStats);
         monitoringFuture = monitoringThreadPool.scheduleAtFixedRate(monitorTask, 15, 15, TimeUnit.SECONDS);
+
+        if (directoryWatcher == null && CHANGE_DETECTION_WATCH_SERVICE.getValue().equals(context.getProperty(DIRECTORY_CHANGE_DETECTION).getValue())) {
+            try {
+                final WatchService watchService = Paths.get(getPath(context)).getFileSystem().newWatchService();
+                directoryWatcher = new DirectoryWatcher(watchService, getLogger());
+            } catch (final IOException | UnsupportedOperationException e) {
+                getLogger().warn("Unable to watch the Input Directory for changes; will use the last modified time of each directory to determine whether it has changed", e);
+            }
+        }
     }
 
     @OnStopped
@@ -363,6 +426,18 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             monitoringFuture.cancel(true);
         }
 
+        final DirectoryWatcher watcher = directoryWatcher;
+        if (watcher != null) {
+            // Changes that are made while the Processor is stopped will not be watched, so every directory must be listed again
+            directoryWatcher = null;
+            directorySnapshots = Collections.emptyMap();
+            try {
+                watcher.close();
+            } catch (final IOException e) {
+                getLogger().warn("Failed to close the service that watches the Input Directory for changes", e);
+            }
+        }
+
         final boolean trackPerformance = context.getProperty(TRACK_PERFORMANCE).asBoolean();
         if (trackPerformance) {
             logPerformance();
@@ -406,6 +481,12 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             logger.debug(sb.toString());
         }
 
+        final long skippedDirectoryCount = performanceTracker.getSkippedDirectoryCount();
+        if (skippedDirectoryCount > 0) {
+            logger.debug("Over the past {} seconds, {} directory listings containing a total of {} entries were not performed because the directories had not changed, "
+                + "saving an estimated {} milliseconds", new Object[] {seconds, skippedDirectoryCount, performanceTracker.getSkippedEntryCount(), performanceTracker.getSkippedDirectoryMillis()});
+        }
+
         performanceLoggingTimestamp = System.currentTimeMillis();
     }
 
@@ -505,6 +586,10 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     protected List<FileInfo> performListing(final ProcessContext context, final Long minTimestamp) throws IOException {
         final Path basePath = new File(getPath(context)).toPath();
         final Boolean recurse = context.getProperty(RECURSE).asBoolean();
+        if (!CHANGE_DETECTION_NONE.getValue().equals(context.getProperty(DIRECTORY_CHANGE_DETECTION).getValue())) {
+            return performIncrementalListing(basePath, recurse, minTimestamp);
+        }
+
         final Map<Path, BasicFileAttributes> lastModifiedMap = new HashMap<>();
 
         final BiPredicate<Path, BasicFileAttributes> fileFilter = fileFilterRef.get();
@@ -623,6 +708,183 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         }
     }
 
+    /**
+     * Performs a listing in which each directory whose snapshot is still valid is not listed again. Instead, the files that passed the static filters when the directory
+     * was last listed are checked against the filters that depend on the current time. This yields the same result as listing every directory, except that changes
+     * to existing files are not seen until their directory changes, unless a {@link DirectoryWatcher} is in use.
+     */
+    private List<FileInfo> performIncrementalListing(final Path basePath, final boolean recurse, final Long minTimestamp) {
+        final BiPredicate<Path, BasicFileAttributes> staticFileFilter = staticFileFilterRef.get();
+        final BiPredicate<Path, BasicFileAttributes> ageFileFilter = ageFileFilterRef.get();
+        final Map<Path, DirectorySnapshot> previousSnapshots = directorySnapshots;
+        final Map<Path, DirectorySnapshot> snapshots = new HashMap<>();
+        final DirectoryWatcher watcher = directoryWatcher;
+        if (watcher != null) {
+            watcher.collectChanges();
+        }
+
+        final Set<Path> visitedDirectories = new HashSet<>();
+        final Set<Object> visitedDirectoryKeys = new HashSet<>();
+        final Deque<Path> directories = new ArrayDeque<>();
+        directories.push(basePath);
+
+        try {
+            final long start = System.currentTimeMillis();
+            final List<FileInfo> result = new LinkedList<>();
+            int skippedDirectoryCount = 0;
+
+            while (!directories.isEmpty()) {
+                if (!isScheduled()) {
+                    throw new ProcessorStoppedException();
+                }
+
+                final Path directory = directories.pop();
+                final BasicFileAttributes directoryAttributes;
+                try {
+                    directoryAttributes = Files.readAttributes(directory, BasicFileAttributes.class);
+                } catch (final AccessDeniedException e) {
+                    getLogger().debug("The following directory is not readable: {}", new Object[] {directory.toString()});
+                    continue;
+                } catch (final IOException e) {
+                    getLogger().error("Error during visiting directory {}: {}", new Object[] {directory.toString(), e.getMessage()}, e);
+                    continue;
+                }
+
+                if (!Files.isReadable(directory)) {
+                    getLogger().debug("The following directory is not readable: {}", new Object[] {directory.toString()});
+                    continue;
+                }
+
+                // Symbolic links are followed, so the same directory may be reached more than once
+                final Object fileKey = directoryAttributes.fileKey();
+                if (fileKey != null && !visitedDirectoryKeys.add(fileKey)) {
+                    getLogger().warn("Will not list directory {} because it has already been listed by way of a symbolic link", new Object[] {directory.toString()});
+                    continue;
+                }
+                visitedDirectories.add(directory);
+
+                final long lastModified = directoryAttributes.lastModifiedTime().toMillis();
+                DirectorySnapshot snapshot = previousSnapshots.get(directory);
+                if (snapshot != null && snapshot.getLastModified() == lastModified && (watcher == null || !watcher.isChanged(directory))) {
+                    performanceTracker.acceptSkippedDirectory(basePath.relativize(directory).toString(), snapshot.getEntryCount(), snapshot.getListingMillis());
+                    skippedDirectoryCount++;
+                    snapshots.put(directory, snapshot);
+                } else {
+                    snapshot = listDirectory(basePath, directory, lastModified, recurse, staticFileFilter, watcher);
+                    if (snapshot.isReusable()) {
+                        snapshots.put(directory, snapshot);
+                    }
+                }
+
+                for (final Tuple<Path, BasicFileAttributes> file : snapshot.getFiles()) {
+                    final Path path = file.getKey();
+                    final BasicFileAttributes attributes = file.getValue();
+                    if ((minTimestamp == null || attributes.lastModifiedTime().toMillis() >= minTimestamp) && ageFileFilter.test(path, attributes)) {
+                        final File ioFile = path.toFile();
+                        final FileInfo fileInfo = new FileInfo.Builder()
+                                .directory(false)
+                                .filename(ioFile.getName())
+                                .fullPathFileName(ioFile.getAbsolutePath())
+                                .lastModifiedTime(attributes.lastModifiedTime().toMillis())
+                                .size(attributes.size())
+                                .build();
+
+                        result.add(fileInfo);
+                    }
+                }
+
+                snapshot.getSubdirectories().forEach(directories::push);
+            }
+
+            directorySnapshots = snapshots;
+            if (watcher != null) {
+                watcher.completeListing(visitedDirectories);
+            }
+
+            final long millis = System.currentTimeMillis() - start;
+            getLogger().debug("Took {} milliseconds to perform listing and gather {} entries; {} of {} directories had not changed and were not listed again",
+                new Object[] {millis, result.size(), skippedDirectoryCount, visitedDirectories.size()});
+            return result;
+        } catch (final ProcessorStoppedException pse) {
+            getLogger().info("Processor was stopped so will not complete listing of Files");
+            return Collections.emptyList();
+        } finally {
+            performanceTracker.completeActiveDirectory();
+        }
+    }
+
+    private DirectorySnapshot listDirectory(final Path basePath, final Path directory, final long lastModified, final boolean recurse,
+                                            final BiPredicate<Path, BasicFileAttributes> fileFilter, final DirectoryWatcher watcher) {
+        final String relativeDirectory = basePath.relativize(directory).toString();
+        performanceTracker.setActiveDirectory(relativeDirectory);
+
+        // Register before listing so that any change made while the listing is performed is seen by the next listing
+        if (watcher != null) {
+            watcher.register(directory);
+        }
+
+        final long start = System.currentTimeMillis();
+        long lastTimestamp = start;
+        final List<Tuple<Path, BasicFileAttributes>> files = new ArrayList<>();
+        final List<Path> subdirectories = new ArrayList<>();
+        int entryCount = 0;
+        boolean reusable = true;
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (final Path path : stream) {
+                if (!isScheduled()) {
+                    throw new ProcessorStoppedException();
+                }
+
+                final long now = System.currentTimeMillis();
+                final long timeToList = now - lastTimestamp;
+                lastTimestamp = now;
+                entryCount++;
+
+                final String filename = path.getFileName().toString();
+                performanceTracker.acceptOperation(DiskOperation.RETRIEVE_NEXT_FILE_FROM_OS, relativeDirectory, filename, timeToList);
+
+                final BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (final IOException e) {
+                    // Most likely a broken symbolic link, which would not be readable and so would not be listed
+                    getLogger().debug("Could not read the attributes of {}: {}", new Object[] {path.toString(), e.getMessage()});
+                    continue;
+                }
+
+                if (attributes.isDirectory()) {
+                    if (recurse) {
+                        subdirectories.add(path);
+                    }
+                    continue;
+                }
+
+                final TimedOperationKey operationKey = performanceTracker.beginOperation(DiskOperation.FILTER, relativeDirectory, filename);
+                try {
+                    if (fileFilter.test(path, attributes)) {
+                        files.add(new Tuple<>(path, attributes));
+                    }
+                } finally {
+                    performanceTracker.completeOperation(operationKey);
+
+                    if (TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - performanceLoggingTimestamp) >= 5) {
+                        logPerformance();
+                    }
+                }
+            }
+
+            // If the directory changed while it was being listed, or may yet change without its last modified time changing, it must be listed again next time
+            final long lastModifiedAfterListing = Files.getLastModifiedTime(directory).toMillis();
+            reusable = lastModifiedAfterListing == lastModified && start - lastModified >= DIRECTORY_TIMESTAMP_TOLERANCE_MILLIS;
+        } catch (final IOException | DirectoryIteratorException e) {
+            getLogger().error("Error during visiting directory {}: {}", new Object[] {directory.toString(), e.getMessage()}, e);
+            reusable = false;
+        }
+
+        return new DirectorySnapshot(lastModified, files, subdirectories, entryCount, System.currentTimeMillis() - start, reusable);
+    }
+
     @Override
     protected boolean isListingResetNecessary(final PropertyDescriptor property) {
         return DIRECTORY.equals(property)
@@ -636,11 +898,32 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
                 || IGNORE_HIDDEN_FILES.equals(property);
     }
 
-    private BiPredicate<Path, BasicFileAttributes> createFileFilter(final ProcessContext context) {
-        final long minSize = context.getProperty(MIN_SIZE).asDataSize(DataUnit.B).longValue();
-        final Double maxSize = context.getProperty(MAX_SIZE).asDataSize(DataUnit.B);
+    /**
+     * Creates the filter for the age of a file, which, unlike the other filters, depends on the time at which it is applied
+     */
+    private BiPredicate<Path, BasicFileAttributes> createAgeFileFilter(final ProcessContext context) {
         final long minAge = context.getProperty(MIN_AGE).asTimePeriod(TimeUnit.MILLISECONDS);
         final Long maxAge = context.getProperty(MAX_AGE).asTimePeriod(TimeUnit.MILLISECONDS);
+
+        return (path, attributes) -> {
+            final long fileAge = System.currentTimeMillis() - attributes.lastModifiedTime().toMillis();
+            if (minAge > fileAge) {
+                return false;
+            }
+            if (maxAge != null && maxAge < fileAge) {
+                return false;
+            }
+
+            return true;
+        };
+    }
+
+    /**
+     * Creates the filter for all criteria other than the age of a file, whose result does not change unless the file is changed
+     */
+    private BiPredicate<Path, BasicFileAttributes> createStaticFileFilter(final ProcessContext context) {
+        final long minSize = context.getProperty(MIN_SIZE).asDataSize(DataUnit.B).longValue();
+        final Double maxSize = context.getProperty(MAX_SIZE).asDataSize(DataUnit.B);
         final boolean ignoreHidden = context.getProperty(IGNORE_HIDDEN_FILES).asBoolean();
         final String fileFilter = context.getProperty(FILE_FILTER).getValue();
         final Pattern filePattern = Pattern.compile(fileFilter);
@@ -658,13 +941,6 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             if (maxSize != null && maxSize < attributes.size()) {
                 return false;
             }
-            final long fileAge = System.currentTimeMillis() - attributes.lastModifiedTime().toMillis();
-            if (minAge > fileAge) {
-                return false;
-            }
-            if (maxAge != null && maxAge < fileAge) {
-                return false;
-            }
 
             final Path relativePath = basePath.relativize(path).getParent();
             final String relativeDir = relativePath == null ? "" : relativePath.toString();
@@ -790,6 +1066,25 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         public int getTrackedFileCount() {
             return 0;
         }
+
+        @Override
+        public void acceptSkippedDirectory(final String directory, final int entryCount, final long millisSaved) {
+        }
+
+        @Override
+        public long getSkippedDirectoryCount() {
+            return 0L;
+        }
+
+        @Override
+        public long getSkippedEntryCount() {
+            return 0L;
+        }
+
+        @Override
+        public long getSkippedDirectoryMillis() {
+            return 0L;
+        }
     }
 
     /**
@@ -799,6 +1094,7 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     public static final class RollingMetricPerformanceTracker implements PerformanceTracker {
         private final Map<String, String> directoryCanonicalization = new HashMap<>();
         private final Map<Tuple<String, String>, TimingInfo> directoryToTimingInfo;
+        private final Deque<SkippedDirectories> skippedDirectories = new ArrayDeque<>();
         private TimedOperationKey activeOperation;
         private long earliestTimestamp = System.currentTimeMillis();
         private final long maxDiskOperationMillis;
@@ -889,6 +1185,36 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             return directoryToTimingInfo.size();
         }
 
+        @Override
+        public synchronized void acceptSkippedDirectory(final String directory, final int entryCount, final long millisSaved) {
+            // Aggregate per minute, rather than per directory, so that the heap used does not depend on the number of directories
+            final long minute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+            SkippedDirectories skipped = skippedDirectories.peekLast();
+            if (skipped == null || skipped.minute != minute) {
+                skipped = new SkippedDirectories(minute);
+                skippedDirectories.addLast(skipped);
+            }
+
+            skipped.directoryCount++;
+            skipped.entryCount += entryCount;
+            skipped.millisSaved += millisSaved;
+        }
+
+        @Override
+        public synchronized long getSkippedDirectoryCount() {
+            return skippedDirectories.stream().mapToLong(skipped -> skipped.directoryCount).sum();
+        }
+
+        @Override
+        public synchronized long getSkippedEntryCount() {
+            return skippedDirectories.stream().mapToLong(skipped -> skipped.entryCount).sum();
+        }
+
+        @Override
+        public synchronized long getSkippedDirectoryMillis() {
+            return skippedDirectories.stream().mapToLong(skipped -> skipped.millisSaved).sum();
+        }
+
         @Override
         public synchronized void purgeTimingInfo(final long cutoff) {
             logger.debug("Purging any entries from Performance Tracker that is older than {}", new Object[] {new Date(cutoff)});
@@ -912,6 +1238,11 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             }
 
             this.earliestTimestamp = earliestTimestamp;
+
+            while (!skippedDirectories.isEmpty() && TimeUnit.MINUTES.toMillis(skippedDirectories.peekFirst().minute) < cutoff) {
+                skippedDirectories.removeFirst();
+            }
+
             logger.debug("Purged {} entries from Performance Tracker; now holding {} entries", new Object[] {purgedCount, directoryToTimingInfo.size()});
         }
 
@@ -985,6 +1316,17 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             final double stdDeviation = Math.pow(squaredDifferenceAverage, 0.5);
             return stdDeviation;
         }
+
+        private static class SkippedDirectories {
+            private final long minute;
+            private long directoryCount;
+            private long entryCount;
+            private long millisSaved;
+
+            private SkippedDirectories(final long minute) {
+                this.minute = minute;
+            }
+        }
     }
 
     /**
@@ -1115,6 +1457,21 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         long getActiveDirectoryStartTime();
 
         int getTrackedFileCount();
+
+        /**
+         * Records that a directory was not listed because it had not changed since it was last listed
+         *
+         * @param directory the directory, relative to the Input Directory
+         * @param entryCount the number of entries in the directory when it was last listed
+         * @param millisSaved the number of milliseconds that the last listing of the directory took
+         */
+        void acceptSkippedDirectory(String directory, int entryCount, long millisSaved);
+
+        long getSkippedDirectoryCount();
+
+        long getSkippedEntryCount();
+
+        long getSkippedDirectoryMillis();
     }
 
 
@@ -1246,6 +1603,132 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     private static class ProcessorStoppedException extends RuntimeException {
     }
 
+    /**
+     * The result of listing a single directory: the files that passed the filters that do not depend on the current time, along with the subdirectories to list.
+     */
+    private static class DirectorySnapshot {
+        private final long lastModified;
+        private final List<Tuple<Path, BasicFileAttributes>> files;
+        private final List<Path> subdirectories;
+        private final int entryCount;
+        private final long listingMillis;
+        private final boolean reusable;
+
+        public DirectorySnapshot(final long lastModified, final List<Tuple<Path, BasicFileAttributes>> files, final List<Path> subdirectories, final int entryCount,
+                                 final long listingMillis, final boolean reusable) {
+            this.lastModified = lastModified;
+            this.files = files;
+            this.subdirectories = subdirectories;
+            this.entryCount = entryCount;
+            this.listingMillis = listingMillis;
+            this.reusable = reusable;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public List<Tuple<Path, BasicFileAttributes>> getFiles() {
+            return files;
+        }
+
+        public List<Path> getSubdirectories() {
+            return subdirectories;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        public long getListingMillis() {
+            return listingMillis;
+        }
+
+        /**
+         * @return <code>true</code> if the directory is known not to have changed while it was being listed, so that this snapshot can be used in place of listing it
+         * as long as its last modified time does not change
+         */
+        public boolean isReusable() {
+            return reusable;
+        }
+    }
+
+    /**
+     * Keeps track of which directories have been reported as changed by a {@link WatchService} since the last listing. This class is not thread-safe, which is
+     * acceptable because the Processor is triggered serially.
+     */
+    private static class DirectoryWatcher implements Closeable {
+        private final WatchService watchService;
+        private final ComponentLog logger;
+        private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+        private final Set<Path> changedDirectories = new HashSet<>();
+        private boolean overflow = false;
+        private boolean registrationFailed = false;
+
+        public DirectoryWatcher(final WatchService watchService, final ComponentLog logger) {
+            this.watchService = watchService;
+            this.logger = logger;
+        }
+
+        public void register(final Path directory) {
+            final WatchKey existingKey = watchKeys.get(directory);
+            if (registrationFailed || (existingKey != null && existingKey.isValid())) {
+                return;
+            }
+
+            try {
+                final WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchKeys.put(directory, key);
+            } catch (final IOException | UnsupportedOperationException e) {
+                // Typically because the operating system's limit on the number of watches has been reached. Do not keep trying for every directory.
+                registrationFailed = true;
+                logger.warn("Unable to watch directory {} for changes, so no further directories will be watched; directories that are not watched will be listed again "
+                    + "only when their last modified time changes", new Object[] {directory, e});
+            }
+        }
+
+        public void collectChanges() {
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                for (final WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    }
+                }
+
+                final Path directory = (Path) key.watchable();
+                changedDirectories.add(directory);
+                if (!key.reset()) {
+                    watchKeys.remove(directory);
+                }
+            }
+        }
+
+        public boolean isChanged(final Path directory) {
+            // If events were lost, any directory may have changed
+            return overflow || changedDirectories.contains(directory);
+        }
+
+        public void completeListing(final Set<Path> listedDirectories) {
+            changedDirectories.clear();
+            overflow = false;
+
+            final Iterator<Map.Entry<Path, WatchKey>> itr = watchKeys.entrySet().iterator();
+            while (itr.hasNext()) {
+                final Map.Entry<Path, WatchKey> entry = itr.next();
+                if (!listedDirectories.contains(entry.getKey())) {
+                    entry.getValue().cancel();
+                    itr.remove();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            watchService.close();
+        }
+    }
+
     static class MonitorActiveTasks implements Runnable {
         private final PerformanceTracker performanceTracker;
         private final ComponentLog logger;
@@ -201,6 +201,18 @@ public class MergeRecord extends AbstractSessionFactoryProcessor {
         .required(true)
         .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
         .build();
+    public static final PropertyDescriptor MAX_OPEN_BIN_COUNT = new PropertyDescriptor.Builder()
+        .name("max-open-bin-count")
+        .displayName("Maximum Number of Open Bins")
+        .description("Specifies the maximum number of bins to which Records are written as FlowFiles are added to them. Each of these bins holds an open Record Writer "
+            + "in memory. Once this many bins exist, any new bin is spilled instead: the Records of the FlowFiles that are added to it are only counted, and remain in "
+            + "the content repository until the bin is completed, at which point they are read again and written to the merged FlowFile. For a spilled bin, "
+            + "the <Minimum Bin Size> and <Maximum Bin Size> are compared with the size of the FlowFiles that were added, rather than the size of the merged FlowFile. "
+            + "Spilling allows the <Maximum Number of Bins> to be much larger, such as when correlating on an attribute that has many distinct values, at the cost of "
+            + "reading the Records of spilled bins twice. If not specified, no bin is spilled.")
+        .required(false)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
 
     public static final PropertyDescriptor MAX_BIN_AGE = new PropertyDescriptor.Builder()
         .name("max-bin-age")
@@ -243,6 +255,7 @@ public class MergeRecord extends AbstractSessionFactoryProcessor {
         properties.add(MAX_SIZE);
         properties.add(MAX_BIN_AGE);
         properties.add(MAX_BIN_COUNT);
+        properties.add(MAX_OPEN_BIN_COUNT);
         return properties;
     }
 
@@ -284,9 +284,9 @@ public class QueryRecord extends AbstractProcessor {
         // Determine the Record Reader's schema
         final RecordSchema writerSchema;
         final RecordSchema readerSchema;
-        try (final InputStream rawIn = session.read(original)) {
+        try (final InputStream rawIn = session.read(original);
+             final RecordReader reader = recordReaderFactory.createRecordReader(original.getAttributes(), rawIn, original.getSize(), getLogger())) {
             final Map<String, String> originalAttributes = original.getAttributes();
-            final RecordReader reader = recordReaderFactory.createRecordReader(originalAttributes, rawIn, original.getSize(), getLogger());
             readerSchema = reader.getSchema();
 
             writerSchema = recordSetWriterFactory.getSchema(originalAttributes, readerSchema);
@@ -405,7 +405,9 @@ public class QueryRecord extends AbstractProcessor {
     }
 
 
-    private synchronized CachedStatement getStatement(final String sql, final RecordSchema schema, final Supplier<CachedStatement> statementBuilder) {
+    private CachedStatement getStatement(final String sql, final RecordSchema schema, final Supplier<CachedStatement> statementBuilder) {
+        // The cache and the queues are thread-safe, so no lock is held here. This allows concurrent tasks to prepare statements, which requires
+        // Calcite to plan the query and generate code for it, in parallel rather than waiting on one another.
         final Tuple<String, RecordSchema> tuple = new Tuple<>(sql, schema);
         final BlockingQueue<CachedStatement> statementQueue = statementQueues.get(tuple, key -> new LinkedBlockingQueue<>());
 
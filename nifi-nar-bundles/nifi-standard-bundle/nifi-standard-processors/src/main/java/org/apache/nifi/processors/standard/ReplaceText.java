@@ -47,18 +47,20 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.InputStreamCallback;
-import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
-import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.processors.standard.util.StreamingTextReplacer;
 import org.apache.nifi.stream.io.util.LineDemarcator;
 import org.apache.nifi.util.StopWatch;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -69,6 +71,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -154,6 +157,9 @@ public class ReplaceText extends AbstractProcessor {
         .name("Maximum Buffer Size")
         .description("Specifies the maximum amount of data to buffer (per file or per line, depending on the Evaluation Mode) in order to "
             + "apply the replacement. If 'Entire Text' (in Evaluation Mode) is selected and the FlowFile is larger than this value, "
+            + "the text is streamed through a window of this size. Literal Replace then behaves exactly as if the entire text were buffered. "
+            + "For Regex Replace, each match must fit within half of this window and may look behind at most 256 characters; if the "
+            + "Regular Expression cannot be evaluated without buffering more text (for example, because it must read to the end of the text), "
             + "the FlowFile will be routed to 'failure'. "
             + "In 'Line-by-Line' Mode, if a single line is larger than this value, the FlowFile will be routed to 'failure'. A default value "
             + "of 1 MB is provided, primarily for 'Entire Text' mode. In 'Line-by-Line' Mode, a value such as 8 KB or 16 KB is suggested. "
@@ -171,8 +177,8 @@ public class ReplaceText extends AbstractProcessor {
         .build();
     public static final PropertyDescriptor EVALUATION_MODE = new PropertyDescriptor.Builder()
         .name("Evaluation Mode")
-        .description("Run the 'Replacement Strategy' against each line separately (Line-by-Line) or buffer the entire file "
-            + "into memory (Entire Text) and run against that.")
+        .description("Run the 'Replacement Strategy' against each line separately (Line-by-Line) or against the entire file "
+            + "(Entire Text). In Entire Text mode, no more than the Maximum Buffer Size is held in memory at once.")
         .allowableValues(LINE_BY_LINE, ENTIRE_TEXT)
         .defaultValue(ENTIRE_TEXT)
         .required(true)
@@ -260,14 +266,6 @@ public class ReplaceText extends AbstractProcessor {
     public void setup(ProcessContext context) {
         final String replacementStrategy = context.getProperty(REPLACEMENT_STRATEGY).getValue();
         final String evaluateMode = context.getProperty(EVALUATION_MODE).getValue();
-        final int maxBufferSize = context.getProperty(MAX_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
-
-        final byte[] buffer;
-        if (replacementStrategy.equalsIgnoreCase(regexReplaceValue) || replacementStrategy.equalsIgnoreCase(literalReplaceValue)) {
-            buffer = new byte[maxBufferSize];
-        } else {
-            buffer = null;
-        }
 
         switch (replacementStrategy) {
             case prependValue:
@@ -285,12 +283,12 @@ public class ReplaceText extends AbstractProcessor {
                         && context.getProperty(REPLACEMENT_VALUE).getValue().isEmpty()) {
                     replacementStrategyExecutor = new AlwaysReplace();
                 } else {
-                    replacementStrategyExecutor = new RegexReplace(buffer, context);
+                    replacementStrategyExecutor = new RegexReplace(context);
                 }
 
                 break;
             case literalReplaceValue:
-                replacementStrategyExecutor = new LiteralReplace(buffer);
+                replacementStrategyExecutor = new LiteralReplace();
                 break;
             case alwaysReplace:
                 replacementStrategyExecutor = new AlwaysReplace();
@@ -313,14 +311,6 @@ public class ReplaceText extends AbstractProcessor {
         final int maxBufferSize = context.getProperty(MAX_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
         final String evaluateMode = context.getProperty(EVALUATION_MODE).getValue();
 
-        if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
-            if (flowFile.getSize() > maxBufferSize && replacementStrategyExecutor.isAllDataBufferedForEntireText()) {
-                logger.warn("Transferred {} to 'faliure' because it was larger than the buffer size");
-                session.transfer(flowFile, REL_FAILURE);
-                return;
-            }
-        }
-
         final StopWatch stopWatch = new StopWatch(true);
 
         try {
@@ -331,6 +321,10 @@ public class ReplaceText extends AbstractProcessor {
             logger.info("Transferred {} to 'failure' due to {}", new Object[] { flowFile, e.toString() });
             session.transfer(flowFile, REL_FAILURE);
             return;
+        } catch (StreamingTextReplacer.MatchTooLargeException e) {
+            logger.warn("Transferred {} to 'failure' because the Search Value could not be evaluated within the Maximum Buffer Size: {}", new Object[] { flowFile, e.getMessage() });
+            session.transfer(flowFile, REL_FAILURE);
+            return;
         } catch (IllegalAttributeException | AttributeExpressionLanguageException e) {
             logger.warn("Transferred {} to 'failure' due to {}", new Object[] { flowFile, e.toString() }, e);
             session.transfer(flowFile, REL_FAILURE);
@@ -420,11 +414,6 @@ public class ReplaceText extends AbstractProcessor {
 
             return flowFile;
         }
-
-        @Override
-        public boolean isAllDataBufferedForEntireText() {
-            return false;
-        }
     }
 
     private class PrependReplace implements ReplacementStrategyExecutor {
@@ -447,11 +436,6 @@ public class ReplaceText extends AbstractProcessor {
             return flowFile;
         }
 
-        @Override
-        public boolean isAllDataBufferedForEntireText() {
-            return false;
-        }
-
     }
 
     private class AppendReplace implements ReplacementStrategyExecutor {
@@ -498,16 +482,10 @@ public class ReplaceText extends AbstractProcessor {
             }
             return flowFile;
         }
-
-        @Override
-        public boolean isAllDataBufferedForEntireText() {
-            return false;
-        }
     }
 
 
     private class RegexReplace implements ReplacementStrategyExecutor {
-        private final byte[] buffer;
         private final int numCapturingGroups;
         private final Map<String, String> additionalAttrs;
 
@@ -520,9 +498,7 @@ public class ReplaceText extends AbstractProcessor {
             }
         };
 
-        public RegexReplace(final byte[] buffer, final ProcessContext context) {
-            this.buffer = buffer;
-
+        public RegexReplace(final ProcessContext context) {
             final String regexValue = context.getProperty(SEARCH_VALUE).evaluateAttributeExpressions().getValue();
             numCapturingGroups = Pattern.compile(regexValue).matcher("").groupCount();
             additionalAttrs = new HashMap<>(numCapturingGroups);
@@ -535,52 +511,45 @@ public class ReplaceText extends AbstractProcessor {
             final String searchRegex = context.getProperty(SEARCH_VALUE).evaluateAttributeExpressions(flowFile, quotedAttributeDecorator).getValue();
             final Pattern searchPattern = Pattern.compile(searchRegex);
 
-            final int flowFileSize = (int) flowFile.getSize();
             FlowFile updatedFlowFile;
             if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
+                final PropertyValue replacementValueProperty = context.getProperty(REPLACEMENT_VALUE);
+                final StreamingTextReplacer replacer = new StreamingTextReplacer(getWindowSize(flowFile, maxBufferSize));
+
+                // The content is only rewritten if something is replaced. Reading stops at the first match.
+                final AtomicBoolean matchFound = new AtomicBoolean(false);
                 session.read(flowFile, new InputStreamCallback() {
                     @Override
                     public void process(final InputStream in) throws IOException {
-                        StreamUtils.fillBuffer(in, buffer, false);
+                        try (final Reader reader = new InputStreamReader(in, charset)) {
+                            matchFound.set(replacer.containsMatch(reader, searchPattern));
+                        }
                     }
                 });
 
-                final String contentString = new String(buffer, 0, flowFileSize, charset);
-                additionalAttrs.clear();
-                final Matcher matcher = searchPattern.matcher(contentString);
-
-                final PropertyValue replacementValueProperty = context.getProperty(REPLACEMENT_VALUE);
-
-                int matches = 0;
-                final StringBuffer sb = new StringBuffer();
-                while (matcher.find()) {
-                    matches++;
-
-                    for (int i=0; i <= matcher.groupCount(); i++) {
-                        additionalAttrs.put("$" + i, matcher.group(i));
-                    }
-
-                    String replacement = replacementValueProperty.evaluateAttributeExpressions(flowFile, additionalAttrs, escapeBackRefDecorator).getValue();
-                    replacement = escapeLiteralBackReferences(replacement, numCapturingGroups);
-                    String replacementFinal = normalizeReplacementString(replacement);
-
-                    matcher.appendReplacement(sb, replacementFinal);
-                }
-
-                if (matches > 0) {
-                    matcher.appendTail(sb);
-
-                    final String updatedValue = sb.toString();
-                    updatedFlowFile = session.write(flowFile, new OutputStreamCallback() {
-                        @Override
-                        public void process(final OutputStream out) throws IOException {
-                            out.write(updatedValue.getBytes(charset));
-                        }
-                    });
-                } else {
+                if (!matchFound.get()) {
                     return flowFile;
                 }
 
+                updatedFlowFile = session.write(flowFile, new StreamCallback() {
+                    @Override
+                    public void process(final InputStream in, final OutputStream out) throws IOException {
+                        try (final Reader reader = new InputStreamReader(in, charset);
+                             final Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset))) {
+
+                            replacer.replaceAll(reader, writer, searchPattern, matcher -> {
+                                additionalAttrs.clear();
+                                for (int i = 0; i <= matcher.groupCount(); i++) {
+                                    additionalAttrs.put("$" + i, matcher.group(i));
+                                }
+
+                                String replacement = replacementValueProperty.evaluateAttributeExpressions(flowFile, additionalAttrs, escapeBackRefDecorator).getValue();
+                                replacement = escapeLiteralBackReferences(replacement, numCapturingGroups);
+                                return normalizeReplacementString(replacement);
+                            });
+                        }
+                    }
+                });
             } else {
                 final Matcher matcher = searchPattern.matcher("");
                 updatedFlowFile = session.write(flowFile, new StreamReplaceCallback(charset, maxBufferSize, context.getProperty(LINE_BY_LINE_EVALUATION_MODE).getValue(),
@@ -619,19 +588,9 @@ public class ReplaceText extends AbstractProcessor {
 
             return updatedFlowFile;
         }
-
-        @Override
-        public boolean isAllDataBufferedForEntireText() {
-            return true;
-        }
     }
 
     private class LiteralReplace implements ReplacementStrategyExecutor {
-        private final byte[] buffer;
-
-        public LiteralReplace(final byte[] buffer) {
-            this.buffer = buffer;
-        }
 
         @Override
         public FlowFile replace(FlowFile flowFile, final ProcessSession session, final ProcessContext context, final String evaluateMode, final Charset charset, final int maxBufferSize) {
@@ -640,16 +599,32 @@ public class ReplaceText extends AbstractProcessor {
             final AttributeValueDecorator quotedAttributeDecorator = Pattern::quote;
             final String searchValue = context.getProperty(SEARCH_VALUE).evaluateAttributeExpressions(flowFile, quotedAttributeDecorator).getValue();
 
-            final int flowFileSize = (int) flowFile.getSize();
             if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
+                final StreamingTextReplacer replacer = new StreamingTextReplacer(getWindowSize(flowFile, maxBufferSize));
+
+                // The content is only rewritten if something is replaced. Reading stops at the first occurrence.
+                final AtomicBoolean occurrenceFound = new AtomicBoolean(false);
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(final InputStream in) throws IOException {
+                        try (final Reader reader = new InputStreamReader(in, charset)) {
+                            occurrenceFound.set(replacer.containsLiteral(reader, searchValue));
+                        }
+                    }
+                });
+
+                if (!occurrenceFound.get()) {
+                    return flowFile;
+                }
+
                 flowFile = session.write(flowFile, new StreamCallback() {
                     @Override
                     public void process(final InputStream in, final OutputStream out) throws IOException {
-                        StreamUtils.fillBuffer(in, buffer, false);
-                        final String contentString = new String(buffer, 0, flowFileSize, charset);
                         // Interpreting the search and replacement values as char sequences
-                        final String updatedValue = contentString.replace(searchValue, replacementValue);
-                        out.write(updatedValue.getBytes(charset));
+                        try (final Reader reader = new InputStreamReader(in, charset);
+                             final Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset))) {
+                            replacer.replaceLiteral(reader, writer, searchValue, replacementValue);
+                        }
                     }
                 });
             } else {
@@ -678,11 +653,14 @@ public class ReplaceText extends AbstractProcessor {
             }
             return flowFile;
         }
+    }
 
-        @Override
-        public boolean isAllDataBufferedForEntireText() {
-            return true;
-        }
+    /**
+     * Text is never decoded into more characters than it has bytes, so a window one character larger than a FlowFile that
+     * fits in the buffer holds its entire text, and it is evaluated exactly as if it had been read into a single String.
+     */
+    private static int getWindowSize(final FlowFile flowFile, final int maxBufferSize) {
+        return (int) Math.min(flowFile.getSize(), maxBufferSize) + 1;
     }
 
     /**
@@ -700,8 +678,6 @@ public class ReplaceText extends AbstractProcessor {
 
     private interface ReplacementStrategyExecutor {
         FlowFile replace(FlowFile flowFile, ProcessSession session, ProcessContext context, String evaluateMode, Charset charset, int maxBufferSize);
-
-        boolean isAllDataBufferedForEntireText();
     }
 
     @FunctionalInterface
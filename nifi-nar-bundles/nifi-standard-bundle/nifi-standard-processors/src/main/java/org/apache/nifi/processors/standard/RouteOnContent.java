@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -51,6 +52,7 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.standard.util.MultiPatternMatcher;
 import org.apache.nifi.stream.io.StreamUtils;
 
 @EventDriven
@@ -106,6 +108,12 @@ public class RouteOnContent extends AbstractProcessor {
     private final AtomicReference<Set<Relationship>> relationships = new AtomicReference<>();
     private List<PropertyDescriptor> properties;
 
+    /**
+     * The compiled patterns and prefilter for the most recently evaluated set of Regular Expressions. Unless the Regular
+     * Expressions reference FlowFile attributes, they are the same for every FlowFile.
+     */
+    private final AtomicReference<CompiledPatterns> compiledPatterns = new AtomicReference<>();
+
     @Override
     protected void init(final ProcessorInitializationContext context) {
         final Set<Relationship> relationships = new HashSet<>();
@@ -193,22 +201,33 @@ public class RouteOnContent extends AbstractProcessor {
 
             final String contentString = new String(buffer, 0, bufferedByteCount.get(), charset);
 
+            final List<PropertyDescriptor> descriptors = new ArrayList<>();
+            final List<String> regexes = new ArrayList<>();
             for (final PropertyDescriptor descriptor : context.getProperties().keySet()) {
                 if (!descriptor.isDynamic()) {
                     continue;
                 }
 
-                final String regex = context.getProperty(descriptor).evaluateAttributeExpressions(flowFile, quoteDecorator).getValue();
-                final Pattern pattern = Pattern.compile(regex);
+                descriptors.add(descriptor);
+                regexes.add(context.getProperty(descriptor).evaluateAttributeExpressions(flowFile, quoteDecorator).getValue());
+            }
+
+            // Determine, in a single pass over the content, which patterns could possibly match, and evaluate only those
+            final CompiledPatterns patterns = getCompiledPatterns(regexes);
+            final BitSet candidates = patterns.prefilter.getCandidates(contentString);
+            final boolean matchAll = context.getProperty(MATCH_REQUIREMENT).getValue().equalsIgnoreCase(MATCH_ALL);
+
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                final Pattern pattern = patterns.patterns.get(i);
                 final boolean matches;
-                if (context.getProperty(MATCH_REQUIREMENT).getValue().equalsIgnoreCase(MATCH_ALL)) {
+                if (matchAll) {
                     matches = pattern.matcher(contentString).matches();
                 } else {
                     matches = pattern.matcher(contentString).find();
                 }
 
                 if (matches) {
-                    final Relationship relationship = new Relationship.Builder().name(descriptor.getName()).build();
+                    final Relationship relationship = new Relationship.Builder().name(descriptors.get(i).getName()).build();
                     destinations.add(relationship);
                 }
             }
@@ -242,4 +261,35 @@ public class RouteOnContent extends AbstractProcessor {
             }
         }
     }
+
+    private CompiledPatterns getCompiledPatterns(final List<String> regexes) {
+        final CompiledPatterns cached = compiledPatterns.get();
+        if (cached != null && cached.regexes.equals(regexes)) {
+            return cached;
+        }
+
+        final List<Pattern> patterns = new ArrayList<>(regexes.size());
+        final MultiPatternMatcher.Builder builder = new MultiPatternMatcher.Builder();
+        for (final String regex : regexes) {
+            final Pattern pattern = Pattern.compile(regex);
+            patterns.add(pattern);
+            builder.addPattern(pattern);
+        }
+
+        final CompiledPatterns compiled = new CompiledPatterns(regexes, patterns, builder.build());
+        compiledPatterns.set(compiled);
+        return compiled;
+    }
+
+    private static class CompiledPatterns {
+        private final List<String> regexes;
+        private final List<Pattern> patterns;
+        private final MultiPatternMatcher prefilter;
+
+        private CompiledPatterns(final List<String> regexes, final List<Pattern> patterns, final MultiPatternMatcher prefilter) {
+            this.regexes = regexes;
+            this.patterns = patterns;
+            this.prefilter = prefilter;
+        }
+    }
 }
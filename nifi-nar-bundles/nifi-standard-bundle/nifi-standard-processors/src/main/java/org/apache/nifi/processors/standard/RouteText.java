@@ -50,6 +50,7 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.standard.util.MultiPatternMatcher;
 import org.apache.nifi.stream.io.util.LineDemarcator;
 
 import java.io.IOException;
@@ -57,6 +58,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -208,6 +210,7 @@ public class RouteText extends AbstractProcessor {
      * {@link #onTrigger(ProcessContext, ProcessSession)}
      */
     private volatile Map<Relationship, PropertyValue> propertyMap = new HashMap<>();
+    private volatile boolean expressionLanguagePresent = false;
     private volatile Pattern groupingRegex = null;
 
     @VisibleForTesting
@@ -228,6 +231,39 @@ public class RouteText extends AbstractProcessor {
                 r -> ignoreCase ? Pattern.compile(r, Pattern.CASE_INSENSITIVE) : Pattern.compile(r));
     }
 
+    /**
+     * The most recently used prefilter. A prefilter is only used when none of the values that lines are compared against use
+     * the Expression Language, so they do not change while the processor is scheduled and a single entry is sufficient.
+     */
+    private final AtomicReference<Prefilter> prefilterCache = new AtomicReference<>();
+
+    private MultiPatternMatcher getPrefilter(final List<Object> comparisons, final String matchStrategy, final boolean ignoreCase) {
+        final List<String> key = new ArrayList<>(comparisons.size() + 2);
+        key.add(matchStrategy);
+        key.add(String.valueOf(ignoreCase));
+        for (final Object comparison : comparisons) {
+            key.add(comparison instanceof Pattern ? ((Pattern) comparison).flags() + "/" + ((Pattern) comparison).pattern() : (String) comparison);
+        }
+
+        final Prefilter cached = prefilterCache.get();
+        if (cached != null && cached.key.equals(key)) {
+            return cached.matcher;
+        }
+
+        final MultiPatternMatcher.Builder builder = new MultiPatternMatcher.Builder();
+        for (final Object comparison : comparisons) {
+            if (comparison instanceof Pattern) {
+                builder.addPattern((Pattern) comparison);
+            } else {
+                builder.addLiteral((String) comparison, ignoreCase);
+            }
+        }
+
+        final MultiPatternMatcher matcher = builder.build();
+        prefilterCache.set(new Prefilter(key, matcher));
+        return matcher;
+    }
+
     @Override
     protected void init(final ProcessorInitializationContext context) {
         final Set<Relationship> set = new HashSet<>();
@@ -316,15 +352,19 @@ public class RouteText extends AbstractProcessor {
         }
 
         final Map<Relationship, PropertyValue> newPropertyMap = new HashMap<>();
+        boolean newExpressionLanguagePresent = false;
         for (final PropertyDescriptor descriptor : context.getProperties().keySet()) {
             if (!descriptor.isDynamic()) {
                 continue;
             }
             getLogger().debug("Adding new dynamic property: {}", new Object[] {descriptor});
-            newPropertyMap.put(new Relationship.Builder().name(descriptor.getName()).build(), context.getProperty(descriptor));
+            final PropertyValue propertyValue = context.getProperty(descriptor);
+            newPropertyMap.put(new Relationship.Builder().name(descriptor.getName()).build(), propertyValue);
+            newExpressionLanguagePresent |= propertyValue.isExpressionLanguagePresent();
         }
 
         this.propertyMap = newPropertyMap;
+        this.expressionLanguagePresent = newExpressionLanguagePresent;
     }
 
     @Override
@@ -411,6 +451,22 @@ public class RouteText extends AbstractProcessor {
             }
         }
 
+        final List<Map.Entry<Relationship, Object>> comparisons = new ArrayList<>(propValueMap.entrySet());
+
+        // Unless lines are evaluated using the Expression Language, determine which of the comparisons could possibly match
+        // each line with a single pass over the line, so that only those comparisons need to be evaluated. If the values that
+        // lines are compared against use the Expression Language, they may differ for every FlowFile, and building the prefilter
+        // for each FlowFile would cost more than it saves.
+        final MultiPatternMatcher prefilter;
+        if (usePropValue || expressionLanguagePresent || comparisons.size() < 2) {
+            prefilter = null;
+        } else {
+            final List<Object> comparisonValues = new ArrayList<>(comparisons.size());
+            comparisons.forEach(entry -> comparisonValues.add(entry.getValue()));
+            final MultiPatternMatcher matcher = getPrefilter(comparisonValues, matchStrategy, ignoreCase);
+            prefilter = matcher.getFilteredConditionCount() == 0 ? null : matcher;
+        }
+
         final Map<Relationship, Map<Group, FlowFile>> flowFileMap = new HashMap<>();
         final Pattern groupPattern = groupingRegex;
 
@@ -451,9 +507,13 @@ public class RouteText extends AbstractProcessor {
                         variables.put("line", line);
                         variables.put("lineNo", String.valueOf(++lineCount));
 
+                        final BitSet candidates = (prefilter == null) ? null : prefilter.getCandidates(matchLine);
+
                         int propertiesThatMatchedLine = 0;
-                        for (final Map.Entry<Relationship, Object> entry : propValueMap.entrySet()) {
-                            boolean lineMatchesProperty = lineMatches(matchLine, entry.getValue(), matchStrategy, ignoreCase, originalFlowFile, variables);
+                        for (int i = 0; i < comparisons.size(); i++) {
+                            final Map.Entry<Relationship, Object> entry = comparisons.get(i);
+                            final boolean lineMatchesProperty = (candidates == null || candidates.get(i))
+                                && lineMatches(matchLine, entry.getValue(), matchStrategy, ignoreCase, originalFlowFile, variables);
                             if (lineMatchesProperty) {
                                 propertiesThatMatchedLine++;
                             }
@@ -606,6 +666,16 @@ public class RouteText extends AbstractProcessor {
     }
 
 
+    private static class Prefilter {
+        private final List<String> key;
+        private final MultiPatternMatcher matcher;
+
+        private Prefilter(final List<String> key, final MultiPatternMatcher matcher) {
+            this.key = key;
+            this.matcher = matcher;
+        }
+    }
+
     private static class Group {
         private final List<String> capturedValues;
 
@@ -55,7 +55,6 @@ import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.util.file.monitor.LastModifiedMonitor;
 import org.apache.nifi.util.file.monitor.SynchronousFileWatcher;
-import org.apache.nifi.util.search.Search;
 import org.apache.nifi.util.search.SearchTerm;
 import org.apache.nifi.util.search.ahocorasick.AhoCorasick;
 import org.apache.nifi.util.search.ahocorasick.SearchState;
@@ -102,9 +101,10 @@ public class ScanContent extends AbstractProcessor {
             .build();
 
     public static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
 
     private final AtomicReference<SynchronousFileWatcher> fileWatcherRef = new AtomicReference<>();
-    private final AtomicReference<Search<byte[]>> searchRef = new AtomicReference<>();
+    private final AtomicReference<AhoCorasick<byte[]>> searchRef = new AtomicReference<>();
     private final ReentrantLock dictionaryUpdateLock = new ReentrantLock();
 
     private List<PropertyDescriptor> properties;
@@ -151,7 +151,7 @@ public class ScanContent extends AbstractProcessor {
 
         if (obtainedLock) {
             try {
-                final Search<byte[]> search = new AhoCorasick<>();
+                final AhoCorasick<byte[]> search = new AhoCorasick<>();
                 final Set<SearchTerm<byte[]>> terms = new HashSet<>();
 
                 final InputStream inStream = Files.newInputStream(Paths.get(context.getProperty(DICTIONARY).getValue()), StandardOpenOption.READ);
@@ -196,7 +196,7 @@ public class ScanContent extends AbstractProcessor {
             throw new ProcessException(e);
         }
 
-        Search<byte[]> search = searchRef.get();
+        AhoCorasick<byte[]> search = searchRef.get();
         try {
             if (search == null) {
                 if (reloadDictionary(context, false, logger)) {
@@ -216,17 +216,23 @@ public class ScanContent extends AbstractProcessor {
             return;
         }
 
-        final Search<byte[]> finalSearch = search;
+        final AhoCorasick<byte[]> finalSearch = search;
         final AtomicReference<SearchTerm<byte[]>> termRef = new AtomicReference<>(null);
         termRef.set(null);
 
         session.read(flowFile, new InputStreamCallback() {
             @Override
-            public void process(final InputStream rawIn) throws IOException {
-                try (final InputStream in = new BufferedInputStream(rawIn)) {
-                    final SearchState<byte[]> searchResult = finalSearch.search(in, false);
+            public void process(final InputStream in) throws IOException {
+                // Search the content a buffer at a time, rather than a byte at a time, carrying the state of the
+                // search over from one buffer to the next
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                SearchState<byte[]> searchResult = null;
+                int len;
+                while ((len = in.read(buffer)) >= 0) {
+                    searchResult = finalSearch.search(buffer, 0, len, false, searchResult);
                     if (searchResult.foundMatch()) {
                         termRef.set(searchResult.getResults().keySet().iterator().next());
+                        return;
                     }
                 }
             }
@@ -16,7 +16,6 @@
  */
 package org.apache.nifi.processors.standard;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.nifi.annotation.behavior.EventDriven;
 import org.apache.nifi.annotation.behavior.InputRequirement;
 import org.apache.nifi.annotation.behavior.InputRequirement.Requirement;
@@ -45,6 +44,7 @@ import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.stream.io.util.TextLineDemarcator;
 import org.apache.nifi.stream.io.util.TextLineDemarcator.OffsetInfo;
 
@@ -102,6 +102,9 @@ public class SplitText extends AbstractProcessor {
     public static final String FRAGMENT_COUNT = FragmentAttributes.FRAGMENT_COUNT.key();
     public static final String SEGMENT_ORIGINAL_FILENAME = FragmentAttributes.SEGMENT_ORIGINAL_FILENAME.key();
 
+    // Headers no larger than this are read once and held in memory, rather than being read again for every split
+    private static final int MAX_BUFFERED_HEADER_SIZE = 1024 * 1024;
+
     public static final PropertyDescriptor LINE_SPLIT_COUNT = new PropertyDescriptor.Builder()
             .name("Line Split Count")
             .description("The number of lines that will be added to each split file, excluding header lines. " +
@@ -295,10 +298,17 @@ public class SplitText extends AbstractProcessor {
         List<FlowFile> splitFlowFiles = new ArrayList<>();
 
         FlowFile headerFlowFile = null;
+        byte[] headerContent = null;
         long headerCrlfLength = 0;
         if (splitInfo != null) {
             headerFlowFile = processSession.clone(sourceFlowFile, splitInfo.startOffset, splitInfo.length);
             headerCrlfLength = splitInfo.trimmedLength;
+
+            if (splitInfo.length <= MAX_BUFFERED_HEADER_SIZE) {
+                final byte[] header = new byte[(int) splitInfo.length];
+                processSession.read(headerFlowFile, in -> StreamUtils.fillBuffer(in, header));
+                headerContent = header;
+            }
         }
         int fragmentIndex = 1; // set to 1 to preserve the existing behavior *only*. Perhaps should be deprecated to follow the 0,1,2... scheme
 
@@ -320,7 +330,7 @@ public class SplitText extends AbstractProcessor {
                     if (headerFlowFile != null) {
                         if (length > 0) {
                             splitFlowFile = processSession.clone(sourceFlowFile, computedSplitInfo.startOffset, length);
-                            splitFlowFile = this.concatenateContents(sourceFlowFile, processSession, headerFlowFile, splitFlowFile);
+                            splitFlowFile = this.concatenateContents(sourceFlowFile, processSession, headerFlowFile, headerContent, splitFlowFile);
                         } else {
                             splitFlowFile = processSession.clone(sourceFlowFile, 0, headerFlowFile.getSize() - headerCrlfLength); // trim the last CRLF if split consists of only HEADER
                         }
@@ -355,26 +365,31 @@ public class SplitText extends AbstractProcessor {
     }
 
     /**
-     * Will concatenate the contents of the provided array of {@link FlowFile}s
-     * into a single {@link FlowFile}. While this operation is as general as it
-     * is described in the previous sentence, in the context of this processor
-     * there can only be two {@link FlowFile}s with the first {@link FlowFile}
-     * representing the header content of the split and the second
-     * {@link FlowFile} represents the split itself.
+     * Will create a {@link FlowFile} whose content is the header followed by
+     * the content of the split. The split itself is a slice of the source
+     * {@link FlowFile}, so it is removed once its content has been copied. If
+     * the header content has already been read into memory, it is written
+     * from there, otherwise it is read from the header {@link FlowFile}.
      */
-    private FlowFile concatenateContents(FlowFile sourceFlowFile, ProcessSession session, FlowFile... flowFiles) {
+    private FlowFile concatenateContents(FlowFile sourceFlowFile, ProcessSession session, FlowFile headerFlowFile, byte[] headerContent, FlowFile splitFlowFile) {
         FlowFile mergedFlowFile = session.create(sourceFlowFile);
-        for (FlowFile flowFile : flowFiles) {
-            mergedFlowFile = session.append(mergedFlowFile, new OutputStreamCallback() {
-                @Override
-                public void process(OutputStream out) throws IOException {
-                    try (InputStream is = session.read(flowFile)) {
-                        IOUtils.copy(is, out);
+        mergedFlowFile = session.write(mergedFlowFile, new OutputStreamCallback() {
+            @Override
+            public void process(OutputStream out) throws IOException {
+                if (headerContent == null) {
+                    try (InputStream is = session.read(headerFlowFile)) {
+                        StreamUtils.copy(is, out);
                     }
+                } else {
+                    out.write(headerContent);
                 }
-            });
-        }
-        session.remove(flowFiles[1]); // in current usage we always have 2 files
+
+                try (InputStream is = session.read(splitFlowFile)) {
+                    StreamUtils.copy(is, out);
+                }
+            }
+        });
+        session.remove(splitFlowFile);
         return mergedFlowFile;
     }
 
@@ -23,14 +23,19 @@ import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processors.standard.MergeRecord;
+import org.apache.nifi.schema.access.SchemaNotFoundException;
+import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
 import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -48,7 +53,7 @@ import java.util.stream.Collectors;
 public class RecordBin {
 
     private final ComponentLog logger;
-    private final ProcessSession session;
+    private final SpillSession spillSession;
     private final RecordSetWriterFactory writerFactory;
     private final RecordBinThresholds thresholds;
     private final ProcessContext context;
@@ -59,10 +64,12 @@ public class RecordBin {
     private final Lock writeLock = rwLock.writeLock();
     private final long creationNanos = System.nanoTime();
 
+    private ProcessSession session;
     private FlowFile merged;
     private RecordSetWriter recordWriter;
     private ByteCountingOutputStream out;
     private int recordCount = 0;
+    private long spilledBytes = 0L;
     private int fragmentCount = 0;
     private volatile boolean complete = false;
 
@@ -74,6 +81,7 @@ public class RecordBin {
 
     public RecordBin(final ProcessContext context, final ProcessSession session, final ComponentLog logger, final RecordBinThresholds thresholds) {
         this.session = session;
+        this.spillSession = null;
         this.writerFactory = context.getProperty(MergeRecord.RECORD_WRITER).asControllerService(RecordSetWriterFactory.class);
         this.logger = logger;
         this.context = context;
@@ -82,6 +90,24 @@ public class RecordBin {
         this.thresholds = thresholds;
     }
 
+    /**
+     * Creates a spilled bin. A spilled bin does not write the Records of its FlowFiles as they are added but only counts them, holding the
+     * FlowFiles in the given SpillSession. The Records remain in the content repository until the bin is completed, at which point they are
+     * read again and written to the merged FlowFile. As a result, a spilled bin does not hold a Record Writer or a ProcessSession of its own.
+     */
+    RecordBin(final ProcessContext context, final SpillSession spillSession, final ComponentLog logger, final RecordBinThresholds thresholds) {
+        this.session = null;
+        this.spillSession = spillSession;
+        this.writerFactory = context.getProperty(MergeRecord.RECORD_WRITER).asControllerService(RecordSetWriterFactory.class);
+        this.logger = logger;
+        this.context = context;
+        this.thresholds = thresholds;
+    }
+
+    public boolean isSpilled() {
+        return spillSession != null;
+    }
+
     public boolean isOlderThan(final RecordBin other) {
         return creationNanos < other.creationNanos;
     }
@@ -124,33 +150,40 @@ public class RecordBin {
 
             logger.debug("Migrating id={} to {}", new Object[] {flowFile.getId(), this});
 
-            if (recordWriter == null) {
-                final OutputStream rawOut = session.write(merged);
-                logger.debug("Created OutputStream using session {} for {}", new Object[] {session, this});
+            if (isSpilled()) {
+                // The Records are written only when the bin is completed, but they must be counted now in order to know when the bin is full
+                while (recordReader.nextRecord() != null) {
+                    recordCount++;
+                }
 
-                this.out = new ByteCountingOutputStream(rawOut);
+                recordReader.close();
+                spillSession.add(flowFile, flowFileSession);
+                flowFileMigrated = true;
+                this.flowFiles.add(flowFile);
+                spilledBytes += flowFile.getSize();
+            } else {
+                if (recordWriter == null) {
+                    createRecordWriter(recordReader.getSchema(), flowFile);
+                }
 
-                recordWriter = writerFactory.createWriter(logger, recordReader.getSchema(), out, flowFile);
-                recordWriter.beginRecordSet();
-            }
+                Record record;
+                while ((record = recordReader.nextRecord()) != null) {
+                    recordWriter.write(record);
+                    recordCount++;
+                }
 
-            Record record;
-            while ((record = recordReader.nextRecord()) != null) {
-                recordWriter.write(record);
-                recordCount++;
+                // This will be closed by the MergeRecord class anyway but we have to close it
+                // here because it needs to be closed before we are able to migrate the FlowFile
+                // to a new Session.
+                recordReader.close();
+                flowFileSession.migrate(this.session, Collections.singleton(flowFile));
+                flowFileMigrated = true;
+                this.flowFiles.add(flowFile);
             }
 
-            // This will be closed by the MergeRecord class anyway but we have to close it
-            // here because it needs to be closed before we are able to migrate the FlowFile
-            // to a new Session.
-            recordReader.close();
-            flowFileSession.migrate(this.session, Collections.singleton(flowFile));
-            flowFileMigrated = true;
-            this.flowFiles.add(flowFile);
-
             thresholds.getFragmentCountAttribute().ifPresent(this::validateFragmentCount);
 
-            if (recordCount >= getMinimumRecordCount()) {
+            if (!isSpilled() && recordCount >= getMinimumRecordCount()) {
                 // If we have met our minimum record count, we need to flush so that when we reach the desired number of bytes
                 // the bin is considered 'full enough'.
                 recordWriter.flush();
@@ -182,14 +215,21 @@ public class RecordBin {
                 }
 
                 if (!flowFileMigrated) {
-                    flowFileSession.migrate(this.session, Collections.singleton(flowFile));
+                    if (isSpilled()) {
+                        spillSession.add(flowFile, flowFileSession);
+                    } else {
+                        flowFileSession.migrate(this.session, Collections.singleton(flowFile));
+                    }
                     this.flowFiles.add(flowFile);
                 }
             } finally {
                 complete = true;
-                session.remove(merged);
-                session.transfer(flowFiles, MergeRecord.REL_FAILURE);
-                session.commit();
+                final ProcessSession binSession = getSession();
+                if (merged != null) {
+                    binSession.remove(merged);
+                }
+                binSession.transfer(flowFiles, MergeRecord.REL_FAILURE);
+                binSession.commit();
             }
 
             return true;
@@ -211,7 +251,7 @@ public class RecordBin {
                 return true;
             }
 
-            if (out.getBytesWritten() >= thresholds.getMaxBytes()) {
+            if (getBytes() >= thresholds.getMaxBytes()) {
                 return true;
             }
 
@@ -246,13 +286,69 @@ public class RecordBin {
             }
 
             final int requiredRecordCount = getMinimumRecordCount();
-            return (recordCount >= requiredRecordCount && out.getBytesWritten() >= thresholds.getMinBytes());
+            return (recordCount >= requiredRecordCount && getBytes() >= thresholds.getMinBytes());
         } finally {
             readLock.unlock();
         }
     }
 
 
+    /**
+     * Returns the number of bytes that have been written to the merged FlowFile or, for a spilled bin, the size of the FlowFiles that
+     * have been added to it
+     */
+    private long getBytes() {
+        return isSpilled() ? spilledBytes : out.getBytesWritten();
+    }
+
+    private void createRecordWriter(final RecordSchema schema, final FlowFile flowFile) throws IOException, SchemaNotFoundException {
+        final OutputStream rawOut = session.write(merged);
+        logger.debug("Created OutputStream using session {} for {}", new Object[] {session, this});
+
+        this.out = new ByteCountingOutputStream(rawOut);
+
+        recordWriter = writerFactory.createWriter(logger, schema, out, flowFile);
+        recordWriter.beginRecordSet();
+    }
+
+    /**
+     * Returns the ProcessSession that owns the FlowFiles of this bin. For a spilled bin, the FlowFiles are first migrated from the SpillSession
+     * to a new ProcessSession.
+     */
+    private ProcessSession getSession() {
+        if (session == null) {
+            session = spillSession.remove(flowFiles);
+        }
+
+        return session;
+    }
+
+    /**
+     * Reads the Records of all FlowFiles in this spilled bin again and writes them to the merged FlowFile
+     */
+    private void writeSpilledRecords() throws IOException {
+        final ProcessSession binSession = getSession();
+        merged = binSession.create();
+
+        final RecordReaderFactory readerFactory = context.getProperty(MergeRecord.RECORD_READER).asControllerService(RecordReaderFactory.class);
+        for (final FlowFile flowFile : flowFiles) {
+            try (final InputStream in = binSession.read(flowFile);
+                 final RecordReader recordReader = readerFactory.createRecordReader(flowFile, in, logger)) {
+
+                if (recordWriter == null) {
+                    createRecordWriter(recordReader.getSchema(), flowFile);
+                }
+
+                Record record;
+                while ((record = recordReader.nextRecord()) != null) {
+                    recordWriter.write(record);
+                }
+            } catch (final SchemaNotFoundException | MalformedRecordException e) {
+                throw new IOException("Failed to read Records from " + flowFile + " in order to merge them", e);
+            }
+        }
+    }
+
     public void rollback() {
         complete = true;
         logger.debug("Marked {} as complete because rollback() was called", new Object[] {this});
@@ -267,7 +363,10 @@ public class RecordBin {
                 }
             }
 
-            session.rollback();
+            // The FlowFiles of a spilled bin are rolled back along with the SpillSession that holds them, unless the bin has already been given a session of its own
+            if (session != null) {
+                session.rollback();
+            }
 
             if (logger.isDebugEnabled()) {
                 final List<String> ids = flowFiles.stream().map(ff -> " id=" + ff.getId() + ",").collect(Collectors.toList());
@@ -296,9 +395,12 @@ public class RecordBin {
                 }
             }
 
-            session.remove(merged);
-            session.transfer(flowFiles, MergeRecord.REL_FAILURE);
-            session.commit();
+            final ProcessSession binSession = getSession();
+            if (merged != null) {
+                binSession.remove(merged);
+            }
+            binSession.transfer(flowFiles, MergeRecord.REL_FAILURE);
+            binSession.commit();
         } finally {
             writeLock.unlock();
         }
@@ -357,6 +459,10 @@ public class RecordBin {
             complete = true;
             logger.debug("Marked {} as complete because complete() was called", new Object[] {this});
 
+            if (isSpilled()) {
+                writeSpilledRecords();
+            }
+
             final WriteResult writeResult = recordWriter.finishRecordSet();
             recordWriter.close();
             logger.debug("Closed Record Writer using session {} for {}", new Object[] {session, this});
@@ -407,7 +513,9 @@ public class RecordBin {
                 logger.debug("Completed bin {} with {} records with Merged FlowFile {} using input FlowFiles {}", new Object[] {this, writeResult.getRecordCount(), merged, ids});
             }
         } catch (final Exception e) {
-            session.rollback(true);
+            if (session != null) {
+                session.rollback(true);
+            }
             throw e;
         } finally {
             writeLock.unlock();
@@ -48,12 +48,15 @@ public class RecordBinManager {
     private final ProcessSessionFactory sessionFactory;
     private final ComponentLog logger;
     private final int maxBinCount;
+    private final int maxOpenBinCount;
+    private final SpillSession spillSession;
 
     private final AtomicLong maxBinAgeNanos = new AtomicLong(Long.MAX_VALUE);
     private final Map<String, List<RecordBin>> groupBinMap = new HashMap<>(); // guarded by lock
     private final Lock lock = new ReentrantLock();
 
     private final AtomicInteger binCount = new AtomicInteger(0);
+    private final AtomicInteger openBinCount = new AtomicInteger(0);
 
     public RecordBinManager(final ProcessContext context, final ProcessSessionFactory sessionFactory, final ComponentLog logger) {
         this.context = context;
@@ -62,6 +65,10 @@ public class RecordBinManager {
 
         final Integer maxBins = context.getProperty(MergeRecord.MAX_BIN_COUNT).asInteger();
         this.maxBinCount = maxBins == null ? Integer.MAX_VALUE : maxBins.intValue();
+
+        final Integer maxOpenBins = context.getProperty(MergeRecord.MAX_OPEN_BIN_COUNT).asInteger();
+        this.maxOpenBinCount = maxOpenBins == null ? Integer.MAX_VALUE : maxOpenBins.intValue();
+        this.spillSession = new SpillSession(sessionFactory);
     }
 
     /**
@@ -77,6 +84,9 @@ public class RecordBinManager {
             }
             groupBinMap.clear();
             binCount.set(0);
+            openBinCount.set(0);
+
+            spillSession.rollback();
         } finally {
             lock.unlock();
         }
@@ -147,9 +157,18 @@ public class RecordBinManager {
 
         // if we've reached this point then we couldn't fit it into any existing bins - gotta make a new one
 
-        final RecordBin bin = new RecordBin(context, sessionFactory.createSession(), logger, createThresholds(flowFile));
+        // Once the maximum number of open bins has been reached, new bins are spilled so that they do not hold a Record Writer in memory
+        final RecordBin bin;
+        if (openBinCount.incrementAndGet() <= maxOpenBinCount) {
+            bin = new RecordBin(context, sessionFactory.createSession(), logger, createThresholds(flowFile));
+        } else {
+            openBinCount.decrementAndGet();
+            bin = new RecordBin(context, spillSession, logger, createThresholds(flowFile));
+        }
+
         final boolean binAccepted = bin.offer(flowFile, reader, session, true);
         if (!binAccepted) {
+            releaseBin(bin);
             session.rollback();
             throw new RuntimeException("Attempted to add " + flowFile + " to a new bin but failed. This is unexpected. Will roll back session and try again.");
         }
@@ -176,6 +195,14 @@ public class RecordBinManager {
             if (updatedBinCount > maxBinCount) {
                 completeOldestBin();
             }
+        } else {
+            releaseBin(bin);
+        }
+    }
+
+    private void releaseBin(final RecordBin bin) {
+        if (!bin.isSpilled()) {
+            openBinCount.decrementAndGet();
         }
     }
 
@@ -288,13 +315,14 @@ public class RecordBinManager {
         try {
             final List<RecordBin> list = groupBinMap.get(key);
             if (list != null) {
-                final int initialSize = list.size();
-                list.removeAll(bins);
-
                 // Determine how many items were removed from the list and
                 // update our binCount to keep track of this.
-                final int removedCount = initialSize - list.size();
-                binCount.addAndGet(-removedCount);
+                for (final RecordBin bin : bins) {
+                    if (list.remove(bin)) {
+                        binCount.decrementAndGet();
+                        releaseBin(bin);
+                    }
+                }
 
                 if (list.isEmpty()) {
                     groupBinMap.remove(key);
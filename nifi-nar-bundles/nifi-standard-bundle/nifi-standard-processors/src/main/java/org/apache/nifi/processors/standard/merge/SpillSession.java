@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.processors.standard.merge;
+
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessSessionFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Holds the FlowFiles of all spilled bins in a single ProcessSession, so that a spilled bin does not need a ProcessSession
+ * of its own until it is completed. ProcessSession is not thread-safe, so all access to the session is synchronized.
+ */
+class SpillSession {
+
+    private final ProcessSessionFactory sessionFactory;
+    private ProcessSession session; // guarded by this
+
+    SpillSession(final ProcessSessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Migrates the given FlowFile from the given session into this session
+     *
+     * @param flowFile the FlowFile to hold
+     * @param flowFileSession the session that the FlowFile currently belongs to
+     */
+    synchronized void add(final FlowFile flowFile, final ProcessSession flowFileSession) {
+        if (session == null) {
+            session = sessionFactory.createSession();
+        }
+
+        flowFileSession.migrate(session, Collections.singleton(flowFile));
+    }
+
+    /**
+     * Migrates the given FlowFiles, all of which must have been added to this session, into a new ProcessSession
+     *
+     * @param flowFiles the FlowFiles to release
+     * @return a new ProcessSession that owns the given FlowFiles
+     */
+    synchronized ProcessSession remove(final Collection<FlowFile> flowFiles) {
+        final ProcessSession newSession = sessionFactory.createSession();
+        if (!flowFiles.isEmpty()) {
+            session.migrate(newSession, flowFiles);
+        }
+
+        return newSession;
+    }
+
+    /**
+     * Rolls back the session, returning all FlowFiles that are held to their queues
+     */
+    synchronized void rollback() {
+        if (session != null) {
+            session.rollback();
+            session = null;
+        }
+    }
+}
@@ -353,6 +353,54 @@ public class FTPTransfer implements FileTransfer {
         }
     }
 
+    @Override
+    public boolean isRemoteFileRangeSupported(final FlowFile flowFile) throws IOException {
+        // Servers that do not advertise support for restarting a transfer in stream mode may ignore the restart offset and send the whole file
+        return getClient(flowFile).hasFeature("REST", "STREAM");
+    }
+
+    @Override
+    public int getRemoteFileRange(final String remoteFileName, final FlowFile flowFile, final long offset, final byte[] buffer) throws IOException {
+        final FTPClient client = getClient(flowFile);
+        client.setRestartOffset(offset);
+
+        final InputStream in = client.retrieveFileStream(remoteFileName);
+        if (in == null) {
+            final String response = client.getReplyString();
+            if (response != null && response.trim().endsWith("No such file or directory")) {
+                throw new FileNotFoundException(response);
+            }
+            throw new IOException(response);
+        }
+
+        final int bytesRead;
+        try {
+            bytesRead = StreamUtils.fillBuffer(in, buffer, false);
+        } finally {
+            in.close();
+        }
+
+        // If the range ends before the end of the file, closing the stream aborts the transfer. The server replies to this with an error, which is
+        // expected, but some servers also close the control connection, in which case a new connection is made the next time that one is needed.
+        try {
+            client.completePendingCommand();
+        } catch (final IOException e) {
+            if (bytesRead < buffer.length) {
+                throw e;
+            }
+
+            logger.debug("Connection was closed after reading {} bytes of {} at offset {}; will reconnect", new Object[] {bytesRead, remoteFileName, offset}, e);
+            try {
+                client.disconnect();
+            } catch (final IOException ioe) {
+                logger.debug("Failed to disconnect FTPClient", ioe);
+            }
+            this.client = null;
+        }
+
+        return bytesRead;
+    }
+
     @Override
     public FileInfo getRemoteFileInfo(final FlowFile flowFile, String path, String remoteFileName) throws IOException {
         final FTPClient client = getClient(flowFile);
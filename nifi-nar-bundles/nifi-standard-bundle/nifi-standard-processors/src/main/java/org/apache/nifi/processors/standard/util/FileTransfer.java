@@ -18,6 +18,7 @@ package org.apache.nifi.processors.standard.util;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -40,6 +41,32 @@ public interface FileTransfer extends Closeable {
 
     FileInfo getRemoteFileInfo(FlowFile flowFile, String path, String remoteFileName) throws IOException;
 
+    /**
+     * @param flowFile is used to setup file transfer client with its attribute values
+     * @return <code>true</code> if {@link #getRemoteFileRange(String, FlowFile, long, byte[])} can be used to read a range of a file from the remote system
+     * @throws IOException if unable to determine whether the remote system supports reading a range of a file
+     */
+    default boolean isRemoteFileRangeSupported(FlowFile flowFile) throws IOException {
+        return false;
+    }
+
+    /**
+     * Reads a range of the content of a remote file, so that different ranges of the file can be read over different connections at the same time.
+     * Only supported if {@link #isRemoteFileRangeSupported(FlowFile)} returns <code>true</code>.
+     *
+     * @param remoteFileName the name of the remote file
+     * @param flowFile is used to setup file transfer client with its attribute values
+     * @param offset the position in the remote file to start reading at
+     * @param buffer the buffer to read into, which determines the length of the range
+     * @return the number of bytes read, which is less than the length of the buffer only if the end of the file was reached
+     * @throws FileNotFoundException if the remote file does not exist
+     * @throws PermissionDeniedException if the remote file cannot be read
+     * @throws IOException if unable to read the range
+     */
+    default int getRemoteFileRange(String remoteFileName, FlowFile flowFile, long offset, byte[] buffer) throws IOException {
+        throw new UnsupportedOperationException(getProtocolName() + " does not support reading a range of a file");
+    }
+
     String put(FlowFile flowFile, String path, String filename, InputStream content) throws IOException;
 
     void rename(FlowFile flowFile, String source, String target) throws IOException;
@@ -0,0 +1,482 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import org.apache.nifi.util.search.SearchTerm;
+import org.apache.nifi.util.search.ahocorasick.AhoCorasick;
+import org.apache.nifi.util.search.ahocorasick.SearchState;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Determines, in a single pass over a piece of text, which of a set of conditions could possibly be satisfied by that text,
+ * so that only those conditions need to be evaluated.
+ * </p>
+ *
+ * <p>
+ * Each condition is registered either as a literal value that must be contained in any text that satisfies it, or as a
+ * Regular Expression. For a Regular Expression, the literal text that every match must contain is derived from the
+ * pattern where possible: for example, <code>error: \d+</code> requires <code>error: </code>, and <code>WARN|ERROR</code>
+ * requires either <code>WARN</code> or <code>ERROR</code>. All of these literals are compiled into a single Aho-Corasick
+ * automaton. A condition from which no literal can be derived, such as <code>\d{3}-\d{4}</code>, is always a candidate.
+ * </p>
+ *
+ * <p>
+ * The candidates that are returned are a superset of the conditions that are satisfied: a condition that is not a candidate
+ * is never satisfied, but a candidate must still be evaluated. This class is immutable and thread-safe.
+ * </p>
+ */
+public class MultiPatternMatcher {
+
+    private final int conditionCount;
+    private final BitSet alwaysCandidates;
+    private final AhoCorasick<int[]> search;
+    private final boolean foldCase;
+
+    private MultiPatternMatcher(final int conditionCount, final BitSet alwaysCandidates, final Map<String, List<Integer>> conditionsByLiteral, final boolean foldCase) {
+        this.conditionCount = conditionCount;
+        this.alwaysCandidates = alwaysCandidates;
+        this.foldCase = foldCase;
+
+        if (conditionsByLiteral.isEmpty()) {
+            search = null;
+        } else {
+            final Set<SearchTerm<int[]>> terms = new HashSet<>();
+            for (final Map.Entry<String, List<Integer>> entry : conditionsByLiteral.entrySet()) {
+                final int[] conditions = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                terms.add(new SearchTerm<>(encode(entry.getKey(), foldCase), false, conditions));
+            }
+
+            search = new AhoCorasick<>();
+            search.initializeDictionary(terms);
+        }
+    }
+
+    /**
+     * @return the number of conditions that were registered
+     */
+    public int getConditionCount() {
+        return conditionCount;
+    }
+
+    /**
+     * @return the number of conditions for which a literal could be determined, and which therefore are candidates only
+     * for text that contains that literal
+     */
+    public int getFilteredConditionCount() {
+        return conditionCount - alwaysCandidates.cardinality();
+    }
+
+    /**
+     * Returns the indices of the conditions that could be satisfied by the given text, in the order in which the conditions
+     * were registered.
+     *
+     * @param text the text to evaluate
+     * @return the indices of all conditions that could be satisfied by the text
+     */
+    public BitSet getCandidates(final String text) {
+        final BitSet candidates = (BitSet) alwaysCandidates.clone();
+        if (search == null || text.isEmpty()) {
+            return candidates;
+        }
+
+        final byte[] bytes = encode(text, foldCase);
+        final SearchState<int[]> state = search.search(bytes, 0, bytes.length, true);
+        for (final SearchTerm<int[]> term : state.getResults().keySet()) {
+            for (final int condition : term.getReference()) {
+                candidates.set(condition);
+            }
+        }
+
+        return candidates;
+    }
+
+    private static byte[] encode(final String text, final boolean foldCase) {
+        // UTF-8 is self-synchronizing, so one String contains another if and only if its encoded bytes contain the other's
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (foldCase) {
+            for (int i = 0; i < bytes.length; i++) {
+                final byte b = bytes[i];
+                if (b >= 'A' && b <= 'Z') {
+                    bytes[i] = (byte) (b + ('a' - 'A'));
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Registers conditions, in order, and creates the MultiPatternMatcher
+     */
+    public static class Builder {
+        private final Map<String, List<Integer>> conditionsByLiteral = new LinkedHashMap<>();
+        private final BitSet alwaysCandidates = new BitSet();
+        private int conditionCount = 0;
+        private boolean foldCase = false;
+
+        /**
+         * Registers a condition that can be satisfied only by text that contains the given value. If <code>ignoreCase</code>
+         * is true, text is considered to contain the value if the text converted to lower case contains the value converted
+         * to lower case.
+         *
+         * @return the index of the condition
+         */
+        public int addLiteral(final String value, final boolean ignoreCase) {
+            final List<String> literals = new ArrayList<>(1);
+            literals.add(ignoreCase ? longestCaseInsensitiveRun(value) : value);
+            return addCondition(literals, ignoreCase);
+        }
+
+        /**
+         * Registers a condition that can be satisfied only by text in which the given pattern finds a match.
+         *
+         * @return the index of the condition
+         */
+        public int addPattern(final Pattern pattern) {
+            final boolean ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0 || hasInlineFlag(pattern.pattern(), 'i');
+            return addCondition(RequiredLiterals.of(pattern, ignoreCase), ignoreCase);
+        }
+
+        /**
+         * Registers a condition that may be satisfied by any text.
+         *
+         * @return the index of the condition
+         */
+        public int addUnfiltered() {
+            alwaysCandidates.set(conditionCount);
+            return conditionCount++;
+        }
+
+        private int addCondition(final List<String> literals, final boolean ignoreCase) {
+            if (literals == null || literals.isEmpty() || literals.stream().anyMatch(String::isEmpty)) {
+                return addUnfiltered();
+            }
+
+            final int condition = conditionCount++;
+            for (final String literal : literals) {
+                conditionsByLiteral.computeIfAbsent(literal, k -> new ArrayList<>()).add(condition);
+            }
+            foldCase |= ignoreCase;
+            return condition;
+        }
+
+        public MultiPatternMatcher build() {
+            final Map<String, List<Integer>> literals = new LinkedHashMap<>();
+            if (foldCase) {
+                // Once text is folded to lower case, literals must be as well. Doing so only adds candidates; it never removes any.
+                for (final Map.Entry<String, List<Integer>> entry : conditionsByLiteral.entrySet()) {
+                    literals.computeIfAbsent(new String(encode(entry.getKey(), true), StandardCharsets.UTF_8), k -> new ArrayList<>()).addAll(entry.getValue());
+                }
+            } else {
+                literals.putAll(conditionsByLiteral);
+            }
+
+            return new MultiPatternMatcher(conditionCount, (BitSet) alwaysCandidates.clone(), literals, foldCase);
+        }
+    }
+
+    /**
+     * Returns whether the given flag appears in any embedded flag expression, such as <code>(?ix)</code> or <code>(?x:...)</code>,
+     * whether it is turned on or off. The regex is not parsed, so this may also return true for text that only looks like one.
+     */
+    private static boolean hasInlineFlag(final String regex, final char flag) {
+        int index = regex.indexOf("(?");
+        while (index >= 0) {
+            for (int i = index + 2; i < regex.length(); i++) {
+                final char c = regex.charAt(i);
+                if (c == flag) {
+                    return true;
+                }
+                if (!Character.isLetter(c) && c != '-') {
+                    break;
+                }
+            }
+            index = regex.indexOf("(?", index + 2);
+        }
+        return false;
+    }
+
+    /**
+     * When case is ignored, text is compared after folding only ASCII letters, so only ASCII characters can be relied upon.
+     * The letters i, k and s are excluded as well, because some non-ASCII characters are equivalent to them when case is
+     * ignored (e.g., KELVIN SIGN and LATIN SMALL LETTER LONG S).
+     */
+    static boolean isCaseInsensitiveSafe(final char c) {
+        if (c >= 0x80) {
+            return false;
+        }
+        final char lower = Character.toLowerCase(c);
+        return lower != 'i' && lower != 'k' && lower != 's';
+    }
+
+    private static String longestCaseInsensitiveRun(final String value) {
+        String longest = "";
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || !isCaseInsensitiveSafe(value.charAt(i))) {
+                if (i - start > longest.length()) {
+                    longest = value.substring(start, i);
+                }
+                start = i + 1;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Derives, from a Regular Expression, a set of literals such that any text in which the pattern finds a match contains
+     * at least one of them. Only the top-level structure of the pattern is considered: groups, character classes and
+     * escape sequences other than escaped punctuation are treated as unknown text.
+     */
+    static class RequiredLiterals {
+        private final String regex;
+        private final boolean ignoreCase;
+        private int index;
+
+        private RequiredLiterals(final String regex, final boolean ignoreCase) {
+            this.regex = regex;
+            this.ignoreCase = ignoreCase;
+        }
+
+        /**
+         * @return the literals, or <code>null</code> if no literal could be derived
+         */
+        static List<String> of(final Pattern pattern, final boolean ignoreCase) {
+            final int flags = pattern.flags();
+            if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+                return null;
+            }
+
+            // Comments mode changes which characters are literal, and Unicode-aware case folding changes which characters are
+            // equivalent, so any pattern that may turn either on with an embedded flag is not filtered
+            if (hasInlineFlag(pattern.pattern(), 'x') || hasInlineFlag(pattern.pattern(), 'u')) {
+                return null;
+            }
+
+            if ((flags & Pattern.LITERAL) != 0) {
+                final List<String> literals = new ArrayList<>(1);
+                literals.add(ignoreCase ? longestCaseInsensitiveRun(pattern.pattern()) : pattern.pattern());
+                return literals;
+            }
+
+            try {
+                return new RequiredLiterals(pattern.pattern(), ignoreCase).parse();
+            } catch (final IndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        private List<String> parse() {
+            final List<String> literals = new ArrayList<>();
+            StringBuilder run = new StringBuilder();
+            String longest = "";
+            boolean lastCharInRun = false;
+
+            while (index < regex.length()) {
+                final char c = regex.charAt(index++);
+                switch (c) {
+                    case '|':
+                        // Every alternative at the top level must contribute a literal
+                        longest = longer(longest, run);
+                        if (longest.isEmpty()) {
+                            return null;
+                        }
+                        literals.add(longest);
+                        longest = "";
+                        run = new StringBuilder();
+                        lastCharInRun = false;
+                        break;
+                    case '\\': {
+                        final char escaped = regex.charAt(index++);
+                        if (escaped == 'Q') {
+                            int end = regex.indexOf("\\E", index);
+                            if (end < 0) {
+                                end = regex.length();
+                            }
+                            lastCharInRun = false;
+                            for (int i = index; i < end; i++) {
+                                lastCharInRun = appendLiteral(run, regex.charAt(i));
+                                if (!lastCharInRun) {
+                                    longest = longer(longest, run);
+                                    run = new StringBuilder();
+                                }
+                            }
+                            index = Math.min(regex.length(), end + 2);
+                        } else if (Character.isLetterOrDigit(escaped)) {
+                            // a character class, back-reference, boundary or special character
+                            longest = longer(longest, run);
+                            run = new StringBuilder();
+                            lastCharInRun = false;
+                        } else {
+                            lastCharInRun = appendLiteral(run, escaped);
+                            if (!lastCharInRun) {
+                                longest = longer(longest, run);
+                                run = new StringBuilder();
+                            }
+                        }
+                        break;
+                    }
+                    case '[':
+                        skipCharacterClass();
+                        longest = longer(longest, run);
+                        run = new StringBuilder();
+                        lastCharInRun = false;
+                        break;
+                    case '(':
+                        skipGroup();
+                        longest = longer(longest, run);
+                        run = new StringBuilder();
+                        lastCharInRun = false;
+                        break;
+                    case '*':
+                    case '?':
+                    case '+':
+                    case '{': {
+                        final boolean optional = c == '*' || c == '?' || (c == '{' && isOptionalRepetition());
+                        if (c == '{') {
+                            index = regex.indexOf('}', index) + 1;
+                            if (index == 0) {
+                                return null;
+                            }
+                        }
+                        // skip a reluctant or possessive modifier
+                        if (index < regex.length() && (regex.charAt(index) == '?' || regex.charAt(index) == '+')) {
+                            index++;
+                        }
+
+                        if (lastCharInRun && optional) {
+                            removeLastCodePoint(run);
+                        }
+                        longest = longer(longest, run);
+                        run = new StringBuilder();
+                        lastCharInRun = false;
+                        break;
+                    }
+                    case '.':
+                    case '^':
+                    case '$':
+                    case ')':
+                        longest = longer(longest, run);
+                        run = new StringBuilder();
+                        lastCharInRun = false;
+                        break;
+                    default:
+                        lastCharInRun = appendLiteral(run, c);
+                        if (!lastCharInRun) {
+                            longest = longer(longest, run);
+                            run = new StringBuilder();
+                        }
+                        break;
+                }
+            }
+
+            longest = longer(longest, run);
+            if (longest.isEmpty()) {
+                return null;
+            }
+            literals.add(longest);
+            return literals;
+        }
+
+        private boolean appendLiteral(final StringBuilder run, final char c) {
+            if (ignoreCase && !isCaseInsensitiveSafe(c)) {
+                return false;
+            }
+            run.append(c);
+            return true;
+        }
+
+        /**
+         * Removes the character that a quantifier applies to, which is a whole surrogate pair for a supplementary character. A high surrogate
+         * that would be left dangling at the end of the run is removed as well, so that a literal never ends in the middle of a character.
+         */
+        private static void removeLastCodePoint(final StringBuilder run) {
+            int length = run.length() - 1;
+            if (length > 0 && Character.isLowSurrogate(run.charAt(length)) && Character.isHighSurrogate(run.charAt(length - 1))) {
+                length--;
+            }
+            while (length > 0 && Character.isHighSurrogate(run.charAt(length - 1))) {
+                length--;
+            }
+            run.setLength(length);
+        }
+
+        private boolean isOptionalRepetition() {
+            int i = index;
+            while (i < regex.length() && regex.charAt(i) == '0') {
+                i++;
+            }
+            return i > index && (regex.charAt(i) == ',' || regex.charAt(i) == '}');
+        }
+
+        private void skipCharacterClass() {
+            int depth = 1;
+            // a closing bracket immediately after the opening bracket (or its negation) is literal
+            if (regex.charAt(index) == '^') {
+                index++;
+            }
+            if (regex.charAt(index) == ']') {
+                index++;
+            }
+
+            while (depth > 0) {
+                final char c = regex.charAt(index++);
+                if (c == '\\') {
+                    index++;
+                } else if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    depth--;
+                }
+            }
+        }
+
+        private void skipGroup() {
+            int depth = 1;
+            while (depth > 0) {
+                final char c = regex.charAt(index++);
+                if (c == '\\') {
+                    if (regex.charAt(index) == 'Q') {
+                        final int end = regex.indexOf("\\E", index);
+                        index = (end < 0) ? regex.length() : end + 2;
+                    } else {
+                        index++;
+                    }
+                } else if (c == '[') {
+                    skipCharacterClass();
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+        }
+
+        private static String longer(final String longest, final StringBuilder run) {
+            return run.length() > longest.length() ? run.toString() : longest;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * An OutputStream that divides the data written to it into fixed-size blocks and compresses each block independently, on
+ * the threads of the given ExecutorService, writing the compressed blocks to the underlying stream in order.
+ * </p>
+ *
+ * <p>
+ * Each block is written as a complete compressed stream, so the result is a concatenation of compressed streams. This is
+ * only valid for formats whose decompressors accept concatenated streams, such as gzip (multiple members), bzip2, xz and
+ * LZ4 (multiple frames). The number of blocks that are held in memory at once is bounded, so memory usage does not depend
+ * on the amount of data that is written.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class ParallelCompressionOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final CompressionStreamFactory streamFactory;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+    private final Deque<Future<ByteArrayOutputStream>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockLength = 0;
+    private long blockCount = 0L;
+    private boolean closed = false;
+
+    /**
+     * @param out the stream to write the compressed blocks to
+     * @param executor the ExecutorService to compress blocks with
+     * @param parallelism the number of blocks to compress concurrently
+     * @param blockSize the number of uncompressed bytes in each block
+     * @param streamFactory creates the compression stream for each block
+     */
+    public ParallelCompressionOutputStream(final OutputStream out, final ExecutorService executor, final int parallelism, final int blockSize,
+                                           final CompressionStreamFactory streamFactory) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block Size must be positive");
+        }
+
+        this.out = out;
+        this.executor = executor;
+        this.streamFactory = streamFactory;
+        this.blockSize = blockSize;
+        // allow one block per thread to be compressed while the next is being filled, so that no thread waits for input
+        this.maxPendingBlocks = 2 * Math.max(1, parallelism);
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int count = Math.min(remaining, blockSize - blockLength);
+            System.arraycopy(b, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            remaining -= count;
+
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes all blocks that have been compressed so far to the underlying stream. Data in a block that is not yet full is
+     * not compressed until the block is full or the stream is closed.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        while (!pendingBlocks.isEmpty() && pendingBlocks.peekFirst().isDone()) {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            // An empty input must still produce a valid compressed stream
+            if (blockLength > 0 || blockCount == 0L) {
+                submitBlock();
+            }
+
+            while (!pendingBlocks.isEmpty()) {
+                writeNextBlock();
+            }
+        } finally {
+            closed = true;
+            for (final Future<ByteArrayOutputStream> pending : pendingBlocks) {
+                pending.cancel(true);
+            }
+            pendingBlocks.clear();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        pendingBlocks.addLast(executor.submit(() -> compress(data, length)));
+        blockCount++;
+
+        while (pendingBlocks.size() >= maxPendingBlocks) {
+            writeNextBlock();
+        }
+
+        block = new byte[blockSize];
+        blockLength = 0;
+    }
+
+    private ByteArrayOutputStream compress(final byte[] data, final int length) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, length / 2));
+        try (final OutputStream compressionOut = streamFactory.create(compressed)) {
+            compressionOut.write(data, 0, length);
+        }
+        return compressed;
+    }
+
+    private void writeNextBlock() throws IOException {
+        final Future<ByteArrayOutputStream> future = pendingBlocks.removeFirst();
+        try {
+            future.get().writeTo(out);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for block to be compressed");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to compress block", cause);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    /**
+     * Creates the stream that compresses a single block
+     */
+    public interface CompressionStreamFactory {
+        OutputStream create(OutputStream out) throws IOException;
+    }
+}
@@ -150,6 +150,17 @@ public class SFTPTransfer implements FileTransfer {
         .defaultValue("false")
         .build();
 
+    public static final PropertyDescriptor OUTSTANDING_READ_REQUESTS = new PropertyDescriptor.Builder()
+        .name("sftp-outstanding-read-requests")
+        .displayName("Outstanding Read Requests")
+        .description("The maximum number of read requests to send to the SFTP server before waiting for a response, when fetching the content of a file."
+                + " The server is sent a new request as each response is received, so that the connection is kept busy while responses are in transit."
+                + " On connections with high latency, increasing this value increases throughput, at the cost of buffering more of the file in memory.")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("16")
+        .required(true)
+        .build();
+
     private static final ProxySpec[] PROXY_SPECS = {ProxySpec.HTTP_AUTH, ProxySpec.SOCKS_AUTH};
     public static final PropertyDescriptor PROXY_CONFIGURATION_SERVICE
             = ProxyConfiguration.createProxyConfigPropertyDescriptor(true, PROXY_SPECS);
@@ -165,6 +176,7 @@ public class SFTPTransfer implements FileTransfer {
     private String homeDir;
 
     private final boolean disableDirectoryListing;
+    private final int outstandingReadRequests;
 
     public SFTPTransfer(final PropertyContext propertyContext, final ComponentLog logger) {
         this.ctx = propertyContext;
@@ -172,6 +184,9 @@ public class SFTPTransfer implements FileTransfer {
 
         final PropertyValue disableListing = propertyContext.getProperty(DISABLE_DIRECTORY_LISTING);
         disableDirectoryListing = disableListing == null ? false : Boolean.TRUE.equals(disableListing.asBoolean());
+
+        final PropertyValue readRequests = propertyContext.getProperty(OUTSTANDING_READ_REQUESTS);
+        outstandingReadRequests = readRequests == null || readRequests.getValue() == null ? 16 : readRequests.asInteger();
     }
 
     public static void validateProxySpec(ValidationContext context, Collection<ValidationResult> results) {
@@ -358,7 +373,7 @@ public class SFTPTransfer implements FileTransfer {
         FlowFile resultFlowFile = null;
         try {
             rf = sftpClient.open(remoteFileName);
-            rfis = rf.new ReadAheadRemoteFileInputStream(16);
+            rfis = rf.new ReadAheadRemoteFileInputStream(outstandingReadRequests);
             final InputStream in = rfis;
             resultFlowFile = session.write(origFlowFile, new OutputStreamCallback() {
                 @Override
@@ -368,14 +383,7 @@ public class SFTPTransfer implements FileTransfer {
             });
             return resultFlowFile;
         } catch (final SFTPException e) {
-            switch (e.getStatusCode()) {
-                case NO_SUCH_FILE:
-                    throw new FileNotFoundException("Could not find file " + remoteFileName + " on remote SFTP Server");
-                case PERMISSION_DENIED:
-                    throw new PermissionDeniedException("Insufficient permissions to read file " + remoteFileName + " from remote SFTP Server", e);
-                default:
-                    throw new IOException("Failed to obtain file content for " + remoteFileName, e);
-            }
+            throw translateReadException(remoteFileName, e);
         } finally {
             if(rf != null){
                 try{
@@ -394,6 +402,34 @@ public class SFTPTransfer implements FileTransfer {
         }
     }
 
+    @Override
+    public boolean isRemoteFileRangeSupported(final FlowFile flowFile) {
+        return true;
+    }
+
+    @Override
+    public int getRemoteFileRange(final String remoteFileName, final FlowFile flowFile, final long offset, final byte[] buffer) throws IOException {
+        final SFTPClient sftpClient = getSFTPClient(flowFile);
+
+        try (final RemoteFile rf = sftpClient.open(remoteFileName);
+             final InputStream in = rf.new ReadAheadRemoteFileInputStream(outstandingReadRequests, offset)) {
+            return StreamUtils.fillBuffer(in, buffer, false);
+        } catch (final SFTPException e) {
+            throw translateReadException(remoteFileName, e);
+        }
+    }
+
+    private static IOException translateReadException(final String remoteFileName, final SFTPException e) {
+        switch (e.getStatusCode()) {
+            case NO_SUCH_FILE:
+                return new FileNotFoundException("Could not find file " + remoteFileName + " on remote SFTP Server");
+            case PERMISSION_DENIED:
+                return new PermissionDeniedException("Insufficient permissions to read file " + remoteFileName + " from remote SFTP Server", e);
+            default:
+                return new IOException("Failed to obtain file content for " + remoteFileName, e);
+        }
+    }
+
     @Override
     public void deleteFile(final FlowFile flowFile, final String path, final String remoteFileName) throws IOException {
         final SFTPClient sftpClient = getSFTPClient(flowFile);
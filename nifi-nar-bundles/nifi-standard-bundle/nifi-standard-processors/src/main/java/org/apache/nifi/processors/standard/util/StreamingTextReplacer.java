@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import org.apache.commons.io.output.NullWriter;
+import org.apache.nifi.processor.exception.ProcessException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Replaces text as it is streamed from a Reader to a Writer, holding no more than a fixed-size window of characters in
+ * memory regardless of how much text is processed.
+ * </p>
+ *
+ * <p>
+ * Literal replacement produces exactly the same result as {@link String#replace(CharSequence, CharSequence)}.
+ * </p>
+ *
+ * <p>
+ * Regular expression replacement produces the same result as repeatedly calling {@link Matcher#find()} and
+ * {@link Matcher#appendReplacement(StringBuffer, String)} over the entire text, provided that the pattern needs no more
+ * than {@value #MAX_LOOK_BEHIND} characters of preceding text for look-behind or word boundaries. Whenever the matcher
+ * reports that it reached the end of the window, the result could change once more text is read, so the decision is
+ * deferred until more text is available. If the window cannot hold enough text to decide, a
+ * {@link MatchTooLargeException} is thrown. This is the case, for example, for a pattern such as <code>(?s)^.*$</code>
+ * when the text is larger than the window.
+ * </p>
+ *
+ * <p>
+ * Finding the text that can be written before more text is read costs a match attempt for every position that is checked, so
+ * at most {@value #MAX_PROBES} positions are checked each time the window is refilled. Positions beyond those are kept in the
+ * window and checked after the next refill.
+ * </p>
+ */
+public class StreamingTextReplacer {
+    static final int MAX_LOOK_BEHIND = 256;
+    static final int MAX_PROBES = 16 * 1024;
+    private static final int MIN_WINDOW_SIZE = 4;
+
+    private final int windowSize;
+    private final int lookBehind;
+    private final int retainedTail;
+
+    /**
+     * @param windowSize the maximum number of characters to hold in memory at once
+     */
+    public StreamingTextReplacer(final int windowSize) {
+        this.windowSize = Math.max(MIN_WINDOW_SIZE, windowSize);
+        this.lookBehind = Math.max(1, Math.min(MAX_LOOK_BEHIND, this.windowSize / 4));
+        this.retainedTail = Math.max(1, (this.windowSize - lookBehind) / 2);
+    }
+
+    /**
+     * Copies all text from the given Reader to the given Writer, replacing each occurrence of the search value with the
+     * replacement value.
+     *
+     * @return the number of replacements that were made
+     */
+    public int replaceLiteral(final Reader in, final Writer out, final String searchValue, final String replacementValue) throws IOException {
+        return replaceLiteral(in, out, searchValue, replacementValue, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads text from the given Reader until it finds an occurrence of the search value, or until the end of the text.
+     *
+     * @return whether the text contains the search value, in which case {@link #replaceLiteral(Reader, Writer, String, String)}
+     * would make at least one replacement
+     */
+    public boolean containsLiteral(final Reader in, final String searchValue) throws IOException {
+        if (searchValue.isEmpty()) {
+            return true;
+        }
+        return replaceLiteral(in, NullWriter.NULL_WRITER, searchValue, "", 1) > 0;
+    }
+
+    private int replaceLiteral(final Reader in, final Writer out, final String searchValue, final String replacementValue, final int maxReplacements) throws IOException {
+        if (searchValue.isEmpty()) {
+            return insertBetweenCharacters(in, out, replacementValue);
+        }
+
+        final int searchLength = searchValue.length();
+        final char[] search = searchValue.toCharArray();
+        final char[] window = new char[Math.max(windowSize, searchLength * 2)];
+
+        int len = 0;
+        int matches = 0;
+        boolean eof = false;
+        while (!eof) {
+            while (len < window.length) {
+                final int read = in.read(window, len, window.length - len);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                len += read;
+            }
+
+            int pos = 0;
+            int index;
+            while ((index = indexOf(window, pos, len, search)) >= 0) {
+                out.write(window, pos, index - pos);
+                out.write(replacementValue);
+                pos = index + searchLength;
+                matches++;
+                if (matches >= maxReplacements) {
+                    return matches;
+                }
+            }
+
+            // The last few characters may be the beginning of an occurrence that continues past the end of the window
+            final int retain = eof ? 0 : Math.min(len - pos, searchLength - 1);
+            out.write(window, pos, len - pos - retain);
+            System.arraycopy(window, len - retain, window, 0, retain);
+            len = retain;
+        }
+
+        return matches;
+    }
+
+    /**
+     * Copies all text from the given Reader to the given Writer, replacing each match of the given pattern with the value
+     * returned by the replacement function. The value returned is interpreted in the same way as the replacement given to
+     * {@link Matcher#appendReplacement(StringBuffer, String)}, so it may contain references to capturing groups.
+     *
+     * @return the number of replacements that were made
+     * @throws MatchTooLargeException if the window is too small to determine whether or not some part of the text matches
+     */
+    public int replaceAll(final Reader in, final Writer out, final Pattern pattern, final Function<Matcher, String> replacementFunction) throws IOException {
+        return replaceAll(in, out, pattern, replacementFunction, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads text from the given Reader until the given pattern is found, or until the end of the text.
+     *
+     * @return whether the pattern matches any part of the text, in which case {@link #replaceAll(Reader, Writer, Pattern, Function)}
+     * would make at least one replacement
+     * @throws MatchTooLargeException if the window is too small to determine whether or not some part of the text matches
+     */
+    public boolean containsMatch(final Reader in, final Pattern pattern) throws IOException {
+        return replaceAll(in, NullWriter.NULL_WRITER, pattern, matcher -> "", 1) > 0;
+    }
+
+    private int replaceAll(final Reader in, final Writer out, final Pattern pattern, final Function<Matcher, String> replacementFunction,
+                           final int maxReplacements) throws IOException {
+        final char[] window = new char[windowSize];
+        final CharBuffer text = CharBuffer.wrap(window);
+        final Matcher matcher = pattern.matcher("");
+        final StringBuffer replacementBuffer = new StringBuffer();
+
+        int len = 0;           // number of characters in the window
+        int pos = 0;           // index of the first character that has not yet been written
+        int searchFrom = 0;    // index at which the next search begins
+        int matches = 0;
+        boolean eof = false;
+
+        while (true) {
+            while (!eof && len < windowSize) {
+                final int read = in.read(window, len, windowSize - len);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    len += read;
+                }
+            }
+
+            if (searchFrom <= len) {
+                text.clear();
+                text.limit(len);
+                matcher.reset(text);
+                matcher.useTransparentBounds(true);
+                matcher.useAnchoringBounds(false);
+                matcher.region(searchFrom, len);
+
+                int appendPosition = 0;
+                while (true) {
+                    final boolean found = matcher.find();
+                    if (!eof && matcher.hitEnd()) {
+                        // The outcome may be different once more text is available. Text that precedes the earliest position
+                        // from which a match attempt reaches the end of the window can never be part of a match, so it is
+                        // written now. Positions close to the end are always retained, as they are likely to reach the end,
+                        // and so are positions beyond the first MAX_PROBES, which are checked once the window is refilled.
+                        int safeEnd = found ? Math.min(matcher.start(), len - retainedTail) : len - retainedTail;
+                        safeEnd = Math.min(safeEnd, searchFrom + MAX_PROBES);
+                        for (int start = searchFrom; start < safeEnd; start++) {
+                            matcher.region(start, len);
+                            matcher.lookingAt();
+                            if (matcher.hitEnd()) {
+                                safeEnd = start;
+                                break;
+                            }
+                        }
+
+                        if (safeEnd > pos) {
+                            out.write(window, pos, safeEnd - pos);
+                            pos = safeEnd;
+                            searchFrom = Math.max(searchFrom, safeEnd);
+                        }
+                        break;
+                    }
+
+                    if (!found) {
+                        out.write(window, pos, len - pos);
+                        pos = len;
+                        searchFrom = len;
+                        break;
+                    }
+
+                    replacementBuffer.setLength(0);
+                    matcher.appendReplacement(replacementBuffer, replacementFunction.apply(matcher));
+                    out.append(replacementBuffer, pos - appendPosition, replacementBuffer.length());
+                    matches++;
+                    if (matches >= maxReplacements) {
+                        return matches;
+                    }
+
+                    appendPosition = matcher.end();
+                    pos = matcher.end();
+                    searchFrom = matcher.end() == matcher.start() ? matcher.end() + 1 : matcher.end();
+                }
+            } else {
+                // an empty match at the very end of the window; nothing more can match until more text is read
+                out.write(window, pos, len - pos);
+                pos = len;
+            }
+
+            if (eof) {
+                out.write(window, pos, len - pos);
+                return matches;
+            }
+
+            // Discard text that has already been written, keeping enough of it for look-behind
+            final int discard = Math.max(0, pos - lookBehind);
+            if (discard == 0 && len == windowSize) {
+                throw new MatchTooLargeException("Unable to determine whether or not the text matches " + pattern.pattern()
+                    + " without buffering more than " + windowSize + " characters");
+            }
+
+            System.arraycopy(window, discard, window, 0, len - discard);
+            len -= discard;
+            pos -= discard;
+            searchFrom -= discard;
+        }
+    }
+
+    private int insertBetweenCharacters(final Reader in, final Writer out, final String value) throws IOException {
+        final char[] buffer = new char[Math.min(windowSize, 8192)];
+        out.write(value);
+
+        int matches = 1;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                out.write(buffer[i]);
+                out.write(value);
+            }
+            matches += read;
+        }
+
+        return matches;
+    }
+
+    private static int indexOf(final char[] source, final int fromIndex, final int toIndex, final char[] target) {
+        final char first = target[0];
+        final int max = toIndex - target.length;
+
+        for (int i = fromIndex; i <= max; i++) {
+            if (source[i] != first) {
+                continue;
+            }
+
+            int j = 1;
+            while (j < target.length && source[i + j] == target[j]) {
+                j++;
+            }
+
+            if (j == target.length) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Indicates that a match could not be determined within the window of text that is held in memory.
+     */
+    public static class MatchTooLargeException extends ProcessException {
+        public MatchTooLargeException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.InputStream;
 import java.lang.reflect.Array;
@@ -37,6 +38,7 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     private final ComponentLog logger;
     private final RecordReaderFactory recordParserFactory;
     private final int[] fields;
+    private final boolean allFieldsInOrder;
 
     private InputStream rawIn;
     private Object currentRow;
@@ -49,6 +51,7 @@ public class FlowFileEnumerator implements Enumerator<Object> {
         this.recordParserFactory = parserFactory;
         this.logger = logger;
         this.fields = fields;
+        this.allFieldsInOrder = isInOrder(fields);
         reset();
     }
 
@@ -91,30 +94,54 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     protected void onFinish() {
     }
 
+    private static boolean isInOrder(final int[] fields) {
+        if (fields == null) {
+            return false;
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != i) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private Object filterColumns(final Record record) {
         if (record == null) {
             return null;
         }
 
-        final Object[] row = record.getValues();
-
-        // If we want no fields or if the row is null, just return null
-        if (fields == null || row == null) {
-            return row;
+        // If we want no fields, just return the row
+        if (fields == null) {
+            return record.getValues();
         }
 
+        final RecordSchema schema = record.getSchema();
+
         // If we want only a single field, then Calcite is going to expect us to return
         // the actual value, NOT a 1-element array of values.
         if (fields.length == 1) {
-            final int desiredCellIndex = fields[0];
-            return row[desiredCellIndex];
+            return record.getValue(schema.getField(fields[0]));
+        }
+
+        // If we want all of the fields, obtaining all values at once is cheaper than obtaining each value individually.
+        if (allFieldsInOrder && fields.length == schema.getFieldCount()) {
+            final Object[] row = record.getValues();
+            for (int i = 0; i < row.length; i++) {
+                row[i] = cast(row[i]);
+            }
+
+            return row;
         }
 
-        // Create a new Object array that contains only the desired fields.
+        // Create a new Object array that contains only the desired fields. Only these values are obtained from the Record,
+        // as a query often needs only a few fields of a much wider Record.
         final Object[] filtered = new Object[fields.length];
         for (int i = 0; i < fields.length; i++) {
             final int indexToKeep = fields[i];
-            filtered[i] = cast(row[indexToKeep]);
+            filtered[i] = cast(record.getValue(schema.getField(indexToKeep)));
         }
 
         return filtered;
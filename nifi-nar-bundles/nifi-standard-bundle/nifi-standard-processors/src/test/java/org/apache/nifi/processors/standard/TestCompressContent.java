@@ -16,12 +16,19 @@
  */
 package org.apache.nifi.processors.standard;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.util.MockFlowFile;
@@ -321,4 +328,71 @@ public class TestCompressContent {
         flowFile.assertContentEquals(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
         flowFile.assertAttributeEquals("filename", "SampleFile.txt");
     }
+
+    @Test
+    public void testParallelCompressRoundTrip() throws Exception {
+        final byte[] data = createCompressibleData(150_000);
+
+        for (final String format : new String[] {CompressContent.COMPRESSION_FORMAT_GZIP, CompressContent.COMPRESSION_FORMAT_BZIP2,
+                CompressContent.COMPRESSION_FORMAT_XZ_LZMA2, CompressContent.COMPRESSION_FORMAT_LZ4_FRAMED}) {
+            for (final byte[] content : new byte[][] {data, new byte[0]}) {
+                final TestRunner compressRunner = TestRunners.newTestRunner(CompressContent.class);
+                compressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_COMPRESS);
+                compressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, format);
+                compressRunner.setProperty(CompressContent.COMPRESSION_THREADS, "4");
+                compressRunner.setProperty(CompressContent.BLOCK_SIZE, "64 KB");
+
+                compressRunner.enqueue(content);
+                compressRunner.run();
+                compressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+                final byte[] compressed = compressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0).toByteArray();
+
+                final TestRunner decompressRunner = TestRunners.newTestRunner(CompressContent.class);
+                decompressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_DECOMPRESS);
+                decompressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, format);
+
+                decompressRunner.enqueue(compressed);
+                decompressRunner.run();
+                decompressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+                decompressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0).assertContentEquals(content);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelGzipReadableByStandardDecompressor() throws Exception {
+        final byte[] data = createCompressibleData(500_000);
+
+        final TestRunner runner = TestRunners.newTestRunner(CompressContent.class);
+        runner.setProperty(CompressContent.MODE, CompressContent.MODE_COMPRESS);
+        runner.setProperty(CompressContent.COMPRESSION_FORMAT, CompressContent.COMPRESSION_FORMAT_GZIP);
+        runner.setProperty(CompressContent.COMPRESSION_THREADS, "3");
+        runner.setProperty(CompressContent.BLOCK_SIZE, "64 KB");
+
+        runner.enqueue(data);
+        runner.run();
+        runner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+        final MockFlowFile flowFile = runner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0);
+        flowFile.assertAttributeEquals(CoreAttributes.MIME_TYPE.key(), "application/gzip");
+
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(flowFile.toByteArray()))) {
+            final byte[] buffer = new byte[8192];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                decompressed.write(buffer, 0, len);
+            }
+        }
+        assertArrayEquals(data, decompressed.toByteArray());
+    }
+
+    private static byte[] createCompressibleData(final int length) {
+        final Random random = new Random(length);
+        final StringBuilder sb = new StringBuilder(length + 32);
+        while (sb.length() < length) {
+            sb.append("line ").append(random.nextInt(1000)).append(", value=").append(random.nextInt()).append('\n');
+        }
+        sb.setLength(length);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
 }
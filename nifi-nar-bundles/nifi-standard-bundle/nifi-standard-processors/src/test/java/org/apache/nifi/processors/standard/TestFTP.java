@@ -202,6 +202,40 @@ public class TestFTP {
         retrievedFile.assertContentEquals("Just some random test test test chocolate");
     }
 
+    @Test
+    public void parallelFileFetchWithoutRestartSupport() {
+        // FakeFtpServer does not support restarting a transfer at an offset, so the file must be fetched over a single connection
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("Line ").append(i).append(" of some random test test test chocolate\n");
+        }
+
+        FileSystem results = fakeFtpServer.getFileSystem();
+        FileEntry sampleFile = new FileEntry("c:\\data\\randombytes-3");
+        sampleFile.setContents(content.toString());
+        results.add(sampleFile);
+
+        TestRunner runner = TestRunners.newTestRunner(FetchFTP.class);
+        runner.setProperty(FetchFTP.HOSTNAME, "localhost");
+        runner.setProperty(FetchFTP.USERNAME, username);
+        runner.setProperty(FTPTransfer.PASSWORD, password);
+        runner.setProperty(FTPTransfer.PORT, Integer.toString(ftpPort));
+        runner.setProperty(FetchFTP.REMOTE_FILENAME, "c:\\data\\randombytes-3");
+        runner.setProperty(FetchFTP.PARALLEL_DOWNLOAD_CONNECTIONS, "3");
+        runner.setProperty(FetchFTP.PARALLEL_DOWNLOAD_THRESHOLD, "1 KB");
+        runner.setProperty(FetchFTP.PARALLEL_DOWNLOAD_CHUNK_SIZE, "16 KB");
+
+        Map<String, String> attrs = new HashMap<String, String>();
+        attrs.put(ListFile.FILE_SIZE_ATTRIBUTE, String.valueOf(content.length()));
+        runner.enqueue("", attrs);
+
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(FetchFTP.REL_SUCCESS, 1);
+        final MockFlowFile retrievedFile = runner.getFlowFilesForRelationship(FetchFTP.REL_SUCCESS).get(0);
+        retrievedFile.assertContentEquals(content.toString());
+    }
+
     @Test
     public void basicFileList() throws IOException, InterruptedException {
         FileSystem results = fakeFtpServer.getFileSystem();
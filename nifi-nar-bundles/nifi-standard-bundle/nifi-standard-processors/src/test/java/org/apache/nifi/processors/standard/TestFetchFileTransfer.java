@@ -27,10 +27,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.processor.ProcessContext;
@@ -107,6 +112,54 @@ public class TestFetchFileTransfer {
         runner.assertAllFlowFilesTransferred(FetchFileTransfer.REL_NOT_FOUND, 1);
     }
 
+    @Test
+    public void testContentFetchedInParallel() throws IOException {
+        final TestableFetchFileTransfer proc = new TestableFetchFileTransfer();
+        final TestRunner runner = TestRunners.newTestRunner(proc);
+        runner.setProperty(FetchFileTransfer.HOSTNAME, "localhost");
+        runner.setProperty(FetchFileTransfer.UNDEFAULTED_PORT, "11");
+        runner.setProperty(FetchFileTransfer.REMOTE_FILENAME, "${filename}");
+        runner.setProperty(FetchFileTransfer.PARALLEL_DOWNLOAD_CONNECTIONS, "3");
+        runner.setProperty(FetchFileTransfer.PARALLEL_DOWNLOAD_THRESHOLD, "1000 B");
+        runner.setProperty(FetchFileTransfer.PARALLEL_DOWNLOAD_CHUNK_SIZE, "100 B");
+
+        final byte[] large = new byte[10_050];
+        new Random(1L).nextBytes(large);
+        final byte[] exactChunks = Arrays.copyOf(large, 2_000);
+        proc.addContent("large.bin", large);
+        proc.addContent("exact.bin", exactChunks);
+        proc.addContent("small.bin", "world".getBytes());
+
+        runner.enqueue(new byte[0], createAttributes("large.bin", large.length));
+        runner.enqueue(new byte[0], createAttributes("exact.bin", exactChunks.length));
+        // A file that has grown since it was listed is still fetched completely
+        runner.enqueue(new byte[0], createAttributes("large.bin", 1_000));
+        runner.enqueue(new byte[0], createAttributes("small.bin", 5));
+        runner.enqueue(new byte[0], createAttributes("missing.bin", 5_000));
+
+        runner.run(5);
+        runner.assertTransferCount(FetchFileTransfer.REL_SUCCESS, 4);
+        runner.assertTransferCount(FetchFileTransfer.REL_NOT_FOUND, 1);
+
+        final List<MockFlowFile> fetched = runner.getFlowFilesForRelationship(FetchFileTransfer.REL_SUCCESS);
+        fetched.get(0).assertContentEquals(large);
+        fetched.get(1).assertContentEquals(exactChunks);
+        fetched.get(2).assertContentEquals(large);
+        fetched.get(3).assertContentEquals("world");
+
+        // The connections that were used for the first file are reused for the others
+        assertEquals(3, proc.transfersCreated.get());
+        assertTrue(proc.rangesRead.get() > 0);
+        assertEquals(1, proc.wholeFilesRead.get());
+    }
+
+    private static Map<String, String> createAttributes(final String filename, final long size) {
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("filename", filename);
+        attrs.put(ListFile.FILE_SIZE_ATTRIBUTE, String.valueOf(size));
+        return attrs;
+    }
+
     @Test
     public void testInsufficientPermissions() {
         final TestableFetchFileTransfer proc = new TestableFetchFileTransfer();
@@ -266,13 +319,25 @@ public class TestFetchFileTransfer {
         private boolean allowRename = true;
         private boolean closed = false;
         private final Map<String, byte[]> fileContents = new HashMap<>();
+        private final AtomicInteger transfersCreated = new AtomicInteger();
+        private final AtomicInteger rangesRead = new AtomicInteger();
+        private final AtomicInteger wholeFilesRead = new AtomicInteger();
 
         public void addContent(final String filename, final byte[] content) {
             this.fileContents.put(filename, content);
         }
 
+        @Override
+        protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+            // FetchSFTP and FetchFTP add the log level for missing files themselves, and it is read when the processor is scheduled
+            final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
+            properties.add(FILE_NOT_FOUND_LOG_LEVEL);
+            return properties;
+        }
+
         @Override
         protected FileTransfer createFileTransfer(final ProcessContext context) {
+            transfersCreated.incrementAndGet();
             return new FileTransfer() {
                 @Override
                 public void close() throws IOException {
@@ -299,6 +364,7 @@ public class TestFetchFileTransfer {
                     if (content == null) {
                         throw new FileNotFoundException();
                     }
+                    wholeFilesRead.incrementAndGet();
                     final InputStream in = new ByteArrayInputStream(content);
                     flowFile = session.write(flowFile, new OutputStreamCallback() {
                         @Override
@@ -309,6 +375,28 @@ public class TestFetchFileTransfer {
                     return flowFile;
                 }
 
+                @Override
+                public boolean isRemoteFileRangeSupported(FlowFile flowFile) {
+                    return true;
+                }
+
+                @Override
+                public int getRemoteFileRange(String remoteFileName, FlowFile flowFile, long offset, byte[] buffer) throws IOException {
+                    if (!allowAccess) {
+                        throw new PermissionDeniedException("test permission denied");
+                    }
+
+                    final byte[] content = fileContents.get(remoteFileName);
+                    if (content == null) {
+                        throw new FileNotFoundException();
+                    }
+
+                    rangesRead.incrementAndGet();
+                    final int length = (int) Math.max(0, Math.min(buffer.length, content.length - offset));
+                    System.arraycopy(content, (int) Math.min(offset, content.length), buffer, 0, length);
+                    return length;
+                }
+
                 @Override
                 public FileInfo getRemoteFileInfo(FlowFile flowFile, String path, String remoteFileName) throws IOException {
                     return null;
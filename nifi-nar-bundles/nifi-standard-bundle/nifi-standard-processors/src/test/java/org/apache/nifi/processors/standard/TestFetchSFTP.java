@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.nifi.processors.standard.util.SFTPTransfer;
+import org.apache.nifi.processors.standard.util.SSHTestServer;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TestFetchSFTP {
+
+    private TestRunner fetchSFTPRunner;
+    private static SSHTestServer sshTestServer;
+
+    @BeforeClass
+    public static void setupSSHD() throws IOException {
+        sshTestServer = new SSHTestServer();
+        sshTestServer.startServer();
+    }
+
+    @AfterClass
+    public static void cleanupSSHD() throws IOException {
+        sshTestServer.stopServer();
+    }
+
+    @Before
+    public void setup() throws IOException {
+        FileUtils.cleanDirectory(new File(sshTestServer.getVirtualFileSystemPath()));
+
+        fetchSFTPRunner = TestRunners.newTestRunner(FetchSFTP.class);
+        fetchSFTPRunner.setProperty(FetchSFTP.HOSTNAME, "localhost");
+        fetchSFTPRunner.setProperty(SFTPTransfer.PORT, Integer.toString(sshTestServer.getSSHPort()));
+        fetchSFTPRunner.setProperty(FetchSFTP.USERNAME, sshTestServer.getUsername());
+        fetchSFTPRunner.setProperty(SFTPTransfer.PASSWORD, sshTestServer.getPassword());
+        fetchSFTPRunner.setProperty(SFTPTransfer.STRICT_HOST_KEY_CHECKING, "false");
+        fetchSFTPRunner.setProperty(FetchSFTP.REMOTE_FILENAME, "/${filename}");
+    }
+
+    @Test
+    public void testFetchSingleConnection() throws IOException {
+        final byte[] content = createFile("single.bin", 300_000);
+
+        fetchSFTPRunner.setProperty(SFTPTransfer.OUTSTANDING_READ_REQUESTS, "4");
+        fetchSFTPRunner.enqueue(new byte[0], createAttributes("single.bin", content.length));
+        fetchSFTPRunner.run();
+
+        fetchSFTPRunner.assertAllFlowFilesTransferred(FetchSFTP.REL_SUCCESS, 1);
+        fetchSFTPRunner.getFlowFilesForRelationship(FetchSFTP.REL_SUCCESS).get(0).assertContentEquals(content);
+    }
+
+    @Test
+    public void testFetchInParallel() throws IOException {
+        final byte[] content = createFile("parallel.bin", 3_000_000);
+
+        fetchSFTPRunner.setProperty(FetchSFTP.PARALLEL_DOWNLOAD_CONNECTIONS, "3");
+        fetchSFTPRunner.setProperty(FetchSFTP.PARALLEL_DOWNLOAD_THRESHOLD, "1 MB");
+        fetchSFTPRunner.setProperty(FetchSFTP.PARALLEL_DOWNLOAD_CHUNK_SIZE, "256 KB");
+
+        fetchSFTPRunner.enqueue(new byte[0], createAttributes("parallel.bin", content.length));
+        fetchSFTPRunner.enqueue(new byte[0], createAttributes("missing.bin", content.length));
+        fetchSFTPRunner.run(2);
+
+        fetchSFTPRunner.assertTransferCount(FetchSFTP.REL_SUCCESS, 1);
+        fetchSFTPRunner.assertTransferCount(FetchSFTP.REL_NOT_FOUND, 1);
+        fetchSFTPRunner.getFlowFilesForRelationship(FetchSFTP.REL_SUCCESS).get(0).assertContentEquals(content);
+    }
+
+    private static byte[] createFile(final String filename, final int length) throws IOException {
+        final byte[] content = new byte[length];
+        new Random(7L).nextBytes(content);
+        Files.write(Paths.get(sshTestServer.getVirtualFileSystemPath(), filename), content);
+        return content;
+    }
+
+    private static Map<String, String> createAttributes(final String filename, final long size) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", filename);
+        attributes.put(ListFile.FILE_SIZE_ATTRIBUTE, String.valueOf(size));
+        return attributes;
+    }
+}
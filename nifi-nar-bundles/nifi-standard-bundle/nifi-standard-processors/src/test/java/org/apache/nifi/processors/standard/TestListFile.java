@@ -691,6 +691,105 @@ public class TestListFile {
         assertEquals(1, successFiles2.size());
     }
 
+    @Test
+    public void testDirectoryChangeDetection() throws Exception {
+        final File subdir1 = new File(TESTDIR + "/subdir1");
+        assertTrue(subdir1.mkdirs());
+        final File subdir2 = new File(TESTDIR + "/subdir2");
+        assertTrue(subdir2.mkdirs());
+
+        final File file1 = new File(TESTDIR + "/subdir1/file1.txt");
+        assertTrue(file1.createNewFile());
+        assertTrue(file1.setLastModified(time4millis));
+        final File file2 = new File(TESTDIR + "/subdir2/file2.txt");
+        assertTrue(file2.createNewFile());
+        assertTrue(file2.setLastModified(time3millis));
+
+        // directories that were modified very recently are always listed again, so make them appear older
+        for (final File directory : new File[] {testDir, subdir1, subdir2}) {
+            assertTrue(directory.setLastModified(time5millis));
+        }
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.DIRECTORY_CHANGE_DETECTION, ListFile.CHANGE_DETECTION_MODIFICATION_TIME.getValue());
+        runner.setProperty(ListFile.TRACK_PERFORMANCE, "true");
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 2);
+        assertEquals(0, processor.getPerformanceTracker().getSkippedDirectoryCount());
+
+        // adding a file changes the last modified time of subdir2 only
+        final File file3 = new File(TESTDIR + "/subdir2/file3.txt");
+        assertTrue(file3.createNewFile());
+        assertTrue(file3.setLastModified(time2millis));
+
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "file3.txt");
+        assertEquals(2, processor.getPerformanceTracker().getSkippedDirectoryCount());
+        assertEquals(3, processor.getPerformanceTracker().getSkippedEntryCount());
+
+        // removing a directory changes the last modified time of its parent
+        assertTrue(file1.delete());
+        assertTrue(subdir1.delete());
+        final File file4 = new File(TESTDIR + "/file4.txt");
+        assertTrue(file4.createNewFile());
+        assertTrue(file4.setLastModified(time1millis));
+
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "file4.txt");
+    }
+
+    @Test
+    public void testDirectoryChangeDetectionAppliesMinimumAgeToUnchangedDirectories() throws Exception {
+        final File file1 = new File(TESTDIR + "/file1.txt");
+        assertTrue(file1.createNewFile());
+        assertTrue(file1.setLastModified(time0millis));
+        assertTrue(testDir.setLastModified(time5millis));
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.DIRECTORY_CHANGE_DETECTION, ListFile.CHANGE_DETECTION_MODIFICATION_TIME.getValue());
+        runner.setProperty(ListFile.MIN_AGE, age1);
+        runner.setProperty(ListFile.TRACK_PERFORMANCE, "true");
+        runNext();
+        runner.assertTransferCount(ListFile.REL_SUCCESS, 0);
+
+        // the file is listed once it is old enough, even though its directory is not listed again
+        Thread.sleep(age1millis);
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        assertEquals(1, processor.getPerformanceTracker().getSkippedDirectoryCount());
+    }
+
+    @Test
+    public void testWatchServiceDetectsModifiedFile() throws Exception {
+        Assume.assumeTrue("Change notifications are only delivered promptly on Linux", SystemUtils.IS_OS_LINUX);
+
+        final File file1 = new File(TESTDIR + "/file1.txt");
+        assertTrue(file1.createNewFile());
+        assertTrue(file1.setLastModified(time4millis));
+        assertTrue(testDir.setLastModified(time5millis));
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.DIRECTORY_CHANGE_DETECTION, ListFile.CHANGE_DETECTION_WATCH_SERVICE.getValue());
+        runner.run(1, false, true);
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(ListFile.FILE_SIZE_ATTRIBUTE, "0");
+
+        // writing to an existing file does not change the last modified time of its directory
+        try (final FileOutputStream fos = new FileOutputStream(file1)) {
+            fos.write(new byte[10]);
+        }
+        assertTrue(file1.setLastModified(time2millis));
+        assertTrue(testDir.setLastModified(time5millis));
+
+        Thread.sleep(500L);
+        runner.clearTransferState();
+        runner.run(1, true, true);
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(ListFile.FILE_SIZE_ATTRIBUTE, "10");
+    }
+
     @Test
     public void testReadable() throws Exception {
         final long now = getTestModifiedTime();
@@ -475,6 +475,66 @@ public class TestMergeRecord {
         assertEquals(5, ((MergeRecord) runner.getProcessor()).getBinCount());
     }
 
+    @Test
+    public void testSpilledBins() {
+        runner.setProperty(MergeRecord.MIN_RECORDS, "2");
+        runner.setProperty(MergeRecord.MAX_RECORDS, "2");
+        runner.setProperty(MergeRecord.MAX_BIN_COUNT, "10");
+        runner.setProperty(MergeRecord.MAX_OPEN_BIN_COUNT, "1");
+        runner.setProperty(MergeRecord.CORRELATION_ATTRIBUTE_NAME, "correlationId");
+
+        final Map<String, String> attrs = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            attrs.put("correlationId", String.valueOf(i));
+            runner.enqueue("Name, Age\nJohn, 3" + i, attrs);
+        }
+
+        runner.run(1, false);
+
+        runner.assertTransferCount(MergeRecord.REL_MERGED, 0);
+        assertEquals(3, ((MergeRecord) runner.getProcessor()).getBinCount());
+
+        for (int i = 0; i < 3; i++) {
+            attrs.put("correlationId", String.valueOf(i));
+            runner.enqueue("Name, Age\nJane, 2" + i, attrs);
+        }
+
+        runner.run(1, false, false);
+
+        runner.assertTransferCount(MergeRecord.REL_MERGED, 3);
+        runner.assertTransferCount(MergeRecord.REL_ORIGINAL, 6);
+        runner.assertTransferCount(MergeRecord.REL_FAILURE, 0);
+        assertEquals(0, ((MergeRecord) runner.getProcessor()).getBinCount());
+
+        final List<MockFlowFile> mergedFlowFiles = runner.getFlowFilesForRelationship(MergeRecord.REL_MERGED);
+        for (int i = 0; i < 3; i++) {
+            final MockFlowFile mff = mergedFlowFiles.get(i);
+            mff.assertAttributeEquals("record.count", "2");
+            mff.assertAttributeEquals(MergeRecord.MERGE_COUNT_ATTRIBUTE, "2");
+            mff.assertContentEquals("header\nJohn,3" + i + "\nJane,2" + i + "\n");
+        }
+    }
+
+    @Test
+    public void testSpilledBinsReturnedToQueueWhenStopped() {
+        runner.setProperty(MergeRecord.MIN_RECORDS, "2");
+        runner.setProperty(MergeRecord.MAX_OPEN_BIN_COUNT, "1");
+        runner.setProperty(MergeRecord.CORRELATION_ATTRIBUTE_NAME, "correlationId");
+
+        final Map<String, String> attrs = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            attrs.put("correlationId", String.valueOf(i));
+            runner.enqueue("Name, Age\nJohn, 3" + i, attrs);
+        }
+
+        runner.run(1);
+
+        runner.assertTransferCount(MergeRecord.REL_MERGED, 0);
+        runner.assertTransferCount(MergeRecord.REL_ORIGINAL, 0);
+        runner.assertQueueNotEmpty();
+        assertEquals(3, runner.getQueueSize().getObjectCount());
+    }
+
     @Test
     public void testDefragmentOldestBinFailsWhenTooManyBins() {
         runner.setProperty(MergeRecord.MIN_RECORDS, "5");
@@ -16,9 +16,17 @@
  */
 package org.apache.nifi.processors.standard;
 
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.nifi.avro.AvroReader;
 import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.csv.CSVReader;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
 import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
@@ -37,11 +45,14 @@ import org.apache.nifi.serialization.record.RecordSet;
 import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
+import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.ArrayList;
@@ -803,6 +814,97 @@ public class TestQueryRecord {
     }
 
 
+    @Test
+    public void testProjectionOfSomeFields() throws InitializationException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("id", RecordFieldType.INT);
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("age", RecordFieldType.INT);
+        parser.addSchemaField("city", RecordFieldType.STRING);
+        parser.addRecord(1, "Tom", 49, "Berlin");
+        parser.addRecord(2, "Alice", 22, null);
+
+        final MockRecordWriter writer = new MockRecordWriter("\"city\",\"name\"");
+
+        TestRunner runner = getRunner();
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(REL_NAME, "select city, name from FLOWFILE WHERE age > 20");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        runner.enqueue(new byte[0]);
+        runner.run();
+
+        runner.assertTransferCount(REL_NAME, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(REL_NAME).get(0);
+        out.assertContentEquals("\"city\",\"name\"\n\"Berlin\",\"Tom\"\n,\"Alice\"\n");
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing, to measure the number of records per second that are queried from CSV and Avro data")
+    public void testQueryThroughput() throws InitializationException, IOException {
+        final int recordCount = 500_000;
+
+        final StringBuilder csv = new StringBuilder("id,name,amount,country,comment\n");
+        for (int i = 0; i < recordCount; i++) {
+            csv.append(i).append(",name-").append(i).append(',').append(i % 1000).append(",country-").append(i % 50).append(",a comment of some length\n");
+        }
+
+        final Schema avroSchema = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"row\", \"fields\": ["
+            + "{\"name\": \"id\", \"type\": \"int\"}, {\"name\": \"name\", \"type\": \"string\"}, {\"name\": \"amount\", \"type\": \"int\"}, "
+            + "{\"name\": \"country\", \"type\": \"string\"}, {\"name\": \"comment\", \"type\": \"string\"}]}");
+        final ByteArrayOutputStream avro = new ByteArrayOutputStream();
+        try (final DataFileWriter<GenericRecord> dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(avroSchema))) {
+            dataFileWriter.create(avroSchema, avro);
+            for (int i = 0; i < recordCount; i++) {
+                final GenericRecord record = new GenericData.Record(avroSchema);
+                record.put("id", i);
+                record.put("name", "name-" + i);
+                record.put("amount", i % 1000);
+                record.put("country", "country-" + (i % 50));
+                record.put("comment", "a comment of some length");
+                dataFileWriter.append(record);
+            }
+        }
+
+        measureQueryThroughput("CSV", new CSVReader(), csv.toString().getBytes(StandardCharsets.UTF_8), recordCount);
+        measureQueryThroughput("Avro", new AvroReader(), avro.toByteArray(), recordCount);
+    }
+
+    private void measureQueryThroughput(final String format, final RecordReaderFactory readerFactory, final byte[] content, final int recordCount) throws InitializationException {
+        final TestRunner runner = getRunner();
+        runner.addControllerService("reader", readerFactory);
+        runner.enableControllerService(readerFactory);
+
+        final MockRecordWriter writer = new MockRecordWriter("\"id\",\"amount\"");
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(REL_NAME, "select id, amount from FLOWFILE WHERE amount > 500");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "reader");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        final int iterations = 10;
+        for (int i = 0; i < iterations; i++) {
+            runner.enqueue(content);
+        }
+
+        // Warm up, which also plans the query
+        runner.run(1, false, true);
+
+        final long start = System.nanoTime();
+        runner.run(iterations - 1, true, false);
+        final long nanos = System.nanoTime() - start;
+
+        runner.assertTransferCount(REL_NAME, iterations);
+        final long recordsPerSecond = (long) ((iterations - 1) * (double) recordCount * TimeUnit.SECONDS.toNanos(1) / nanos);
+        System.out.println(format + ": queried " + recordsPerSecond + " records per second");
+    }
+
     @Test
     public void testStreamClosedWhenBadData() throws InitializationException {
         final MockRecordParser parser = new MockRecordParser();
@@ -16,10 +16,12 @@
  */
 package org.apache.nifi.processors.standard;
 
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -33,6 +35,7 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class TestReplaceText {
@@ -672,6 +675,27 @@ public class TestReplaceText {
         out.assertContentEquals("Hello, World!");
     }
 
+    @Test
+    public void testWithNoMatchLeavesContentUnchanged() throws IOException {
+        // Bytes that are not valid UTF-8 would be changed if the content were decoded and rewritten
+        final byte[] content = new byte[] {'a', (byte) 0xFF, 'b'};
+
+        for (final AllowableValue strategy : new AllowableValue[] {ReplaceText.REGEX_REPLACE, ReplaceText.LITERAL_REPLACE}) {
+            final TestRunner runner = getRunner();
+            runner.setProperty(ReplaceText.REPLACEMENT_STRATEGY, strategy);
+            runner.setProperty(ReplaceText.EVALUATION_MODE, ReplaceText.ENTIRE_TEXT);
+            runner.setProperty(ReplaceText.SEARCH_VALUE, "Z");
+            runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "Morning");
+
+            runner.enqueue(content);
+            runner.run();
+
+            runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+            final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+            out.assertContentEquals(content);
+        }
+    }
+
     @Test
     public void testWithMultipleMatches() throws IOException {
         final TestRunner runner = getRunner();
@@ -706,7 +730,8 @@ public class TestReplaceText {
     @Test
     public void testRoutesToFailureIfTooLarge() throws IOException {
         final TestRunner runner = getRunner();
-        runner.setProperty(ReplaceText.SEARCH_VALUE, "[123]");
+        // the match extends to the end of the text, so it cannot be found without buffering more than the Maximum Buffer Size
+        runner.setProperty(ReplaceText.SEARCH_VALUE, "Hello.*");
         runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "1 b");
         runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "${abc}");
 
@@ -719,6 +744,101 @@ public class TestReplaceText {
         runner.assertAllFlowFilesTransferred(ReplaceText.REL_FAILURE, 1);
     }
 
+    @Test
+    public void testStreamsEntireTextLargerThanBuffer() {
+        final TestRunner runner = getRunner();
+        runner.setProperty(ReplaceText.SEARCH_VALUE, "[123]");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "1 b");
+        runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "${abc}");
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("abc", "Good");
+        runner.enqueue("a1b2c3d4", attributes);
+
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+        out.assertContentEquals("aGoodbGoodcGoodd4");
+    }
+
+    @Test
+    public void testStreamingRegexReplaceWithBackReferences() {
+        final TestRunner runner = getRunner();
+        runner.setProperty(ReplaceText.SEARCH_VALUE, "(?<=id=)(\\d+)-(\\w+)\\b");
+        runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "$2:${'$1':plus(1)}");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "64 B");
+
+        final String content = createLargeText("id=%d-name%d x=%d-other%d\n", 5_000);
+        runner.enqueue(content);
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            expected.append(String.format("id=name%d:%d x=%d-other%d\n", i, i + 1, i, i));
+        }
+        out.assertContentEquals(expected.toString());
+    }
+
+    @Test
+    public void testStreamingLiteralReplace() {
+        final TestRunner runner = getRunner();
+        runner.setProperty(ReplaceText.REPLACEMENT_STRATEGY, ReplaceText.LITERAL_REPLACE);
+        runner.setProperty(ReplaceText.SEARCH_VALUE, "-other");
+        runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "$1");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "7 B");
+
+        final String content = createLargeText("id=%d-name%d x=%d-other%d\n", 5_000);
+        runner.enqueue(content);
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+        out.assertContentEquals(content.replace("-other", "$1"));
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing, as is expensive to run as a unit test. Measures the throughput of Entire Text "
+        + "evaluation for literal, regex and back-reference replacements on text that is much larger than the Maximum Buffer Size")
+    public void testStreamingReplacePerformance() {
+        final String content = createLargeText("id=%d-name%d x=%d-other%d\n", 2_000_000);
+        final String[][] configurations = new String[][] {
+            {ReplaceText.literalReplaceValue, "-other", "-replaced"},
+            {ReplaceText.regexReplaceValue, "-other\\d+", "-replaced"},
+            {ReplaceText.regexReplaceValue, "(\\d+)-(\\w+)", "$2-$1"}
+        };
+
+        for (final String[] configuration : configurations) {
+            for (int iteration = 0; iteration < 5; iteration++) {
+                final TestRunner runner = getRunner();
+                runner.setProperty(ReplaceText.REPLACEMENT_STRATEGY, configuration[0]);
+                runner.setProperty(ReplaceText.SEARCH_VALUE, configuration[1]);
+                runner.setProperty(ReplaceText.REPLACEMENT_VALUE, configuration[2]);
+                runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "1 MB");
+                runner.enqueue(content);
+
+                final long start = System.nanoTime();
+                runner.run();
+                final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+                System.out.println(configuration[0] + " of " + configuration[1] + " with " + configuration[2] + " over " + content.length()
+                    + " characters took " + millis + " millis");
+            }
+        }
+    }
+
+    private static String createLargeText(final String lineFormat, final int lines) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append(String.format(lineFormat, i, i, i, i));
+        }
+        return sb.toString();
+    }
+
     @Test
     public void testRoutesToSuccessIfTooLargeButRegexIsDotAsterisk() throws IOException {
         final TestRunner runner = getRunner();
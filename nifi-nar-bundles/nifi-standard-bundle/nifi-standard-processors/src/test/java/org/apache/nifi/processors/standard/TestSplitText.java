@@ -632,6 +632,101 @@ public class TestSplitText {
         splits.get(1).assertAttributeEquals(SplitText.FRAGMENT_INDEX, String.valueOf(2));
     }
 
+    @Test
+    public void testHeaderLineCountWithMixedLineEndings() {
+        final TestRunner runner = TestRunners.newTestRunner(new SplitText());
+        runner.setProperty(SplitText.HEADER_LINE_COUNT, "2");
+        runner.setProperty(SplitText.LINE_SPLIT_COUNT, "2");
+        runner.setProperty(SplitText.REMOVE_TRAILING_NEWLINES, "false");
+
+        runner.enqueue("h1\r\nh2\nb1\r\nb2\nb3\nb4\r\nb5");
+        runner.run();
+
+        runner.assertTransferCount(SplitText.REL_FAILURE, 0);
+        runner.assertTransferCount(SplitText.REL_ORIGINAL, 1);
+        runner.assertTransferCount(SplitText.REL_SPLITS, 3);
+
+        final List<MockFlowFile> splits = runner.getFlowFilesForRelationship(SplitText.REL_SPLITS);
+        splits.get(0).assertContentEquals("h1\r\nh2\nb1\r\nb2\n");
+        splits.get(1).assertContentEquals("h1\r\nh2\nb3\nb4\r\n");
+        splits.get(2).assertContentEquals("h1\r\nh2\nb5");
+    }
+
+    @Test
+    public void testHeaderMarkerWithMixedLineEndings() {
+        final TestRunner runner = TestRunners.newTestRunner(new SplitText());
+        runner.setProperty(SplitText.HEADER_LINE_COUNT, "0");
+        runner.setProperty(SplitText.HEADER_MARKER, "#");
+        runner.setProperty(SplitText.LINE_SPLIT_COUNT, "2");
+        runner.setProperty(SplitText.REMOVE_TRAILING_NEWLINES, "false");
+
+        runner.enqueue("#c1\n#c2\r\nr1\nr2\r\nr3\n");
+        runner.run();
+
+        runner.assertTransferCount(SplitText.REL_FAILURE, 0);
+        runner.assertTransferCount(SplitText.REL_ORIGINAL, 1);
+        runner.assertTransferCount(SplitText.REL_SPLITS, 2);
+
+        final List<MockFlowFile> splits = runner.getFlowFilesForRelationship(SplitText.REL_SPLITS);
+        splits.get(0).assertContentEquals("#c1\n#c2\r\nr1\nr2\r\n");
+        splits.get(1).assertContentEquals("#c1\n#c2\r\nr3\n");
+    }
+
+    @Test
+    public void testHeaderLineCountAndMarkerWithRemainder() {
+        final TestRunner runner = TestRunners.newTestRunner(new SplitText());
+        runner.setProperty(SplitText.HEADER_LINE_COUNT, "1");
+        runner.setProperty(SplitText.HEADER_MARKER, "#");
+        runner.setProperty(SplitText.LINE_SPLIT_COUNT, "3");
+        runner.setProperty(SplitText.REMOVE_TRAILING_NEWLINES, "false");
+
+        runner.enqueue("title\n#meta\nd1\nd2\nd3\nd4\n");
+        runner.run();
+
+        runner.assertTransferCount(SplitText.REL_FAILURE, 0);
+        runner.assertTransferCount(SplitText.REL_ORIGINAL, 1);
+        runner.assertTransferCount(SplitText.REL_SPLITS, 2);
+
+        final List<MockFlowFile> splits = runner.getFlowFilesForRelationship(SplitText.REL_SPLITS);
+        splits.get(0).assertContentEquals("title\n#meta\nd1\nd2\n");
+        splits.get(1).assertContentEquals("title\nd3\nd4\n");
+    }
+
+    @Test
+    public void testHeaderFollowedByEmptyLines() {
+        TestRunner runner = TestRunners.newTestRunner(new SplitText());
+        runner.setProperty(SplitText.HEADER_LINE_COUNT, "1");
+        runner.setProperty(SplitText.LINE_SPLIT_COUNT, "2");
+        runner.setProperty(SplitText.REMOVE_TRAILING_NEWLINES, "false");
+
+        runner.enqueue("h\n\n\n\n\nx\n");
+        runner.run();
+
+        runner.assertTransferCount(SplitText.REL_FAILURE, 0);
+        runner.assertTransferCount(SplitText.REL_ORIGINAL, 1);
+        runner.assertTransferCount(SplitText.REL_SPLITS, 3);
+
+        List<MockFlowFile> splits = runner.getFlowFilesForRelationship(SplitText.REL_SPLITS);
+        splits.get(0).assertContentEquals("h\n\n\n");
+        splits.get(1).assertContentEquals("h\n\n\n");
+        splits.get(2).assertContentEquals("h\nx\n");
+
+        runner = TestRunners.newTestRunner(new SplitText());
+        runner.setProperty(SplitText.HEADER_LINE_COUNT, "2");
+        runner.setProperty(SplitText.LINE_SPLIT_COUNT, "2");
+        runner.setProperty(SplitText.REMOVE_TRAILING_NEWLINES, "true");
+
+        runner.enqueue("h1\nh2\n\n\r\n");
+        runner.run();
+
+        runner.assertTransferCount(SplitText.REL_FAILURE, 0);
+        runner.assertTransferCount(SplitText.REL_ORIGINAL, 1);
+        runner.assertTransferCount(SplitText.REL_SPLITS, 1);
+
+        splits = runner.getFlowFilesForRelationship(SplitText.REL_SPLITS);
+        splits.get(0).assertContentEquals("h1\nh2");
+    }
+
     @Test
     public void testSplitThenMerge() throws IOException {
         final TestRunner splitRunner = TestRunners.newTestRunner(new SplitText());
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestMultiPatternMatcher {
+
+    private static final String[] REGEXES = new String[] {
+        "abc", "a+bc", "ab?c", "ab*c{2}", "(ab)+c", "[abc]ab", "ba|cb", "a.c", "^cab$", "\\Qa.b\\E", "a\\.b", "\\bab", "(?i)ABC", "a{0,2}bb",
+        "ca(?:b|c)", "x?", "(?s).*", "\\d", "a[bc]+a", "cc+", "(?-i)bca", "a|b|", "(?x)a b c", "a(?x: b )c"
+    };
+
+    @Test
+    public void testRequiredLiterals() {
+        assertEquals(Collections.singletonList("error: "), literals("error: \\d+"));
+        assertEquals(Arrays.asList("WARN", "ERROR"), literals("WARN|ERROR"));
+        assertEquals(Collections.singletonList("abc"), literals("x?abc+"));
+        assertEquals(Collections.singletonList("a.b"), literals("\\Qa.b\\E"));
+        assertEquals(Collections.singletonList("a.b"), literals("a\\.b"));
+        assertEquals(Collections.singletonList("=value"), literals("(?:ip|host)=value[^ ]+"));
+        assertEquals(Collections.singletonList("[x]"), MultiPatternMatcher.RequiredLiterals.of(Pattern.compile("[x]", Pattern.LITERAL), false));
+
+        assertNull(literals("\\d{3}\\s\\d{4}"));
+        assertNull(literals("abc|\\w+"));
+        assertNull(literals("a*"));
+        assertNull(MultiPatternMatcher.RequiredLiterals.of(Pattern.compile("abc", Pattern.COMMENTS), false));
+
+        // Embedded flags that change which characters are literal or how case is folded disable filtering
+        assertNull(literals("(?x)foo bar"));
+        assertNull(literals("foo(?x: bar )baz"));
+        assertNull(literals("(?iu)foo"));
+        assertEquals(Collections.singletonList("foo bar"), literals("(?s)foo bar"));
+
+        // A quantifier after a supplementary character applies to the whole surrogate pair
+        assertEquals(Collections.singletonList("ok"), literals("ok\uD83D\uDE00?"));
+        assertEquals(Collections.singletonList("ok\uD83D\uDE00"), literals("ok\uD83D\uDE00+"));
+        final MultiPatternMatcher.Builder emojiBuilder = new MultiPatternMatcher.Builder();
+        emojiBuilder.addPattern(Pattern.compile("ok\uD83D\uDE00?"));
+        assertTrue(emojiBuilder.build().getCandidates("ok").get(0));
+
+        // When case is ignored, only characters that cannot be matched by non-ASCII characters are used
+        assertEquals(Collections.singletonList("error: "), MultiPatternMatcher.RequiredLiterals.of(Pattern.compile("error: \\d+"), true));
+        assertEquals(Collections.singletonList("wa"), MultiPatternMatcher.RequiredLiterals.of(Pattern.compile("wask"), true));
+    }
+
+    @Test
+    public void testOnlyCandidatesMatch() {
+        final Random random = new Random(11L);
+
+        final MultiPatternMatcher.Builder builder = new MultiPatternMatcher.Builder();
+        final Pattern[] patterns = new Pattern[REGEXES.length];
+        for (int i = 0; i < REGEXES.length; i++) {
+            patterns[i] = Pattern.compile(REGEXES[i]);
+            assertEquals(i, builder.addPattern(patterns[i]));
+        }
+
+        final MultiPatternMatcher matcher = builder.build();
+        assertEquals(REGEXES.length, matcher.getConditionCount());
+        assertTrue(matcher.getFilteredConditionCount() > REGEXES.length / 2);
+
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            final String text = randomText(random, random.nextInt(12));
+            final BitSet candidates = matcher.getCandidates(text);
+            for (int i = 0; i < patterns.length; i++) {
+                if (patterns[i].matcher(text).find()) {
+                    assertTrue("Pattern " + REGEXES[i] + " matches " + text + " but is not a candidate", candidates.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLiterals() {
+        final MultiPatternMatcher.Builder builder = new MultiPatternMatcher.Builder();
+        builder.addLiteral("ERROR", false);
+        builder.addLiteral("warn", true);
+        builder.addLiteral("", false);
+        builder.addLiteral("Kelvin", true);
+        final MultiPatternMatcher matcher = builder.build();
+
+        assertEquals(bits(2), matcher.getCandidates("nothing to see here"));
+        assertEquals(bits(0, 2), matcher.getCandidates("an ERROR occurred"));
+        assertEquals(bits(1, 2), matcher.getCandidates("a WaRnInG"));
+        assertEquals(bits(2, 3), matcher.getCandidates("300 Kelvin"));
+
+        // once any literal ignores case, case-sensitive literals may produce candidates that do not match
+        assertTrue(matcher.getCandidates("error").get(0));
+        assertFalse(matcher.getCandidates("err").get(0));
+    }
+
+    private static List<String> literals(final String regex) {
+        return MultiPatternMatcher.RequiredLiterals.of(Pattern.compile(regex), false);
+    }
+
+    private static BitSet bits(final int... indices) {
+        final BitSet bitSet = new BitSet();
+        for (final int index : indices) {
+            bitSet.set(index);
+        }
+        return bitSet;
+    }
+
+    private static String randomText(final Random random, final int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = "abcABC.1 ".charAt(random.nextInt(9));
+        }
+        return new String(chars);
+    }
+}
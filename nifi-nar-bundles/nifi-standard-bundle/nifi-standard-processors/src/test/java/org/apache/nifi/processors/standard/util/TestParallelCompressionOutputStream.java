@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.apache.nifi.stream.io.GZIPOutputStream;
+import org.apache.nifi.stream.io.NullOutputStream;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestParallelCompressionOutputStream {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        final Random random = new Random(3L);
+        for (final int length : new int[] {0, 1, 100, 65535, 65536, 65537, 1_000_000}) {
+            final byte[] data = createData(random, length);
+
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (final OutputStream out = new ParallelCompressionOutputStream(compressed, executor, 4, 65536, stream -> new GZIPOutputStream(stream, 1))) {
+                // write with a mix of single bytes and arrays of different sizes
+                int offset = 0;
+                while (offset < data.length) {
+                    if (random.nextInt(10) == 0) {
+                        out.write(data[offset++]);
+                    } else {
+                        final int count = Math.min(data.length - offset, random.nextInt(100_000));
+                        out.write(data, offset, count);
+                        offset += count;
+                    }
+                }
+            }
+
+            assertArrayEquals(data, decompress(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))));
+        }
+    }
+
+    @Test
+    public void testFailureIsPropagated() throws IOException {
+        final OutputStream out = new ParallelCompressionOutputStream(new ByteArrayOutputStream(), executor, 2, 1024, stream -> {
+            throw new IOException("Intentional failure");
+        });
+
+        try {
+            out.write(new byte[10_000]);
+            out.close();
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            assertEquals("Intentional failure", e.getMessage());
+        }
+    }
+
+    /**
+     * Compares the throughput of compressing on a single thread to that of compressing blocks in parallel, for each codec
+     * that supports concatenated streams.
+     */
+    @Test
+    @Ignore("Intended only for manual testing, to measure throughput of each codec")
+    public void testThroughput() throws IOException {
+        final byte[] data = createData(new Random(1L), 64 * 1024 * 1024);
+        final int threads = Runtime.getRuntime().availableProcessors();
+
+        final Map<String, ParallelCompressionOutputStream.CompressionStreamFactory> codecs = new LinkedHashMap<>();
+        codecs.put("gzip", stream -> new GZIPOutputStream(stream, 1));
+        codecs.put("bzip2", BZip2CompressorOutputStream::new);
+        codecs.put("xz-lzma2", stream -> new XZOutputStream(stream, new LZMA2Options(1)));
+        codecs.put("lz4-framed", FramedLZ4CompressorOutputStream::new);
+
+        for (final Map.Entry<String, ParallelCompressionOutputStream.CompressionStreamFactory> codec : codecs.entrySet()) {
+            for (int iteration = 0; iteration < 3; iteration++) {
+                long start = System.nanoTime();
+                try (final OutputStream out = codec.getValue().create(new NullOutputStream())) {
+                    out.write(data);
+                }
+                final long singleNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                try (final OutputStream out = new ParallelCompressionOutputStream(new NullOutputStream(), executor, threads, 1024 * 1024, codec.getValue())) {
+                    out.write(data);
+                }
+                final long parallelNanos = System.nanoTime() - start;
+
+                System.out.printf("%s: single thread %.1f MB/s, %d threads %.1f MB/s%n", codec.getKey(),
+                    data.length * 1000D / singleNanos, threads, data.length * 1000D / parallelNanos);
+            }
+        }
+    }
+
+    @Test
+    public void testConcatenatedStreamsForEachCodec() throws IOException {
+        final byte[] data = createData(new Random(5L), 100_000);
+
+        final ByteArrayOutputStream bzip2 = new ByteArrayOutputStream();
+        try (final OutputStream out = new ParallelCompressionOutputStream(bzip2, executor, 4, 32768, BZip2CompressorOutputStream::new)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, decompress(new BZip2CompressorInputStream(new ByteArrayInputStream(bzip2.toByteArray()), true)));
+
+        final ByteArrayOutputStream xz = new ByteArrayOutputStream();
+        try (final OutputStream out = new ParallelCompressionOutputStream(xz, executor, 4, 32768, stream -> new XZOutputStream(stream, new LZMA2Options(1)))) {
+            out.write(data);
+        }
+        assertArrayEquals(data, decompress(new XZInputStream(new ByteArrayInputStream(xz.toByteArray()))));
+
+        final ByteArrayOutputStream lz4 = new ByteArrayOutputStream();
+        try (final OutputStream out = new ParallelCompressionOutputStream(lz4, executor, 4, 32768, FramedLZ4CompressorOutputStream::new)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, decompress(new FramedLZ4CompressorInputStream(new ByteArrayInputStream(lz4.toByteArray()), true)));
+        assertTrue(lz4.size() < data.length);
+    }
+
+    private static byte[] decompress(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final InputStream stream = in) {
+            StreamUtils.copy(stream, out);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] createData(final Random random, final int length) {
+        final StringBuilder sb = new StringBuilder(length + 32);
+        while (sb.length() < length) {
+            sb.append("record ").append(random.nextInt(10_000)).append(',').append(random.nextLong()).append('\n');
+        }
+        sb.setLength(length);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
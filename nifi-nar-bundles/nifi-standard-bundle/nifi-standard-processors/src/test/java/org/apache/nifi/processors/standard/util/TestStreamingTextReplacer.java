@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestStreamingTextReplacer {
+
+    private static final String[] PATTERNS = new String[] {
+        "a", "ab", "a+b*", "b*", "(a|b)c", "\\bab", "(?<=c)a+", "^a", "a$", "(?m)^b", "(?m)a$", "c(a)(b)?", "x*", "(?=a)", "a{2,5}"
+    };
+
+    @Test
+    public void testRegexMatchesEntireTextReplacement() throws IOException {
+        final Random random = new Random(42L);
+
+        for (int iteration = 0; iteration < 200; iteration++) {
+            final String text = randomText(random, random.nextInt(300));
+            for (final String regex : PATTERNS) {
+                final Pattern pattern = Pattern.compile(regex);
+                final String expected = pattern.matcher(text).replaceAll("<$0>");
+
+                for (final int windowSize : new int[] {16, 23, 61, 1024}) {
+                    final StringWriter out = new StringWriter();
+                    new StreamingTextReplacer(windowSize).replaceAll(new TrickleReader(text, random), out, pattern, matcher -> "<$0>");
+                    assertEquals("Pattern " + regex + " with window of " + windowSize + " on " + text, expected, out.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLiteralMatchesStringReplace() throws IOException {
+        final Random random = new Random(7L);
+
+        for (int iteration = 0; iteration < 200; iteration++) {
+            final String text = randomText(random, random.nextInt(300));
+            for (final String search : new String[] {"", "a", "ab", "aab", "cabca", "abcabcabcab"}) {
+                final String expected = text.replace(search, "$1");
+
+                for (final int windowSize : new int[] {1, 4, 7, 1024}) {
+                    final StringWriter out = new StringWriter();
+                    new StreamingTextReplacer(windowSize).replaceLiteral(new TrickleReader(text, random), out, search, "$1");
+                    assertEquals(expected, out.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRegexWithMoreUndecidedPositionsThanProbes() throws IOException {
+        final Random random = new Random(3L);
+        final String text = randomText(random, StreamingTextReplacer.MAX_PROBES * 8);
+
+        for (final String regex : new String[] {"a", "(?<=c)a+", "c(a)(b)?", "b*"}) {
+            final Pattern pattern = Pattern.compile(regex);
+            final String expected = pattern.matcher(text).replaceAll("<$0>");
+
+            final StringWriter out = new StringWriter();
+            new StreamingTextReplacer(StreamingTextReplacer.MAX_PROBES * 3).replaceAll(new TrickleReader(text, random), out, pattern, matcher -> "<$0>");
+            assertEquals("Pattern " + regex, expected, out.toString());
+        }
+    }
+
+    @Test
+    public void testContains() throws IOException {
+        final Random random = new Random(5L);
+
+        for (int iteration = 0; iteration < 200; iteration++) {
+            final String text = randomText(random, random.nextInt(100));
+            for (final String regex : PATTERNS) {
+                final Pattern pattern = Pattern.compile(regex);
+                assertEquals(pattern.matcher(text).find(), new StreamingTextReplacer(16).containsMatch(new TrickleReader(text, random), pattern));
+            }
+            for (final String search : new String[] {"", "a", "ab", "aab", "cabca"}) {
+                assertEquals(text.contains(search), new StreamingTextReplacer(4).containsLiteral(new TrickleReader(text, random), search));
+            }
+        }
+    }
+
+    @Test(expected = StreamingTextReplacer.MatchTooLargeException.class)
+    public void testMatchLargerThanWindow() throws IOException {
+        new StreamingTextReplacer(16).replaceAll(new StringReader("abcdefghijklmnopqrstuvwxyz"), new StringWriter(), Pattern.compile("(?s)^.*$"), matcher -> "");
+    }
+
+    private static String randomText(final Random random, final int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = "abc \n".charAt(random.nextInt(5));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns fewer characters than requested, to exercise the handling of partially filled windows
+     */
+    private static class TrickleReader extends Reader {
+        private final String text;
+        private final Random random;
+        private int index = 0;
+
+        TrickleReader(final String text, final Random random) {
+            this.text = text;
+            this.random = random;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) {
+            if (index >= text.length()) {
+                return -1;
+            }
+
+            final int count = Math.min(text.length() - index, 1 + random.nextInt(Math.max(1, len)));
+            text.getChars(index, index + count, cbuf, off);
+            index += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
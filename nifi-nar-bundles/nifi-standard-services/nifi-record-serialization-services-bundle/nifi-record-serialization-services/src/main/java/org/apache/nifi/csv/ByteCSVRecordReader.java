@@ -0,0 +1,896 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import com.google.common.base.Throwables;
+
+/**
+ * A CSV RecordReader that parses the raw bytes of the content, rather than first decoding the whole content into characters.
+ *
+ * The bytes are scanned with a small state machine that follows the same rules as the Apache Commons CSV parser, so that for a
+ * given CSVFormat this reader returns the same records as the {@link CSVRecordReader}. The contents of the fields of a row are
+ * collected into a single byte array, and a field is only decoded into a String when its value is needed: columns that are not
+ * part of the schema are never decoded if unknown fields are dropped, and integral and simple decimal numbers are parsed directly
+ * from the bytes.
+ *
+ * Because the special characters of the format are compared with single bytes, this reader can only be used with character sets
+ * in which the ASCII characters are encoded as single bytes that never occur within the encoding of another character, and with
+ * formats whose special characters are all ASCII characters. See {@link #isSupported(CSVFormat, String)}.
+ */
+public class ByteCSVRecordReader extends AbstractCSVRecordReader {
+    private static final int END_OF_STREAM = -1;
+    private static final int UNDEFINED = -2;
+    private static final int DISABLED = -3;
+
+    private static final int CR = '\r';
+    private static final int LF = '\n';
+    private static final int TAB = '\t';
+    private static final int BACKSPACE = '\b';
+    private static final int FF = '\f';
+
+    // Token types
+    private static final int TOKEN = 0;
+    private static final int EORECORD = 1;
+    private static final int EOF = 2;
+    private static final int COMMENT = 3;
+
+    // Returned when an escape character is not followed by a character that can be escaped
+    private static final int NOT_ESCAPED = -1;
+
+    // The largest integer that a double can hold exactly, and the powers of ten that a double can hold exactly
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    private static final int MAX_FAST_PATH_DIGITS = 18;
+
+    private final InputStream in;
+    private final Charset charset;
+    private final boolean utf8;
+
+    private final int delimiter;
+    private final int quote;
+    private final int escape;
+    private final int commentMarker;
+    private final boolean ignoreEmptyLines;
+    private final boolean ignoreSurroundingSpaces;
+    private final boolean trim;
+    private final boolean trailingDelimiter;
+    private final String nullString;
+    private final byte[] nullStringBytes;
+
+    // Bytes that end a run of plain content outside of and within quotes
+    private final boolean[] simpleTokenStop = new boolean[256];
+    private final boolean[] encapsulatedTokenStop = new boolean[256];
+    // Single bytes that decode to a whitespace character
+    private final boolean[] whitespace = new boolean[256];
+
+    private final byte[] buffer = new byte[65536];
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfStream = false;
+    private int lastChar = UNDEFINED;
+    private long lineNumber = 0L;
+    private boolean tokenReady;
+
+    // The contents of the fields of the current row
+    private byte[] content = new byte[1024];
+    private int contentLength = 0;
+    private int[] fieldStarts = new int[64];
+    private int[] fieldEnds = new int[64];
+    private int fieldCount = 0;
+
+    private final List<RecordField> recordFields;
+    private final boolean[] fieldInSchema;
+
+    public ByteCSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
+                               final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding) throws IOException {
+        super(logger, schema, hasHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat);
+
+        if (!isSupported(csvFormat, encoding)) {
+            throw new IllegalArgumentException("The byte-level CSV parser does not support the character set " + encoding + " with the CSV format " + csvFormat);
+        }
+
+        this.in = in;
+        this.charset = Charset.forName(encoding);
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+
+        CSVFormat withHeader;
+        if (hasHeader) {
+            withHeader = csvFormat.withSkipHeaderRecord();
+
+            if (ignoreHeader) {
+                withHeader = withHeader.withHeader(schema.getFieldNames().toArray(new String[0]));
+            } else {
+                withHeader = withHeader.withFirstRecordAsHeader();
+            }
+        } else {
+            withHeader = csvFormat.withHeader(schema.getFieldNames().toArray(new String[0]));
+        }
+
+        delimiter = withHeader.getDelimiter();
+        quote = withHeader.getQuoteCharacter() == null ? DISABLED : withHeader.getQuoteCharacter();
+        escape = withHeader.getEscapeCharacter() == null ? DISABLED : withHeader.getEscapeCharacter();
+        commentMarker = withHeader.getCommentMarker() == null ? DISABLED : withHeader.getCommentMarker();
+        ignoreEmptyLines = withHeader.getIgnoreEmptyLines();
+        ignoreSurroundingSpaces = withHeader.getIgnoreSurroundingSpaces();
+        trim = withHeader.getTrim();
+        trailingDelimiter = withHeader.getTrailingDelimiter();
+        nullString = withHeader.getNullString();
+
+        if (nullString == null) {
+            nullStringBytes = null;
+        } else {
+            // Only compare the bytes if they decode back to the same String; otherwise the decoded value is compared
+            final byte[] encoded = nullString.getBytes(charset);
+            nullStringBytes = nullString.equals(new String(encoded, charset)) ? encoded : null;
+        }
+
+        for (final int stop : new int[] {CR, LF, delimiter, escape}) {
+            if (stop >= 0) {
+                simpleTokenStop[stop] = true;
+            }
+        }
+        for (final int stop : new int[] {CR, LF, quote, escape}) {
+            if (stop >= 0) {
+                encapsulatedTokenStop[stop] = true;
+            }
+        }
+        for (int i = 0; i < whitespace.length; i++) {
+            final String decoded = new String(new byte[] {(byte) i}, charset);
+            whitespace[i] = decoded.length() == 1 && Character.isWhitespace(decoded.charAt(0));
+        }
+
+        skipByteOrderMark();
+
+        recordFields = readHeader(withHeader);
+        fieldInSchema = new boolean[recordFields.size()];
+        for (int i = 0; i < fieldInSchema.length; i++) {
+            fieldInSchema[i] = schema.getField(recordFields.get(i).getFieldName()).isPresent();
+        }
+    }
+
+    /**
+     * Indicates whether or not the given format and character set can be parsed by this reader. This is the case when the character set
+     * is UTF-8, US-ASCII, one of the ISO-8859 character sets or one of the Windows-125x character sets, and the delimiter, quote character,
+     * escape character and comment marker of the format are all ASCII characters.
+     *
+     * @param csvFormat the format of the content
+     * @param encoding the name of the character set of the content
+     * @return <code>true</code> if this reader can parse the content, <code>false</code> if the {@link CSVRecordReader} should be used instead
+     */
+    public static boolean isSupported(final CSVFormat csvFormat, final String encoding) {
+        final Charset charset;
+        try {
+            charset = Charset.forName(encoding);
+        } catch (final IllegalArgumentException e) {
+            return false;
+        }
+
+        final String charsetName = charset.name();
+        final boolean asciiCompatible = charsetName.equals("UTF-8") || charsetName.equals("US-ASCII")
+            || charsetName.startsWith("ISO-8859-") || charsetName.startsWith("windows-125");
+
+        return asciiCompatible
+            && isAscii(csvFormat.getDelimiter())
+            && (csvFormat.getQuoteCharacter() == null || isAscii(csvFormat.getQuoteCharacter()))
+            && (csvFormat.getEscapeCharacter() == null || isAscii(csvFormat.getEscapeCharacter()))
+            && (csvFormat.getCommentMarker() == null || isAscii(csvFormat.getCommentMarker()));
+    }
+
+    private static boolean isAscii(final char c) {
+        return c < 0x80;
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        try {
+            if (!readRow()) {
+                return null;
+            }
+
+            final int numFieldNames = recordFields.size();
+            final Map<String, Object> values = new LinkedHashMap<>(numFieldNames * 2);
+            for (int i = 0; i < fieldCount; i++) {
+                if (i >= numFieldNames) {
+                    if (!dropUnknownFields) {
+                        values.put("unknown_field_index_" + i, getString(i));
+                    }
+
+                    continue;
+                }
+
+                // Columns that are not in the schema are never decoded if they are going to be dropped
+                if (dropUnknownFields && !fieldInSchema[i]) {
+                    continue;
+                }
+
+                final RecordField recordField = recordFields.get(i);
+                values.put(recordField.getFieldName(), getValue(i, recordField.getDataType(), recordField.getFieldName(), coerceTypes));
+            }
+
+            return new MapRecord(schema, values, coerceTypes, dropUnknownFields);
+        } catch (Exception e) {
+            throw new MalformedRecordException("Error while getting next record. Root cause: " +  Throwables.getRootCause(e), e);
+        }
+    }
+
+    private Object getValue(final int fieldIndex, final DataType dataType, final String fieldName, final boolean coerceTypes) {
+        final int start = fieldStarts[fieldIndex];
+        final int end = fieldEnds[fieldIndex];
+
+        // Both a null and an empty value are converted to null
+        if (start == end || isNullString(start, end)) {
+            return null;
+        }
+
+        switch (dataType.getFieldType()) {
+            case INT: {
+                final Long value = parseLong(start, end);
+                if (value != null && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return value.intValue();
+                }
+                break;
+            }
+            case LONG: {
+                final Long value = parseLong(start, end);
+                if (value != null) {
+                    return value;
+                }
+                break;
+            }
+            case DOUBLE: {
+                final Double value = parseDouble(start, end);
+                if (value != null) {
+                    return value;
+                }
+                break;
+            }
+        }
+
+        final String value = new String(content, start, end - start, charset);
+        if (coerceTypes) {
+            return convert(value, dataType, fieldName);
+        } else {
+            // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
+            // dictate a field type. As a result, we will use the schema that we have to attempt to convert
+            // the value into the desired type if it's a simple type.
+            return convertSimpleIfPossible(value, dataType, fieldName);
+        }
+    }
+
+    /**
+     * Parses a value that consists of an optional sign followed by at most 18 digits, which both the String conversion and the
+     * type compatibility check accept, and which always fits in a long.
+     *
+     * @return the value, or <code>null</code> if the value must be converted from its String form
+     */
+    private Long parseLong(final int start, final int end) {
+        int i = start;
+        final boolean negative = content[i] == '-';
+        if (negative || content[i] == '+') {
+            i++;
+        }
+
+        final int digits = end - i;
+        if (digits < 1 || digits > MAX_FAST_PATH_DIGITS) {
+            return null;
+        }
+
+        long value = 0L;
+        for (; i < end; i++) {
+            final int digit = content[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a value that consists of an optional sign, digits and optionally a decimal point followed by more digits. If all of the
+     * digits form an integer that a double can hold exactly, dividing it by the exactly held power of ten gives the correctly rounded
+     * result, which is what Double.parseDouble returns for the same value.
+     *
+     * @return the value, or <code>null</code> if the value must be converted from its String form
+     */
+    private Double parseDouble(final int start, final int end) {
+        int i = start;
+        final boolean negative = content[i] == '-';
+        if (negative || content[i] == '+') {
+            i++;
+        }
+
+        long mantissa = 0L;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            final int b = content[i];
+            if (b == '.' && fractionDigits < 0 && digits > 0) {
+                fractionDigits = 0;
+                continue;
+            }
+
+            final int digit = b - '0';
+            if (digit < 0 || digit > 9 || ++digits > MAX_FAST_PATH_DIGITS) {
+                return null;
+            }
+
+            mantissa = mantissa * 10 + digit;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+
+        if (digits == 0 || fractionDigits == 0 || mantissa > MAX_EXACT_DOUBLE_MANTISSA) {
+            return null;
+        }
+
+        final double value = fractionDigits < 0 ? (double) mantissa : mantissa / EXACT_POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private boolean isNullString(final int start, final int end) {
+        if (nullString == null) {
+            return false;
+        }
+
+        if (nullStringBytes == null) {
+            return nullString.equals(new String(content, start, end - start, charset));
+        }
+
+        if (end - start != nullStringBytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < nullStringBytes.length; i++) {
+            if (content[start + i] != nullStringBytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String getString(final int fieldIndex) {
+        final int start = fieldStarts[fieldIndex];
+        final int end = fieldEnds[fieldIndex];
+        if (isNullString(start, end)) {
+            return null;
+        }
+
+        return new String(content, start, end - start, charset);
+    }
+
+    private List<RecordField> readHeader(final CSVFormat format) throws IOException {
+        final String[] formatHeader = format.getHeader();
+
+        String[] headerRecord = null;
+        if (formatHeader.length == 0) {
+            if (readRow()) {
+                headerRecord = new String[fieldCount];
+                for (int i = 0; i < fieldCount; i++) {
+                    headerRecord[i] = getString(i);
+                }
+            }
+        } else {
+            if (format.getSkipHeaderRecord()) {
+                readRow();
+            }
+            headerRecord = formatHeader;
+        }
+
+        // Build the header map the same way that the Apache Commons CSV parser does, so that duplicate or missing names are handled alike
+        final Map<String, Integer> headerMap = format.getIgnoreHeaderCase() ? new TreeMap<>(String.CASE_INSENSITIVE_ORDER) : new LinkedHashMap<>();
+        if (headerRecord != null) {
+            for (int i = 0; i < headerRecord.length; i++) {
+                final String header = headerRecord[i];
+                final boolean emptyHeader = header == null || header.trim().isEmpty();
+                if (emptyHeader && !format.getAllowMissingColumnNames()) {
+                    throw new IllegalArgumentException("A header name is missing in " + Arrays.toString(headerRecord));
+                }
+
+                final boolean containsHeader = header != null && headerMap.containsKey(header);
+                if (containsHeader && !emptyHeader && !format.getAllowDuplicateHeaderNames()) {
+                    throw new IllegalArgumentException(String.format("The header contains a duplicate name: \"%s\" in %s. If this is valid then use CSVFormat.withAllowDuplicateHeaderNames().",
+                        header, Arrays.toString(headerRecord)));
+                }
+
+                if (header != null) {
+                    headerMap.put(header, i);
+                }
+            }
+        }
+
+        // Use a SortedMap keyed by index of the field so that we can get a List of field names in the correct order
+        final SortedMap<Integer, String> sortedMap = new TreeMap<>();
+        for (final Map.Entry<String, Integer> entry : headerMap.entrySet()) {
+            sortedMap.put(entry.getValue(), entry.getKey());
+        }
+
+        final List<RecordField> fields = new ArrayList<>();
+        for (final String rawFieldName : sortedMap.values()) {
+            final Optional<RecordField> option = schema.getField(rawFieldName);
+            if (option.isPresent()) {
+                fields.add(option.get());
+            } else {
+                fields.add(new RecordField(rawFieldName, RecordFieldType.STRING.getDataType()));
+            }
+        }
+
+        return fields;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (ensureAvailable(3) && buffer[position] == (byte) 0xEF && buffer[position + 1] == (byte) 0xBB && buffer[position + 2] == (byte) 0xBF) {
+            position += 3;
+        }
+    }
+
+    /**
+     * Reads the fields of the next row into the content buffer.
+     *
+     * @return <code>true</code> if a row was read, <code>false</code> if the end of the content was reached
+     */
+    private boolean readRow() throws IOException {
+        contentLength = 0;
+        fieldCount = 0;
+
+        int tokenType;
+        do {
+            final int tokenStart = contentLength;
+            tokenType = nextToken();
+            switch (tokenType) {
+                case TOKEN:
+                    addField(tokenStart, false);
+                    break;
+                case EORECORD:
+                    addField(tokenStart, true);
+                    break;
+                case EOF:
+                    if (tokenReady) {
+                        addField(tokenStart, true);
+                    }
+                    break;
+                case COMMENT:
+                    // Comment lines are skipped, and the row continues on the next line
+                    tokenType = TOKEN;
+                    break;
+            }
+        } while (tokenType == TOKEN);
+
+        return fieldCount > 0;
+    }
+
+    private void addField(final int tokenStart, final boolean lastField) {
+        int start = tokenStart;
+        int end = contentLength;
+        if (trim) {
+            // Same as String.trim(), as bytes up to 0x20 only ever encode the characters up to U+0020 in the supported character sets
+            while (start < end && (content[start] & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (content[end - 1] & 0xFF) <= ' ') {
+                end--;
+            }
+        }
+
+        if (lastField && start == end && trailingDelimiter) {
+            contentLength = tokenStart;
+            return;
+        }
+
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private int nextToken() throws IOException {
+        tokenReady = false;
+
+        int previous = lastChar;
+        int c = read();
+        boolean eol = readEndOfLine(c);
+
+        if (ignoreEmptyLines) {
+            while (eol && isStartOfLine(previous)) {
+                previous = c;
+                c = read();
+                eol = readEndOfLine(c);
+
+                if (c == END_OF_STREAM) {
+                    return EOF;
+                }
+            }
+        }
+
+        if (previous == END_OF_STREAM || (previous != delimiter && c == END_OF_STREAM)) {
+            return EOF;
+        }
+
+        if (isStartOfLine(previous) && c == commentMarker) {
+            skipLine();
+            return COMMENT;
+        }
+
+        if (ignoreSurroundingSpaces) {
+            while (!eol && skipWhitespace(c)) {
+                c = read();
+                eol = readEndOfLine(c);
+            }
+        }
+
+        if (c == delimiter) {
+            return TOKEN;
+        } else if (eol) {
+            return EORECORD;
+        } else if (c == quote) {
+            return parseEncapsulatedToken();
+        } else if (c == END_OF_STREAM) {
+            tokenReady = true;
+            return EOF;
+        } else {
+            return parseSimpleToken(c);
+        }
+    }
+
+    private int parseSimpleToken(final int firstChar) throws IOException {
+        final int tokenStart = contentLength;
+
+        int tokenType;
+        int c = firstChar;
+        while (true) {
+            if (readEndOfLine(c)) {
+                tokenType = EORECORD;
+                break;
+            } else if (c == END_OF_STREAM) {
+                tokenReady = true;
+                tokenType = EOF;
+                break;
+            } else if (c == delimiter) {
+                tokenType = TOKEN;
+                break;
+            } else if (c == escape) {
+                appendEscaped(c);
+                c = read();
+            } else {
+                append(c);
+                appendPlainBytes(simpleTokenStop);
+                c = read();
+            }
+        }
+
+        if (ignoreSurroundingSpaces) {
+            trimTrailingWhitespace(tokenStart);
+        }
+
+        return tokenType;
+    }
+
+    private int parseEncapsulatedToken() throws IOException {
+        final long startLineNumber = lineNumber;
+
+        while (true) {
+            appendPlainBytes(encapsulatedTokenStop);
+
+            int c = read();
+            if (c == escape) {
+                appendEscaped(c);
+            } else if (c == quote) {
+                if (lookAhead() == quote) {
+                    // A doubled quote is a single quote within the value
+                    append(read());
+                } else {
+                    // The closing quote; only whitespace may follow until the end of the field
+                    while (true) {
+                        c = read();
+                        if (c == delimiter) {
+                            return TOKEN;
+                        } else if (c == END_OF_STREAM) {
+                            tokenReady = true;
+                            return EOF;
+                        } else if (readEndOfLine(c)) {
+                            return EORECORD;
+                        } else if (!skipWhitespace(c)) {
+                            throw new IOException("(line " + lineNumber + ") invalid char between encapsulated token and delimiter");
+                        }
+                    }
+                }
+            } else if (c == END_OF_STREAM) {
+                throw new IOException("(startline " + startLineNumber + ") EOF reached before encapsulated token finished");
+            } else {
+                append(c);
+            }
+        }
+    }
+
+    private void appendEscaped(final int escapeChar) throws IOException {
+        final int unescaped = readEscape();
+        if (unescaped == NOT_ESCAPED) {
+            append(escapeChar);
+            append(lastChar);
+        } else {
+            append(unescaped);
+        }
+    }
+
+    private int readEscape() throws IOException {
+        final int c = read();
+        switch (c) {
+            case 'r':
+                return CR;
+            case 'n':
+                return LF;
+            case 't':
+                return TAB;
+            case 'b':
+                return BACKSPACE;
+            case 'f':
+                return FF;
+            case CR:
+            case LF:
+            case FF:
+            case TAB:
+            case BACKSPACE:
+                return c;
+            case END_OF_STREAM:
+                throw new IOException("EOF whilst processing escape sequence");
+            default:
+                if (c == delimiter || c == escape || c == quote || c == commentMarker) {
+                    return c;
+                }
+                return NOT_ESCAPED;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != CR && c != LF && c != END_OF_STREAM);
+
+        readEndOfLine(c);
+    }
+
+    private static boolean isStartOfLine(final int c) {
+        return c == LF || c == CR || c == UNDEFINED;
+    }
+
+    private boolean readEndOfLine(final int c) throws IOException {
+        if (c == CR && lookAhead() == LF) {
+            read();
+            return true;
+        }
+
+        return c == LF || c == CR;
+    }
+
+    /**
+     * Determines whether the character that starts with the given byte, which has just been read, is a whitespace character other than
+     * the delimiter. If it is encoded as more than one byte, the remaining bytes are skipped as well.
+     */
+    private boolean skipWhitespace(final int c) throws IOException {
+        if (c < 0 || c == delimiter) {
+            return false;
+        }
+        if (whitespace[c]) {
+            return true;
+        }
+        if (!utf8 || c < 0xC0) {
+            return false;
+        }
+
+        final int length = c < 0xE0 ? 2 : 3;
+        if (!ensureAvailable(length - 1)) {
+            return false;
+        }
+
+        final int codePoint = decodeUtf8(c, position, length);
+        if (codePoint < 0 || !Character.isWhitespace(codePoint)) {
+            return false;
+        }
+
+        position += length - 1;
+        lastChar = buffer[position - 1] & 0xFF;
+        return true;
+    }
+
+    /**
+     * Decodes a two or three byte UTF-8 sequence, whose first byte has been read and whose remaining bytes start at the given position
+     * of the buffer.
+     *
+     * @return the code point, or -1 if the bytes are not a valid sequence of the given length
+     */
+    private int decodeUtf8(final int firstByte, final int offset, final int length) {
+        return decodeUtf8(firstByte, buffer, offset, length);
+    }
+
+    private static int decodeUtf8(final int firstByte, final byte[] bytes, final int offset, final int length) {
+        int codePoint;
+        if (length == 2 && (firstByte & 0xE0) == 0xC0) {
+            codePoint = firstByte & 0x1F;
+        } else if (length == 3 && (firstByte & 0xF0) == 0xE0) {
+            codePoint = firstByte & 0x0F;
+        } else {
+            return -1;
+        }
+
+        for (int i = 0; i < length - 1; i++) {
+            final int b = bytes[offset + i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                return -1;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+
+        // Overlong sequences are not valid, and are decoded as replacement characters
+        final int minCodePoint = length == 2 ? 0x80 : 0x800;
+        return codePoint < minCodePoint ? -1 : codePoint;
+    }
+
+    /**
+     * Removes trailing whitespace characters from the current token, including the delimiter if it was escaped.
+     */
+    private void trimTrailingWhitespace(final int tokenStart) {
+        int end = contentLength;
+        while (end > tokenStart) {
+            final int b = content[end - 1] & 0xFF;
+            if (whitespace[b]) {
+                end--;
+                continue;
+            }
+
+            if (utf8 && b >= 0x80) {
+                if (end - 2 >= tokenStart && isWhitespace(decodeUtf8(content[end - 2] & 0xFF, content, end - 1, 2))) {
+                    end -= 2;
+                    continue;
+                }
+                if (end - 3 >= tokenStart && isWhitespace(decodeUtf8(content[end - 3] & 0xFF, content, end - 2, 3))) {
+                    end -= 3;
+                    continue;
+                }
+            }
+
+            break;
+        }
+
+        contentLength = end;
+    }
+
+    private static boolean isWhitespace(final int codePoint) {
+        return codePoint >= 0 && Character.isWhitespace(codePoint);
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !ensureAvailable(1)) {
+            lastChar = END_OF_STREAM;
+            return END_OF_STREAM;
+        }
+
+        final int c = buffer[position++] & 0xFF;
+        if (c == CR || (c == LF && lastChar != CR)) {
+            lineNumber++;
+        }
+
+        lastChar = c;
+        return c;
+    }
+
+    private int lookAhead() throws IOException {
+        if (position == limit && !ensureAvailable(1)) {
+            return END_OF_STREAM;
+        }
+
+        return buffer[position] & 0xFF;
+    }
+
+    /**
+     * Appends the bytes from the current position up to the next byte that must be looked at on its own, without looking at each byte
+     * more than once.
+     */
+    private void appendPlainBytes(final boolean[] stop) {
+        final byte[] bytes = buffer;
+        final int end = limit;
+        int i = position;
+        while (i < end && !stop[bytes[i] & 0xFF]) {
+            i++;
+        }
+
+        final int length = i - position;
+        if (length > 0) {
+            ensureContentCapacity(length);
+            System.arraycopy(bytes, position, content, contentLength, length);
+            contentLength += length;
+            lastChar = bytes[i - 1] & 0xFF;
+            position = i;
+        }
+    }
+
+    private void append(final int c) {
+        ensureContentCapacity(1);
+        content[contentLength++] = (byte) c;
+    }
+
+    private void ensureContentCapacity(final int additional) {
+        if (contentLength + additional > content.length) {
+            content = Arrays.copyOf(content, Math.max(content.length * 2, contentLength + additional));
+        }
+    }
+
+    /**
+     * Ensures that at least the given number of bytes that have not been read yet are in the buffer, unless the end of the stream is reached.
+     */
+    private boolean ensureAvailable(final int count) throws IOException {
+        while (limit - position < count) {
+            if (endOfStream) {
+                return false;
+            }
+
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+
+            final int bytesRead = in.read(buffer, limit, buffer.length - limit);
+            if (bytesRead < 0) {
+                endOfStream = true;
+                return false;
+            }
+
+            limit += bytesRead;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
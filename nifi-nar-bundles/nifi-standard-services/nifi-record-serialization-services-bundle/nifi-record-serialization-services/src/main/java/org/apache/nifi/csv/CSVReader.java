@@ -67,6 +67,11 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     public static final AllowableValue JACKSON_CSV = new AllowableValue("jackson-csv", "Jackson CSV",
             "The CSV parser implementation from the Jackson Dataformats library.");
 
+    public static final AllowableValue BYTE_CSV = new AllowableValue("byte-csv", "Byte-Level CSV",
+            "A CSV parser that parses the raw bytes of the content and only decodes the fields that are needed, which is considerably faster "
+            + "for wide CSV files, especially when unknown fields are dropped. It parses the same formats as the Apache Commons CSV parser, but "
+            + "only for the UTF-8, US-ASCII, ISO-8859 and Windows-125x character sets and when the value separator, quote character, escape "
+            + "character and comment marker are ASCII characters. For any other configuration the Apache Commons CSV parser is used.");
 
     public static final PropertyDescriptor CSV_PARSER = new PropertyDescriptor.Builder()
             .name("csv-reader-csv-parser")
@@ -74,7 +79,7 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             .description("Specifies which parser to use to read CSV records. NOTE: Different parsers may support different subsets of functionality "
                     + "and may also exhibit different levels of performance.")
             .expressionLanguageSupported(ExpressionLanguageScope.NONE)
-            .allowableValues(APACHE_COMMONS_CSV, JACKSON_CSV)
+            .allowableValues(APACHE_COMMONS_CSV, JACKSON_CSV, BYTE_CSV)
             .defaultValue(APACHE_COMMONS_CSV.getValue())
             .required(true)
             .build();
@@ -156,6 +161,13 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             return new CSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
         } else if(JACKSON_CSV.getValue().equals(csvParser)) {
             return new JacksonCSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
+        } else if(BYTE_CSV.getValue().equals(csvParser)) {
+            if (ByteCSVRecordReader.isSupported(csvFormat, charSet)) {
+                return new ByteCSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
+            }
+
+            logger.debug("The byte-level CSV parser does not support the character set {} with the configured CSV format; using the Apache Commons CSV parser instead", new Object[] {charSet});
+            return new CSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
         } else {
             throw new IOException("Parser not supported");
         }
@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.ChoiceDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonStreamContext;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A RecordReader that populates Records directly from the tokens of a Jackson JsonParser, rather than first parsing each JSON object into a
+ * tree as {@link JsonTreeRowRecordReader} does. Values are converted according to the schema as they are read, and when unknown fields are dropped,
+ * the values of fields that are not in the schema are skipped without being parsed. The Records that are produced are the same as those of
+ * JsonTreeRowRecordReader, except that they do not keep the parsed JSON as their serialized form.
+ *
+ * The only values that are still parsed into a tree are JSON objects whose data type is a choice, because each of the possible record types has to
+ * be tried in turn.
+ */
+public class JsonStreamingRowRecordReader implements RecordReader {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ObjectMapper codec = new ObjectMapper();
+
+    private final ComponentLog logger;
+    private final RecordSchema schema;
+    private final JsonParser jsonParser;
+    private final Supplier<DateFormat> lazyDateFormat;
+    private final Supplier<DateFormat> lazyTimeFormat;
+    private final Supplier<DateFormat> lazyTimestampFormat;
+
+    private final boolean firstObjectPresent;
+    private boolean firstObjectConsumed = false;
+
+    public JsonStreamingRowRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema,
+                                        final String dateFormat, final String timeFormat, final String timestampFormat) throws IOException, MalformedRecordException {
+        this.logger = logger;
+        this.schema = schema;
+
+        final DateFormat df = dateFormat == null ? null : DataTypeUtils.getDateFormat(dateFormat);
+        final DateFormat tf = timeFormat == null ? null : DataTypeUtils.getDateFormat(timeFormat);
+        final DateFormat tsf = timestampFormat == null ? null : DataTypeUtils.getDateFormat(timestampFormat);
+
+        lazyDateFormat = () -> df;
+        lazyTimeFormat = () -> tf;
+        lazyTimestampFormat = () -> tsf;
+
+        try {
+            jsonParser = jsonFactory.createJsonParser(in);
+            jsonParser.setCodec(codec);
+
+            JsonToken token = jsonParser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = jsonParser.nextToken(); // advance to START_OBJECT token
+            }
+
+            firstObjectPresent = token == JsonToken.START_OBJECT; // could be END_ARRAY also
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        try {
+            if (!nextObject()) {
+                return null;
+            }
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+
+        // The parser is positioned at the start of the object, so its parsing context is that of the object
+        final JsonStreamContext outerContext = jsonParser.getParsingContext().getParent();
+        try {
+            return readRecord(jsonParser, schema, null, coerceTypes, dropUnknownFields);
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        } catch (final IOException e) {
+            throw e;
+        } catch (final Exception e) {
+            // Skip the rest of the object, so that the next Record can still be read
+            skipToContext(outerContext);
+
+            logger.debug("Failed to convert JSON Object into a Record object using schema {} due to {}", new Object[] {schema, e.toString(), e});
+            throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
+        }
+    }
+
+    private boolean nextObject() throws IOException, MalformedRecordException {
+        if (!firstObjectConsumed) {
+            firstObjectConsumed = true;
+            return firstObjectPresent;
+        }
+
+        while (true) {
+            final JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                return false;
+            }
+
+            switch (token) {
+                case START_OBJECT:
+                    return true;
+                case END_OBJECT:
+                case END_ARRAY:
+                case START_ARRAY:
+                    continue;
+
+                default:
+                    throw new MalformedRecordException("Expected to get a JSON Object but got a token of type " + token.name());
+            }
+        }
+    }
+
+    private void skipToContext(final JsonStreamContext context) throws IOException {
+        while (jsonParser.getParsingContext() != context) {
+            if (jsonParser.nextToken() == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the fields of the JSON object that the parser is positioned at the start of into a Record, leaving the parser positioned at the end of the object.
+     */
+    private Record readRecord(final JsonParser parser, final RecordSchema schema, final String fieldNamePrefix, final boolean coerceTypes, final boolean dropUnknown)
+            throws IOException {
+        final Map<String, Object> values = new HashMap<>(schema.getFieldCount() * 2);
+
+        // For fields that have aliases, the position of the name that the value was read from: the field name itself takes precedence over the aliases
+        Map<String, Integer> namePositions = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String jsonFieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            final RecordField recordField = schema.getField(jsonFieldName).orElse(null);
+
+            if (dropUnknown) {
+                if (recordField == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                final String fieldName = recordField.getFieldName();
+                if (!recordField.getAliases().isEmpty()) {
+                    if (namePositions == null) {
+                        namePositions = new HashMap<>();
+                    }
+
+                    final int namePosition = getNamePosition(recordField, jsonFieldName);
+                    final Integer previousNamePosition = namePositions.get(fieldName);
+                    if (previousNamePosition != null && previousNamePosition < namePosition) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    namePositions.put(fieldName, namePosition);
+                }
+
+                final Object value;
+                if (coerceTypes) {
+                    final String fullFieldName = fieldNamePrefix == null ? fieldName : fieldNamePrefix + fieldName;
+                    value = convertField(parser, token, fullFieldName, recordField.getDataType(), dropUnknown);
+                } else {
+                    value = getRawValue(parser, token, recordField.getDataType(), fieldName);
+                }
+
+                values.put(fieldName, value);
+            } else {
+                final Object value;
+                if (coerceTypes && recordField != null) {
+                    final String fullFieldName = fieldNamePrefix == null ? jsonFieldName : fieldNamePrefix + jsonFieldName;
+                    value = convertField(parser, token, fullFieldName, recordField.getDataType(), dropUnknown);
+                } else {
+                    value = getRawValue(parser, token, recordField == null ? null : recordField.getDataType(), jsonFieldName);
+                }
+
+                values.put(jsonFieldName, value);
+            }
+        }
+
+        return new MapRecord(schema, values, false, dropUnknown);
+    }
+
+    private static int getNamePosition(final RecordField recordField, final String name) {
+        if (recordField.getFieldName().equals(name)) {
+            return 0;
+        }
+
+        int position = 1;
+        for (final String alias : recordField.getAliases()) {
+            if (alias.equals(name)) {
+                return position;
+            }
+            position++;
+        }
+
+        return position;
+    }
+
+    private Object getRawValue(final JsonParser parser, final JsonToken token, final DataType dataType, final String fieldName) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_STRING: {
+                final String textValue = parser.getText();
+                if (dataType == null) {
+                    return textValue;
+                }
+
+                switch (dataType.getFieldType()) {
+                    case DATE:
+                    case TIME:
+                    case TIMESTAMP:
+                        try {
+                            return DataTypeUtils.convertType(textValue, dataType, lazyDateFormat, lazyTimeFormat, lazyTimestampFormat, fieldName);
+                        } catch (final Exception e) {
+                            return textValue;
+                        }
+                    default:
+                        return textValue;
+                }
+            }
+            case START_ARRAY: {
+                final DataType elementDataType;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.ARRAY) {
+                    elementDataType = ((ArrayDataType) dataType).getElementType();
+                } else {
+                    elementDataType = dataType;
+                }
+
+                final List<Object> elements = new ArrayList<>();
+                JsonToken elementToken;
+                while ((elementToken = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    elements.add(getRawValue(parser, elementToken, elementDataType, fieldName));
+                }
+
+                return elements.toArray();
+            }
+            case START_OBJECT:
+                return getRawObjectValue(parser, dataType, fieldName);
+            default:
+                parser.skipChildren();
+                return null;
+        }
+    }
+
+    private Object getRawObjectValue(final JsonParser parser, final DataType dataType, final String fieldName) throws IOException {
+        if (dataType != null && RecordFieldType.MAP == dataType.getFieldType()) {
+            final DataType valueType = ((MapDataType) dataType).getValueType();
+
+            final Map<String, Object> mapValue = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String elementName = parser.getCurrentName();
+                final JsonToken elementToken = parser.nextToken();
+                mapValue.put(elementName, getRawValue(parser, elementToken, valueType, fieldName + "['" + elementName + "']"));
+            }
+
+            return mapValue;
+        }
+
+        RecordSchema childSchema = null;
+        if (dataType != null && RecordFieldType.RECORD == dataType.getFieldType()) {
+            childSchema = ((RecordDataType) dataType).getChildSchema();
+        } else if (dataType != null && RecordFieldType.CHOICE == dataType.getFieldType()) {
+            final List<DataType> recordDataTypes = new ArrayList<>();
+            for (final DataType possibleDataType : ((ChoiceDataType) dataType).getPossibleSubTypes()) {
+                if (possibleDataType.getFieldType() == RecordFieldType.RECORD) {
+                    recordDataTypes.add(possibleDataType);
+                }
+            }
+
+            if (!recordDataTypes.isEmpty()) {
+                return getRawChoiceValue(parser.readValueAsTree(), recordDataTypes);
+            }
+        }
+
+        if (childSchema == null) {
+            childSchema = new SimpleRecordSchema(Collections.emptyList());
+        }
+
+        return readRawRecord(parser, childSchema);
+    }
+
+    private Object getRawChoiceValue(final JsonNode objectNode, final List<DataType> recordDataTypes) throws IOException {
+        // The object has to be read once for each of the possible record types, so it is read from a tree
+        for (final DataType recordDataType : recordDataTypes) {
+            final RecordSchema possibleSchema = ((RecordDataType) recordDataType).getChildSchema();
+
+            final Record possibleRecord = readRawRecord(traverse(objectNode), possibleSchema);
+            if (DataTypeUtils.isCompatibleDataType(possibleRecord, recordDataType)) {
+                return possibleRecord;
+            }
+        }
+
+        return readRawRecord(traverse(objectNode), new SimpleRecordSchema(Collections.emptyList()));
+    }
+
+    private static JsonParser traverse(final JsonNode node) throws IOException {
+        final JsonParser nodeParser = node.traverse();
+        nodeParser.setCodec(codec);
+        nodeParser.nextToken();
+        return nodeParser;
+    }
+
+    private Record readRawRecord(final JsonParser parser, final RecordSchema childSchema) throws IOException {
+        final Map<String, Object> childValues = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String childFieldName = parser.getCurrentName();
+            final JsonToken childToken = parser.nextToken();
+
+            final DataType childDataType = childSchema.getDataType(childFieldName).orElse(null);
+            childValues.put(childFieldName, getRawValue(parser, childToken, childDataType, childFieldName));
+        }
+
+        return new MapRecord(childSchema, childValues);
+    }
+
+    private Object convertField(final JsonParser parser, final JsonToken token, final String fieldName, final DataType desiredType, final boolean dropUnknown) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (desiredType.getFieldType()) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case DECIMAL:
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case LONG:
+            case SHORT:
+            case STRING:
+            case DATE:
+            case TIME:
+            case TIMESTAMP: {
+                final Object rawValue = getRawValue(parser, token, null, fieldName);
+                return DataTypeUtils.convertType(rawValue, desiredType, lazyDateFormat, lazyTimeFormat, lazyTimestampFormat, fieldName);
+            }
+            case MAP: {
+                final Map<String, Object> map = new HashMap<>();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    return map;
+                }
+
+                final DataType valueType = ((MapDataType) desiredType).getValueType();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childName = parser.getCurrentName();
+                    final JsonToken childToken = parser.nextToken();
+                    map.put(childName, convertField(parser, childToken, fieldName, valueType, dropUnknown));
+                }
+
+                return map;
+            }
+            case ARRAY: {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IllegalTypeConversionException("Cannot convert value of field " + fieldName + " to an array because it is not a JSON array");
+                }
+
+                final DataType elementType = ((ArrayDataType) desiredType).getElementType();
+                final List<Object> elements = new ArrayList<>();
+                JsonToken elementToken;
+                while ((elementToken = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    elements.add(convertField(parser, elementToken, fieldName, elementType, dropUnknown));
+                }
+
+                return elements.toArray();
+            }
+            case RECORD: {
+                if (token != JsonToken.START_OBJECT || !(desiredType instanceof RecordDataType)) {
+                    parser.skipChildren();
+                    return null;
+                }
+
+                final RecordSchema childSchema = ((RecordDataType) desiredType).getChildSchema();
+                if (childSchema == null) {
+                    return readStringRecord(parser, fieldName + ".", dropUnknown);
+                }
+
+                return readRecord(parser, childSchema, fieldName + ".", true, dropUnknown);
+            }
+            case CHOICE: {
+                return DataTypeUtils.convertType(getRawValue(parser, token, desiredType, fieldName), desiredType, fieldName);
+            }
+        }
+
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Reads the JSON object that the parser is positioned at the start of into a Record whose fields are all strings, for a record type that has no schema.
+     */
+    private Record readStringRecord(final JsonParser parser, final String fieldNamePrefix, final boolean dropUnknown) throws IOException {
+        final DataType stringDataType = RecordFieldType.STRING.getDataType();
+
+        final Map<String, Object> values = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            values.put(fieldName, convertField(parser, token, fieldNamePrefix + fieldName, stringDataType, dropUnknown));
+        }
+
+        final List<RecordField> fields = new ArrayList<>(values.size());
+        for (final String fieldName : values.keySet()) {
+            fields.add(new RecordField(fieldName, stringDataType));
+        }
+
+        return new MapRecord(new SimpleRecordSchema(fields), values, false, dropUnknown);
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonParser.close();
+    }
+}
@@ -62,9 +62,27 @@ import static org.apache.nifi.schema.inference.SchemaInferenceUtil.SCHEMA_CACHE;
 @SeeAlso(JsonPathReader.class)
 public class JsonTreeReader extends SchemaRegistryService implements RecordReaderFactory {
 
+    static final AllowableValue TREE_PARSING = new AllowableValue("tree", "Tree",
+        "Each JSON object is parsed into a tree before it is converted into a Record. The parsed JSON is kept with the Record, so that a JSON Record Writer "
+            + "can write the Record out as it was read if its schema is unchanged.");
+    static final AllowableValue STREAMING_PARSING = new AllowableValue("streaming", "Streaming",
+        "Records are populated directly from the JSON as it is parsed, and fields that are not in the schema are skipped without being parsed into memory. "
+            + "This is faster and uses less memory, especially for JSON objects with many fields that are not in the schema, but the Records do not keep the "
+            + "parsed JSON, so a JSON Record Writer always serializes them again.");
+
+    static final PropertyDescriptor PARSING_STRATEGY = new PropertyDescriptor.Builder()
+        .name("json-parsing-strategy")
+        .displayName("Parsing Strategy")
+        .description("Specifies how the JSON is parsed into Records. Both strategies produce the same Records.")
+        .allowableValues(TREE_PARSING, STREAMING_PARSING)
+        .defaultValue(TREE_PARSING.getValue())
+        .required(true)
+        .build();
+
     private volatile String dateFormat;
     private volatile String timeFormat;
     private volatile String timestampFormat;
+    private volatile boolean streamingParsing;
 
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
@@ -73,6 +91,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
+        properties.add(PARSING_STRATEGY);
         return properties;
     }
 
@@ -81,6 +100,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         this.dateFormat = context.getProperty(DateTimeUtils.DATE_FORMAT).getValue();
         this.timeFormat = context.getProperty(DateTimeUtils.TIME_FORMAT).getValue();
         this.timestampFormat = context.getProperty(DateTimeUtils.TIMESTAMP_FORMAT).getValue();
+        this.streamingParsing = STREAMING_PARSING.getValue().equals(context.getProperty(PARSING_STRATEGY).getValue());
     }
 
     @Override
@@ -108,6 +128,9 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final long inputLength, final ComponentLog logger)
             throws IOException, MalformedRecordException, SchemaNotFoundException {
         final RecordSchema schema = getSchema(variables, in, null);
+        if (streamingParsing) {
+            return new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+        }
         return new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
     }
 }
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestByteCSVRecordReader {
+
+    private static final String[] BANK_ACCOUNT_FIELDS = {"id", "name", "balance", "address", "city", "state", "zipCode", "country"};
+
+    private static final List<CSVFormat> FORMATS = Arrays.asList(
+        CSVFormat.DEFAULT,
+        CSVFormat.DEFAULT.withTrim(),
+        CSVFormat.EXCEL,
+        CSVFormat.RFC4180,
+        CSVFormat.TDF,
+        CSVFormat.MYSQL,
+        CSVFormat.INFORMIX_UNLOAD,
+        CSVFormat.DEFAULT.withDelimiter('\u0001'),
+        CSVFormat.DEFAULT.withTrim().withNullString("USA"),
+        CSVFormat.DEFAULT.withCommentMarker('#'),
+        CSVFormat.DEFAULT.withIgnoreSurroundingSpaces(),
+        CSVFormat.DEFAULT.withTrailingDelimiter(),
+        CSVFormat.DEFAULT.withEscape('\\'),
+        CSVFormat.DEFAULT.withIgnoreHeaderCase().withAllowMissingColumnNames());
+
+    private static RecordSchema createSchema(final String[] fieldNames, final DataType... dataTypes) {
+        final List<RecordField> fields = new ArrayList<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            final DataType dataType = i < dataTypes.length ? dataTypes[i] : RecordFieldType.STRING.getDataType();
+            fields.add(new RecordField(fieldNames[i], dataType));
+        }
+        return new SimpleRecordSchema(fields);
+    }
+
+    private static List<RecordSchema> createSchemas(final String[] fieldNames) {
+        final RecordSchema stringSchema = createSchema(fieldNames);
+        final RecordSchema typedSchema = createSchema(fieldNames, RecordFieldType.INT.getDataType(), RecordFieldType.STRING.getDataType(),
+            RecordFieldType.DOUBLE.getDataType(), RecordFieldType.STRING.getDataType(), RecordFieldType.STRING.getDataType(),
+            RecordFieldType.STRING.getDataType(), RecordFieldType.LONG.getDataType());
+        final RecordSchema partialSchema = createSchema(new String[] {fieldNames[0], fieldNames[2]}, RecordFieldType.LONG.getDataType(), RecordFieldType.DOUBLE.getDataType());
+        return Arrays.asList(stringSchema, typedSchema, partialSchema);
+    }
+
+    private static CSVRecordReader createCommonsReader(final byte[] content, final RecordSchema schema, final CSVFormat format, final boolean hasHeader,
+                                                       final boolean ignoreHeader, final String encoding) throws IOException {
+        return new CSVRecordReader(new ByteArrayInputStream(content), Mockito.mock(ComponentLog.class), schema, format, hasHeader, ignoreHeader,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), encoding);
+    }
+
+    private static ByteCSVRecordReader createByteReader(final byte[] content, final RecordSchema schema, final CSVFormat format, final boolean hasHeader,
+                                                        final boolean ignoreHeader, final String encoding) throws IOException {
+        return new ByteCSVRecordReader(new ByteArrayInputStream(content), Mockito.mock(ComponentLog.class), schema, format, hasHeader, ignoreHeader,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), encoding);
+    }
+
+    /**
+     * Reads the content with both the Apache Commons CSV reader and the byte-level reader, and verifies that they return the same records
+     * and fail on the same records.
+     */
+    private static void assertSameRecords(final byte[] content, final RecordSchema schema, final CSVFormat format, final String encoding) throws IOException {
+        for (final boolean[] header : new boolean[][] {{true, false}, {true, true}, {false, false}}) {
+            for (final boolean coerceTypes : new boolean[] {true, false}) {
+                for (final boolean dropUnknownFields : new boolean[] {true, false}) {
+                    final String description = "format " + format + ", schema " + schema + ", header " + Arrays.toString(header)
+                        + ", coerce " + coerceTypes + ", drop " + dropUnknownFields;
+                    assertSameRecords(content, schema, format, header[0], header[1], encoding, coerceTypes, dropUnknownFields, description);
+                }
+            }
+        }
+    }
+
+    private static void assertSameRecords(final byte[] content, final RecordSchema schema, final CSVFormat format, final boolean hasHeader, final boolean ignoreHeader,
+                                          final String encoding, final boolean coerceTypes, final boolean dropUnknownFields, final String description) throws IOException {
+        final CSVRecordReader expectedReader;
+        try {
+            expectedReader = createCommonsReader(content, schema, format, hasHeader, ignoreHeader, encoding);
+        } catch (final IllegalArgumentException e) {
+            try {
+                createByteReader(content, schema, format, hasHeader, ignoreHeader, encoding);
+                fail("Expected the header to be rejected for " + description);
+            } catch (final IllegalArgumentException expected) {
+                // Both readers reject the header
+            }
+            return;
+        }
+
+        try (final CSVRecordReader commonsReader = expectedReader;
+             final ByteCSVRecordReader byteReader = createByteReader(content, schema, format, hasHeader, ignoreHeader, encoding)) {
+
+            int recordIndex = 0;
+            while (true) {
+                final Record expected;
+                try {
+                    expected = commonsReader.nextRecord(coerceTypes, dropUnknownFields);
+                } catch (final MalformedRecordException e) {
+                    try {
+                        byteReader.nextRecord(coerceTypes, dropUnknownFields);
+                        fail("Expected record " + recordIndex + " to be malformed for " + description);
+                    } catch (final MalformedRecordException expectedException) {
+                        // Both readers fail on the same record
+                    }
+                    return;
+                }
+
+                final Record actual;
+                try {
+                    actual = byteReader.nextRecord(coerceTypes, dropUnknownFields);
+                } catch (final MalformedRecordException e) {
+                    throw new AssertionError("Record " + recordIndex + " is malformed for " + description, e);
+                }
+
+                if (expected == null) {
+                    assertNull("Unexpected record " + recordIndex + " for " + description, actual);
+                    return;
+                }
+
+                assertNotNull("Missing record " + recordIndex + " for " + description, actual);
+                for (final RecordField field : schema.getFields()) {
+                    assertEquals("Field " + field.getFieldName() + " of record " + recordIndex + " for " + description,
+                        expected.getValue(field), actual.getValue(field));
+                }
+
+                if (!dropUnknownFields) {
+                    assertEquals("Fields of record " + recordIndex + " for " + description, expected.getRawFieldNames(), actual.getRawFieldNames());
+                    for (final String fieldName : expected.getRawFieldNames()) {
+                        assertEquals("Field " + fieldName + " of record " + recordIndex + " for " + description, expected.getValue(fieldName), actual.getValue(fieldName));
+                    }
+                }
+
+                recordIndex++;
+            }
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsCommonsReader() throws IOException {
+        final String[] resources = {"single-bank-account.csv", "multi-bank-account.csv", "multi-bank-account_escapedchar.csv", "extra-white-space.csv"};
+
+        for (final String resource : resources) {
+            final byte[] content = Files.readAllBytes(Paths.get("src/test/resources/csv/" + resource));
+            for (final CSVFormat format : FORMATS) {
+                for (final RecordSchema schema : createSchemas(BANK_ACCOUNT_FIELDS)) {
+                    assertSameRecords(content, schema, format, "UTF-8");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsCommonsReaderForWideFile() throws IOException {
+        final byte[] content = Files.readAllBytes(Paths.get("src/test/resources/csv/prov-events.csv"));
+        final String headerLine = new String(content, StandardCharsets.UTF_8).split("\n")[0];
+        final String[] fieldNames = Arrays.stream(headerLine.split(",")).map(String::trim).toArray(String[]::new);
+
+        for (final CSVFormat format : Arrays.asList(CSVFormat.DEFAULT, CSVFormat.DEFAULT.withTrim(), CSVFormat.DEFAULT.withIgnoreSurroundingSpaces())) {
+            for (final RecordSchema schema : createSchemas(fieldNames)) {
+                assertSameRecords(content, schema, format, "UTF-8");
+            }
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsCommonsReaderForEdgeCases() throws IOException {
+        final String[] contents = {
+            "",
+            "id,name,balance\n",
+            "id,name,balance",
+            "id,name,balance\r\n1,John,4.5\r\n2,Jane,-3\r\n",
+            "id,name,balance\r1,John,4.5\r2,Jane,-3",
+            "id,name,balance\n1,John,4.5,extra,columns\n2\n\n\n3,,\n",
+            "id,name,balance\n1,\"Doe, John\",\"4.5\"\n2,\"Jane \"\"JD\"\" Doe\",+7\n3,\"multi\nline\r\nvalue\",007\n",
+            "id,name,balance\n1,\"quoted\"  ,1e3\n2,  \"spaced\" ,.5\n3,unquoted  ,5.\n",
+            "id,name,balance\n1,John,4.5,\n2,Jane,3,\n",
+            "\uFEFFid,name,balance\n1,J\u00F6hn,12345678901234567890\n2,\u3000Jane ,123456789012345678\n",
+            "id,name,balance\n#comment,line\n1,John,0.1\n#another\r\n2,Jane,99999999999999999\n#last",
+            "id,name,balance\n1,esc\\,aped,\\N\n2,back\\\\slash\\n,\\t3\n3,\\x,NaN\n",
+            "id,id,balance\n1,2,3\n",
+            "id,,ID\n1,2,3\n",
+            "id,name,balance\n1,USA,2147483648\n2,,-2147483648\n3, , -0\n",
+            "id\tname\tbalance\n1\t John \t 2.5 \n2\t\"Jane\" \t3\n",
+            "id,name,balance\n1,\"unterminated,5\n2,Jane,3\n",
+            "id,name,balance\n1,\"closed\"x,5\n2,Jane,3\n",
+            "id,name,balance\n1,abc,5\\",
+            "id,name,balance\n1,John,4.5\n,,\n \n",
+        };
+
+        final List<CSVFormat> formats = new ArrayList<>(FORMATS);
+        formats.add(CSVFormat.DEFAULT.withNullString("").withIgnoreEmptyLines(false));
+        formats.add(CSVFormat.DEFAULT.withAllowDuplicateHeaderNames(false));
+
+        final String[] fieldNames = {"id", "name", "balance"};
+        for (final String content : contents) {
+            for (final CSVFormat format : formats) {
+                for (final RecordSchema schema : createSchemas(fieldNames)) {
+                    for (final String encoding : new String[] {"UTF-8", "ISO-8859-1"}) {
+                        assertSameRecords(content.getBytes(StandardCharsets.UTF_8), schema, format, encoding);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsColumnsNotInSchema() throws IOException, MalformedRecordException {
+        final RecordSchema schema = createSchema(new String[] {"id", "balance"}, RecordFieldType.INT.getDataType(), RecordFieldType.DOUBLE.getDataType());
+        final byte[] content = "id,name,balance,country\n1,John Doe,4750.89,USA\n".getBytes(StandardCharsets.UTF_8);
+
+        try (final ByteCSVRecordReader reader = createByteReader(content, schema, CSVFormat.DEFAULT, true, false, "UTF-8")) {
+            final Record record = reader.nextRecord(true, true);
+            assertEquals(new HashSet<>(Arrays.asList("id", "balance")), record.getRawFieldNames());
+            assertEquals(1, record.getValue("id"));
+            assertEquals(4750.89D, record.getValue("balance"));
+            assertNull(reader.nextRecord(true, true));
+        }
+
+        try (final ByteCSVRecordReader reader = createByteReader(content, schema, CSVFormat.DEFAULT, true, false, "UTF-8")) {
+            final Record record = reader.nextRecord(true, false);
+            assertEquals(4, record.getRawFieldNames().size());
+            assertEquals("John Doe", record.getValue("name"));
+            assertEquals("USA", record.getValue("country"));
+        }
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertTrue(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT, "UTF-8"));
+        assertTrue(ByteCSVRecordReader.isSupported(CSVFormat.TDF, "ISO-8859-1"));
+        assertTrue(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT, "windows-1252"));
+        assertFalse(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT, "UTF-16"));
+        assertFalse(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT, "Shift_JIS"));
+        assertFalse(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT, "no-such-charset"));
+        assertFalse(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT.withDelimiter('\u00A7'), "UTF-8"));
+        assertFalse(ByteCSVRecordReader.isSupported(CSVFormat.DEFAULT.withQuote('\u00AB'), "UTF-8"));
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to compare the performance of the byte-level and Apache Commons CSV readers")
+    public void testPerformanceAgainstCommonsReader() throws IOException, MalformedRecordException {
+        final int columnCount = 100;
+        final int rowCount = 200_000;
+
+        final String[] fieldNames = new String[columnCount];
+        final List<RecordField> allFields = new ArrayList<>();
+        final List<RecordField> someFields = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            fieldNames[i] = "column" + i;
+            final DataType dataType = i % 3 == 0 ? RecordFieldType.STRING.getDataType() : (i % 3 == 1 ? RecordFieldType.LONG.getDataType() : RecordFieldType.DOUBLE.getDataType());
+            final RecordField field = new RecordField(fieldNames[i], dataType);
+            allFields.add(field);
+            if (i % 10 == 0) {
+                someFields.add(field);
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder(String.join(",", fieldNames)).append("\n");
+        for (int row = 0; row < rowCount; row++) {
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                if (i % 3 == 0) {
+                    sb.append("value ").append(row);
+                } else if (i % 3 == 1) {
+                    sb.append(row * 31L + i);
+                } else {
+                    sb.append(row).append('.').append(i);
+                }
+            }
+            sb.append('\n');
+        }
+        final byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (final RecordSchema schema : Arrays.asList(new SimpleRecordSchema(allFields), new SimpleRecordSchema(someFields))) {
+            for (int iteration = 0; iteration < 3; iteration++) {
+                long start = System.nanoTime();
+                int recordCount = 0;
+                try (final CSVRecordReader reader = createCommonsReader(content, schema, CSVFormat.DEFAULT, true, false, "UTF-8")) {
+                    while (reader.nextRecord(true, true) != null) {
+                        recordCount++;
+                    }
+                }
+                System.out.println("Commons reader took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " millis to read " + recordCount
+                    + " records with " + schema.getFieldCount() + " fields");
+
+                start = System.nanoTime();
+                recordCount = 0;
+                try (final ByteCSVRecordReader reader = createByteReader(content, schema, CSVFormat.DEFAULT, true, false, "UTF-8")) {
+                    while (reader.nextRecord(true, true) != null) {
+                        recordCount++;
+                    }
+                }
+                System.out.println("Byte-level reader took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " millis to read " + recordCount
+                    + " records with " + schema.getFieldCount() + " fields");
+            }
+        }
+    }
+}
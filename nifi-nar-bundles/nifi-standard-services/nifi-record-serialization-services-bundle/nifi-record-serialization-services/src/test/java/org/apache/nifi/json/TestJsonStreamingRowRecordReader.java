@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.avro.Schema;
+import org.apache.nifi.avro.AvroTypeUtil;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.schema.inference.InferSchemaAccessStrategy;
+import org.apache.nifi.schema.inference.TimeValueInference;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestJsonStreamingRowRecordReader {
+    private final String dateFormat = RecordFieldType.DATE.getDefaultFormat();
+    private final String timeFormat = RecordFieldType.TIME.getDefaultFormat();
+    private final String timestampFormat = RecordFieldType.TIMESTAMP.getDefaultFormat();
+
+    private final TimeValueInference timeValueInference = new TimeValueInference(dateFormat, timeFormat, timestampFormat);
+
+    private static final List<String> JSON_FILES = Arrays.asList(
+        "bank-account-array.json",
+        "bank-account-array-different-schemas.json",
+        "bank-account-array-optional-balance.json",
+        "bank-account-mixed.json",
+        "bank-account-multiarray.json",
+        "bank-account-multiline.json",
+        "bank-account-oneline.json",
+        "data-types.json",
+        "docs-example.json",
+        "elements-for-record-choice.json",
+        "json-with-unicode.json",
+        "prov-events.json",
+        "single-bank-account.json",
+        "single-bank-account-wrong-field-type.json",
+        "single-element-nested.json",
+        "single-element-nested-array.json",
+        "timestamp.json");
+
+    // JSON that cannot be parsed, after zero or more objects that can
+    private static final List<String> MALFORMED_JSON = Arrays.asList(
+        "[{\"id\": 1, \"name\": \"John Doe\",, \"balance\": 4750.89}]",
+        "[{\"id\": 1, \"name\": \"John Doe\"}, {\"id\": 2, \"name\": }]",
+        "{\"id\": 1, \"name\": \"John Doe\"}\n{\"id\": 2 \"name\": \"Jane Doe\"}",
+        "[{\"id\": 1, \"name\": \"John Doe\"}, {\"id\": 2, \"name\": \"Jane Doe\", \"balance\": 48212");
+
+    private RecordSchema getBankAccountSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private RecordSchema inferSchema(final File file) throws IOException {
+        try (final InputStream in = new FileInputStream(file);
+             final InputStream bufferedIn = new BufferedInputStream(in)) {
+
+            final InferSchemaAccessStrategy<?> accessStrategy = new InferSchemaAccessStrategy<>(
+                (var, content) -> new JsonRecordSource(content),
+                new JsonSchemaInference(timeValueInference), Mockito.mock(ComponentLog.class));
+            return accessStrategy.getSchema(null, bufferedIn, null);
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsTreeReader() throws IOException, MalformedRecordException {
+        final Schema avroSchema = new Schema.Parser().parse(new File("src/test/resources/json/record-choice.avsc"));
+        final RecordSchema choiceSchema = AvroTypeUtil.createSchema(avroSchema);
+
+        for (final String jsonFile : JSON_FILES) {
+            final File file = new File("src/test/resources/json/" + jsonFile);
+            final byte[] json = Files.readAllBytes(file.toPath());
+
+            final List<RecordSchema> schemas = Arrays.asList(inferSchema(file), getBankAccountSchema(), choiceSchema, new SimpleRecordSchema(Collections.emptyList()));
+            for (final RecordSchema schema : schemas) {
+                for (final boolean coerceTypes : new boolean[] {true, false}) {
+                    for (final boolean dropUnknownFields : new boolean[] {true, false}) {
+                        final String description = jsonFile + " with schema " + schema + ", coerceTypes=" + coerceTypes + ", dropUnknownFields=" + dropUnknownFields;
+
+                        try (final RecordReader treeReader = new JsonTreeRowRecordReader(new ByteArrayInputStream(json), Mockito.mock(ComponentLog.class),
+                                    schema, dateFormat, timeFormat, timestampFormat);
+                             final RecordReader streamingReader = new JsonStreamingRowRecordReader(new ByteArrayInputStream(json), Mockito.mock(ComponentLog.class),
+                                    schema, dateFormat, timeFormat, timestampFormat)) {
+
+                            assertSameRecords(description, treeReader, streamingReader, coerceTypes, dropUnknownFields);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (final String malformedJson : MALFORMED_JSON) {
+            final byte[] json = malformedJson.getBytes(StandardCharsets.UTF_8);
+
+            for (final RecordSchema schema : Arrays.asList(getBankAccountSchema(), new SimpleRecordSchema(Collections.emptyList()))) {
+                for (final boolean coerceTypes : new boolean[] {true, false}) {
+                    for (final boolean dropUnknownFields : new boolean[] {true, false}) {
+                        final String description = malformedJson + " with schema " + schema + ", coerceTypes=" + coerceTypes + ", dropUnknownFields=" + dropUnknownFields;
+                        assertSameRecordsBeforeMalformedJson(description, json, schema, coerceTypes, dropUnknownFields);
+                    }
+                }
+            }
+        }
+    }
+
+    private void assertSameRecordsBeforeMalformedJson(final String description, final byte[] json, final RecordSchema schema, final boolean coerceTypes,
+                                                      final boolean dropUnknownFields) throws IOException {
+        // The tree reader parses the first object when it is created, and does not wrap a parse failure of any later object
+        final List<Object> expected = new ArrayList<>();
+        try (final RecordReader treeReader = new JsonTreeRowRecordReader(new ByteArrayInputStream(json), Mockito.mock(ComponentLog.class),
+                schema, dateFormat, timeFormat, timestampFormat)) {
+            Record record;
+            while ((record = treeReader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+                expected.add(toComparable(record));
+            }
+            fail("Expected the tree reader to fail for " + description);
+        } catch (final MalformedRecordException | IOException e) {
+            // the tree reader failed on the malformed JSON
+        }
+
+        final List<Object> actual = new ArrayList<>();
+        try (final RecordReader streamingReader = new JsonStreamingRowRecordReader(new ByteArrayInputStream(json), Mockito.mock(ComponentLog.class),
+                schema, dateFormat, timeFormat, timestampFormat)) {
+            Record record;
+            while ((record = streamingReader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+                actual.add(toComparable(record));
+            }
+            fail("Expected a MalformedRecordException for " + description);
+        } catch (final MalformedRecordException e) {
+            assertEquals(description, "Could not parse data as JSON", e.getMessage());
+        }
+
+        assertEquals(description, expected, actual);
+    }
+
+    private void assertSameRecords(final String description, final RecordReader expectedReader, final RecordReader actualReader, final boolean coerceTypes,
+                                   final boolean dropUnknownFields) throws IOException {
+        while (true) {
+            Record expected;
+            try {
+                expected = expectedReader.nextRecord(coerceTypes, dropUnknownFields);
+            } catch (final MalformedRecordException e) {
+                try {
+                    actualReader.nextRecord(coerceTypes, dropUnknownFields);
+                    fail("Expected a MalformedRecordException for " + description);
+                } catch (final MalformedRecordException expectedException) {
+                    // both readers failed on the same record
+                }
+                continue;
+            }
+
+            final Record actual;
+            try {
+                actual = actualReader.nextRecord(coerceTypes, dropUnknownFields);
+            } catch (final MalformedRecordException e) {
+                throw new AssertionError("Failed to read record for " + description, e);
+            }
+
+            if (expected == null) {
+                assertNull(description, actual);
+                return;
+            }
+
+            assertNotNull(description, actual);
+            assertEquals(description, toComparable(expected), toComparable(actual));
+        }
+    }
+
+    private static Object toComparable(final Object value) {
+        if (value instanceof Record) {
+            final Record record = (Record) value;
+            final Map<String, Object> comparable = new HashMap<>();
+            comparable.put("schema", record.getSchema().getFieldNames());
+            for (final Map.Entry<String, Object> entry : record.toMap().entrySet()) {
+                comparable.put(entry.getKey(), toComparable(entry.getValue()));
+            }
+            return comparable;
+        }
+
+        if (value instanceof Object[]) {
+            final List<Object> comparable = new ArrayList<>();
+            for (final Object element : (Object[]) value) {
+                comparable.add(toComparable(element));
+            }
+            return comparable;
+        }
+
+        if (value instanceof Map) {
+            final Map<Object, Object> comparable = new HashMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                comparable.put(entry.getKey(), toComparable(entry.getValue()));
+            }
+            return comparable;
+        }
+
+        return value;
+    }
+
+    @Test
+    public void testSkipsFieldsNotInSchema() throws IOException, MalformedRecordException {
+        final String json = "[{\"id\": 1, \"ignored\": {\"a\": [1, {\"b\": \"c\"}], \"name\": \"wrong\"}, \"tags\": [\"x\", [\"y\"]], \"name\": \"John\"},"
+            + "{\"name\": \"Jane\", \"ignored\": [{\"id\": 3}], \"id\": 2}]";
+
+        try (final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, Mockito.mock(ComponentLog.class), getBankAccountSchema(),
+                     dateFormat, timeFormat, timestampFormat)) {
+
+            final Record firstRecord = reader.nextRecord(true, true);
+            assertEquals(1, firstRecord.getValue("id"));
+            assertEquals("John", firstRecord.getValue("name"));
+            assertEquals(2, firstRecord.toMap().size());
+
+            final Record secondRecord = reader.nextRecord(true, true);
+            assertEquals(2, secondRecord.getValue("id"));
+            assertEquals("Jane", secondRecord.getValue("name"));
+            assertEquals(2, secondRecord.toMap().size());
+
+            assertNull(reader.nextRecord(true, true));
+        }
+    }
+
+    @Test
+    public void testFieldNameTakesPrecedenceOverAlias() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType(), Collections.singleton("key")));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String json = "{\"key\": 3, \"id\": 1}\n{\"id\": 2, \"key\": 3}\n{\"key\": 3}";
+
+        try (final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, Mockito.mock(ComponentLog.class), schema,
+                     dateFormat, timeFormat, timestampFormat)) {
+
+            assertEquals(1, reader.nextRecord(true, true).getValue("id"));
+            assertEquals(2, reader.nextRecord(true, true).getValue("id"));
+            assertEquals(3, reader.nextRecord(true, true).getValue("id"));
+            assertNull(reader.nextRecord(true, true));
+        }
+    }
+
+    @Test
+    public void testReadsNextRecordAfterMalformedRecord() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("values", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.INT.getDataType())));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String json = "[{\"values\": [1, \"two\", 3], \"other\": {\"id\": 5}, \"id\": 1}, {\"id\": 2, \"values\": [4]}]";
+
+        try (final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, Mockito.mock(ComponentLog.class), schema,
+                     dateFormat, timeFormat, timestampFormat)) {
+
+            try {
+                reader.nextRecord();
+                fail("Was able to read record with invalid array element");
+            } catch (final MalformedRecordException mre) {
+                assertTrue(mre.getCause() instanceof NumberFormatException);
+            }
+
+            final Record record = reader.nextRecord();
+            assertEquals(2, record.getValue("id"));
+            assertArrayEquals(new Object[] {4}, (Object[]) record.getValue("values"));
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to compare the performance of the streaming and tree readers")
+    public void testPerformanceAgainstTreeReader() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            fields.add(new RecordField("field" + (i * 40), RecordFieldType.STRING.getDataType()));
+        }
+        fields.add(new RecordField("nested", RecordFieldType.RECORD.getRecordDataType(new SimpleRecordSchema(Collections.singletonList(
+            new RecordField("value", RecordFieldType.LONG.getDataType()))))));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final byte[] wideJson = createJson(200, 0);
+        final byte[] nestedJson = createJson(5, 20);
+
+        for (final boolean dropUnknownFields : new boolean[] {true, false}) {
+            for (int j = 0; j < 5; j++) {
+                System.out.println("Wide documents, dropUnknownFields=" + dropUnknownFields);
+                measure(wideJson, schema, dropUnknownFields);
+                System.out.println("Nested documents, dropUnknownFields=" + dropUnknownFields);
+                measure(nestedJson, schema, dropUnknownFields);
+            }
+        }
+    }
+
+    private byte[] createJson(final int fieldCount, final int nestingDepth) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int recordIndex = 0; recordIndex < 10_000; recordIndex++) {
+            if (recordIndex > 0) {
+                sb.append(",");
+            }
+
+            sb.append("{");
+            for (int i = 0; i < fieldCount; i++) {
+                sb.append("\"field").append(i).append("\": \"value ").append(i).append("\", ");
+            }
+
+            for (int i = 0; i < nestingDepth; i++) {
+                sb.append("\"unknown").append(i).append("\": {\"values\": [1, 2.5, true, null, \"text\"], ");
+            }
+            for (int i = 0; i < nestingDepth; i++) {
+                sb.append("\"end\": ").append(i).append("}, ");
+            }
+
+            sb.append("\"nested\": {\"value\": ").append(recordIndex).append("}}");
+        }
+        sb.append("]");
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void measure(final byte[] json, final RecordSchema schema, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        final ComponentLog logger = Mockito.mock(ComponentLog.class);
+
+        long start = System.nanoTime();
+        int recordCount = 0;
+        try (final RecordReader reader = new JsonTreeRowRecordReader(new ByteArrayInputStream(json), logger, schema, dateFormat, timeFormat, timestampFormat)) {
+            while (reader.nextRecord(true, dropUnknownFields) != null) {
+                recordCount++;
+            }
+        }
+        System.out.println("Tree reader took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " millis to read " + recordCount + " records");
+
+        start = System.nanoTime();
+        recordCount = 0;
+        try (final RecordReader reader = new JsonStreamingRowRecordReader(new ByteArrayInputStream(json), logger, schema, dateFormat, timeFormat, timestampFormat)) {
+            while (reader.nextRecord(true, dropUnknownFields) != null) {
+                recordCount++;
+            }
+        }
+        System.out.println("Streaming reader took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " millis to read " + recordCount + " records");
+    }
+}